@@ -0,0 +1,260 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven;
+
+import hudson.remoting.ClassFilter;
+import hudson.remoting.ObjectInputStreamEx;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Execution events of a {@link MavenSpyLogModel} kept on disk rather than in memory for the Maven Spy reports
+ * exceeding the memory budget: the events are serialized one after the other in a file written next to the report on
+ * the build agent and only their positions, indexed by type and by plugin goal, are sent to the controller.
+ * <p>
+ * The file is read on demand once {@link #attach(File) attached} to a local copy.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ * @see MavenSpyLogParser.ParseCallable
+ */
+class ExecutionEventsSpillFile implements Serializable, Closeable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Path of the spill file on the build agent
+     */
+    @Nonnull
+    final String remotePath;
+
+    private final Map<String, Positions> positionsByType = new HashMap<>();
+
+    private final Map<String, Positions> positionsByPlugin = new HashMap<>();
+
+    private long size;
+
+    private transient DataOutputStream out;
+
+    @CheckForNull
+    private transient File localFile;
+
+    @CheckForNull
+    private transient RandomAccessFile in;
+
+    ExecutionEventsSpillFile(@Nonnull File file) throws IOException {
+        this.remotePath = file.getPath();
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    }
+
+    /**
+     * Append the event to the spill file, invoked on the build agent
+     */
+    void write(@Nonnull MavenSpyLogModel.ExecutionEvent executionEvent) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(buffer)) {
+            objectOut.writeObject(executionEvent);
+        }
+        long position = size;
+        out.writeInt(buffer.size());
+        buffer.writeTo(out);
+        size += 4 + buffer.size();
+
+        positionsByType.computeIfAbsent(executionEvent.getType(), type -> new Positions()).add(position);
+        MavenSpyLogModel.PluginExecution plugin = executionEvent.getPlugin();
+        if (plugin != null) {
+            positionsByPlugin.computeIfAbsent(MavenSpyLogModel.pluginKey(plugin.getGroupId(), plugin.getArtifactId(), plugin.getGoal()), goal -> new Positions()).add(position);
+        }
+    }
+
+    /**
+     * Complete the writing of the spill file on the build agent
+     */
+    void flush() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    /**
+     * @return size of the spill file in bytes
+     */
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * @param localFile spill file copied on the controller (or the spill file itself if the report has been parsed on the controller)
+     */
+    synchronized void attach(@Nonnull File localFile) {
+        this.localFile = localFile;
+    }
+
+    /**
+     * @see MavenSpyLogModel#getExecutionEvents(String...)
+     */
+    @Nonnull
+    List<MavenSpyLogModel.ExecutionEvent> getExecutionEvents(@Nonnull String... types) {
+        return read(getPositions(types));
+    }
+
+    /**
+     * @see MavenSpyLogModel#forEachExecutionEvent(Consumer, String...)
+     */
+    void forEachExecutionEvent(@Nonnull Consumer<MavenSpyLogModel.ExecutionEvent> consumer, @Nonnull String... types) {
+        Positions positions = getPositions(types);
+        for (int i = 0; i < positions.size; i++) {
+            consumer.accept(read(positions.values[i]));
+        }
+    }
+
+    /**
+     * @return the positions of the events of the given types in the order of the report
+     */
+    @Nonnull
+    private Positions getPositions(@Nonnull String... types) {
+        Positions positions = new Positions();
+        for (String type : new HashSet<>(Arrays.asList(types))) {
+            positions.addAll(positionsByType.get(type));
+        }
+        // the positions follow the order of the report
+        Arrays.sort(positions.values, 0, positions.size);
+        return positions;
+    }
+
+    /**
+     * @see MavenSpyLogModel#getExecutionEventsByPlugin(String, String, String, String...)
+     */
+    @Nonnull
+    List<MavenSpyLogModel.ExecutionEvent> getExecutionEventsByPlugin(@Nonnull String pluginGroupId, @Nonnull String pluginArtifactId, @Nonnull String pluginGoal, @Nonnull String... types) {
+        Set<String> expectedTypes = new HashSet<>(Arrays.asList(types));
+        List<MavenSpyLogModel.ExecutionEvent> result = new ArrayList<>();
+        for (MavenSpyLogModel.ExecutionEvent executionEvent : read(positionsByPlugin.get(MavenSpyLogModel.pluginKey(pluginGroupId, pluginArtifactId, pluginGoal)))) {
+            if (expectedTypes.contains(executionEvent.getType())) {
+                result.add(executionEvent);
+            }
+        }
+        return result;
+    }
+
+    @Nonnull
+    private List<MavenSpyLogModel.ExecutionEvent> read(@CheckForNull Positions positions) {
+        if (positions == null || positions.size == 0) {
+            return Collections.emptyList();
+        }
+        List<MavenSpyLogModel.ExecutionEvent> result = new ArrayList<>(positions.size);
+        for (int i = 0; i < positions.size; i++) {
+            result.add(read(positions.values[i]));
+        }
+        return result;
+    }
+
+    @Nonnull
+    private synchronized MavenSpyLogModel.ExecutionEvent read(long position) {
+        if (localFile == null) {
+            throw new IllegalStateException("Spill file " + remotePath + " not attached");
+        }
+        try {
+            if (in == null) {
+                in = new RandomAccessFile(localFile, "r");
+            }
+            in.seek(position);
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            try (ObjectInputStream objectIn = new ObjectInputStreamEx(new ByteArrayInputStream(bytes),
+                    ExecutionEventsSpillFile.class.getClassLoader(), ClassFilter.DEFAULT)) {
+                return (MavenSpyLogModel.ExecutionEvent) objectIn.readObject();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Exception reading the spill file " + localFile, e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Exception reading the spill file " + localFile, e);
+        }
+    }
+
+    /**
+     * Close and delete the local spill file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (in != null) {
+            in.close();
+            in = null;
+        }
+        if (localFile != null) {
+            localFile.delete();
+            localFile = null;
+        }
+    }
+
+    /**
+     * Growable array of positions, cheaper than a list of {@link Long}
+     */
+    private static class Positions implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        long[] values = new long[16];
+        int size;
+
+        void add(long position) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = position;
+        }
+
+        void addAll(@CheckForNull Positions positions) {
+            if (positions != null) {
+                for (int i = 0; i < positions.size; i++) {
+                    add(positions.values[i]);
+                }
+            }
+        }
+    }
+}
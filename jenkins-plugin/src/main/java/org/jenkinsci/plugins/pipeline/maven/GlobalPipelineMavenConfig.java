@@ -48,6 +48,7 @@ import org.jenkinsci.plugins.pipeline.maven.dao.PipelineMavenPluginH2Dao;
 import org.jenkinsci.plugins.pipeline.maven.dao.PipelineMavenPluginMonitoringDao;
 import org.jenkinsci.plugins.pipeline.maven.dao.PipelineMavenPluginMySqlDao;
 import org.jenkinsci.plugins.pipeline.maven.dao.PipelineMavenPluginNullDao;
+import org.jenkinsci.plugins.pipeline.maven.service.FingerprintService;
 import org.jenkinsci.plugins.pipeline.maven.service.PipelineTriggerService;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
@@ -91,12 +92,24 @@ public class GlobalPipelineMavenConfig extends GlobalConfiguration {
 
     private transient PipelineTriggerService pipelineTriggerService;
 
+    private transient FingerprintService fingerprintService;
+
     private boolean triggerDownstreamUponResultSuccess = true;
     private boolean triggerDownstreamUponResultUnstable;
     private boolean triggerDownstreamUponResultFailure;
     private boolean triggerDownstreamUponResultNotBuilt;
     private boolean triggerDownstreamUponResultAborted;
 
+    private boolean mavenSpyEventStreaming;
+
+    private boolean mavenSpyFileDigests;
+
+    private boolean parallelPublisherExecution;
+
+    private int publisherTimeoutInMinutes = 60;
+
+    private int mavenSpyLogMemoryBudgetInMegabytes = 100;
+
     private String jdbcUrl;
     private String jdbcCredentialsId;
     private String properties;
@@ -168,6 +181,72 @@ public class GlobalPipelineMavenConfig extends GlobalConfiguration {
         this.triggerDownstreamUponResultAborted = triggerDownstreamUponResultAborted;
     }
 
+    /**
+     * @return {@code true} if the events of the Maven executions are streamed to Jenkins while Maven is running
+     * @see org.jenkinsci.plugins.pipeline.maven.stream.MavenSpyEventStream
+     */
+    public boolean isMavenSpyEventStreaming() {
+        return mavenSpyEventStreaming;
+    }
+
+    @DataBoundSetter
+    public void setMavenSpyEventStreaming(boolean mavenSpyEventStreaming) {
+        this.mavenSpyEventStreaming = mavenSpyEventStreaming;
+    }
+
+    /**
+     * @return {@code true} if the digests of the generated artifacts and of the dependencies are computed by the Maven Spy
+     * during the build rather than by Jenkins at the end of the build
+     */
+    public boolean isMavenSpyFileDigests() {
+        return mavenSpyFileDigests;
+    }
+
+    @DataBoundSetter
+    public void setMavenSpyFileDigests(boolean mavenSpyFileDigests) {
+        this.mavenSpyFileDigests = mavenSpyFileDigests;
+    }
+
+    /**
+     * @return {@code true} if the Maven publishers are executed in parallel rather than one after the other as in the
+     * previous versions of the plugin, {@code false} by default
+     * @see MavenPublishersExecutor
+     */
+    public boolean isParallelPublisherExecution() {
+        return parallelPublisherExecution;
+    }
+
+    @DataBoundSetter
+    public void setParallelPublisherExecution(boolean parallelPublisherExecution) {
+        this.parallelPublisherExecution = parallelPublisherExecution;
+    }
+
+    /**
+     * @return max duration of each Maven publisher when the publishers are executed in parallel, {@code 0} for no timeout
+     */
+    public int getPublisherTimeoutInMinutes() {
+        return publisherTimeoutInMinutes;
+    }
+
+    @DataBoundSetter
+    public void setPublisherTimeoutInMinutes(int publisherTimeoutInMinutes) {
+        this.publisherTimeoutInMinutes = Math.max(0, publisherTimeoutInMinutes);
+    }
+
+    /**
+     * @return max size of the Maven Spy logs processed in memory, the execution events of the larger logs are read
+     * from disk. {@code 0} for no limit
+     * @see MavenSpyLogModel#isExecutionEventsSpilled()
+     */
+    public int getMavenSpyLogMemoryBudgetInMegabytes() {
+        return mavenSpyLogMemoryBudgetInMegabytes;
+    }
+
+    @DataBoundSetter
+    public void setMavenSpyLogMemoryBudgetInMegabytes(int mavenSpyLogMemoryBudgetInMegabytes) {
+        this.mavenSpyLogMemoryBudgetInMegabytes = Math.max(0, mavenSpyLogMemoryBudgetInMegabytes);
+    }
+
     public synchronized String getJdbcUrl() {
         return jdbcUrl;
     }
@@ -363,6 +442,14 @@ public class GlobalPipelineMavenConfig extends GlobalConfiguration {
         return pipelineTriggerService;
     }
 
+    @Nonnull
+    public synchronized FingerprintService getFingerprintService() {
+        if (fingerprintService == null) {
+            fingerprintService = new FingerprintService();
+        }
+        return fingerprintService;
+    }
+
     @Nonnull
     public Set<Result> getTriggerDownstreamBuildsResultsCriteria() {
         Set<Result> result = new HashSet<>(5);
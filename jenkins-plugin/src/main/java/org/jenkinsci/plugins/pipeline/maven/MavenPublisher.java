@@ -1,14 +1,18 @@
 package org.jenkinsci.plugins.pipeline.maven;
 
 import hudson.ExtensionPoint;
+import hudson.Util;
 import hudson.model.AbstractDescribableImpl;
 import hudson.model.Descriptor;
+import org.jenkinsci.plugins.pipeline.maven.util.WorkspaceSnapshot;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.w3c.dom.Element;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import javax.annotation.Nonnull;
@@ -35,12 +39,66 @@ public abstract class MavenPublisher extends AbstractDescribableImpl<MavenPublis
     }
 
     /**
+     * Publishers should override {@link #process(StepContext, MavenSpyLogModel)} to avoid loading the whole maven spy report in memory.
+     *
      * @param context
      * @param mavenSpyLogsElt maven spy report. WARNING experimental structure for the moment, subject to change.
      * @throws IOException
      * @throws InterruptedException
      */
-    public abstract void process(@Nonnull StepContext context, @Nonnull Element mavenSpyLogsElt) throws IOException, InterruptedException;
+    public void process(@Nonnull StepContext context, @Nonnull Element mavenSpyLogsElt) throws IOException, InterruptedException {
+        throw new AbstractMethodError(getClass().getName() + " must override process(StepContext, MavenSpyLogModel)");
+    }
+
+    /**
+     * @param context
+     * @param mavenSpyLogModel summary of the maven spy reports parsed on the build agent, union of the Maven executions
+     *                         of the {@code withMaven} step (see {@link MavenSpyLogModel#getMavenExecutions()})
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public void process(@Nonnull StepContext context, @Nonnull MavenSpyLogModel mavenSpyLogModel) throws IOException, InterruptedException {
+        throw new AbstractMethodError(getClass().getName() + " must override process(StepContext, MavenSpyLogModel)");
+    }
+
+    /**
+     * @return {@code true} if this publisher overrides {@link #process(StepContext, MavenSpyLogModel)},
+     * {@code false} if it requires the DOM of the maven spy report
+     */
+    public boolean supportsMavenSpyLogModel() {
+        return Util.isOverridden(MavenPublisher.class, getClass(), "process", StepContext.class, MavenSpyLogModel.class);
+    }
+
+    /**
+     * Declare the paths and patterns of the workspace that {@link #process(StepContext, MavenSpyLogModel)} will probe.
+     * They are probed for all the publishers in a single round trip to the build agent before the publishers are
+     * executed and the results are available through {@link MavenSpyLogModel#getWorkspaceSnapshot()}.
+     * Does nothing by default.
+     *
+     * @param context
+     * @param mavenSpyLogModel union of the Maven executions
+     * @param request          paths and patterns to probe
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public void collectWorkspaceProbes(@Nonnull StepContext context, @Nonnull MavenSpyLogModel mavenSpyLogModel, @Nonnull WorkspaceSnapshot.Request request) throws IOException, InterruptedException {
+
+    }
+
+    /**
+     * Process an element of the maven spy report while Maven is still running, when the events are streamed to Jenkins.
+     * The same instance of the publisher then processes the complete report with {@link #process(StepContext, Element)}
+     * and can skip the work already done. Does nothing by default.
+     *
+     * @param context
+     * @param eventElt element of the maven spy report (e.g. {@code <ExecutionEvent>}) attached to the {@code <mavenExecution>} element received so far.
+     * @throws IOException
+     * @throws InterruptedException
+     * @see org.jenkinsci.plugins.pipeline.maven.stream.MavenSpyEventStream
+     */
+    public void processEvent(@Nonnull StepContext context, @Nonnull Element eventElt) throws IOException, InterruptedException {
+
+    }
 
     @Override
     public DescriptorImpl getDescriptor() {
@@ -76,6 +134,29 @@ public abstract class MavenPublisher extends AbstractDescribableImpl<MavenPublis
         @Nullable
         abstract public String getSkipFileName();
 
+        /**
+         * Publishers which must complete before this publisher starts when the publishers are executed in parallel
+         * (e.g. the publisher consumes what the other publishers have recorded).
+         *
+         * @return ids of the descriptors of the publishers to run before this publisher, ignored if the publisher is not enabled
+         * @see MavenPublishersExecutor
+         */
+        @Nonnull
+        public Set<String> getPublishersToRunBefore() {
+            return Collections.emptySet();
+        }
+
+        /**
+         * Publishers which may change the result of the build are not executed in parallel with each other as
+         * {@link hudson.model.Run#setResult(hudson.model.Result)} is not atomic and are always completed before the
+         * {@code withMaven} step returns.
+         *
+         * @return {@code true} if this publisher may change the result of the build (e.g. marks it as unstable)
+         * @see MavenPublishersExecutor
+         */
+        public boolean mayChangeBuildResult() {
+            return false;
+        }
 
         @Override
         public int compareTo(DescriptorImpl o) {
@@ -0,0 +1,216 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven;
+
+import hudson.Util;
+import hudson.model.TaskListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Execute the {@link MavenPublisher}s of a Maven execution in parallel on a bounded pool of threads dedicated to the
+ * step, honoring the constraints declared by the descriptors of the publishers:
+ * <ul>
+ *     <li>{@link MavenPublisher.DescriptorImpl#getPublishersToRunBefore()}: the publisher starts once these publishers are completed</li>
+ *     <li>{@link MavenPublisher.DescriptorImpl#mayChangeBuildResult()}: the publishers which may change the result of the build are executed one at a time</li>
+ * </ul>
+ * A publisher is submitted only when a thread of the pool is available so that its timeout is not consumed waiting
+ * for the other publishers. Returns once all the publishers are completed.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+class MavenPublishersExecutor {
+
+    private static final Logger LOGGER = Logger.getLogger(MavenPublishersExecutor.class.getName());
+
+    /**
+     * Max number of publishers executed in parallel by a step
+     */
+    static final int MAX_THREADS = Integer.getInteger(MavenPublishersExecutor.class.getName() + ".MAX_THREADS", 4);
+
+    private static final long POLL_INTERVAL_IN_MILLIS = 1000;
+
+    /**
+     * Execution of a publisher, error handling is the responsibility of the implementation
+     */
+    interface PublisherExecution {
+        void execute(@Nonnull MavenPublisher mavenPublisher) throws InterruptedException;
+    }
+
+    private final TaskListener listener;
+
+    private final long timeoutInNanos;
+
+    /**
+     * @param timeoutInMinutes max duration of each publisher, {@code 0} for no timeout
+     */
+    MavenPublishersExecutor(@Nonnull TaskListener listener, int timeoutInMinutes) {
+        this(listener, timeoutInMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Visible for test
+     */
+    MavenPublishersExecutor(@Nonnull TaskListener listener, long timeout, @Nonnull TimeUnit timeoutUnit) {
+        this.listener = listener;
+        this.timeoutInNanos = TimeUnit.NANOSECONDS.convert(timeout, timeoutUnit);
+    }
+
+    /**
+     * @param mavenPublishers enabled publishers, in the order of execution of the sequential mode
+     * @throws InterruptedException the publishers still running are cancelled
+     */
+    void execute(@Nonnull List<MavenPublisher> mavenPublishers, @Nonnull PublisherExecution publisherExecution) throws InterruptedException {
+        int maxThreads = Math.max(1, Math.min(MAX_THREADS, mavenPublishers.size()));
+        ExecutorService executorService = Executors.newFixedThreadPool(maxThreads, new NamingThreadFactory(new DaemonThreadFactory(), MavenPublishersExecutor.class.getName()));
+        CompletionService<PublisherTask> completionService = new ExecutorCompletionService<>(executorService);
+
+        Set<String> enabledPublishers = mavenPublishers.stream().map(mavenPublisher -> mavenPublisher.getDescriptor().getId()).collect(Collectors.toSet());
+        Set<String> completedPublishers = new HashSet<>();
+        List<PublisherTask> pendingTasks = mavenPublishers.stream().map(mavenPublisher -> new PublisherTask(mavenPublisher, publisherExecution)).collect(Collectors.toList());
+        List<PublisherTask> runningTasks = new ArrayList<>();
+
+        try {
+            while (!pendingTasks.isEmpty() || !runningTasks.isEmpty()) {
+                boolean buildResultChangerRunning = runningTasks.stream().anyMatch(task -> task.descriptor.mayChangeBuildResult());
+                for (Iterator<PublisherTask> it = pendingTasks.iterator(); it.hasNext() && runningTasks.size() < maxThreads; ) {
+                    PublisherTask task = it.next();
+                    if (buildResultChangerRunning && task.descriptor.mayChangeBuildResult()) {
+                        continue;
+                    }
+                    if (task.descriptor.getPublishersToRunBefore().stream().anyMatch(id -> enabledPublishers.contains(id) && !completedPublishers.contains(id))) {
+                        continue;
+                    }
+                    task.future = completionService.submit(task);
+                    runningTasks.add(task);
+                    it.remove();
+                    buildResultChangerRunning |= task.descriptor.mayChangeBuildResult();
+                }
+                if (runningTasks.isEmpty()) {
+                    // cycle in the constraints declared by the publishers, fallback to the sequential order
+                    PublisherTask task = pendingTasks.remove(0);
+                    LOGGER.log(Level.WARNING, "Cycle in the publishers to run before {0}, ignore constraint", task.descriptor.getId());
+                    task.future = completionService.submit(task);
+                    runningTasks.add(task);
+                }
+
+                Future<PublisherTask> future = completionService.poll(POLL_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS);
+                if (future != null && !future.isCancelled()) {
+                    PublisherTask task;
+                    try {
+                        task = future.get();
+                    } catch (ExecutionException e) {
+                        throw new IllegalStateException("Unexpected exception executing Maven publishers", e.getCause());
+                    }
+                    runningTasks.remove(task);
+                    completedPublishers.add(task.descriptor.getId());
+                }
+
+                for (Iterator<PublisherTask> it = runningTasks.iterator(); it.hasNext(); ) {
+                    PublisherTask task = it.next();
+                    if (task.isTimedOut()) {
+                        task.future.cancel(true);
+                        listener.error("[withMaven] WARNING Maven reporter '" + task.descriptor.getDisplayName() + "' / " + task.descriptor.getId() +
+                                " timed out after " + Util.getTimeSpanString(TimeUnit.MILLISECONDS.convert(timeoutInNanos, TimeUnit.NANOSECONDS)) + " and has been interrupted.");
+                        if (task.descriptor.mayChangeBuildResult()) {
+                            // don't let the result of the build change after the step returns
+                            task.awaitCompletion();
+                        }
+                        it.remove();
+                        completedPublishers.add(task.descriptor.getId());
+                    }
+                }
+            }
+        } finally {
+            for (PublisherTask task : runningTasks) {
+                task.future.cancel(true);
+            }
+            executorService.shutdownNow();
+        }
+    }
+
+    private class PublisherTask implements Callable<PublisherTask> {
+        final MavenPublisher mavenPublisher;
+        final MavenPublisher.DescriptorImpl descriptor;
+        final PublisherExecution publisherExecution;
+        final CountDownLatch completion = new CountDownLatch(1);
+        volatile long nanosStarted;
+        Future<PublisherTask> future;
+
+        PublisherTask(MavenPublisher mavenPublisher, PublisherExecution publisherExecution) {
+            this.mavenPublisher = mavenPublisher;
+            this.descriptor = mavenPublisher.getDescriptor();
+            this.publisherExecution = publisherExecution;
+        }
+
+        @Override
+        public PublisherTask call() throws Exception {
+            nanosStarted = System.nanoTime();
+            try {
+                publisherExecution.execute(mavenPublisher);
+            } catch (InterruptedException e) {
+                LOGGER.log(Level.FINE, "Maven publisher {0} interrupted", descriptor.getId());
+            } catch (RuntimeException | Error e) {
+                PrintWriter error = listener.error("[withMaven] WARNING Exception executing Maven reporter '" + descriptor.getDisplayName() +
+                        "' / " + descriptor.getId() + "." +
+                        " Please report a bug associated for the component 'pipeline-maven-plugin' at https://issues.jenkins-ci.org ");
+                e.printStackTrace(error);
+            } finally {
+                completion.countDown();
+            }
+            return this;
+        }
+
+        boolean isTimedOut() {
+            long started = nanosStarted;
+            return timeoutInNanos > 0 && started != 0 && System.nanoTime() - started > timeoutInNanos;
+        }
+
+        void awaitCompletion() throws InterruptedException {
+            completion.await();
+        }
+    }
+}
@@ -0,0 +1,881 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.pipeline.maven;
+
+import org.jenkinsci.plugins.pipeline.maven.util.WorkspaceSnapshot;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Compact model of a Maven Spy report ({@code maven-spy-*.log}) with what the {@link MavenPublisher}s need: the
+ * execution events of the projects and of the mojos with the reported plugin parameters, the resolved dependencies,
+ * the deployed artifacts, the file digests and the artifact downloads.
+ * <p>
+ * Built on the build agent in a single pass by {@link MavenSpyLogParser} and sent to the controller instead of the
+ * whole report. The {@link Project}s are shared by the events.
+ * <p>
+ * Only the execution events listed in {@link #EXECUTION_EVENT_TYPES} are retained.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenSpyLogModel implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Types of the {@code <ExecutionEvent>} retained in the model
+     */
+    public static final Set<String> EXECUTION_EVENT_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "ProjectStarted", "ProjectSucceeded", "ProjectFailed", "MojoSucceeded", "MojoFailed")));
+
+    final List<ExecutionEvent> executionEvents = new ArrayList<>();
+
+    final List<MavenDependency> dependencies = new ArrayList<>();
+
+    /**
+     * artifact file path -> url of the repository
+     */
+    final Map<String, String> deployedArtifacts = new HashMap<>();
+
+    /**
+     * file path -> md5
+     */
+    final Map<String, String> fileDigests = new HashMap<>();
+
+    @CheckForNull
+    Long fileDigestCacheHits;
+
+    @CheckForNull
+    Long fileDigestCacheMisses;
+
+    @CheckForNull
+    RepositoryDownloads repositoryDownloads;
+
+    /**
+     * Execution events kept on disk when the report exceeds the memory budget, {@link #executionEvents} is then empty
+     */
+    @CheckForNull
+    ExecutionEventsSpillFile spilledExecutionEvents;
+
+    /**
+     * Indexes of the {@link #executionEvents} by type and by plugin goal ({@code groupId:artifactId:goal}),
+     * built on the controller on first use
+     */
+    private transient Map<String, List<ExecutionEvent>> executionEventsByType;
+
+    private transient Map<String, List<ExecutionEvent>> executionEventsByPlugin;
+
+    /**
+     * Position of the {@link #executionEvents} in the report
+     */
+    private transient Map<ExecutionEvent, Integer> executionEventIndexes;
+
+    /**
+     * Models of the Maven executions merged in this model, {@code null} if this model has not been merged
+     */
+    @CheckForNull
+    private transient List<MavenSpyLogModel> mavenExecutions;
+
+    /**
+     * State of the workspace probed on behalf of the publishers, set on the controller before the publishers are executed
+     */
+    @CheckForNull
+    private transient WorkspaceSnapshot workspaceSnapshot;
+
+    private synchronized void indexExecutionEvents() {
+        if (executionEventsByType != null) {
+            return;
+        }
+        Map<String, List<ExecutionEvent>> byType = new HashMap<>();
+        Map<String, List<ExecutionEvent>> byPlugin = new HashMap<>();
+        Map<ExecutionEvent, Integer> indexes = new IdentityHashMap<>();
+        for (int i = 0; i < executionEvents.size(); i++) {
+            ExecutionEvent executionEvent = executionEvents.get(i);
+            indexes.put(executionEvent, i);
+            byType.computeIfAbsent(executionEvent.getType(), type -> new ArrayList<>()).add(executionEvent);
+            PluginExecution plugin = executionEvent.getPlugin();
+            if (plugin != null) {
+                byPlugin.computeIfAbsent(pluginKey(plugin.getGroupId(), plugin.getArtifactId(), plugin.getGoal()), goal -> new ArrayList<>()).add(executionEvent);
+            }
+        }
+        executionEventIndexes = indexes;
+        executionEventsByPlugin = byPlugin;
+        executionEventsByType = byType;
+    }
+
+    @Nonnull
+    static String pluginKey(@Nonnull String pluginGroupId, @Nonnull String pluginArtifactId, @Nonnull String pluginGoal) {
+        return pluginGroupId + ":" + pluginArtifactId + ":" + pluginGoal;
+    }
+
+    /**
+     * @return the execution events of the given types in the order of the report
+     * @throws java.io.UncheckedIOException if the events are {@link #isExecutionEventsSpilled() spilled} and can't be read
+     */
+    @Nonnull
+    public List<ExecutionEvent> getExecutionEvents(@Nonnull String... types) {
+        if (mavenExecutions != null) {
+            List<ExecutionEvent> result = new ArrayList<>();
+            for (MavenSpyLogModel mavenExecution : mavenExecutions) {
+                result.addAll(mavenExecution.getExecutionEvents(types));
+            }
+            return result;
+        } else if (spilledExecutionEvents != null) {
+            return spilledExecutionEvents.getExecutionEvents(types);
+        }
+        indexExecutionEvents();
+        List<ExecutionEvent> result = new ArrayList<>();
+        for (String type : new HashSet<>(Arrays.asList(types))) {
+            result.addAll(executionEventsByType.getOrDefault(type, Collections.emptyList()));
+        }
+        if (types.length > 1) {
+            result.sort(Comparator.comparingInt(executionEventIndexes::get));
+        }
+        return result;
+    }
+
+    /**
+     * Visit the execution events of the given types in the order of the report without retaining them. Prefer this
+     * method to {@link #getExecutionEvents(String...)} to scan a large number of events: the events of
+     * {@link #isExecutionEventsSpilled() spilled} reports are then read one by one.
+     *
+     * @throws java.io.UncheckedIOException if the events are {@link #isExecutionEventsSpilled() spilled} and can't be read
+     */
+    public void forEachExecutionEvent(@Nonnull Consumer<ExecutionEvent> consumer, @Nonnull String... types) {
+        if (mavenExecutions != null) {
+            for (MavenSpyLogModel mavenExecution : mavenExecutions) {
+                mavenExecution.forEachExecutionEvent(consumer, types);
+            }
+        } else if (spilledExecutionEvents != null) {
+            spilledExecutionEvents.forEachExecutionEvent(consumer, types);
+        } else {
+            getExecutionEvents(types).forEach(consumer);
+        }
+    }
+
+    /**
+     * @return the execution events of the given types of the given plugin goal in the order of the report
+     * @throws java.io.UncheckedIOException if the events are {@link #isExecutionEventsSpilled() spilled} and can't be read
+     */
+    @Nonnull
+    public List<ExecutionEvent> getExecutionEventsByPlugin(@Nonnull String pluginGroupId, @Nonnull String pluginArtifactId, @Nonnull String pluginGoal, @Nonnull String... types) {
+        if (mavenExecutions != null) {
+            List<ExecutionEvent> result = new ArrayList<>();
+            for (MavenSpyLogModel mavenExecution : mavenExecutions) {
+                result.addAll(mavenExecution.getExecutionEventsByPlugin(pluginGroupId, pluginArtifactId, pluginGoal, types));
+            }
+            return result;
+        } else if (spilledExecutionEvents != null) {
+            return spilledExecutionEvents.getExecutionEventsByPlugin(pluginGroupId, pluginArtifactId, pluginGoal, types);
+        }
+        indexExecutionEvents();
+        Set<String> expectedTypes = new HashSet<>(Arrays.asList(types));
+        List<ExecutionEvent> result = new ArrayList<>();
+        for (ExecutionEvent executionEvent : executionEventsByPlugin.getOrDefault(pluginKey(pluginGroupId, pluginArtifactId, pluginGoal), Collections.emptyList())) {
+            if (expectedTypes.contains(executionEvent.getType())) {
+                result.add(executionEvent);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param file path of an artifact file
+     * @return the url of the repository the artifact file has been deployed to, {@code null} if the file has not been deployed
+     */
+    @CheckForNull
+    public String getDeployedArtifactRepositoryUrl(@Nonnull String file) {
+        return deployedArtifacts.get(file);
+    }
+
+    /**
+     * @return the dependencies resolved for the projects of the build, without duplicates
+     */
+    @Nonnull
+    public List<MavenDependency> getDependencies() {
+        return Collections.unmodifiableList(dependencies);
+    }
+
+    /**
+     * @return the parent projects of the projects of the build
+     */
+    @Nonnull
+    public List<MavenArtifact> getParentProjects() {
+        List<MavenArtifact> result = new ArrayList<>();
+        for (ExecutionEvent projectStarted : getExecutionEvents("ProjectStarted")) {
+            if (projectStarted.getParentProject() != null) {
+                result.add(projectStarted.getParentProject());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Artifacts generated by the projects of the build: the pom, the main artifact (except for the projects of
+     * type {@code pom}) and, if requested, the attached artifacts.
+     *
+     * @see org.jenkinsci.plugins.pipeline.maven.util.XmlUtils#listGeneratedArtifacts(org.w3c.dom.Element, boolean)
+     */
+    @Nonnull
+    public List<MavenArtifact> getGeneratedArtifacts(boolean includeAttachedArtifacts) {
+        List<MavenArtifact> result = new ArrayList<>();
+        for (ExecutionEvent projectSucceeded : getExecutionEvents("ProjectSucceeded")) {
+            Project project = projectSucceeded.getProject();
+            if (project == null) {
+                continue;
+            }
+            MavenArtifact projectArtifact = project.newMavenArtifact();
+            MavenArtifact pomArtifact = new MavenArtifact();
+            pomArtifact.setGroupId(projectArtifact.getGroupId());
+            pomArtifact.setArtifactId(projectArtifact.getArtifactId());
+            pomArtifact.setBaseVersion(projectArtifact.getBaseVersion());
+            pomArtifact.setVersion(projectArtifact.getVersion());
+            pomArtifact.setSnapshot(projectArtifact.isSnapshot());
+            pomArtifact.setType("pom");
+            pomArtifact.setExtension("pom");
+            pomArtifact.setFile(project.getFile());
+            result.add(pomArtifact);
+
+            MavenArtifact artifact = projectSucceeded.getArtifact();
+            if (artifact != null && !"pom".equals(artifact.getType())) {
+                result.add(newDeployedArtifact(artifact));
+            }
+            if (includeAttachedArtifacts) {
+                for (MavenArtifact attachedArtifact : projectSucceeded.getAttachedArtifacts()) {
+                    result.add(newDeployedArtifact(attachedArtifact));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a copy of the given artifact with the url of the repository it has been deployed to
+     */
+    @Nonnull
+    private MavenArtifact newDeployedArtifact(@Nonnull MavenArtifact artifact) {
+        MavenArtifact result = new MavenArtifact();
+        result.setGroupId(artifact.getGroupId());
+        result.setArtifactId(artifact.getArtifactId());
+        result.setVersion(artifact.getVersion());
+        result.setBaseVersion(artifact.getBaseVersion());
+        result.setSnapshot(artifact.isSnapshot());
+        result.setType(artifact.getType());
+        result.setClassifier(artifact.getClassifier());
+        result.setExtension(artifact.getExtension());
+        result.setFile(artifact.getFile());
+        if (artifact.getFile() != null) {
+            result.setRepositoryUrl(getDeployedArtifactRepositoryUrl(artifact.getFile()));
+        }
+        return result;
+    }
+
+    /**
+     * @return the lifecycle phases of the succeeded mojo executions in the order of the report
+     */
+    @Nonnull
+    public List<String> getExecutedLifecyclePhases() {
+        Set<String> lifecyclePhases = new LinkedHashSet<>();
+        forEachExecutionEvent(mojoSucceeded -> {
+            PluginExecution plugin = mojoSucceeded.getPlugin();
+            lifecyclePhases.add(plugin == null ? "" : plugin.getLifecyclePhase());
+        }, "MojoSucceeded");
+        return new ArrayList<>(lifecyclePhases);
+    }
+
+    /**
+     * @return MD5 digests computed by the Maven Spy indexed by the path of the file, empty if the digests have not been computed
+     * @see org.jenkinsci.plugins.pipeline.maven.util.XmlUtils#getFileDigests(org.w3c.dom.Element)
+     */
+    @Nonnull
+    public Map<String, String> getFileDigests() {
+        return Collections.unmodifiableMap(fileDigests);
+    }
+
+    /**
+     * @return hits of the local repository digest cache of the Maven Spy, {@code null} if not reported
+     */
+    @CheckForNull
+    public Long getFileDigestCacheHits() {
+        return fileDigestCacheHits;
+    }
+
+    /**
+     * @return misses of the local repository digest cache of the Maven Spy, {@code null} if not reported
+     */
+    @CheckForNull
+    public Long getFileDigestCacheMisses() {
+        return fileDigestCacheMisses;
+    }
+
+    /**
+     * @return the artifact downloads, {@code null} if not reported (e.g. report generated by an older Maven Spy)
+     */
+    @CheckForNull
+    public RepositoryDownloads getRepositoryDownloads() {
+        return repositoryDownloads;
+    }
+
+    /**
+     * @return {@code true} if the report exceeded the memory budget and the execution events are read from disk on
+     * demand, each call to {@link #getExecutionEvents(String...)} then returns new instances of the events
+     */
+    public boolean isExecutionEventsSpilled() {
+        if (mavenExecutions != null) {
+            return mavenExecutions.stream().anyMatch(MavenSpyLogModel::isExecutionEventsSpilled);
+        }
+        return spilledExecutionEvents != null;
+    }
+
+    /**
+     * @return the models of the Maven executions merged in this model in the order of the execution, a singleton
+     * with this model if this model has not been merged. Used by the publishers which report each Maven execution
+     * separately (e.g. build profile).
+     * @see #merge(List)
+     */
+    @Nonnull
+    public List<MavenSpyLogModel> getMavenExecutions() {
+        return mavenExecutions == null ? Collections.singletonList(this) : Collections.unmodifiableList(mavenExecutions);
+    }
+
+    /**
+     * @return the paths and patterns of the workspace probed before the execution of the publishers, an empty
+     * snapshot if the workspace has not been probed
+     * @see MavenPublisher#collectWorkspaceProbes(org.jenkinsci.plugins.workflow.steps.StepContext, MavenSpyLogModel, WorkspaceSnapshot.Request)
+     */
+    @Nonnull
+    public WorkspaceSnapshot getWorkspaceSnapshot() {
+        return workspaceSnapshot == null ? new WorkspaceSnapshot() : workspaceSnapshot;
+    }
+
+    void setWorkspaceSnapshot(@Nullable WorkspaceSnapshot workspaceSnapshot) {
+        this.workspaceSnapshot = workspaceSnapshot;
+    }
+
+    /**
+     * Union of the Maven executions of a {@code withMaven} step so that the publishers process them once: the
+     * execution events are the events of the given models in the order of the models, the dependencies are
+     * deduplicated and the file digests, deployed artifacts, cache statistics and artifact downloads are combined.
+     * <p>
+     * The execution events are queried from the given models, they are not copied.
+     *
+     * @param mavenSpyLogModels models in the order of the Maven executions
+     * @return the given model if there is only one model
+     */
+    @Nonnull
+    public static MavenSpyLogModel merge(@Nonnull List<MavenSpyLogModel> mavenSpyLogModels) {
+        if (mavenSpyLogModels.size() == 1) {
+            return mavenSpyLogModels.get(0);
+        }
+        MavenSpyLogModel result = new MavenSpyLogModel();
+        result.mavenExecutions = new ArrayList<>();
+        Set<List<String>> dependencyKeys = new HashSet<>();
+        for (MavenSpyLogModel mavenSpyLogModel : mavenSpyLogModels) {
+            result.mavenExecutions.addAll(mavenSpyLogModel.getMavenExecutions());
+            for (MavenDependency dependency : mavenSpyLogModel.dependencies) {
+                if (dependencyKeys.add(dependencyKey(dependency))) {
+                    result.dependencies.add(dependency);
+                }
+            }
+            result.deployedArtifacts.putAll(mavenSpyLogModel.deployedArtifacts);
+            result.fileDigests.putAll(mavenSpyLogModel.fileDigests);
+            result.fileDigestCacheHits = sum(result.fileDigestCacheHits, mavenSpyLogModel.fileDigestCacheHits);
+            result.fileDigestCacheMisses = sum(result.fileDigestCacheMisses, mavenSpyLogModel.fileDigestCacheMisses);
+            RepositoryDownloads repositoryDownloads = mavenSpyLogModel.repositoryDownloads;
+            if (repositoryDownloads != null) {
+                if (result.repositoryDownloads == null) {
+                    result.repositoryDownloads = new RepositoryDownloads();
+                }
+                result.repositoryDownloads.add(repositoryDownloads);
+            }
+        }
+        return result;
+    }
+
+    @CheckForNull
+    private static Long sum(@CheckForNull Long a, @CheckForNull Long b) {
+        return a == null ? b : b == null ? a : Long.valueOf(a + b);
+    }
+
+    /**
+     * @return key of the dependency to remove the duplicates, includes the file unlike {@link MavenDependency#equals(Object)}
+     */
+    @Nonnull
+    static List<String> dependencyKey(@Nonnull MavenDependency dependency) {
+        return Arrays.asList(dependency.getGroupId(), dependency.getArtifactId(), dependency.getVersion(),
+                dependency.getType(), dependency.getClassifier(), dependency.getScope(), String.valueOf(dependency.optional), dependency.getFile());
+    }
+
+    @Override
+    public String toString() {
+        return "MavenSpyLogModel{" +
+                (mavenExecutions != null ? "mavenExecutions: " + mavenExecutions.size() :
+                        spilledExecutionEvents != null ? "spilledExecutionEvents: " + spilledExecutionEvents.remotePath :
+                        "executionEvents: " + executionEvents.size()) +
+                ", dependencies: " + dependencies.size() +
+                ", deployedArtifacts: " + deployedArtifacts.size() +
+                ", fileDigests: " + fileDigests.size() +
+                '}';
+    }
+
+    /**
+     * {@code <projectDef>} or inline {@code <project>} element.
+     * <pre>{@code
+     * <project baseDir="/path/to/my-jar" file="/path/to/my-jar/pom.xml" groupId="com.example" name="my-jar" artifactId="my-jar" version="0.5-SNAPSHOT" packaging="jar">
+     *     <build sourceDirectory="/path/to/my-jar/src/main/java" directory="/path/to/my-jar/target"/>
+     * </project>
+     * }</pre>
+     * Missing attributes are empty strings like with {@link org.w3c.dom.Element#getAttribute(String)}.
+     */
+    public static class Project implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String groupId = "";
+        String artifactId = "";
+        String version = "";
+        String name = "";
+        String packaging = "";
+        String baseDir = "";
+        String file = "";
+        @CheckForNull
+        String buildDirectory;
+        @CheckForNull
+        String buildSourceDirectory;
+
+        @Nonnull
+        public String getGroupId() {
+            return groupId;
+        }
+
+        @Nonnull
+        public String getArtifactId() {
+            return artifactId;
+        }
+
+        @Nonnull
+        public String getVersion() {
+            return version;
+        }
+
+        @Nonnull
+        public String getName() {
+            return name;
+        }
+
+        @Nonnull
+        public String getPackaging() {
+            return packaging;
+        }
+
+        @Nonnull
+        public String getBaseDir() {
+            return baseDir;
+        }
+
+        @Nonnull
+        public String getFile() {
+            return file;
+        }
+
+        /**
+         * @return {@code true} if the project has a {@code <build>} element
+         */
+        public boolean hasBuild() {
+            return buildDirectory != null || buildSourceDirectory != null;
+        }
+
+        /**
+         * @return {@code project/build/@directory}, {@code null} if the project has no {@code <build>} element
+         */
+        @CheckForNull
+        public String getBuildDirectory() {
+            return buildDirectory;
+        }
+
+        /**
+         * @return {@code project/build/@sourceDirectory}, {@code null} if the project has no {@code <build>} element
+         */
+        @CheckForNull
+        public String getBuildSourceDirectory() {
+            return buildSourceDirectory;
+        }
+
+        /**
+         * @see org.jenkinsci.plugins.pipeline.maven.util.XmlUtils#newMavenArtifact(org.w3c.dom.Element)
+         */
+        @Nonnull
+        public MavenArtifact newMavenArtifact() {
+            MavenArtifact mavenArtifact = new MavenArtifact();
+            mavenArtifact.setGroupId(groupId);
+            mavenArtifact.setArtifactId(artifactId);
+            mavenArtifact.setVersion(version);
+            mavenArtifact.setBaseVersion(version);
+            mavenArtifact.setSnapshot(false);
+            mavenArtifact.setType(packaging);
+            mavenArtifact.setExtension("");
+            return mavenArtifact;
+        }
+
+        @Override
+        public String toString() {
+            return "Project{" + groupId + ":" + artifactId + ":" + version + ", baseDir: " + baseDir + ", build.directory: " + buildDirectory + "}";
+        }
+    }
+
+    /**
+     * {@code <plugin>} element of an execution event with the configuration parameters reported by the Maven Spy.
+     * <pre>{@code
+     * <plugin executionId="default-test" goal="test" lifecyclePhase="test" groupId="org.apache.maven.plugins" artifactId="maven-surefire-plugin" version="2.19.1">
+     *     <reportsDirectory>${project.build.directory}/surefire-reports</reportsDirectory>
+     *     <systemPropertyVariables>
+     *         <concordion.output.dir>target/concordion-reports</concordion.output.dir>
+     *     </systemPropertyVariables>
+     * </plugin>
+     * }</pre>
+     */
+    public static class PluginExecution implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String groupId = "";
+        String artifactId = "";
+        String version = "";
+        String goal = "";
+        String executionId = "";
+        String lifecyclePhase = "";
+
+        /**
+         * Text of the parameters without child element indexed by their path (e.g. {@code reportsDirectory},
+         * {@code systemPropertyVariables/concordion.output.dir}), the first value is retained for repeated elements.
+         */
+        final Map<String, String> parameters = new LinkedHashMap<>();
+
+        @Nonnull
+        public String getGroupId() {
+            return groupId;
+        }
+
+        @Nonnull
+        public String getArtifactId() {
+            return artifactId;
+        }
+
+        @Nonnull
+        public String getVersion() {
+            return version;
+        }
+
+        @Nonnull
+        public String getGoal() {
+            return goal;
+        }
+
+        @Nonnull
+        public String getExecutionId() {
+            return executionId;
+        }
+
+        @Nonnull
+        public String getLifecyclePhase() {
+            return lifecyclePhase;
+        }
+
+        /**
+         * @param path name of the parameter, names of the nested elements are separated by {@code /}
+         *             (e.g. {@code systemPropertyVariables/concordion.output.dir})
+         * @return the untrimmed text of the parameter, {@code null} if the parameter has not been reported
+         */
+        @CheckForNull
+        public String getParameter(@Nonnull String path) {
+            return parameters.get(path);
+        }
+
+        @Nonnull
+        public Map<String, String> getParameters() {
+            return Collections.unmodifiableMap(parameters);
+        }
+
+        @Nonnull
+        public MavenSpyLogProcessor.PluginInvocation newPluginInvocation() {
+            MavenSpyLogProcessor.PluginInvocation pluginInvocation = new MavenSpyLogProcessor.PluginInvocation();
+            pluginInvocation.groupId = groupId;
+            pluginInvocation.artifactId = artifactId;
+            pluginInvocation.version = version;
+            pluginInvocation.goal = goal;
+            pluginInvocation.executionId = executionId;
+            return pluginInvocation;
+        }
+
+        @Override
+        public String toString() {
+            return "PluginExecution{" + groupId + ":" + artifactId + ":" + version + "@" + goal + " " + executionId + ", parameters: " + parameters + "}";
+        }
+    }
+
+    /**
+     * {@code <ExecutionEvent>} element.
+     */
+    public static class ExecutionEvent implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        String type = "";
+        String time = "";
+        String thread = "";
+        @CheckForNull
+        Long startTime;
+        @CheckForNull
+        Long durationInMillis;
+        @CheckForNull
+        Project project;
+        @CheckForNull
+        PluginExecution plugin;
+        @CheckForNull
+        MavenArtifact artifact;
+        List<MavenArtifact> attachedArtifacts = Collections.emptyList();
+        @CheckForNull
+        MavenArtifact parentProject;
+        @CheckForNull
+        List<MavenArtifact> upstreamProjects;
+
+        /**
+         * @return type of the event (e.g. {@code MojoSucceeded})
+         */
+        @Nonnull
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return value of the {@code _time} attribute
+         */
+        @Nonnull
+        public String getTime() {
+            return time;
+        }
+
+        @Nonnull
+        public String getThread() {
+            return thread;
+        }
+
+        /**
+         * @return start time of the project or of the mojo, {@code null} if not reported
+         */
+        @CheckForNull
+        public Long getStartTime() {
+            return startTime;
+        }
+
+        /**
+         * @return duration of the project or of the mojo, {@code null} if not reported
+         */
+        @CheckForNull
+        public Long getDurationInMillis() {
+            return durationInMillis;
+        }
+
+        @CheckForNull
+        public Project getProject() {
+            return project;
+        }
+
+        @CheckForNull
+        public PluginExecution getPlugin() {
+            return plugin;
+        }
+
+        /**
+         * @return the main artifact of a {@code ProjectSucceeded} event, {@code null} otherwise
+         */
+        @CheckForNull
+        public MavenArtifact getArtifact() {
+            return artifact;
+        }
+
+        /**
+         * @return the attached artifacts of a {@code ProjectSucceeded} event
+         */
+        @Nonnull
+        public List<MavenArtifact> getAttachedArtifacts() {
+            return Collections.unmodifiableList(attachedArtifacts);
+        }
+
+        /**
+         * @return the parent project of a {@code ProjectStarted} event, {@code null} if none
+         */
+        @CheckForNull
+        public MavenArtifact getParentProject() {
+            return parentProject;
+        }
+
+        /**
+         * @return the projects of the reactor the project of a {@code ProjectStarted} event depends on,
+         * {@code null} if not reported
+         */
+        @CheckForNull
+        public List<MavenArtifact> getUpstreamProjects() {
+            return upstreamProjects == null ? null : Collections.unmodifiableList(upstreamProjects);
+        }
+
+        @Override
+        public String toString() {
+            return "ExecutionEvent{" +
+                    "type: " + type +
+                    ", time: " + time +
+                    ", project: " + project +
+                    (plugin == null ? "" : ", plugin: " + plugin) +
+                    '}';
+        }
+    }
+
+    /**
+     * {@code <RepositoryDownloads>} element.
+     */
+    public static class RepositoryDownloads implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        long artifactCount;
+        long artifactDurationInMillis;
+        long artifactSizeInBytes;
+        long metadataCount;
+        long metadataDurationInMillis;
+        /**
+         * Artifacts resolved from the local repository when it is seeded by a read-only repository
+         */
+        long localArtifactCount;
+        /**
+         * Artifacts resolved from the read-only repository seeding the local repository
+         */
+        long seedArtifactCount;
+        final List<Download> downloads = new ArrayList<>();
+
+        public long getArtifactCount() {
+            return artifactCount;
+        }
+
+        public long getArtifactDurationInMillis() {
+            return artifactDurationInMillis;
+        }
+
+        public long getArtifactSizeInBytes() {
+            return artifactSizeInBytes;
+        }
+
+        public long getMetadataCount() {
+            return metadataCount;
+        }
+
+        public long getMetadataDurationInMillis() {
+            return metadataDurationInMillis;
+        }
+
+        public long getLocalArtifactCount() {
+            return localArtifactCount;
+        }
+
+        public long getSeedArtifactCount() {
+            return seedArtifactCount;
+        }
+
+        void add(@Nonnull RepositoryDownloads other) {
+            artifactCount += other.artifactCount;
+            artifactDurationInMillis += other.artifactDurationInMillis;
+            artifactSizeInBytes += other.artifactSizeInBytes;
+            metadataCount += other.metadataCount;
+            metadataDurationInMillis += other.metadataDurationInMillis;
+            localArtifactCount += other.localArtifactCount;
+            seedArtifactCount += other.seedArtifactCount;
+            downloads.addAll(other.downloads);
+            downloads.sort(Comparator.comparingLong(Download::getDurationInMillis).reversed());
+        }
+
+        /**
+         * @return the slowest downloads
+         */
+        @Nonnull
+        public List<Download> getDownloads() {
+            return Collections.unmodifiableList(downloads);
+        }
+    }
+
+    /**
+     * {@code <download>} element of the {@code <RepositoryDownloads>}.
+     */
+    public static class Download implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final String type;
+        final String id;
+        final String repositoryId;
+        final long durationInMillis;
+        final long sizeInBytes;
+
+        Download(@Nonnull String type, @Nonnull String id, @Nonnull String repositoryId, long durationInMillis, long sizeInBytes) {
+            this.type = type;
+            this.id = id;
+            this.repositoryId = repositoryId;
+            this.durationInMillis = durationInMillis;
+            this.sizeInBytes = sizeInBytes;
+        }
+
+        @Nonnull
+        public String getType() {
+            return type;
+        }
+
+        @Nonnull
+        public String getId() {
+            return id;
+        }
+
+        @Nonnull
+        public String getRepositoryId() {
+            return repositoryId;
+        }
+
+        public long getDurationInMillis() {
+            return durationInMillis;
+        }
+
+        public long getSizeInBytes() {
+            return sizeInBytes;
+        }
+    }
+}
@@ -0,0 +1,597 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.pipeline.maven;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import org.jenkinsci.plugins.pipeline.maven.util.XmlUtils;
+import org.w3c.dom.Element;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Parse a Maven Spy report in a single pass with StAX and build a {@link MavenSpyLogModel}.
+ * <p>
+ * The report is parsed on the build agent with {@link ParseCallable}, only the model is sent to the controller.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenSpyLogParser {
+
+    private static final Logger LOGGER = Logger.getLogger(MavenSpyLogParser.class.getName());
+
+    /**
+     * {@code <projectDef>} elements indexed by id
+     */
+    private final Map<String, MavenSpyLogModel.Project> projectDefinitions = new HashMap<>();
+
+    /**
+     * Inline {@code <project>} elements of older Maven Spy reports indexed by their attributes, shared by the events
+     */
+    private final Map<List<String>, MavenSpyLogModel.Project> inlineProjects = new HashMap<>();
+
+    /**
+     * Dedup the strings repeated in the report (plugin coordinates, parameters...) to reduce the size of the model
+     */
+    private final Map<String, String> strings = new HashMap<>();
+
+    private final Set<List<String>> dependencyKeys = new HashSet<>();
+
+    /**
+     * Where the execution events are written instead of being kept in the model, {@code null} to keep them in memory
+     */
+    @CheckForNull
+    private final ExecutionEventsSpillFile spillFile;
+
+    private MavenSpyLogParser(@CheckForNull ExecutionEventsSpillFile spillFile) {
+        this.spillFile = spillFile;
+    }
+
+    @Nonnull
+    private static XMLInputFactory newXMLInputFactory() {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return xmlInputFactory;
+    }
+
+    /**
+     * @param in content of a {@code maven-spy-*.log} file
+     */
+    @Nonnull
+    public static MavenSpyLogModel parse(@Nonnull InputStream in) throws XMLStreamException {
+        try {
+            return parse(in, null);
+        } catch (IOException e) {
+            throw new IllegalStateException("No I/O expected without spill file", e);
+        }
+    }
+
+    /**
+     * @param spillFile where the execution events are written, {@code null} to keep the execution events in the model
+     */
+    @Nonnull
+    static MavenSpyLogModel parse(@Nonnull InputStream in, @CheckForNull ExecutionEventsSpillFile spillFile) throws XMLStreamException, IOException {
+        XMLStreamReader reader = newXMLInputFactory().createXMLStreamReader(in);
+        try {
+            MavenSpyLogModel model = new MavenSpyLogParser(spillFile).readMavenExecution(reader);
+            model.spilledExecutionEvents = spillFile;
+            return model;
+        } finally {
+            reader.close();
+            if (spillFile != null) {
+                spillFile.flush();
+            }
+        }
+    }
+
+    /**
+     * Convert an {@code <ExecutionEvent>} element (e.g. received while Maven is running) to the model.
+     * The {@code <project ref="..."/>} element is resolved in the document of the event.
+     */
+    @Nonnull
+    public static MavenSpyLogModel.ExecutionEvent parseExecutionEvent(@Nonnull Element executionEventElt) throws XMLStreamException {
+        Element eventElt = (Element) executionEventElt.cloneNode(true);
+        Element projectRefElt = XmlUtils.getUniqueChildElementOrNull(eventElt, "project");
+        if (projectRefElt != null && projectRefElt.hasAttribute("ref")) {
+            Element projectElt = (Element) XmlUtils.getProjectElement(executionEventElt).cloneNode(true);
+            eventElt.replaceChild(eventElt.getOwnerDocument().renameNode(projectElt, null, "project"), projectRefElt);
+        }
+        XMLStreamReader reader = newXMLInputFactory().createXMLStreamReader(new StringReader(XmlUtils.toString(eventElt)));
+        try {
+            nextElement(reader);
+            return new MavenSpyLogParser(null).readExecutionEvent(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /*
+    <mavenExecution>
+        <projectDef id="..." .../>
+        <ExecutionEvent type="..."/>
+        <DependencyResolutionResult/>
+        <RepositoryEvent type="ARTIFACT_DEPLOYED"/>
+        <FileDigests algorithm="MD5"/>
+        <RepositoryDownloads/>
+    </mavenExecution>
+     */
+    @Nonnull
+    private MavenSpyLogModel readMavenExecution(@Nonnull XMLStreamReader reader) throws XMLStreamException, IOException {
+        MavenSpyLogModel model = new MavenSpyLogModel();
+        nextElement(reader);
+        while (nextChildElement(reader)) {
+            String name = reader.getLocalName();
+            if ("projectDef".equals(name)) {
+                String id = attribute(reader, "id");
+                projectDefinitions.put(id, readProject(reader));
+            } else if ("ExecutionEvent".equals(name) && MavenSpyLogModel.EXECUTION_EVENT_TYPES.contains(attribute(reader, "type"))) {
+                if (spillFile == null) {
+                    model.executionEvents.add(readExecutionEvent(reader));
+                } else {
+                    spillFile.write(readExecutionEvent(reader));
+                }
+            } else if ("DependencyResolutionResult".equals(name)) {
+                readDependencyResolutionResult(reader, model);
+            } else if ("RepositoryEvent".equals(name) && "ARTIFACT_DEPLOYED".equals(attribute(reader, "type"))) {
+                readArtifactDeployedEvent(reader, model);
+            } else if ("FileDigests".equals(name) && "MD5".equals(attribute(reader, "algorithm"))) {
+                readFileDigests(reader, model);
+            } else if ("RepositoryDownloads".equals(name)) {
+                model.repositoryDownloads = readRepositoryDownloads(reader);
+            } else {
+                skipElement(reader);
+            }
+        }
+        return model;
+    }
+
+    @Nonnull
+    private MavenSpyLogModel.ExecutionEvent readExecutionEvent(@Nonnull XMLStreamReader reader) throws XMLStreamException {
+        MavenSpyLogModel.ExecutionEvent executionEvent = new MavenSpyLogModel.ExecutionEvent();
+        executionEvent.type = attribute(reader, "type");
+        executionEvent.time = attribute(reader, "_time");
+        executionEvent.thread = attribute(reader, "thread");
+        executionEvent.startTime = longAttribute(reader, "startTime");
+        executionEvent.durationInMillis = longAttribute(reader, "durationInMillis");
+
+        while (nextChildElement(reader)) {
+            String name = reader.getLocalName();
+            if ("project".equals(name)) {
+                executionEvent.project = readProjectReference(reader);
+            } else if ("plugin".equals(name)) {
+                executionEvent.plugin = readPlugin(reader);
+            } else if ("artifact".equals(name)) {
+                executionEvent.artifact = readArtifact(reader, new MavenArtifact());
+            } else if ("attachedArtifacts".equals(name)) {
+                executionEvent.attachedArtifacts = new ArrayList<>();
+                while (nextChildElement(reader)) {
+                    if ("artifact".equals(reader.getLocalName())) {
+                        executionEvent.attachedArtifacts.add(readArtifact(reader, new MavenArtifact()));
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+            } else if ("parentProject".equals(name)) {
+                MavenArtifact parentProject = new MavenArtifact();
+                parentProject.setGroupId(attribute(reader, "groupId"));
+                parentProject.setArtifactId(attribute(reader, "artifactId"));
+                parentProject.setVersion(attribute(reader, "version"));
+                parentProject.setBaseVersion(parentProject.getVersion());
+                parentProject.setSnapshot(parentProject.getVersion().endsWith("-SNAPSHOT"));
+                executionEvent.parentProject = parentProject;
+                skipElement(reader);
+            } else if ("upstreamProjects".equals(name)) {
+                executionEvent.upstreamProjects = new ArrayList<>();
+                while (nextChildElement(reader)) {
+                    if ("upstreamProject".equals(reader.getLocalName())) {
+                        MavenArtifact upstreamProject = new MavenArtifact();
+                        upstreamProject.setGroupId(attribute(reader, "groupId"));
+                        upstreamProject.setArtifactId(attribute(reader, "artifactId"));
+                        upstreamProject.setVersion(attribute(reader, "version"));
+                        upstreamProject.setBaseVersion(upstreamProject.getVersion());
+                        executionEvent.upstreamProjects.add(upstreamProject);
+                    }
+                    skipElement(reader);
+                }
+            } else {
+                skipElement(reader);
+            }
+        }
+        return executionEvent;
+    }
+
+    /**
+     * Resolve the {@code <project ref="..."/>} element or read the inline {@code <project>} element
+     */
+    @Nonnull
+    private MavenSpyLogModel.Project readProjectReference(@Nonnull XMLStreamReader reader) throws XMLStreamException {
+        String ref = attribute(reader, "ref");
+        if (ref.isEmpty()) {
+            MavenSpyLogModel.Project project = readProject(reader);
+            List<String> key = Arrays.asList(project.groupId, project.artifactId, project.version, project.name, project.packaging,
+                    project.baseDir, project.file, project.buildDirectory, project.buildSourceDirectory);
+            MavenSpyLogModel.Project previous = inlineProjects.putIfAbsent(key, project);
+            return previous == null ? project : previous;
+        }
+        skipElement(reader);
+        MavenSpyLogModel.Project project = projectDefinitions.get(ref);
+        if (project == null) {
+            throw new XMLStreamException("No <projectDef id=\"" + ref + "\"> element found", reader.getLocation());
+        }
+        return project;
+    }
+
+    @Nonnull
+    private MavenSpyLogModel.Project readProject(@Nonnull XMLStreamReader reader) throws XMLStreamException {
+        MavenSpyLogModel.Project project = new MavenSpyLogModel.Project();
+        project.groupId = attribute(reader, "groupId");
+        project.artifactId = attribute(reader, "artifactId");
+        project.version = attribute(reader, "version");
+        project.name = attribute(reader, "name");
+        project.packaging = attribute(reader, "packaging");
+        project.baseDir = attribute(reader, "baseDir");
+        project.file = attribute(reader, "file");
+        while (nextChildElement(reader)) {
+            if ("build".equals(reader.getLocalName())) {
+                project.buildDirectory = attribute(reader, "directory");
+                project.buildSourceDirectory = attribute(reader, "sourceDirectory");
+            }
+            skipElement(reader);
+        }
+        return project;
+    }
+
+    @Nonnull
+    private MavenSpyLogModel.PluginExecution readPlugin(@Nonnull XMLStreamReader reader) throws XMLStreamException {
+        MavenSpyLogModel.PluginExecution plugin = new MavenSpyLogModel.PluginExecution();
+        plugin.groupId = attribute(reader, "groupId");
+        plugin.artifactId = attribute(reader, "artifactId");
+        plugin.version = attribute(reader, "version");
+        plugin.goal = attribute(reader, "goal");
+        plugin.executionId = attribute(reader, "executionId");
+        plugin.lifecyclePhase = attribute(reader, "lifecyclePhase");
+        while (nextChildElement(reader)) {
+            readParameter(reader, "", plugin.parameters);
+        }
+        return plugin;
+    }
+
+    private void readParameter(@Nonnull XMLStreamReader reader, @Nonnull String parentPath, @Nonnull Map<String, String> parameters) throws XMLStreamException {
+        String path = parentPath + reader.getLocalName();
+        StringBuilder text = new StringBuilder();
+        boolean hasChildElement = false;
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                hasChildElement = true;
+                readParameter(reader, path + "/", parameters);
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA || event == XMLStreamConstants.SPACE) {
+                text.append(reader.getText());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+        }
+        if (!hasChildElement) {
+            parameters.putIfAbsent(intern(path), intern(text.toString()));
+        }
+    }
+
+    /**
+     * @see XmlUtils#newMavenArtifact(Element)
+     */
+    @Nonnull
+    private <T extends MavenArtifact> T readArtifact(@Nonnull XMLStreamReader reader, @Nonnull T mavenArtifact) throws XMLStreamException {
+        mavenArtifact.setGroupId(attribute(reader, "groupId"));
+        mavenArtifact.setArtifactId(attribute(reader, "artifactId"));
+        mavenArtifact.setVersion(attribute(reader, "version"));
+        mavenArtifact.setBaseVersion(attribute(reader, "baseVersion"));
+        if (mavenArtifact.getBaseVersion().isEmpty()) {
+            mavenArtifact.setBaseVersion(mavenArtifact.getVersion());
+        }
+        mavenArtifact.setSnapshot(Boolean.valueOf(attribute(reader, "snapshot")));
+        mavenArtifact.setType(attribute(reader, "type"));
+        if (mavenArtifact.getType().isEmpty()) {
+            mavenArtifact.setType(attribute(reader, "packaging"));
+        }
+        String classifier = reader.getAttributeValue(null, "classifier");
+        mavenArtifact.setClassifier(classifier == null ? null : intern(classifier));
+        mavenArtifact.setExtension(attribute(reader, "extension"));
+        if (mavenArtifact instanceof MavenDependency) {
+            ((MavenDependency) mavenArtifact).setScope(attribute(reader, "scope"));
+            ((MavenDependency) mavenArtifact).optional = Boolean.valueOf(attribute(reader, "optional"));
+        }
+
+        while (nextChildElement(reader)) {
+            if ("file".equals(reader.getLocalName())) {
+                String file = readText(reader).trim();
+                if (!file.isEmpty()) {
+                    mavenArtifact.setFile(file);
+                }
+            } else {
+                skipElement(reader);
+            }
+        }
+        return mavenArtifact;
+    }
+
+    /*
+    <DependencyResolutionResult class="org.apache.maven.project.DefaultDependencyResolutionResult" _time="2018-03-04 19:48:26.24">
+        <resolvedDependencies>
+            <dependency extension="jar" baseVersion="4.12" groupId="junit" scope="test" name="junit-4.12.jar" classifier="" artifactId="junit" type="jar" version="4.12" snapshot="false" optional="false" id="junit">
+                <file>/path/to/.m2/repository/junit/junit/4.12/junit-4.12.jar</file>
+            </dependency>
+        </resolvedDependencies>
+    </DependencyResolutionResult>
+     */
+    private void readDependencyResolutionResult(@Nonnull XMLStreamReader reader, @Nonnull MavenSpyLogModel model) throws XMLStreamException {
+        while (nextChildElement(reader)) {
+            if (!"resolvedDependencies".equals(reader.getLocalName())) {
+                skipElement(reader);
+                continue;
+            }
+            while (nextChildElement(reader)) {
+                if (!"dependency".equals(reader.getLocalName())) {
+                    skipElement(reader);
+                    continue;
+                }
+                MavenDependency dependency = readArtifact(reader, new MavenDependency());
+                if (dependency.getFile() == null) {
+                    LOGGER.log(Level.WARNING, "No associated file found for {0}", dependency);
+                }
+                if (dependencyKeys.add(MavenSpyLogModel.dependencyKey(dependency))) {
+                    model.dependencies.add(dependency);
+                }
+            }
+        }
+    }
+
+    /*
+    <RepositoryEvent type="ARTIFACT_DEPLOYED" class="org.eclipse.aether.RepositoryEvent" _time="2018-02-11 16:18:26.505">
+        <artifact extension="jar" file="/path/to/my-project-workspace/target/my-jar-0.5-SNAPSHOT.jar" ... />
+        <repository layout="default" id="nexus.beescloud.com" url="https://nexus.beescloud.com/content/repositories/snapshots/"/>
+    </RepositoryEvent>
+     */
+    private void readArtifactDeployedEvent(@Nonnull XMLStreamReader reader, @Nonnull MavenSpyLogModel model) throws XMLStreamException {
+        String file = null;
+        String repositoryUrl = null;
+        while (nextChildElement(reader)) {
+            if ("artifact".equals(reader.getLocalName())) {
+                file = attribute(reader, "file");
+            } else if ("repository".equals(reader.getLocalName())) {
+                repositoryUrl = attribute(reader, "url");
+            }
+            skipElement(reader);
+        }
+        if (file != null && repositoryUrl != null) {
+            model.deployedArtifacts.putIfAbsent(file, repositoryUrl);
+        }
+    }
+
+    private void readFileDigests(@Nonnull XMLStreamReader reader, @Nonnull MavenSpyLogModel model) throws XMLStreamException {
+        model.fileDigestCacheHits = longAttribute(reader, "cacheHits");
+        model.fileDigestCacheMisses = longAttribute(reader, "cacheMisses");
+        while (nextChildElement(reader)) {
+            if ("file".equals(reader.getLocalName())) {
+                model.fileDigests.put(attribute(reader, "path"), attribute(reader, "md5"));
+            }
+            skipElement(reader);
+        }
+    }
+
+    @Nonnull
+    private MavenSpyLogModel.RepositoryDownloads readRepositoryDownloads(@Nonnull XMLStreamReader reader) throws XMLStreamException {
+        MavenSpyLogModel.RepositoryDownloads repositoryDownloads = new MavenSpyLogModel.RepositoryDownloads();
+        repositoryDownloads.artifactCount = longAttribute(reader, "artifactCount", 0);
+        repositoryDownloads.artifactDurationInMillis = longAttribute(reader, "artifactDurationInMillis", 0);
+        repositoryDownloads.artifactSizeInBytes = longAttribute(reader, "artifactSizeInBytes", 0);
+        repositoryDownloads.metadataCount = longAttribute(reader, "metadataCount", 0);
+        repositoryDownloads.metadataDurationInMillis = longAttribute(reader, "metadataDurationInMillis", 0);
+        repositoryDownloads.localArtifactCount = longAttribute(reader, "localArtifactCount", 0);
+        repositoryDownloads.seedArtifactCount = longAttribute(reader, "seedArtifactCount", 0);
+        while (nextChildElement(reader)) {
+            if ("download".equals(reader.getLocalName())) {
+                repositoryDownloads.downloads.add(new MavenSpyLogModel.Download(
+                        attribute(reader, "type"),
+                        attribute(reader, "id"),
+                        attribute(reader, "repositoryId"),
+                        longAttribute(reader, "durationInMillis", 0),
+                        longAttribute(reader, "sizeInBytes", 0)));
+            }
+            skipElement(reader);
+        }
+        return repositoryDownloads;
+    }
+
+    /**
+     * @return the value of the attribute, an empty string if the attribute is not defined like {@link Element#getAttribute(String)}
+     */
+    @Nonnull
+    private String attribute(@Nonnull XMLStreamReader reader, @Nonnull String name) {
+        String value = reader.getAttributeValue(null, name);
+        return value == null ? "" : intern(value);
+    }
+
+    @CheckForNull
+    private static Long longAttribute(@Nonnull XMLStreamReader reader, @Nonnull String name) {
+        String value = reader.getAttributeValue(null, name);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            LOGGER.log(Level.FINE, "Invalid value for attribute {0}: {1}", new Object[]{name, value});
+            return null;
+        }
+    }
+
+    private static long longAttribute(@Nonnull XMLStreamReader reader, @Nonnull String name, long defaultValue) {
+        Long value = longAttribute(reader, name);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * No dedup with a spill file, the events are serialized one by one and the strings would accumulate in memory
+     */
+    @Nonnull
+    private String intern(@Nonnull String value) {
+        if (spillFile != null) {
+            return value;
+        }
+        String previous = strings.putIfAbsent(value, value);
+        return previous == null ? value : previous;
+    }
+
+    /**
+     * Move to the next start element (e.g. the root element of the document)
+     */
+    private static void nextElement(@Nonnull XMLStreamReader reader) throws XMLStreamException {
+        while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+            // skip
+        }
+    }
+
+    /**
+     * Move to the next child element of the current element ignoring text and comments.
+     *
+     * @return {@code true} if positioned on the start of a child element, {@code false} if positioned on the end of the current element
+     */
+    private static boolean nextChildElement(@Nonnull XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        throw new XMLStreamException("Unexpected end of document", reader.getLocation());
+    }
+
+    /**
+     * Move to the end of the current element
+     */
+    private static void skipElement(@Nonnull XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * @return the text of the current element and of its descendants like {@link Element#getTextContent()},
+     * positioned on the end of the current element
+     */
+    @Nonnull
+    private static String readText(@Nonnull XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA || event == XMLStreamConstants.SPACE) {
+                text.append(reader.getText());
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Parse a Maven Spy report on the build agent.
+     * <p>
+     * The execution events of the reports larger than the memory budget are written in a spill file next to the
+     * report ({@code maven-spy-*.log.events}), see {@link MavenSpyLogModel#isExecutionEventsSpilled()}.
+     */
+    public static class ParseCallable extends MasterToSlaveFileCallable<MavenSpyLogModel> {
+        private static final long serialVersionUID = 1L;
+
+        private final long memoryBudgetInBytes;
+
+        public ParseCallable() {
+            this(0);
+        }
+
+        /**
+         * @param memoryBudgetInBytes max size of the reports parsed in memory, {@code 0} for no limit
+         */
+        public ParseCallable(long memoryBudgetInBytes) {
+            this.memoryBudgetInBytes = memoryBudgetInBytes;
+        }
+
+        @Override
+        public MavenSpyLogModel invoke(File file, VirtualChannel channel) throws IOException, InterruptedException {
+            ExecutionEventsSpillFile spillFile = null;
+            if (memoryBudgetInBytes > 0 && file.length() > memoryBudgetInBytes) {
+                spillFile = new ExecutionEventsSpillFile(new File(file.getPath() + ".events"));
+            }
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                return parse(in, spillFile);
+            } catch (XMLStreamException e) {
+                // don't send the XMLStreamException to the controller, its location may not be serializable
+                throw new InvalidMavenSpyLogException("Exception parsing " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The Maven Spy report is not well formed (e.g. Maven has been killed while writing the report)
+     */
+    public static class InvalidMavenSpyLogException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public InvalidMavenSpyLogException(String message) {
+            super(message);
+        }
+    }
+}
@@ -31,10 +31,13 @@ import hudson.model.TaskListener;
 import jenkins.model.InterruptedBuildAction;
 import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.plugins.pipeline.maven.publishers.JenkinsMavenEventSpyLogsPublisher;
+import org.jenkinsci.plugins.pipeline.maven.stream.MavenSpyEventStream;
+import org.jenkinsci.plugins.pipeline.maven.util.WorkspaceSnapshot;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.w3c.dom.Element;
 import org.xml.sax.SAXException;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -42,16 +45,20 @@ import java.io.PrintWriter;
 import java.io.Serializable;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -65,8 +72,20 @@ public class MavenSpyLogProcessor implements Serializable {
 
     private static final Logger LOGGER = Logger.getLogger(MavenSpyLogProcessor.class.getName());
 
+    private static final String ARCHIVE_JENKINS_MAVEN_EVENT_SPY_LOGS_FILE_NAME = ".archive-jenkins-maven-event-spy-logs";
+
     public void processMavenSpyLogs(@Nonnull StepContext context, @Nonnull FilePath mavenSpyLogFolder, @Nonnull List<MavenPublisher> options,
                                     @Nonnull MavenPublisherStrategy publisherStrategy) throws IOException, InterruptedException {
+        processMavenSpyLogs(context, mavenSpyLogFolder, options, publisherStrategy, null);
+    }
+
+    /**
+     * @param eventStream events streamed while Maven was running. The publishers of the stream are used and the reports
+     *                    completely received are used instead of parsing the report files.
+     *                    {@code null} if the events have not been streamed.
+     */
+    public void processMavenSpyLogs(@Nonnull StepContext context, @Nonnull FilePath mavenSpyLogFolder, @Nonnull List<MavenPublisher> options,
+                                    @Nonnull MavenPublisherStrategy publisherStrategy, @Nullable MavenSpyEventStream eventStream) throws IOException, InterruptedException {
 
         long nanosBefore = System.nanoTime();
 
@@ -83,72 +102,151 @@ public class MavenSpyLogProcessor implements Serializable {
             throw new IllegalStateException("Failure to create a DocumentBuilder", e);
         }
 
-        for (FilePath mavenSpyLogs : mavenSpyLogsList) {
-            List<Map.Entry<String, Long>> durationInMillisPerPublisher = new ArrayList();
+        if (mavenSpyLogsList.length > 0) {
+            List<Map.Entry<String, Long>> durationInMillisPerPublisher = Collections.synchronizedList(new ArrayList<>());
+            List<Future<MavenSpyLogModel>> mavenSpyLogModelFutures = new ArrayList<>();
+            List<MavenSpyLogModel> mavenSpyLogModels = new ArrayList<>();
+            GlobalPipelineMavenConfig globalPipelineMavenConfig = GlobalPipelineMavenConfig.get();
+            int memoryBudgetInMegabytes = globalPipelineMavenConfig == null ? 0 : globalPipelineMavenConfig.getMavenSpyLogMemoryBudgetInMegabytes();
             try {
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    listener.getLogger().println("[withMaven] Evaluate Maven Spy logs: " + mavenSpyLogs.getRemote());
-                }
-                InputStream mavenSpyLogsInputStream = mavenSpyLogs.read();
-                if (mavenSpyLogsInputStream == null) {
-                    throw new IllegalStateException("InputStream for " + mavenSpyLogs.getRemote() + " is null");
+                if (LOGGER.isLoggable(Level.FINE)){
+                    listener.getLogger().println("[withMaven] Maven Publisher Strategy: " + publisherStrategy.getDescription());
                 }
+                List<MavenPublisher> mavenPublishers = eventStream == null ? publisherStrategy.buildPublishersList(options, listener) : eventStream.getPublishers();
 
-                FilePath archiveJenkinsMavenEventSpyLogs = workspace.child(".archive-jenkins-maven-event-spy-logs");
-                if (archiveJenkinsMavenEventSpyLogs.exists()) {
-                    LOGGER.log(Level.FINE, "Archive Jenkins Maven Event Spy logs {0}", mavenSpyLogs.getRemote());
-                    new JenkinsMavenEventSpyLogsPublisher().process(context, mavenSpyLogs);
+                // parse the reports concurrently on the build agent, only the summaries are sent to the controller
+                for (FilePath mavenSpyLogs : mavenSpyLogsList) {
+                    mavenSpyLogModelFutures.add(mavenSpyLogs.actAsync(new MavenSpyLogParser.ParseCallable(memoryBudgetInMegabytes * 1024L * 1024L)));
                 }
 
-                Element mavenSpyLogsElt = documentBuilder.parse(mavenSpyLogsInputStream).getDocumentElement();
-
-                if (LOGGER.isLoggable(Level.FINE)){
-                    listener.getLogger().println("[withMaven] Maven Publisher Strategy: " + publisherStrategy.getDescription());
+                // probe the marker files in a single round trip to the build agent, concurrently with the parsing
+                WorkspaceSnapshot.Request markerFilesRequest = new WorkspaceSnapshot.Request().addPath(ARCHIVE_JENKINS_MAVEN_EVENT_SPY_LOGS_FILE_NAME);
+                for (MavenPublisher mavenPublisher : mavenPublishers) {
+                    String skipFileName = mavenPublisher.getDescriptor().getSkipFileName();
+                    if (!Boolean.TRUE.equals(mavenPublisher.isDisabled()) && StringUtils.isNotEmpty(skipFileName)) {
+                        markerFilesRequest.addPath(skipFileName);
+                    }
                 }
-                List<MavenPublisher> mavenPublishers = publisherStrategy.buildPublishersList(options, listener);
+                WorkspaceSnapshot workspaceSnapshot = getFutureResult(workspace.actAsync(new WorkspaceSnapshot.ProbeCallable(markerFilesRequest)));
+
+                List<MavenPublisher> enabledMavenPublishers = new ArrayList<>();
                 for (MavenPublisher mavenPublisher : mavenPublishers) {
                     String skipFileName = mavenPublisher.getDescriptor().getSkipFileName();
                     if (Boolean.TRUE.equals(mavenPublisher.isDisabled())) {
                         if (LOGGER.isLoggable(Level.FINE)) {
                             listener.getLogger().println("[withMaven] Skip '" + mavenPublisher.getDescriptor().getDisplayName() + "' disabled by configuration");
                         }
-                    } else if (StringUtils.isNotEmpty(skipFileName) && workspace.child(skipFileName).exists()) {
+                    } else if (StringUtils.isNotEmpty(skipFileName) && exists(workspaceSnapshot, skipFileName)) {
                         if (LOGGER.isLoggable(Level.FINE)) {
                             listener.getLogger().println("[withMaven] Skip '" + mavenPublisher.getDescriptor().getDisplayName() + "' disabled by marker file '" + skipFileName + "'");
                         }
                     } else {
-                        long nanosBeforePublisher = System.nanoTime();
+                        enabledMavenPublishers.add(mavenPublisher);
+                    }
+                }
+                // publishers which don't support the model still require the DOM of the reports
+                boolean mavenSpyLogsEltRequired = enabledMavenPublishers.stream().anyMatch(mavenPublisher -> !mavenPublisher.supportsMavenSpyLogModel());
+                boolean archiveJenkinsMavenEventSpyLogs = exists(workspaceSnapshot, ARCHIVE_JENKINS_MAVEN_EVENT_SPY_LOGS_FILE_NAME);
+
+                List<Element> mavenSpyLogsElts = new ArrayList<>();
+                for (int i = 0; i < mavenSpyLogsList.length; i++) {
+                    FilePath mavenSpyLogs = mavenSpyLogsList[i];
+                    long nanosBeforeMavenSpyLogs = System.nanoTime();
+                    try {
                         if (LOGGER.isLoggable(Level.FINE)) {
-                            listener.getLogger().println("[withMaven] Run '" + mavenPublisher.getDescriptor().getDisplayName() + "'...");
+                            listener.getLogger().println("[withMaven] Evaluate Maven Spy logs: " + mavenSpyLogs.getRemote());
                         }
-                        try {
-                            mavenPublisher.process(context, mavenSpyLogsElt);
-                        } catch (InterruptedException e) {
-                            listener.error("[withMaven] Processing of Maven build outputs interrupted in " + mavenPublisher.toString() + " after " +
-                                    TimeUnit.MILLISECONDS.convert(System.nanoTime() - nanosBefore, TimeUnit.NANOSECONDS) + "ms.");
-                            Thread.currentThread().interrupt();  // set interrupt flag
-                            throw e;
-                        } catch (IOException | RuntimeException e) {
-                            PrintWriter error = listener.error("[withMaven] WARNING Exception executing Maven reporter '" + mavenPublisher.getDescriptor().getDisplayName() +
-                                    "' / " + mavenPublisher.getDescriptor().getId() + "." +
+                        if (archiveJenkinsMavenEventSpyLogs) {
+                            LOGGER.log(Level.FINE, "Archive Jenkins Maven Event Spy logs {0}", mavenSpyLogs.getRemote());
+                            new JenkinsMavenEventSpyLogsPublisher().process(context, mavenSpyLogs);
+                        }
+
+                        MavenSpyLogModel mavenSpyLogModel = getFutureResult(mavenSpyLogModelFutures.get(i));
+
+                        Element mavenSpyLogsElt = null;
+                        if (mavenSpyLogModel.spilledExecutionEvents != null) {
+                            // report exceeding the memory budget, never load it in memory
+                            attachSpilledExecutionEvents(mavenSpyLogs, mavenSpyLogModel.spilledExecutionEvents);
+                            listener.getLogger().println("[withMaven] Maven Spy logs " + mavenSpyLogs.getName() + " (" + mavenSpyLogs.length() / 1024 / 1024 + " MB) " +
+                                    "exceed the memory budget of " + memoryBudgetInMegabytes + " MB, execution events read from disk" +
+                                    (mavenSpyLogsEltRequired ? ", skip " + enabledMavenPublishers.stream().filter(mavenPublisher -> !mavenPublisher.supportsMavenSpyLogModel()).
+                                            map(mavenPublisher -> "'" + mavenPublisher.getDescriptor().getDisplayName() + "'").collect(Collectors.joining(", ")) +
+                                            " not supporting the streaming mode" : ""));
+                        } else if (mavenSpyLogsEltRequired) {
+                            mavenSpyLogsElt = eventStream == null ? null : eventStream.getCompletedReport(mavenSpyLogs.getName());
+                            if (mavenSpyLogsElt == null) {
+                                try (InputStream mavenSpyLogsInputStream = mavenSpyLogs.read()) {
+                                    if (mavenSpyLogsInputStream == null) {
+                                        throw new IllegalStateException("InputStream for " + mavenSpyLogs.getRemote() + " is null");
+                                    }
+                                    mavenSpyLogsElt = documentBuilder.parse(mavenSpyLogsInputStream).getDocumentElement();
+                                }
+                            } else if (LOGGER.isLoggable(Level.FINE)) {
+                                listener.getLogger().println("[withMaven] Use the streamed Maven Spy logs of " + mavenSpyLogs.getRemote());
+                            }
+                        }
+                        mavenSpyLogModels.add(mavenSpyLogModel);
+                        if (mavenSpyLogsElt != null) {
+                            mavenSpyLogsElts.add(mavenSpyLogsElt);
+                        }
+                    } catch (SAXException | MavenSpyLogParser.InvalidMavenSpyLogException e) {
+                        Run run = context.get(Run.class);
+                        if (run.getActions(InterruptedBuildAction.class).isEmpty()) {
+                            listener.error("[withMaven] WARNING Exception parsing the logs generated by the Jenkins Maven Event Spy " + mavenSpyLogs + ", ignore file. " +
                                     " Please report a bug associated for the component 'pipeline-maven-plugin' at https://issues.jenkins-ci.org ");
-                            e.printStackTrace(error);
-                        } finally {
-                            durationInMillisPerPublisher.add(new AbstractMap.SimpleImmutableEntry(mavenPublisher.getDescriptor().getDisplayName(), TimeUnit.MILLISECONDS.convert(System.nanoTime() - nanosBeforePublisher, TimeUnit.NANOSECONDS)));
+                        } else {
+                            // job has been aborted (see InterruptedBuildAction)
+                            listener.error("[withMaven] WARNING logs generated by the Jenkins Maven Event Spy " + mavenSpyLogs + " are invalid, probably due to the interruption of the job, ignore file.");
                         }
+                        listener.error(e.toString());
+                    } catch (IOException | RuntimeException e) {
+                        PrintWriter errorWriter = listener.error("[withMaven] WARNING Exception processing the logs generated by the Jenkins Maven Event Spy " + mavenSpyLogs + ", ignore file. " +
+                                " Please report a bug associated for the component 'pipeline-maven-plugin' at https://issues.jenkins-ci.org ");
+                        e.printStackTrace(errorWriter);
+                    } finally {
+                        durationInMillisPerPublisher.add(new AbstractMap.SimpleImmutableEntry<>(mavenSpyLogs.getName(), TimeUnit.MILLISECONDS.convert(System.nanoTime() - nanosBeforeMavenSpyLogs, TimeUnit.NANOSECONDS)));
                     }
                 }
-            } catch (SAXException e) {
-                Run run = context.get(Run.class);
-                if (run.getActions(InterruptedBuildAction.class).isEmpty()) {
-                    listener.error("[withMaven] WARNING Exception parsing the logs generated by the Jenkins Maven Event Spy " + mavenSpyLogs + ", ignore file. " +
-                            " Please report a bug associated for the component 'pipeline-maven-plugin' at https://issues.jenkins-ci.org ");
-                } else {
-                    // job has been aborted (see InterruptedBuildAction)
-                    listener.error("[withMaven] WARNING logs generated by the Jenkins Maven Event Spy " + mavenSpyLogs + " are invalid, probably due to the interruption of the job, ignore file.");
+
+                if (!mavenSpyLogModels.isEmpty()) {
+                    // each publisher processes once the union of the Maven executions
+                    MavenSpyLogModel mavenSpyLogModel = MavenSpyLogModel.merge(mavenSpyLogModels);
+
+                    // probe the workspace for all the publishers in a single round trip to the build agent
+                    WorkspaceSnapshot.Request publishersRequest = new WorkspaceSnapshot.Request();
+                    for (MavenPublisher mavenPublisher : enabledMavenPublishers) {
+                        if (mavenPublisher.supportsMavenSpyLogModel()) {
+                            try {
+                                mavenPublisher.collectWorkspaceProbes(context, mavenSpyLogModel, publishersRequest);
+                            } catch (IOException | RuntimeException e) {
+                                LOGGER.log(Level.WARNING, "Exception collecting the workspace probes of " + mavenPublisher, e);
+                            }
+                        }
+                    }
+                    if (!publishersRequest.isEmpty()) {
+                        try {
+                            workspaceSnapshot.add(workspace.act(new WorkspaceSnapshot.ProbeCallable(publishersRequest)));
+                        } catch (IOException e) {
+                            // the publishers fall back to probing the workspace themselves
+                            LOGGER.log(Level.WARNING, "Exception probing the workspace " + publishersRequest, e);
+                        }
+                    }
+                    mavenSpyLogModel.setWorkspaceSnapshot(workspaceSnapshot);
+                    MavenPublishersExecutor.PublisherExecution publisherExecution = mavenPublisher ->
+                            executePublisher(context, mavenPublisher, mavenSpyLogModel, mavenSpyLogsElts, listener, nanosBefore, durationInMillisPerPublisher);
+
+                    if (globalPipelineMavenConfig == null || !globalPipelineMavenConfig.isParallelPublisherExecution()) {
+                        for (MavenPublisher mavenPublisher : enabledMavenPublishers) {
+                            publisherExecution.execute(mavenPublisher);
+                        }
+                    } else {
+                        new MavenPublishersExecutor(listener, globalPipelineMavenConfig.getPublisherTimeoutInMinutes()).execute(enabledMavenPublishers, publisherExecution);
+                    }
                 }
-                listener.error(e.toString());
             } catch (InterruptedException e) {
+                for (Future<MavenSpyLogModel> mavenSpyLogModelFuture : mavenSpyLogModelFutures) {
+                    mavenSpyLogModelFuture.cancel(true);
+                }
                 PrintWriter errorWriter = listener.error("[withMaven] Processing of Maven build outputs interrupted after " +
                         TimeUnit.MILLISECONDS.convert(System.nanoTime() - nanosBefore, TimeUnit.NANOSECONDS) + "ms.");
                 if (LOGGER.isLoggable(Level.FINE)) {
@@ -156,14 +254,19 @@ public class MavenSpyLogProcessor implements Serializable {
                 }
                 Thread.currentThread().interrupt();  // set interrupt flag
                 return;
-            } catch (Exception e) {
-                PrintWriter errorWriter = listener.error("[withMaven] WARNING Exception processing the logs generated by the Jenkins Maven Event Spy " + mavenSpyLogs + ", ignore file. " +
+            } catch (IOException | RuntimeException e) {
+                PrintWriter errorWriter = listener.error("[withMaven] WARNING Exception processing the logs generated by the Jenkins Maven Event Spy in " + mavenSpyLogFolder + ". " +
                         " Please report a bug associated for the component 'pipeline-maven-plugin' at https://issues.jenkins-ci.org ");
                 e.printStackTrace(errorWriter);
             } finally {
+                for (MavenSpyLogModel mavenSpyLogModel : mavenSpyLogModels) {
+                    if (mavenSpyLogModel.spilledExecutionEvents != null) {
+                        mavenSpyLogModel.spilledExecutionEvents.close();
+                    }
+                }
                 if (LOGGER.isLoggable(Level.INFO)) {
                     listener.getLogger().println("[withMaven] Publishers: " +
-                            durationInMillisPerPublisher.stream().filter(entry -> entry.getValue() > 0).
+                            new ArrayList<>(durationInMillisPerPublisher).stream().filter(entry -> entry.getValue() > 0).
                                     map(entry -> entry.getKey() + ": " + entry.getValue() + " ms").
                                     collect(Collectors.joining(", ")));
 
@@ -185,6 +288,83 @@ public class MavenSpyLogProcessor implements Serializable {
         }
     }
 
+    /**
+     * @return the result of the callable executed on the build agent (e.g. the model of the report)
+     * @throws MavenSpyLogParser.InvalidMavenSpyLogException if the report is invalid
+     */
+    @Nonnull
+    private static <T> T getFutureResult(@Nonnull Future<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw new IOException(cause);
+            }
+        }
+    }
+
+    private static boolean exists(@Nonnull WorkspaceSnapshot workspaceSnapshot, @Nonnull String path) {
+        WorkspaceSnapshot.PathInfo pathInfo = workspaceSnapshot.getPath(path);
+        return pathInfo != null && pathInfo.exists();
+    }
+
+    /**
+     * Make the spill file of the execution events available on the controller
+     */
+    private static void attachSpilledExecutionEvents(@Nonnull FilePath mavenSpyLogs, @Nonnull ExecutionEventsSpillFile spilledExecutionEvents) throws IOException, InterruptedException {
+        FilePath remoteSpillFile = new FilePath(mavenSpyLogs.getChannel(), spilledExecutionEvents.remotePath);
+        if (remoteSpillFile.isRemote()) {
+            File localSpillFile = File.createTempFile("maven-spy-", ".events");
+            remoteSpillFile.copyTo(new FilePath(localSpillFile));
+            spilledExecutionEvents.attach(localSpillFile);
+        } else {
+            spilledExecutionEvents.attach(new File(spilledExecutionEvents.remotePath));
+        }
+    }
+
+    /**
+     * Execute the publisher isolating the failures from the other publishers. May be invoked concurrently by the
+     * {@link MavenPublishersExecutor}.
+     *
+     * @param mavenSpyLogModel union of the Maven executions
+     * @param mavenSpyLogsElts reports of the Maven executions, processed one after the other by the publishers which
+     *                         don't support the {@link MavenSpyLogModel}
+     */
+    private void executePublisher(@Nonnull StepContext context, @Nonnull MavenPublisher mavenPublisher, @Nonnull MavenSpyLogModel mavenSpyLogModel,
+                                  @Nonnull List<Element> mavenSpyLogsElts, @Nonnull TaskListener listener, long nanosBefore,
+                                  @Nonnull List<Map.Entry<String, Long>> durationInMillisPerPublisher) throws InterruptedException {
+        long nanosBeforePublisher = System.nanoTime();
+        if (LOGGER.isLoggable(Level.FINE)) {
+            listener.getLogger().println("[withMaven] Run '" + mavenPublisher.getDescriptor().getDisplayName() + "'...");
+        }
+        try {
+            if (mavenPublisher.supportsMavenSpyLogModel()) {
+                mavenPublisher.process(context, mavenSpyLogModel);
+            } else {
+                for (Element mavenSpyLogsElt : mavenSpyLogsElts) {
+                    mavenPublisher.process(context, mavenSpyLogsElt);
+                }
+            }
+        } catch (InterruptedException e) {
+            listener.error("[withMaven] Processing of Maven build outputs interrupted in " + mavenPublisher.toString() + " after " +
+                    TimeUnit.MILLISECONDS.convert(System.nanoTime() - nanosBefore, TimeUnit.NANOSECONDS) + "ms.");
+            Thread.currentThread().interrupt();  // set interrupt flag
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            PrintWriter error = listener.error("[withMaven] WARNING Exception executing Maven reporter '" + mavenPublisher.getDescriptor().getDisplayName() +
+                    "' / " + mavenPublisher.getDescriptor().getId() + "." +
+                    " Please report a bug associated for the component 'pipeline-maven-plugin' at https://issues.jenkins-ci.org ");
+            e.printStackTrace(error);
+        } finally {
+            durationInMillisPerPublisher.add(new AbstractMap.SimpleImmutableEntry<>(mavenPublisher.getDescriptor().getDisplayName(), TimeUnit.MILLISECONDS.convert(System.nanoTime() - nanosBeforePublisher, TimeUnit.NANOSECONDS)));
+        }
+    }
+
     /*
       <plugin executionId="default-test" goal="test" groupId="org.apache.maven.plugins" artifactId="maven-surefire-plugin" version="2.19.1">
      */
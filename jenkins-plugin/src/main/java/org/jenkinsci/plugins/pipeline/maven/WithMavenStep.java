@@ -75,6 +75,7 @@ public class WithMavenStep extends Step {
     private String mavenOpts = "";
     private String jdk;
     private String mavenLocalRepo = "";
+    private String mavenLocalRepoSeed = "";
     private List<MavenPublisher> options = new ArrayList<>();
     private MavenPublisherStrategy publisherStrategy = MavenPublisherStrategy.IMPLICIT;
 
@@ -163,6 +164,15 @@ public class WithMavenStep extends Step {
         this.mavenLocalRepo = mavenLocalRepo;
     }
 
+    public String getMavenLocalRepoSeed() {
+        return mavenLocalRepoSeed;
+    }
+
+    @DataBoundSetter
+    public void setMavenLocalRepoSeed(String mavenLocalRepoSeed) {
+        this.mavenLocalRepoSeed = mavenLocalRepoSeed;
+    }
+
     public MavenPublisherStrategy getPublisherStrategy() {
         return publisherStrategy;
     }
@@ -51,6 +51,7 @@ import hudson.model.Job;
 import hudson.model.Node;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
 import hudson.slaves.WorkspaceList;
 import hudson.tasks.Maven;
 import hudson.tasks.Maven.MavenInstallation;
@@ -62,6 +63,7 @@ import jenkins.mvn.FilePathSettingsProvider;
 import jenkins.mvn.GlobalMavenConfig;
 import jenkins.mvn.GlobalSettingsProvider;
 import jenkins.mvn.SettingsProvider;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.lib.configprovider.model.Config;
 import org.jenkinsci.plugins.configfiles.ConfigFiles;
@@ -74,6 +76,14 @@ import org.jenkinsci.plugins.configfiles.maven.security.ServerCredentialMapping;
 import org.jenkinsci.plugins.pipeline.maven.console.MaskPasswordsConsoleLogFilter;
 import org.jenkinsci.plugins.pipeline.maven.console.MavenColorizerConsoleLogFilter;
 import org.jenkinsci.plugins.pipeline.maven.fix.jenkins49337.GeneralNonBlockingStepExecution;
+import org.jenkinsci.plugins.pipeline.maven.stream.MavenSpyEventCollector;
+import org.jenkinsci.plugins.pipeline.maven.stream.MavenSpyEventListener;
+import org.jenkinsci.plugins.pipeline.maven.stream.MavenSpyEventStream;
+import org.jenkinsci.plugins.pipeline.maven.util.AgentSetup;
+import org.jenkinsci.plugins.pipeline.maven.util.LocalRepositorySeed;
+import org.jenkinsci.plugins.pipeline.maven.util.MavenExecutableDiscoveryCache;
+import org.jenkinsci.plugins.pipeline.maven.util.MavenServerCredentialsCache;
+import org.jenkinsci.plugins.pipeline.maven.util.MavenSpyJarCache;
 import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
 import org.jenkinsci.plugins.tokenmacro.TokenMacro;
 import org.jenkinsci.plugins.workflow.steps.BodyExecution;
@@ -82,22 +92,26 @@ import org.jenkinsci.plugins.workflow.steps.EnvironmentExpander;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.springframework.util.ClassUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.security.CodeSource;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -127,6 +141,20 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
      */
     private static final String MVN_CMD_DIR = "MVN_CMD_DIR";
 
+    /**
+     * URL of the Maven Spy jar, mostly for testing / debugging in the IDE
+     */
+    private static final String MAVEN_SPY_JAR_URL = "org.jenkinsci.plugins.pipeline.maven.mavenSpyJarUrl";
+
+    /**
+     * Content of the Maven Spy jar embedded in the plugin, see {@link #getEmbeddedMavenSpyJar()}
+     */
+    private static volatile byte[] embeddedMavenSpyJar;
+    /**
+     * Max time to wait, at the end of the step, for the processing of the Maven events streamed during the build
+     */
+    private static final long MAVEN_SPY_EVENT_STREAM_TIMEOUT_IN_MILLIS = 60_000;
+
     private static final Logger LOGGER = Logger.getLogger(WithMavenStepExecution2.class.getName());
 
     private final transient WithMavenStep step;
@@ -143,7 +171,33 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
 
     private transient Computer computer;
     private transient FilePath tempBinDir;
+    /**
+     * Read-only repository seeding the local repository, {@code null} if the local repository is not seeded
+     */
+    private transient FilePath mavenLocalRepoSeed;
+    /**
+     * File listing the release artifacts downloaded by the build to promote them into the {@link #mavenLocalRepoSeed}
+     */
+    private transient FilePath mavenLocalRepoSeedDownloadedArtifacts;
+    /**
+     * Files to create on the build agent, see {@link #setupMaven(Collection)}
+     */
+    private transient AgentSetup agentSetup;
+    /**
+     * Phase of the startup of the step -> duration in millis, logged at the FINE level
+     */
+    private transient Map<String, Long> startupDurations;
     private transient BodyExecution body;
+    /**
+     * Identifier of the {@link MavenSpyEventStream}, {@code null} if the Maven events are not streamed
+     */
+    private transient String mavenSpyEventStreamId;
+
+    /**
+     * File containing the token with which the Maven executions authenticate to the collector of the
+     * {@link MavenSpyEventStream}. The token is not passed in the {@code JAVA_TOOL_OPTIONS} printed by the JVM.
+     */
+    private transient FilePath mavenSpyEventStreamTokenFile;
 
     /**
      * Indicates if running on docker with <code>docker.image()</code> or <code>container()</code>
@@ -164,13 +218,23 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
     }
 
     @Override public boolean start() throws Exception {
-        run(this::doStart);
+        run(() -> {
+            try {
+                doStart();
+            } catch (Exception e) {
+                // the body will not stop the collector of the Maven events
+                abortMavenSpyEventStream();
+                throw e;
+            }
+        });
         return false;
     }
 
     protected boolean doStart() throws Exception {
         envOverride = new EnvVars();
         console = listener.getLogger();
+        startupDurations = new LinkedHashMap<>();
+        long startupPhaseStart = System.nanoTime();
 
         if (LOGGER.isLoggable(Level.FINE)) {
             LOGGER.log(Level.FINE, "Maven: {0}", step.getMaven());
@@ -191,6 +255,7 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
         listener.getLogger().println("[withMaven] Available options: " + availableMavenPublishers.stream().map(publisher -> publisher.toString()).collect(Collectors.joining(",")));
 
         getComputer();
+        startupPhaseStart = recordStartupDuration("computer", startupPhaseStart);
 
         withContainer = detectWithContainer();
 
@@ -210,10 +275,12 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
         }
 
         setupJDK();
+        startupPhaseStart = recordStartupDuration("jdk", startupPhaseStart);
 
         // list of credentials injected by withMaven. They will be tracked and masked in the logs
         Collection<Credentials> credentials = new ArrayList<>();
         setupMaven(credentials);
+        startupPhaseStart = System.nanoTime();
 
         if (LOGGER.isLoggable(Level.FINE)) {
             LOGGER.log(Level.FINE, this.build + " - Track usage and mask password of credentials " + credentials.stream().map(new CredentialsToPrettyString()).collect(Collectors.joining(",")));
@@ -232,11 +299,27 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
 
         LOGGER.log(Level.FINEST, "envOverride: {0}", envOverride); // JENKINS-40484
 
-        body = getContext().newBodyInvoker().withContexts(envEx, newFilter).withCallback(new WithMavenStepExecutionCallBack(tempBinDir, step.getOptions(), step.getPublisherStrategy())).start();
+        body = getContext().newBodyInvoker().withContexts(envEx, newFilter).withCallback(new WithMavenStepExecutionCallBack(tempBinDir, step.getOptions(), step.getPublisherStrategy(), mavenSpyEventStreamId, mavenLocalRepoSeedDownloadedArtifacts, mavenLocalRepoSeed)).start();
+        recordStartupDuration("body", startupPhaseStart);
 
+        if (LOGGER.isLoggable(Level.FINE)) {
+            long total = startupDurations.values().stream().mapToLong(Long::longValue).sum();
+            LOGGER.log(Level.FINE, "{0} - withMaven started in {1}ms: {2}", new Object[]{build, total, startupDurations});
+        }
         return false;
     }
 
+    /**
+     * @param phase            phase of the startup of the step
+     * @param phaseStartInNanos start of the phase, see {@link System#nanoTime()}
+     * @return the end of the phase, see {@link System#nanoTime()}
+     */
+    private long recordStartupDuration(@Nonnull String phase, long phaseStartInNanos) {
+        long now = System.nanoTime();
+        startupDurations.put(phase, TimeUnit.NANOSECONDS.toMillis(now - phaseStartInNanos));
+        return now;
+    }
+
     /**
      * Detects if this step is running inside <code>docker.image()</code> or <code>container()</code>
      * <p>
@@ -316,6 +399,10 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
      * @throws InterruptedException
      */
     private void setupMaven(@Nonnull Collection<Credentials> credentials) throws IOException, InterruptedException {
+        long startupPhaseStart = System.nanoTime();
+        // the files are created on the build agent in a single round trip once all of them are known
+        agentSetup = new AgentSetup();
+
         // Temp dir with the wrapper that will be prepended to the path and the temporary files used by withMaven (settings files...)
         if (step.getTempBinDir() != null && !step.getTempBinDir().isEmpty()) {
             String expandedTargetLocation = step.getTempBinDir();
@@ -329,29 +416,27 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
         if (tempBinDir == null) {
             tempBinDir = tempDir(ws).child("withMaven" + Util.getDigestOf(UUID.randomUUID().toString()).substring(0, 8));
         }
-        tempBinDir.mkdirs();
+        agentSetup.mkdirs(tempBinDir);
         envOverride.put("MVN_CMD_DIR", tempBinDir.getRemote());
 
         // SETTINGS FILES
         String settingsFilePath = setupSettingFile(credentials);
         String globalSettingsFilePath = setupGlobalSettingFile(credentials);
+        startupPhaseStart = recordStartupDuration("settings", startupPhaseStart);
 
         // LOCAL REPOSITORY
         String mavenLocalRepo = setupMavenLocalRepo();
+        setupMavenLocalRepoSeed();
 
         // MAVEN EVENT SPY
-        FilePath mavenSpyJarPath = setupMavenSpy();
+        byte[] mavenSpyJar = getMavenSpyJar();
+        FilePath mavenSpyJarPath = setupMavenSpy(mavenSpyJar);
+        Integer mavenSpyEventStreamPort = setupMavenSpyEventStream();
+        startupPhaseStart = recordStartupDuration("mavenSpy", startupPhaseStart);
 
         //
         // JAVA_TOOL_OPTIONS
-        // https://docs.oracle.com/javase/8/docs/technotes/guides/troubleshoot/envvars002.html
-        String javaToolsOptions = env.get("JAVA_TOOL_OPTIONS", "");
-        if (StringUtils.isNotEmpty(javaToolsOptions)) {
-            javaToolsOptions += " ";
-        }
-        javaToolsOptions += "-Dmaven.ext.class.path=\"" + mavenSpyJarPath.getRemote() + "\" " +
-                "-Dorg.jenkinsci.plugins.pipeline.maven.reportsFolder=\"" + this.tempBinDir.getRemote() + "\" ";
-        envOverride.put("JAVA_TOOL_OPTIONS", javaToolsOptions);
+        setupJavaToolOptions(mavenSpyJarPath, mavenSpyEventStreamPort);
 
         //
         // MAVEN_CONFIG
@@ -367,6 +452,10 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
         if (StringUtils.isNotEmpty(mavenLocalRepo)) {
             mavenConfig.append("\"-Dmaven.repo.local=" + mavenLocalRepo + "\" ");
         }
+        if (mavenLocalRepoSeed != null) {
+            mavenConfig.append("\"-Dmaven.repo.local.tail=" + mavenLocalRepoSeed.getRemote() + "\" ");
+            mavenConfig.append("\"-D" + LocalRepositorySeed.DOWNLOADED_ARTIFACTS_FILE_PROPERTY_NAME + "=" + mavenLocalRepoSeedDownloadedArtifacts.getRemote() + "\" ");
+        }
 
         envOverride.put("MAVEN_CONFIG", mavenConfig.toString());
 
@@ -384,6 +473,7 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
 
         // MAVEN SCRIPT WRAPPER
         String mvnExecPath = obtainMavenExec();
+        startupPhaseStart = recordStartupDuration("mavenExecutable", startupPhaseStart);
 
         LOGGER.log(Level.FINE, "Using temp dir: {0}", tempBinDir.getRemote());
 
@@ -400,25 +490,181 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
             createWrapperScript(tempBinDir, mvnExec.getName(), content);
         }
 
+        LOGGER.log(Level.FINE, "Setup build agent: {0}", agentSetup);
+        boolean mavenSpyJarCached = tempBinDir.act(agentSetup);
+        if (!mavenSpyJarCached) {
+            // first use of this version of the jar on the build agent
+            FilePath cachedMavenSpyJarPath = setupCachedMavenSpy(mavenSpyJar);
+            if (!cachedMavenSpyJarPath.equals(mavenSpyJarPath)) {
+                setupJavaToolOptions(cachedMavenSpyJarPath, mavenSpyEventStreamPort);
+            }
+        }
+        recordStartupDuration("agentSetup", startupPhaseStart);
     }
 
-    private FilePath setupMavenSpy() throws IOException, InterruptedException {
-        if (tempBinDir == null) {
-            throw new IllegalStateException("tempBinDir not defined");
+    /**
+     * https://docs.oracle.com/javase/8/docs/technotes/guides/troubleshoot/envvars002.html
+     *
+     * @param mavenSpyJarPath         Maven Spy jar on the build agent
+     * @param mavenSpyEventStreamPort port of the collector of the Maven events, {@code null} if not streamed
+     */
+    private void setupJavaToolOptions(@Nonnull FilePath mavenSpyJarPath, @Nullable Integer mavenSpyEventStreamPort) {
+        String javaToolsOptions = env.get("JAVA_TOOL_OPTIONS", "");
+        if (StringUtils.isNotEmpty(javaToolsOptions)) {
+            javaToolsOptions += " ";
         }
+        javaToolsOptions += "-Dmaven.ext.class.path=\"" + mavenSpyJarPath.getRemote() + "\" " +
+                "-Dorg.jenkinsci.plugins.pipeline.maven.reportsFolder=\"" + this.tempBinDir.getRemote() + "\" ";
+        GlobalPipelineMavenConfig globalPipelineMavenConfig = GlobalPipelineMavenConfig.get();
+        if (globalPipelineMavenConfig != null && globalPipelineMavenConfig.isMavenSpyFileDigests()) {
+            javaToolsOptions += "-Dorg.jenkinsci.plugins.pipeline.maven.fileDigests=true ";
+        }
+        if (mavenSpyEventStreamPort != null) {
+            javaToolsOptions += "-Dorg.jenkinsci.plugins.pipeline.maven.eventStreamPort=" + mavenSpyEventStreamPort + " " +
+                    "-Dorg.jenkinsci.plugins.pipeline.maven.eventStreamTokenFile=\"" + mavenSpyEventStreamTokenFile.getRemote() + "\" ";
+        }
+        envOverride.put("JAVA_TOOL_OPTIONS", javaToolsOptions);
+    }
+
+    /**
+     * Start, on the build agent, the collector of the events streamed by the Maven Spy if streaming is enabled.
+     *
+     * @return the port on which the collector listens, {@code null} if the Maven events are not streamed
+     * @see MavenSpyEventStream
+     */
+    @CheckForNull
+    private Integer setupMavenSpyEventStream() throws IOException, InterruptedException {
+        GlobalPipelineMavenConfig globalPipelineMavenConfig = GlobalPipelineMavenConfig.get();
+        if (globalPipelineMavenConfig == null || !globalPipelineMavenConfig.isMavenSpyEventStreaming()) {
+            return null;
+        }
+        if (withContainer) {
+            console.println("[withMaven] Streaming of the Maven events is not supported within a container, process the Maven Spy logs at the end of the build");
+            return null;
+        }
+
+        MavenSpyEventStream mavenSpyEventStream = MavenSpyEventStream.newStream(getContext(), step.getOptions(), step.getPublisherStrategy());
+        VirtualChannel channel = tempBinDir.getChannel();
+        String token = MavenSpyEventCollector.newToken();
+        boolean started = false;
+        try {
+            int port = channel.call(new MavenSpyEventCollector.Start(mavenSpyEventStream.getId(), token, channel.export(MavenSpyEventListener.class, mavenSpyEventStream)));
+            mavenSpyEventStreamId = mavenSpyEventStream.getId();
+            mavenSpyEventStreamTokenFile = tempBinDir.child("event-stream.token");
+            agentSetup.write(mavenSpyEventStreamTokenFile, token.getBytes(StandardCharsets.UTF_8), false);
+            started = true;
+            if (LOGGER.isLoggable(Level.FINE)) {
+                console.println("[withMaven] Stream the Maven events to " + mavenSpyEventStream + " through port " + port + " of the build agent");
+            }
+            return port;
+        } catch (IOException e) {
+            console.println("[withMaven] WARNING: Failure to start the collector of the Maven events, process the Maven Spy logs at the end of the build: " + e);
+            LOGGER.log(Level.WARNING, "Exception starting the collector of the Maven events on " + channel, e);
+            return null;
+        } finally {
+            if (!started) {
+                mavenSpyEventStream.abort();
+            }
+        }
+    }
+
+    /**
+     * Stop the collector of the Maven events and unregister the stream without processing the events, e.g. when the
+     * step fails before starting its body.
+     */
+    private void abortMavenSpyEventStream() {
+        if (mavenSpyEventStreamId == null) {
+            return;
+        }
+        try {
+            tempBinDir.getChannel().call(new MavenSpyEventCollector.Stop(mavenSpyEventStreamId, MAVEN_SPY_EVENT_STREAM_TIMEOUT_IN_MILLIS));
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Exception stopping the collector of the Maven events " + mavenSpyEventStreamId, e);
+        } finally {
+            MavenSpyEventStream mavenSpyEventStream = MavenSpyEventStream.get(mavenSpyEventStreamId);
+            if (mavenSpyEventStream != null) {
+                mavenSpyEventStream.abort();
+            }
+        }
+    }
 
-        // Mostly for testing / debugging in the IDE
-        final String MAVEN_SPY_JAR_URL = "org.jenkinsci.plugins.pipeline.maven.mavenSpyJarUrl";
+    @Nonnull
+    private byte[] getMavenSpyJar() throws IOException {
         String mavenSpyJarUrl = System.getProperty(MAVEN_SPY_JAR_URL);
-        InputStream in;
         if (mavenSpyJarUrl == null) {
-            String embeddedMavenSpyJarPath = "META-INF/lib/pipeline-maven-spy.jar";
-            LOGGER.log(Level.FINE, "Load embedded maven spy jar '" + embeddedMavenSpyJarPath + "'");
-            // Don't use Thread.currentThread().getContextClassLoader() as it doesn't show the resources of the plugin
-            Class<WithMavenStepExecution2> clazz = WithMavenStepExecution2.class;
-            ClassLoader classLoader = clazz.getClassLoader();
-            LOGGER.log(Level.FINE, "Load " + embeddedMavenSpyJarPath + " using classloader " + classLoader.getClass() + ": " + classLoader);
-            in = classLoader.getResourceAsStream(embeddedMavenSpyJarPath);
+            return getEmbeddedMavenSpyJar();
+        }
+        LOGGER.log(Level.FINE, "Load maven spy jar provided by system property '" + MAVEN_SPY_JAR_URL + "': " + mavenSpyJarUrl);
+        try (InputStream in = new URL(mavenSpyJarUrl).openStream()) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    /**
+     * Register the Maven Spy jar in the {@link #agentSetup}: verified in the cache of the build agent or copied in
+     * the {@link #tempBinDir} within a container
+     *
+     * @return the location of the jar on the build agent once the {@link #agentSetup} is applied
+     */
+    @Nonnull
+    private FilePath setupMavenSpy(@Nonnull byte[] mavenSpyJar) throws IOException, InterruptedException {
+        if (tempBinDir == null) {
+            throw new IllegalStateException("tempBinDir not defined");
+        }
+
+        // the cache of the agent is not visible from the containers
+        if (!withContainer) {
+            Node node = getComputer().getNode();
+            FilePath agentRoot = node == null ? null : node.getRootPath();
+            if (agentRoot != null) {
+                return MavenSpyJarCache.getCachedJar(agentRoot, mavenSpyJar, agentSetup);
+            }
+        }
+
+        FilePath mavenSpyJarFilePath = tempBinDir.child("pipeline-maven-spy.jar");
+        agentSetup.write(mavenSpyJarFilePath, mavenSpyJar, false);
+        return mavenSpyJarFilePath;
+    }
+
+    /**
+     * Upload the Maven Spy jar missing in the cache of the build agent, fallback to a copy in the {@link #tempBinDir}
+     *
+     * @return the location of the jar on the build agent
+     */
+    @Nonnull
+    private FilePath setupCachedMavenSpy(@Nonnull byte[] mavenSpyJar) throws IOException, InterruptedException {
+        Node node = getComputer().getNode();
+        FilePath agentRoot = node == null ? null : node.getRootPath();
+        if (agentRoot != null) {
+            try {
+                return MavenSpyJarCache.getCachedJar(agentRoot, mavenSpyJar);
+            } catch (IOException e) {
+                console.println("[withMaven] WARNING: Failure to cache the Maven Spy jar on the build agent, copy it in " + tempBinDir.getRemote() + ": " + e);
+                LOGGER.log(Level.WARNING, "Exception caching the Maven Spy jar in " + agentRoot, e);
+            }
+        }
+
+        FilePath mavenSpyJarFilePath = tempBinDir.child("pipeline-maven-spy.jar");
+        mavenSpyJarFilePath.copyFrom(new ByteArrayInputStream(mavenSpyJar));
+        return mavenSpyJarFilePath;
+    }
+
+    /**
+     * @return the content of the Maven Spy jar embedded in the plugin, loaded once
+     */
+    @Nonnull
+    private static byte[] getEmbeddedMavenSpyJar() throws IOException {
+        byte[] mavenSpyJar = embeddedMavenSpyJar;
+        if (mavenSpyJar != null) {
+            return mavenSpyJar;
+        }
+        String embeddedMavenSpyJarPath = "META-INF/lib/pipeline-maven-spy.jar";
+        LOGGER.log(Level.FINE, "Load embedded maven spy jar '" + embeddedMavenSpyJarPath + "'");
+        // Don't use Thread.currentThread().getContextClassLoader() as it doesn't show the resources of the plugin
+        Class<WithMavenStepExecution2> clazz = WithMavenStepExecution2.class;
+        ClassLoader classLoader = clazz.getClassLoader();
+        LOGGER.log(Level.FINE, "Load " + embeddedMavenSpyJarPath + " using classloader " + classLoader.getClass() + ": " + classLoader);
+        try (InputStream in = classLoader.getResourceAsStream(embeddedMavenSpyJarPath)) {
             if (in == null) {
                 CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
                 String msg = "Embedded maven spy jar not found at " + embeddedMavenSpyJarPath + " in the pipeline-maven-plugin classpath. " +
@@ -427,14 +673,10 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
                         "Class " + clazz.getName() + " loaded from " + (codeSource == null ? "#unknown#" : codeSource.getLocation());
                 throw new IllegalStateException(msg);
             }
-        } else {
-            LOGGER.log(Level.FINE, "Load maven spy jar provided by system property '" + MAVEN_SPY_JAR_URL + "': " + mavenSpyJarUrl);
-            in = new URL(mavenSpyJarUrl).openStream();
+            mavenSpyJar = IOUtils.toByteArray(in);
         }
-
-        FilePath mavenSpyJarFilePath = tempBinDir.child("pipeline-maven-spy.jar");
-        mavenSpyJarFilePath.copyFrom(in);
-        return mavenSpyJarFilePath;
+        embeddedMavenSpyJar = mavenSpyJar;
+        return mavenSpyJar;
     }
 
     /**
@@ -464,6 +706,17 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
             return obtainMvnExecutableFromMavenInstallation(mavenInstallationName);
         }
 
+        String discoveryCacheKey = MavenExecutableDiscoveryCache.getKey(getComputer(), launcher, env);
+        MavenExecutableDiscoveryCache.Discovery discovery = discoveryCacheKey == null ? null : MavenExecutableDiscoveryCache.get(discoveryCacheKey);
+        if (discovery != null) {
+            if (discovery.getMavenHome() != null) {
+                new MavenInstallation("Maven Auto-discovered", discovery.getMavenHome(), null).buildEnvVars(envOverride);
+            }
+            console.println(discovery.getConsoleMessage());
+            LOGGER.log(Level.FINE, "Found exec for maven on: {0} (cached)", discovery.getMvnExecPath());
+            return discovery.getMvnExecPath();
+        }
+        String discoveredMavenHome = null;
 
         // in case there are no installations available we fallback to the OS maven installation
         // first we try MAVEN_HOME and M2_HOME
@@ -512,6 +765,7 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
                 MavenInstallation mavenInstallation = new MavenInstallation("Maven Auto-discovered", mavenHome, null);
                 mavenInstallation.buildEnvVars(envOverride);
                 mvnExecPath = mavenInstallation.getExecutable(launcher);
+                discoveredMavenHome = mavenHome;
             }
         }
 
@@ -546,6 +800,11 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
 
         console.println(consoleMessage.toString());
 
+        if (discoveryCacheKey != null && mvnExecPath != null) {
+            // don't cache the mvnw fallback, it depends on the workspace
+            MavenExecutableDiscoveryCache.put(discoveryCacheKey, mvnExecPath, discoveredMavenHome, consoleMessage.toString());
+        }
+
         LOGGER.log(Level.FINE, "Found exec for maven on: {0}", mvnExecPath);
         return mvnExecPath;
     }
@@ -645,8 +904,7 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
         FilePath scriptFile = tempBinDir.child(name);
         envOverride.put(MVN_CMD, scriptFile.getRemote());
 
-        scriptFile.write(content, getComputer().getDefaultCharset().name());
-        scriptFile.chmod(0755);
+        agentSetup.write(scriptFile, content.getBytes(getComputer().getDefaultCharset()), true);
 
         return scriptFile;
     }
@@ -667,13 +925,43 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
             // resolve relative/absolute with workspace as base
             String expandedPath = envOverride.expand(env.expand(step.getMavenLocalRepo()));
             FilePath repoPath = new FilePath(ws, expandedPath);
-            repoPath.mkdirs();
+            agentSetup.mkdirs(repoPath);
             expandedMavenLocalRepo = repoPath.getRemote();
         }
         LOGGER.log(Level.FINEST, "setupMavenLocalRepo({0}): {1}", new Object[]{step.getMavenLocalRepo(), expandedMavenLocalRepo});
         return expandedMavenLocalRepo;
     }
 
+    /**
+     * Sets up the read-only repository seeding the local repository according to the provided parameter on the agent.
+     * The local repository of the build is unchanged: the "Maven Local Repository" if defined, otherwise the default
+     * local repository of Maven. The seed requires Maven 3.9+, the Maven Spy warns when older versions of Maven ignore
+     * it and doesn't list the downloaded artifacts to promote.
+     *
+     * @throws AbortException in case of error
+     */
+    private void setupMavenLocalRepoSeed() throws AbortException {
+        if (StringUtils.isEmpty(step.getMavenLocalRepoSeed())) {
+            return;
+        }
+        if (withContainer) {
+            console.println("[withMaven] WARNING: The Maven local repository seed is not supported within a container, ignore '" + step.getMavenLocalRepoSeed() + "'");
+            return;
+        }
+        Node node = getComputer().getNode();
+        FilePath agentRoot = node == null ? null : node.getRootPath();
+        if (agentRoot == null) {
+            console.println("[withMaven] WARNING: Root folder of the build agent not available, ignore the Maven local repository seed '" + step.getMavenLocalRepoSeed() + "'");
+            return;
+        }
+        // resolve relative/absolute with the agent root as base, the seed is shared by the builds of the agent
+        String expandedPath = envOverride.expand(env.expand(step.getMavenLocalRepoSeed()));
+        mavenLocalRepoSeed = new FilePath(agentRoot, expandedPath);
+        mavenLocalRepoSeedDownloadedArtifacts = LocalRepositorySeed.newDownloadedArtifactsFile(mavenLocalRepoSeed);
+        agentSetup.mkdirs(mavenLocalRepoSeed);
+        console.println("[withMaven] using Maven local repository seed " + mavenLocalRepoSeed.getRemote() + " (requires Maven 3.9+)");
+    }
+
     /**
      * Obtains the selected setting file, and initializes MVN_SETTINGS When the selected file is an absolute path, the
      * file existence is checked on the build agent, if not found, it will be checked and copied from the master. The
@@ -701,20 +989,16 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
         // Settings from the file path
         if (StringUtils.isNotEmpty(step.getMavenSettingsFilePath())) {
             String settingsPath = step.getMavenSettingsFilePath();
-            FilePath settings;
+            FilePath settings = ws.child(settingsPath);
 
-            if ((settings = ws.child(settingsPath)).exists()) {
-                // settings file residing on the agent
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    console.format("[withMaven] using Maven settings provided on the build agent '%s' %n", settingsPath);
-                    LOGGER.log(Level.FINE, "Copying maven settings file from build agent {0} to {1}", new Object[] { settings, settingsDest });
-                }
-                settings.copyTo(settingsDest);
-                envOverride.put("MVN_SETTINGS", settingsDest.getRemote());
-                return settingsDest.getRemote();
-            } else {
-                throw new AbortException("Could not find file '" + settings + "' on the build agent");
+            // settings file residing on the agent
+            if (LOGGER.isLoggable(Level.FINE)) {
+                console.format("[withMaven] using Maven settings provided on the build agent '%s' %n", settingsPath);
+                LOGGER.log(Level.FINE, "Copying maven settings file from build agent {0} to {1}", new Object[] { settings, settingsDest });
             }
+            agentSetup.copy(settings, settingsDest, "Could not find file '" + settings + "' on the build agent");
+            envOverride.put("MVN_SETTINGS", settingsDest.getRemote());
+            return settingsDest.getRemote();
         }
 
         SettingsProvider settingsProvider;
@@ -748,19 +1032,15 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
         } else if (settingsProvider instanceof FilePathSettingsProvider) {
             FilePathSettingsProvider filePathSettingsProvider = (FilePathSettingsProvider) settingsProvider;
             String settingsPath = filePathSettingsProvider.getPath();
-            FilePath settings;
-            if ((settings = ws.child(settingsPath)).exists()) {
-                // Settings file residing on the agent
-                settings.copyTo(settingsDest);
-                envOverride.put("MVN_SETTINGS", settingsDest.getRemote());
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    mavenSettingsLog.append("Maven settings on the build agent'").append(settingsPath).append("'");
-                    console.println(mavenSettingsLog);
-                }
-                return settingsDest.getRemote();
-            } else {
-                throw new AbortException("Could not find file provided by the Jenkins global configuration '" + settings + "' on the build agent");
+            FilePath settings = ws.child(settingsPath);
+            // Settings file residing on the agent
+            agentSetup.copy(settings, settingsDest, "Could not find file provided by the Jenkins global configuration '" + settings + "' on the build agent");
+            envOverride.put("MVN_SETTINGS", settingsDest.getRemote());
+            if (LOGGER.isLoggable(Level.FINE)) {
+                mavenSettingsLog.append("Maven settings on the build agent'").append(settingsPath).append("'");
+                console.println(mavenSettingsLog);
             }
+            return settingsDest.getRemote();
 
         } else if (settingsProvider instanceof DefaultSettingsProvider) {
             // do nothing
@@ -826,19 +1106,15 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
         // Global settings from the file path
         if (StringUtils.isNotEmpty(step.getGlobalMavenSettingsFilePath())) {
             String settingsPath = step.getGlobalMavenSettingsFilePath();
-            FilePath settings;
-            if ((settings = ws.child(settingsPath)).exists()) {
-                // Global settings file residing on the agent
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    console.format("[withMaven] using Maven global settings provided on the build agent '%s' %n", settingsPath);
-                    LOGGER.log(Level.FINE, "Copying maven global settings file from build agent {0} to {1}", new Object[] { settings, settingsDest });
-                }
-                settings.copyTo(settingsDest);
-                envOverride.put("GLOBAL_MVN_SETTINGS", settingsDest.getRemote());
-                return settingsDest.getRemote();
-            } else {
-                throw new AbortException("Could not find file '" + settings + "' on the build agent");
+            FilePath settings = ws.child(settingsPath);
+            // Global settings file residing on the agent
+            if (LOGGER.isLoggable(Level.FINE)) {
+                console.format("[withMaven] using Maven global settings provided on the build agent '%s' %n", settingsPath);
+                LOGGER.log(Level.FINE, "Copying maven global settings file from build agent {0} to {1}", new Object[] { settings, settingsDest });
             }
+            agentSetup.copy(settings, settingsDest, "Could not find file '" + settings + "' on the build agent");
+            envOverride.put("GLOBAL_MVN_SETTINGS", settingsDest.getRemote());
+            return settingsDest.getRemote();
         }
 
         // Settings provided by the global maven configuration
@@ -874,21 +1150,17 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
         } else if (globalSettingsProvider instanceof FilePathGlobalSettingsProvider) {
             FilePathGlobalSettingsProvider filePathGlobalSettingsProvider = (FilePathGlobalSettingsProvider) globalSettingsProvider;
             String settingsPath = filePathGlobalSettingsProvider.getPath();
-            FilePath settings;
-            if ((settings = ws.child(settingsPath)).exists()) {
-                // Global settings file residing on the agent
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    mavenSettingsLog.append("Maven global settings on the build agent '").append(settingsPath).append("'");
-                }
-                settings.copyTo(settingsDest);
-                envOverride.put("GLOBAL_MVN_SETTINGS", settingsDest.getRemote());
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    console.println(mavenSettingsLog);
-                }
-                return settingsDest.getRemote();
-            } else {
-                throw new AbortException("Could not find file provided by the Jenkins global configuration '" + settings + "' on the build agent");
+            FilePath settings = ws.child(settingsPath);
+            // Global settings file residing on the agent
+            if (LOGGER.isLoggable(Level.FINE)) {
+                mavenSettingsLog.append("Maven global settings on the build agent '").append(settingsPath).append("'");
+            }
+            agentSetup.copy(settings, settingsDest, "Could not find file provided by the Jenkins global configuration '" + settings + "' on the build agent");
+            envOverride.put("GLOBAL_MVN_SETTINGS", settingsDest.getRemote());
+            if (LOGGER.isLoggable(Level.FINE)) {
+                console.println(mavenSettingsLog);
             }
+            return settingsDest.getRemote();
         } else if (globalSettingsProvider instanceof DefaultGlobalSettingsProvider) {
             // do nothing
             if (LOGGER.isLoggable(Level.FINE)) {
@@ -941,7 +1213,7 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
             // JENKINS-43787 handle null
             final List<ServerCredentialMapping> serverCredentialMappings = Optional.ofNullable(mavenSettingsConfig.getServerCredentialMappings()).orElse(Collections.<ServerCredentialMapping>emptyList());
 
-            final Map<String, StandardUsernameCredentials> resolvedCredentials = CredentialsHelper.resolveCredentials(build, serverCredentialMappings);
+            final Map<String, StandardUsernameCredentials> resolvedCredentials = resolveCredentials(mavenSettingsConfig.id, serverCredentialMappings);
 
             credentials.addAll(resolvedCredentials.values());
 
@@ -961,7 +1233,7 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
                 }
             }
 
-            mavenSettingsFile.write(mavenSettingsFileContent, getComputer().getDefaultCharset().name());
+            agentSetup.write(mavenSettingsFile, mavenSettingsFileContent.getBytes(getComputer().getDefaultCharset()), false);
         } catch (Exception e) {
             throw new IllegalStateException("Exception injecting Maven settings.xml " + mavenSettingsConfig.id +
                     " during the build: " + build + ": " + e.getMessage(), e);
@@ -999,7 +1271,7 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
             // JENKINS-43787 handle null
             final List<ServerCredentialMapping> serverCredentialMappings = Optional.ofNullable(mavenGlobalSettingsConfig.getServerCredentialMappings()).orElse(Collections.<ServerCredentialMapping>emptyList());
 
-            final Map<String, StandardUsernameCredentials> resolvedCredentials = CredentialsHelper.resolveCredentials(build, serverCredentialMappings);
+            final Map<String, StandardUsernameCredentials> resolvedCredentials = resolveCredentials(mavenGlobalSettingsConfig.id, serverCredentialMappings);
 
             credentials.addAll(resolvedCredentials.values());
 
@@ -1018,7 +1290,7 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
             }
 
 
-            mavenGlobalSettingsFile.write(mavenGlobalSettingsFileContent, getComputer().getDefaultCharset().name());
+            agentSetup.write(mavenGlobalSettingsFile, mavenGlobalSettingsFileContent.getBytes(getComputer().getDefaultCharset()), false);
             LOGGER.log(Level.FINE, "Created global config file {0}", new Object[]{mavenGlobalSettingsFile});
         } catch (Exception e) {
             throw new IllegalStateException("Exception injecting Maven settings.xml " + mavenGlobalSettingsConfig.id +
@@ -1026,6 +1298,31 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
         }
     }
 
+    /**
+     * Resolves the credentials of the Maven servers, reusing the credentials resolved by a previous {@code withMaven}
+     * step of the build for the same config file and mappings.
+     *
+     * @param configId                 id of the config file
+     * @param serverCredentialMappings Maven server id to credentials id mappings of the config file
+     * @return Maven server id -> credentials
+     * @see MavenServerCredentialsCache
+     */
+    @Nonnull
+    private Map<String, StandardUsernameCredentials> resolveCredentials(@Nonnull String configId, @Nonnull List<ServerCredentialMapping> serverCredentialMappings) {
+        if (serverCredentialMappings.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        String cacheKey = MavenServerCredentialsCache.getKey(configId, serverCredentialMappings);
+        Map<String, StandardUsernameCredentials> resolvedCredentials = MavenServerCredentialsCache.get(build, cacheKey);
+        if (resolvedCredentials != null) {
+            LOGGER.log(Level.FINE, "{0} - Reuse the Maven servers credentials resolved by a previous withMaven step for {1}", new Object[]{build, configId});
+            return resolvedCredentials;
+        }
+        resolvedCredentials = CredentialsHelper.resolveCredentials(build, serverCredentialMappings);
+        MavenServerCredentialsCache.put(build, cacheKey, resolvedCredentials);
+        return resolvedCredentials;
+    }
+
     /**
      * Takes care of overriding the environment with our defined overrides
      */
@@ -1061,16 +1358,34 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
 
         private final MavenSpyLogProcessor mavenSpyLogProcessor = new MavenSpyLogProcessor();
 
+        @CheckForNull
+        private final String mavenSpyEventStreamId;
+
+        @CheckForNull
+        private final FilePath mavenLocalRepoSeedDownloadedArtifacts;
+
+        @CheckForNull
+        private final FilePath mavenLocalRepoSeed;
+
         private WithMavenStepExecutionCallBack(@Nonnull FilePath tempBinDir, @Nonnull List<MavenPublisher> options,
-                                              @Nonnull MavenPublisherStrategy mavenPublisherStrategy) {
+                                              @Nonnull MavenPublisherStrategy mavenPublisherStrategy, @Nullable String mavenSpyEventStreamId,
+                                              @Nullable FilePath mavenLocalRepoSeedDownloadedArtifacts, @Nullable FilePath mavenLocalRepoSeed) {
             this.tempBinDir = tempBinDir;
             this.options = options;
             this.mavenPublisherStrategy = mavenPublisherStrategy;
+            this.mavenSpyEventStreamId = mavenSpyEventStreamId;
+            this.mavenLocalRepoSeedDownloadedArtifacts = mavenLocalRepoSeedDownloadedArtifacts;
+            this.mavenLocalRepoSeed = mavenLocalRepoSeed;
         }
 
         @Override
-        protected void finished(StepContext context) throws Exception {
-            mavenSpyLogProcessor.processMavenSpyLogs(context, tempBinDir, options, mavenPublisherStrategy);
+        protected void finished(StepContext context, boolean successful) throws Exception {
+            MavenSpyEventStream mavenSpyEventStream = mavenSpyEventStreamId == null ? null : stopMavenSpyEventStream(context);
+            mavenSpyLogProcessor.processMavenSpyLogs(context, tempBinDir, options, mavenPublisherStrategy, mavenSpyEventStream);
+
+            if (mavenLocalRepoSeedDownloadedArtifacts != null && mavenLocalRepoSeed != null) {
+                promoteToMavenLocalRepoSeed(context, successful);
+            }
 
             try {
                 tempBinDir.deleteRecursive();
@@ -1087,6 +1402,52 @@ class WithMavenStepExecution2 extends GeneralNonBlockingStepExecution {
             }
         }
 
+        /**
+         * Promote in the background the release artifacts downloaded by the build into the seed of the local
+         * repository, the artifacts downloaded by a failed build are not promoted. A failure doesn't fail the step.
+         */
+        private void promoteToMavenLocalRepoSeed(StepContext context, boolean successful) throws IOException, InterruptedException {
+            PrintStream logger = context.get(TaskListener.class).getLogger();
+            try {
+                if (!successful) {
+                    mavenLocalRepoSeedDownloadedArtifacts.delete();
+                    return;
+                }
+                // don't wait for the promotion
+                LocalRepositorySeed.promoteAsync(mavenLocalRepoSeedDownloadedArtifacts, mavenLocalRepoSeed);
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    logger.println("[withMaven] Promote the artifacts downloaded by the build into the Maven local repository seed " + mavenLocalRepoSeed.getRemote() + " in the background");
+                }
+            } catch (IOException e) {
+                logger.println("[withMaven] WARNING: Failure to promote the downloaded artifacts into the Maven local repository seed " + mavenLocalRepoSeed.getRemote() + ": " + e);
+                LOGGER.log(Level.WARNING, "Exception promoting " + mavenLocalRepoSeedDownloadedArtifacts + " into " + mavenLocalRepoSeed, e);
+            }
+        }
+
+        /**
+         * Stop the collector of the Maven events and wait for the processing of the events already received.
+         *
+         * @return the stream, {@code null} if it is no longer available (e.g. Jenkins has been restarted during the build)
+         */
+        @CheckForNull
+        private MavenSpyEventStream stopMavenSpyEventStream(StepContext context) throws IOException, InterruptedException {
+            MavenSpyEventStream mavenSpyEventStream = MavenSpyEventStream.get(mavenSpyEventStreamId);
+            try {
+                tempBinDir.getChannel().call(new MavenSpyEventCollector.Stop(mavenSpyEventStreamId, MAVEN_SPY_EVENT_STREAM_TIMEOUT_IN_MILLIS));
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Exception stopping the collector of the Maven events " + mavenSpyEventStreamId, e);
+            } finally {
+                // unregister the stream even if the step is interrupted or the build agent disconnected
+                if (mavenSpyEventStream != null) {
+                    mavenSpyEventStream.close(MAVEN_SPY_EVENT_STREAM_TIMEOUT_IN_MILLIS);
+                }
+            }
+            if (mavenSpyEventStream == null) {
+                context.get(TaskListener.class).getLogger().println("[withMaven] Streamed Maven events no longer available, process the Maven Spy logs");
+            }
+            return mavenSpyEventStream;
+        }
+
         private static final long serialVersionUID = 1L;
     }
 
@@ -132,14 +132,15 @@ public abstract class GeneralNonBlockingStepExecution extends StepExecution {
         /**
          * Called when the body is finished.
          * @param context the body context as passed to {@link #onSuccess} or {@link #onFailure}
+         * @param successful {@code true} if called by {@link #onSuccess}, {@code false} if called by {@link #onFailure}
          * @throws Exception if anything is thrown here, the step fails too
          */
-        protected abstract void finished(StepContext context) throws Exception;
+        protected abstract void finished(StepContext context, boolean successful) throws Exception;
 
         @Override public final void onSuccess(StepContext context, Object result) {
             run(() -> {
                 try {
-                    finished(context);
+                    finished(context, true);
                 } catch (Exception x) {
                     context.onFailure(x);
                     return;
@@ -151,7 +152,7 @@ public abstract class GeneralNonBlockingStepExecution extends StepExecution {
         @Override public final void onFailure(StepContext context, Throwable t) {
             run(() -> {
                 try {
-                    finished(context);
+                    finished(context, false);
                 } catch (Exception x) {
                     t.addSuppressed(x);
                 }
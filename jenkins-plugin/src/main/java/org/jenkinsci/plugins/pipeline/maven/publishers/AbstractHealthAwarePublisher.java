@@ -88,7 +88,13 @@ public abstract class AbstractHealthAwarePublisher extends MavenPublisher {
      * Required by org/jenkinsci/plugins/pipeline/maven/publishers/AbstractHealthAwarePublisher/health.jelly
      */
     public static abstract class DescriptorImpl extends MavenPublisher.DescriptorImpl  {
-
+        /**
+         * The health thresholds may mark the build as unstable or failed
+         */
+        @Override
+        public boolean mayChangeBuildResult() {
+            return true;
+        }
     }
 
 
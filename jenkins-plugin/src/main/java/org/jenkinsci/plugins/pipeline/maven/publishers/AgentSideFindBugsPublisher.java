@@ -0,0 +1,271 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.publishers;
+
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.core.ParserResult;
+import hudson.plugins.analysis.util.PluginLogger;
+import hudson.plugins.analysis.util.model.Priority;
+import hudson.plugins.findbugs.FindBugsDescriptor;
+import hudson.plugins.findbugs.FindBugsPublisher;
+import hudson.plugins.findbugs.FindBugsResult;
+import hudson.plugins.findbugs.FindBugsResultAction;
+import hudson.plugins.findbugs.parser.Bug;
+import hudson.remoting.ClassFilter;
+import hudson.remoting.ObjectInputStreamEx;
+import jenkins.model.Jenkins;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * {@link FindBugsPublisher} that parses the FindBugs and SpotBugs reports located from the Maven spy events on the
+ * build agent, see {@link FindbugsReportsParser}, rather than copying and parsing them per Maven module.
+ * <p>
+ * The warnings of the parsed reports are saved with the build indexed by the digest of the report, the reports that
+ * did not change since the previous build are not parsed again. The warnings are de-duplicated across the modules.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ * @see FindbugsAnalysisPublisher#isParseReportsOnAgent()
+ * @see SpotBugsAnalysisPublisher#isParseReportsOnAgent()
+ */
+class AgentSideFindBugsPublisher extends FindBugsPublisher {
+    private static final Logger LOGGER = Logger.getLogger(AgentSideFindBugsPublisher.class.getName());
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Max number of previous builds looked up to find an index
+     */
+    private static final int MAX_PREVIOUS_BUILDS = 10;
+
+    private final transient TaskListener listener;
+    private final transient String logPrefix;
+    private final transient String indexFileName;
+    private final transient List<FindbugsReportsParser.Report> reports;
+
+    /**
+     * @param listener      listener
+     * @param logPrefix     prefix of the messages (e.g. {@code "[withMaven] findbugsPublisher - "})
+     * @param indexFileName name of the index file in the folder of the build
+     * @param reports       reports to parse
+     */
+    AgentSideFindBugsPublisher(@Nonnull TaskListener listener, @Nonnull String logPrefix, @Nonnull String indexFileName,
+                               @Nonnull List<FindbugsReportsParser.Report> reports) {
+        this.listener = listener;
+        this.logPrefix = logPrefix;
+        this.indexFileName = indexFileName;
+        this.reports = reports;
+    }
+
+    /**
+     * The publisher is not registered, use the descriptor of the {@link FindBugsPublisher}
+     */
+    @Override
+    public FindBugsDescriptor getDescriptor() {
+        return Jenkins.getInstance().getDescriptorByType(FindBugsDescriptor.class);
+    }
+
+    /**
+     * Same as {@link FindBugsPublisher#perform(Run, FilePath, PluginLogger)} with the reports parsed on the build agent
+     */
+    @Override
+    public BuildResult perform(Run<?, ?> build, FilePath workspace, PluginLogger logger) throws InterruptedException, IOException {
+        // the source files are resolved in the workspace
+        String indexKey = workspace.getRemote();
+
+        Index previousIndex = loadPreviousIndex(build, indexFileName, indexKey);
+        Map<String, ParsedWarnings> previousReports = previousIndex == null ? Collections.emptyMap() : previousIndex.reports;
+
+        List<FindbugsReportsParser.ParsedReport> parsedReports = workspace.act(new FindbugsReportsParser(reports, new HashSet<>(previousReports.keySet())));
+
+        ParserResult project = new ParserResult();
+        Index index = new Index(indexKey);
+        Set<String> warningKeys = new HashSet<>();
+        int parsedReportsCount = 0;
+        int duplicateWarningsCount = 0;
+        for (FindbugsReportsParser.ParsedReport parsedReport : parsedReports) {
+            FindbugsReportsParser.Report report = parsedReport.getReport();
+            String md5 = parsedReport.getMd5();
+            ParsedWarnings parsedWarnings;
+            if (md5 == null) {
+                project.addErrorMessage(report.getModuleName() + ": can't parse " + report.getPath() + ", " + parsedReport.getFailure());
+                continue;
+            } else if (parsedReport.getWarnings() == null) {
+                parsedWarnings = previousReports.get(md5);
+            } else {
+                parsedWarnings = new ParsedWarnings(parsedReport.getWarnings(), parsedReport.getPatternDetails());
+                parsedReportsCount++;
+            }
+            if (parsedWarnings == null) {
+                // unexpected, the digest of the report was known
+                project.addErrorMessage(report.getModuleName() + ": can't find the warnings of " + report.getPath());
+                continue;
+            }
+            index.reports.put(md5, parsedWarnings);
+            project.addModule(report.getModuleName());
+            for (FindbugsReportsParser.Warning warning : parsedWarnings.warnings) {
+                if (warningKeys.add(warning.getKey())) {
+                    project.addAnnotation(toBug(warning, report.getModuleName(), parsedWarnings.patternDetails));
+                } else {
+                    duplicateWarningsCount++;
+                }
+            }
+        }
+        listener.getLogger().println(logPrefix + "Parsed " + parsedReportsCount + " new or modified reports on the build agent, warnings of " +
+                (index.reports.size() - parsedReportsCount) + " unchanged reports carried over" +
+                (previousIndex == null ? "" : " from " + previousIndex.build) + ", " + duplicateWarningsCount + " duplicate warnings ignored");
+        logger.log("Found " + project.getNumberOfAnnotations() + " FindBugs warnings.");
+
+        index.build = build.getFullDisplayName();
+        try {
+            saveIndex(build, indexFileName, index);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Exception saving the FindBugs index of " + build, e);
+        }
+
+        FindBugsResult result = new FindBugsResult(build, getDefaultEncoding(), project, usePreviousBuildAsReference(),
+                useOnlyStableBuildsAsReference());
+        build.addAction(new FindBugsResultAction(build, this, result));
+        return result;
+    }
+
+    /**
+     * Same mapping as {@code hudson.plugins.findbugs.parser.FindBugsParser} without the ranks
+     */
+    @Nonnull
+    private static Bug toBug(@Nonnull FindbugsReportsParser.Warning warning, @Nonnull String moduleName, @Nonnull Map<String, String> patternDetails) {
+        Priority priority;
+        if (warning.getPriority() <= 1) {
+            priority = Priority.HIGH;
+        } else if (warning.getPriority() == 2) {
+            priority = Priority.NORMAL;
+        } else {
+            priority = Priority.LOW;
+        }
+        String tooltip = patternDetails.get(warning.getType());
+        Bug bug = new Bug(priority, warning.getMessage(), warning.getCategory(), warning.getType(),
+                warning.getStart(), warning.getEnd(), tooltip == null ? "" : tooltip);
+        if (warning.getInstanceHash() != null) {
+            bug.setInstanceHash(warning.getInstanceHash());
+        }
+        bug.setModuleName(moduleName);
+        String className = warning.getClassName();
+        if (className != null && className.lastIndexOf('.') > 0) {
+            bug.setPackageName(className.substring(0, className.lastIndexOf('.')));
+        }
+        if (warning.getFileName() != null) {
+            bug.setFileName(warning.getFileName());
+        }
+        return bug;
+    }
+
+    @CheckForNull
+    private static Index loadPreviousIndex(@Nonnull Run<?, ?> build, @Nonnull String indexFileName, @Nonnull String indexKey) {
+        Run<?, ?> previousBuild = build.getPreviousBuild();
+        for (int i = 0; i < MAX_PREVIOUS_BUILDS && previousBuild != null; i++, previousBuild = previousBuild.getPreviousBuild()) {
+            File indexFile = new File(previousBuild.getRootDir(), indexFileName);
+            if (!indexFile.exists()) {
+                continue;
+            }
+            try (ObjectInputStream in = new ObjectInputStreamEx(new GZIPInputStream(new FileInputStream(indexFile)),
+                    AgentSideFindBugsPublisher.class.getClassLoader(), ClassFilter.DEFAULT)) {
+                Index index = (Index) in.readObject();
+                if (Objects.equals(indexKey, index.key)) {
+                    return index;
+                }
+                LOGGER.log(Level.FINE, "Ignore FindBugs index of {0}, workspace changed", previousBuild);
+                return null;
+            } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Exception loading FindBugs index " + indexFile + ", parse all the reports", e);
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static void saveIndex(@Nonnull Run<?, ?> build, @Nonnull String indexFileName, @Nonnull Index index) throws IOException {
+        File indexFile = new File(build.getRootDir(), indexFileName);
+        try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(new FileOutputStream(indexFile)))) {
+            out.writeObject(index);
+        }
+    }
+
+    /**
+     * Warnings of the parsed reports, saved with the build
+     */
+    static class Index implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final String key;
+        String build;
+        /**
+         * md5 of the report -> warnings
+         */
+        final Map<String, ParsedWarnings> reports = new HashMap<>();
+
+        Index(@Nonnull String key) {
+            this.key = key;
+        }
+    }
+
+    static class ParsedWarnings implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final List<FindbugsReportsParser.Warning> warnings;
+        /**
+         * bug pattern type -> HTML description of the bug pattern
+         */
+        final Map<String, String> patternDetails;
+
+        ParsedWarnings(@Nonnull List<FindbugsReportsParser.Warning> warnings, @Nullable Map<String, String> patternDetails) {
+            this.warnings = warnings;
+            this.patternDetails = patternDetails == null ? Collections.emptyMap() : patternDetails;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.publishers;
+
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
+import org.jenkinsci.plugins.pipeline.maven.MavenPublisher;
+import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogModel;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Publish the performance profile of the Maven build (duration of the modules, of the mojo executions, of the
+ * builder threads and of the artifact downloads) as a {@link MavenBuildProfileAction}.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class BuildProfilePublisher extends MavenPublisher {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildProfilePublisher.class.getName());
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int TOP_ENTRIES_SIZE = 20;
+
+    @DataBoundConstructor
+    public BuildProfilePublisher() {
+        // default DataBoundConstructor
+    }
+
+    /**
+     * Synchronize because {@link Run#addAction(hudson.model.Action)} is not thread safe
+     */
+    @Override
+    public synchronized void process(@Nonnull StepContext context, @Nonnull MavenSpyLogModel mavenSpyLogModel) throws IOException, InterruptedException {
+        Run<?, ?> run = context.get(Run.class);
+        TaskListener listener = context.get(TaskListener.class);
+
+        // one profile per Maven execution
+        for (MavenSpyLogModel mavenExecution : mavenSpyLogModel.getMavenExecutions()) {
+            MavenBuildProfile buildProfile = newBuildProfile(mavenExecution);
+            if (buildProfile == null) {
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    listener.getLogger().println("[withMaven] buildProfilePublisher - No timing found in the Maven execution, skip");
+                }
+                continue;
+            }
+
+            listener.getLogger().println("[withMaven] buildProfilePublisher - Maven build: " + buildProfile.getDuration() +
+                    ", critical path: " + buildProfile.getCriticalPathDuration() + " (" + buildProfile.getCriticalPath().size() + " modules)" +
+                    ", artifact downloads: " + buildProfile.getArtifactDownloadCount() + " in " + buildProfile.getArtifactDownloadDuration());
+
+            MavenBuildProfileAction action = run.getAction(MavenBuildProfileAction.class);
+            if (action == null) {
+                action = new MavenBuildProfileAction(run);
+                run.addAction(action);
+            }
+            action.addBuildProfile(buildProfile);
+        }
+    }
+
+    /**
+     * @return {@code null} if the Maven spy logs don't contain any timing (e.g. generated by an older Maven spy)
+     */
+    @Nullable
+    @Restricted(NoExternalUse.class) // visible for test
+    public static MavenBuildProfile newBuildProfile(@Nonnull MavenSpyLogModel mavenSpyLogModel) {
+        MavenBuildProfile buildProfile = new MavenBuildProfile();
+
+        // MODULES
+        Map<String, List<String>> upstreamModulesByModule = new HashMap<>();
+        for (MavenSpyLogModel.ExecutionEvent projectStarted : mavenSpyLogModel.getExecutionEvents("ProjectStarted")) {
+            MavenSpyLogModel.Project project = projectStarted.getProject();
+            if (project == null) {
+                continue;
+            }
+            List<String> upstreamModules = new ArrayList<>();
+            if (projectStarted.getUpstreamProjects() != null) {
+                for (MavenArtifact upstreamProject : projectStarted.getUpstreamProjects()) {
+                    upstreamModules.add(upstreamProject.getGroupId() + ":" + upstreamProject.getArtifactId());
+                }
+            }
+            upstreamModulesByModule.put(project.getGroupId() + ":" + project.getArtifactId(), upstreamModules);
+        }
+
+        Map<String, MavenBuildProfile.ThreadTiming> threads = new TreeMap<>();
+        long endTime = 0;
+        for (MavenSpyLogModel.ExecutionEvent projectEnd : mavenSpyLogModel.getExecutionEvents("ProjectSucceeded", "ProjectFailed")) {
+            MavenSpyLogModel.Project project = projectEnd.getProject();
+            if (projectEnd.getDurationInMillis() == null || projectEnd.getStartTime() == null || project == null) {
+                continue;
+            }
+            MavenBuildProfile.ModuleTiming module = new MavenBuildProfile.ModuleTiming(
+                    project.getGroupId(),
+                    project.getArtifactId(),
+                    project.getName(),
+                    projectEnd.getThread(),
+                    projectEnd.getStartTime(),
+                    projectEnd.getDurationInMillis(),
+                    "ProjectFailed".equals(projectEnd.getType()));
+            buildProfile.modules.add(module);
+
+            MavenBuildProfile.ThreadTiming thread = threads.computeIfAbsent(module.thread, MavenBuildProfile.ThreadTiming::new);
+            thread.moduleCount++;
+            thread.busyTimeInMillis += module.durationInMillis;
+
+            endTime = Math.max(endTime, module.startTime + module.durationInMillis);
+        }
+        if (buildProfile.modules.isEmpty()) {
+            return null;
+        }
+        buildProfile.modules.sort(Comparator.comparingLong(MavenBuildProfile.ModuleTiming::getStartTime));
+        buildProfile.startTime = buildProfile.modules.get(0).startTime;
+        buildProfile.durationInMillis = endTime - buildProfile.startTime;
+        buildProfile.threads.addAll(threads.values());
+
+        computeCriticalPath(buildProfile, upstreamModulesByModule);
+
+        // MOJOS
+        // visit the mojo executions rather than loading them, they can be spilled on disk for large builds
+        List<MavenBuildProfile.MojoTiming> slowestMojoExecutions = new ArrayList<>();
+        Map<String, MavenBuildProfile.GoalTiming> goals = new HashMap<>();
+        mavenSpyLogModel.forEachExecutionEvent(mojoEnd -> {
+            MavenSpyLogModel.Project project = mojoEnd.getProject();
+            MavenSpyLogModel.PluginExecution plugin = mojoEnd.getPlugin();
+            if (mojoEnd.getDurationInMillis() == null || project == null || plugin == null) {
+                return;
+            }
+            String goal = plugin.getGroupId() + ":" + plugin.getArtifactId() + ":" + plugin.getGoal();
+            MavenBuildProfile.GoalTiming goalTiming = goals.computeIfAbsent(goal, MavenBuildProfile.GoalTiming::new);
+            goalTiming.executionCount++;
+            goalTiming.durationInMillis += mojoEnd.getDurationInMillis();
+
+            // keep the slowest mojo executions sorted by descending duration, in the order of the report for the same duration
+            int index = slowestMojoExecutions.size();
+            while (index > 0 && slowestMojoExecutions.get(index - 1).durationInMillis < mojoEnd.getDurationInMillis()) {
+                index--;
+            }
+            if (index < TOP_ENTRIES_SIZE) {
+                slowestMojoExecutions.add(index, new MavenBuildProfile.MojoTiming(
+                        project.getArtifactId(),
+                        goal,
+                        plugin.getExecutionId(),
+                        mojoEnd.getThread(),
+                        mojoEnd.getDurationInMillis()));
+                if (slowestMojoExecutions.size() > TOP_ENTRIES_SIZE) {
+                    slowestMojoExecutions.remove(TOP_ENTRIES_SIZE);
+                }
+            }
+        }, "MojoSucceeded", "MojoFailed");
+        buildProfile.slowestMojoExecutions.addAll(slowestMojoExecutions);
+
+        List<MavenBuildProfile.GoalTiming> sortedGoals = new ArrayList<>(goals.values());
+        sortedGoals.sort(Comparator.comparingLong(MavenBuildProfile.GoalTiming::getDurationInMillis).reversed());
+        buildProfile.goals.addAll(sortedGoals.subList(0, Math.min(TOP_ENTRIES_SIZE, sortedGoals.size())));
+
+        // DOWNLOADS
+        MavenSpyLogModel.RepositoryDownloads repositoryDownloads = mavenSpyLogModel.getRepositoryDownloads();
+        if (repositoryDownloads != null) {
+            buildProfile.artifactDownloadCount = repositoryDownloads.getArtifactCount();
+            buildProfile.artifactDownloadDurationInMillis = repositoryDownloads.getArtifactDurationInMillis();
+            buildProfile.artifactDownloadSizeInBytes = repositoryDownloads.getArtifactSizeInBytes();
+            buildProfile.metadataDownloadCount = repositoryDownloads.getMetadataCount();
+            buildProfile.metadataDownloadDurationInMillis = repositoryDownloads.getMetadataDurationInMillis();
+            buildProfile.localArtifactCount = repositoryDownloads.getLocalArtifactCount();
+            buildProfile.seedArtifactCount = repositoryDownloads.getSeedArtifactCount();
+            for (MavenSpyLogModel.Download download : repositoryDownloads.getDownloads()) {
+                buildProfile.slowestDownloads.add(new MavenBuildProfile.DownloadTiming(
+                        download.getType(),
+                        download.getId(),
+                        download.getRepositoryId(),
+                        download.getDurationInMillis(),
+                        download.getSizeInBytes()));
+            }
+        }
+
+        return buildProfile;
+    }
+
+    /**
+     * Longest chain of modules through the reactor dependencies, weighted by the duration of the modules.
+     * The modules are sorted by start time so the upstream modules of a module have already been evaluated.
+     */
+    private static void computeCriticalPath(@Nonnull MavenBuildProfile buildProfile, @Nonnull Map<String, List<String>> upstreamModulesByModule) {
+        Map<String, Long> criticalPathDurations = new HashMap<>();
+        Map<String, String> criticalPathPredecessors = new HashMap<>();
+        String lastModule = null;
+        long criticalPathDuration = 0;
+        for (MavenBuildProfile.ModuleTiming module : buildProfile.modules) {
+            String moduleId = module.getId();
+            long upstreamDuration = 0;
+            String predecessor = null;
+            for (String upstreamModule : upstreamModulesByModule.getOrDefault(moduleId, Collections.emptyList())) {
+                Long duration = criticalPathDurations.get(upstreamModule);
+                if (duration != null && duration > upstreamDuration) {
+                    upstreamDuration = duration;
+                    predecessor = upstreamModule;
+                }
+            }
+            long duration = upstreamDuration + module.durationInMillis;
+            criticalPathDurations.put(moduleId, duration);
+            if (predecessor != null) {
+                criticalPathPredecessors.put(moduleId, predecessor);
+            }
+            if (duration > criticalPathDuration || lastModule == null) {
+                criticalPathDuration = duration;
+                lastModule = moduleId;
+            }
+        }
+
+        buildProfile.criticalPathDurationInMillis = criticalPathDuration;
+        for (String moduleId = lastModule; moduleId != null; moduleId = criticalPathPredecessors.get(moduleId)) {
+            buildProfile.criticalPath.add(0, moduleId);
+        }
+        for (MavenBuildProfile.ModuleTiming module : buildProfile.modules) {
+            module.onCriticalPath = buildProfile.criticalPath.contains(module.getId());
+        }
+    }
+
+    @Symbol("buildProfilePublisher")
+    @Extension
+    public static class DescriptorImpl extends MavenPublisher.DescriptorImpl {
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return "Maven Build Profile Publisher";
+        }
+
+        @Override
+        public int ordinal() {
+            return 5;
+        }
+
+        @Nonnull
+        @Override
+        public String getSkipFileName() {
+            return ".skip-publish-build-profile";
+        }
+    }
+}
@@ -20,11 +20,14 @@ package org.jenkinsci.plugins.pipeline.maven.publishers;
 
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.pipeline.maven.MavenPublisher;
+import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogModel;
+import org.jenkinsci.plugins.pipeline.maven.util.ReportDigestCache;
+import org.jenkinsci.plugins.pipeline.maven.util.WorkspaceSnapshot;
 import org.jenkinsci.plugins.pipeline.maven.util.XmlUtils;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.kohsuke.stapler.DataBoundConstructor;
-import org.w3c.dom.Element;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
@@ -32,7 +35,9 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -79,7 +84,7 @@ public class ConcordionTestsPublisher extends MavenPublisher {
   </ExecutionEvent>
      */
     @Override
-    public void process(@Nonnull final StepContext context, @Nonnull final Element mavenSpyLogsElt)
+    public void process(@Nonnull final StepContext context, @Nonnull final MavenSpyLogModel mavenSpyLogModel)
             throws IOException, InterruptedException {
 
         TaskListener listener = context.get(TaskListener.class);
@@ -92,9 +97,7 @@ public class ConcordionTestsPublisher extends MavenPublisher {
         final Run run = context.get(Run.class);
         final Launcher launcher = context.get(Launcher.class);
 
-        Set<String> concordionOutputDirPatterns = new HashSet<String>();
-        concordionOutputDirPatterns.addAll(findConcordionOutputDirPatterns(XmlUtils.getExecutionEventsByPlugin(mavenSpyLogsElt, GROUP_ID, SUREFIRE_ID, SUREFIRE_GOAL, "MojoSucceeded", "MojoFailed")));
-        concordionOutputDirPatterns.addAll(findConcordionOutputDirPatterns(XmlUtils.getExecutionEventsByPlugin(mavenSpyLogsElt, GROUP_ID, FAILSAFE_ID, FAILSAFE_GOAL, "MojoSucceeded", "MojoFailed")));
+        Set<String> concordionOutputDirPatterns = findConcordionOutputDirPatterns(mavenSpyLogModel);
 
         if (concordionOutputDirPatterns.isEmpty()) {
             if (LOGGER.isLoggable(Level.FINE)) {
@@ -103,11 +106,19 @@ public class ConcordionTestsPublisher extends MavenPublisher {
             return;
         }
 
-        List<FilePath> paths = new ArrayList<FilePath>();
+        // paths relative to the workspace, the patterns have been listed before the execution of the publishers
+        final List<String> files = new ArrayList<String>();
         for (String pattern : concordionOutputDirPatterns) {
-            paths.addAll(Arrays.asList(workspace.list(pattern)));
+            List<String> matchingFiles = mavenSpyLogModel.getWorkspaceSnapshot().list(pattern);
+            if (matchingFiles == null) {
+                for (FilePath path : workspace.list(pattern)) {
+                    files.add(XmlUtils.getPathInWorkspace(path.getRemote(), workspace));
+                }
+            } else {
+                files.addAll(matchingFiles);
+            }
         }
-        if (paths.isEmpty()) {
+        if (files.isEmpty()) {
             if (LOGGER.isLoggable(Level.FINE)) {
                 listener.getLogger().println(
                         "[withMaven] concordionPublisher - Did not found any Concordion reports directory, skip.");
@@ -116,7 +127,7 @@ public class ConcordionTestsPublisher extends MavenPublisher {
         }
 
         listener.getLogger().println(
-                "[withMaven] concordionPublisher - Found " + paths.size() + " file(s) in Concordion reports directory.");
+                "[withMaven] concordionPublisher - Found " + files.size() + " file(s) in Concordion reports directory.");
 
 
         try {
@@ -129,38 +140,69 @@ public class ConcordionTestsPublisher extends MavenPublisher {
             return;
         }
 
-        final List<String> files = new ArrayList<String>();
-        for (final FilePath path : paths) {
-            files.add(XmlUtils.getPathInWorkspace(path.getRemote(), workspace));
-        }
-
         final HtmlPublisherTarget target = new HtmlPublisherTarget("Concordion reports", ".",
                 XmlUtils.join(files, ","), true, true, true);
 
+        // the reports are archived with their path relative to the workspace, the report directories that did not
+        // change can be copied from the archive of the previous build
+        Map<String, String> reportDigests = new TreeMap<String, String>();
+        for (String pattern : concordionOutputDirPatterns) {
+            // pattern: "**/${concordionOutputDir}/**"
+            Map<String, String> digests = ReportDigestCache.getDigests(mavenSpyLogModel.getWorkspaceSnapshot(), pattern, pattern.substring(3, pattern.length() - 3));
+            if (digests == null) {
+                reportDigests = null;
+                break;
+            }
+            reportDigests.putAll(digests);
+        }
+        ReportDigestCache.ReportsRoot reportsRoot = ReportDigestCache.prepareReportsRoot(run, "concordionPublisher", workspace, reportDigests,
+                previousBuild -> new File(previousBuild.getRootDir(), "htmlreports/" + target.getSanitizedName()));
+        if (reportsRoot.getPreviousBuild() != null) {
+            listener.getLogger().println("[withMaven] concordionPublisher - " + reportsRoot.getReusedReports().size() + " Concordion report directories unchanged since " +
+                    reportsRoot.getPreviousBuild().getFullDisplayName() + ", copy them from the reports archived by this build");
+        }
+
         try {
             listener.getLogger().println(
                     "[withMaven] concordionPublisher - Publishing HTML reports named \"" + target.getReportName()  +
                             "\" with the following files: " + target.getReportFiles());
-            HtmlPublisher.publishReports(run, workspace, launcher, listener, Arrays.asList(target),
+            HtmlPublisher.publishReports(run, reportsRoot.getRoot(), launcher, listener, Arrays.asList(target),
                     HtmlPublisher.class);
+            if (reportDigests != null) {
+                ReportDigestCache.save(run, "concordionPublisher", reportDigests);
+            }
         } catch (final Exception e) {
             listener.error("[withMaven] concordionPublisher - Silently ignore exception archiving Concordion reports: " + e);
             LOGGER.log(Level.WARNING, "Exception processing Concordion reports archiving", e);
+        } finally {
+            reportsRoot.cleanUp();
+        }
+    }
+
+    @Override
+    public void collectWorkspaceProbes(@Nonnull StepContext context, @Nonnull MavenSpyLogModel mavenSpyLogModel, @Nonnull WorkspaceSnapshot.Request request) {
+        for (String pattern : findConcordionOutputDirPatterns(mavenSpyLogModel)) {
+            request.addPattern(pattern);
         }
     }
 
     @Nonnull
-    private Collection<String> findConcordionOutputDirPatterns(@Nonnull List<Element> elements) {
+    private Set<String> findConcordionOutputDirPatterns(@Nonnull MavenSpyLogModel mavenSpyLogModel) {
+        Set<String> concordionOutputDirPatterns = new HashSet<String>();
+        concordionOutputDirPatterns.addAll(findConcordionOutputDirPatterns(mavenSpyLogModel.getExecutionEventsByPlugin(GROUP_ID, SUREFIRE_ID, SUREFIRE_GOAL, "MojoSucceeded", "MojoFailed")));
+        concordionOutputDirPatterns.addAll(findConcordionOutputDirPatterns(mavenSpyLogModel.getExecutionEventsByPlugin(GROUP_ID, FAILSAFE_ID, FAILSAFE_GOAL, "MojoSucceeded", "MojoFailed")));
+        return concordionOutputDirPatterns;
+    }
+
+    @Nonnull
+    private Collection<String> findConcordionOutputDirPatterns(@Nonnull List<MavenSpyLogModel.ExecutionEvent> executionEvents) {
         List<String> result = new ArrayList<String>();
-        for (Element element : elements) {
-            Element envVars = XmlUtils.getUniqueChildElementOrNull(XmlUtils.getUniqueChildElement(element, "plugin"), "systemPropertyVariables");
-            if (envVars != null) {
-                Element concordionOutputDir = XmlUtils.getUniqueChildElementOrNull(envVars, "concordion.output.dir");
-                if (concordionOutputDir != null) {
-                    // TODO Cyrille Le Clerc 2017-08-06: couldn't we find the root relative path?
-                    // isn't it getPathInWorkspace(${executionEvent.project.baseDir} + ${concordionOutputDir}) ?
-                    result.add("**/" + concordionOutputDir.getTextContent().trim() + "/**");
-                }
+        for (MavenSpyLogModel.ExecutionEvent executionEvent : executionEvents) {
+            String concordionOutputDir = executionEvent.getPlugin().getParameter("systemPropertyVariables/concordion.output.dir");
+            if (concordionOutputDir != null) {
+                // TODO Cyrille Le Clerc 2017-08-06: couldn't we find the root relative path?
+                // isn't it getPathInWorkspace(${executionEvent.project.baseDir} + ${concordionOutputDir}) ?
+                result.add("**/" + concordionOutputDir.trim() + "/**");
             }
         }
         return result;
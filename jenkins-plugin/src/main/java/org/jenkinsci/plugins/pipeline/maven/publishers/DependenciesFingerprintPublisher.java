@@ -23,26 +23,28 @@
  */
 package org.jenkinsci.plugins.pipeline.maven.publishers;
 
-import static org.jenkinsci.plugins.pipeline.maven.publishers.DependenciesLister.listDependencies;
-
 import hudson.Extension;
 import hudson.FilePath;
-import hudson.model.FingerprintMap;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.tasks.Fingerprinter;
-import jenkins.model.Jenkins;
 import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.pipeline.maven.GlobalPipelineMavenConfig;
 import org.jenkinsci.plugins.pipeline.maven.MavenDependency;
 import org.jenkinsci.plugins.pipeline.maven.MavenPublisher;
+import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogModel;
+import org.jenkinsci.plugins.pipeline.maven.service.FingerprintService;
+import org.jenkinsci.plugins.pipeline.maven.util.BatchDigestCallable;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
-import org.w3c.dom.Element;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -93,13 +95,15 @@ public class DependenciesFingerprintPublisher extends MavenPublisher {
     }
 
     @Override
-    public void process(@Nonnull StepContext context, @Nonnull Element mavenSpyLogsElt) throws IOException, InterruptedException {
+    public void process(@Nonnull StepContext context, @Nonnull MavenSpyLogModel mavenSpyLogModel) throws IOException, InterruptedException {
         Run run = context.get(Run.class);
         TaskListener listener = context.get(TaskListener.class);
 
         FilePath workspace = context.get(FilePath.class);
 
-        List<MavenDependency> dependencies = listDependencies(mavenSpyLogsElt, LOGGER);
+        List<MavenDependency> dependencies = mavenSpyLogModel.getDependencies();
+        // digests computed by the Maven Spy, no need to read the files again
+        Map<String, String> fileDigests = mavenSpyLogModel.getFileDigests();
 
         if (LOGGER.isLoggable(Level.FINE)) {
             listener.getLogger().println("[withMaven] dependenciesFingerprintPublisher - filter: " +
@@ -108,6 +112,10 @@ public class DependenciesFingerprintPublisher extends MavenPublisher {
         }
 
         Map<String, String> artifactsToFingerPrint = new HashMap<>(); // artifactPathInFingerprintZone -> artifactMd5
+        Map<String, BatchDigestCallable.Request> digestRequests = new LinkedHashMap<>(); // file -> request
+        Map<String, MavenDependency> dependenciesToDigest = new LinkedHashMap<>(); // artifactPathInFingerprintZone -> dependency
+        int digestCacheHits = 0;
+        int digestCacheMisses = 0;
         for (MavenDependency dependency : dependencies) {
             if (dependency.isSnapshot()) {
                 if (!includeSnapshotVersions) {
@@ -131,58 +139,83 @@ public class DependenciesFingerprintPublisher extends MavenPublisher {
                 continue;
             }
 
-            try {
-                if (StringUtils.isEmpty(dependency.getFile())) {
-                    if (LOGGER.isLoggable(Level.FINER)) {
-                        listener.getLogger().println("[withMaven] Can't fingerprint maven dependency with no file attached: " + dependency);
-                    }
-                    continue;
+            if (StringUtils.isEmpty(dependency.getFile())) {
+                if (LOGGER.isLoggable(Level.FINER)) {
+                    listener.getLogger().println("[withMaven] Can't fingerprint maven dependency with no file attached: " + dependency);
                 }
+                continue;
+            }
 
-                FilePath dependencyFilePath = new FilePath(workspace, dependency.getFile());
+            String dependencyMavenRepoStyleFilePath =
+                    dependency.getGroupId().replace('.', '/') + "/" +
+                            dependency.getArtifactId() + "/" +
+                            dependency.getBaseVersion() + "/" +
+                            dependency.getFileNameWithBaseVersion();
 
-                if (!(dependency.getFile().endsWith("." + dependency.getExtension()))) {
-                    if (dependencyFilePath.isDirectory()) {
-                        if (LOGGER.isLoggable(Level.FINE)) {
-                            listener.getLogger().println("[withMaven] Skip fingerprinting of maven dependency of type directory " + dependency);
-                        }
-                        continue;
-                    }
+            String fileDigest = fileDigests.get(dependency.getFile());
+            if (fileDigest != null) {
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    listener.getLogger().println("[withMaven] Fingerprint dependency " + dependencyMavenRepoStyleFilePath + " with digest computed by the Maven Spy");
                 }
+                artifactsToFingerPrint.put(dependencyMavenRepoStyleFilePath, fileDigest);
+            } else {
+                digestRequests.putIfAbsent(dependency.getFile(), new BatchDigestCallable.Request(dependency.getFile(), dependency.getGroupId(), dependency.getArtifactId(), dependency.getBaseVersion()));
+                dependenciesToDigest.put(dependencyMavenRepoStyleFilePath, dependency);
+            }
+        }
 
-                String dependencyMavenRepoStyleFilePath =
-                        dependency.getGroupId().replace('.', '/') + "/" +
-                                dependency.getArtifactId() + "/" +
-                                dependency.getBaseVersion() + "/" +
-                                dependency.getFileNameWithBaseVersion();
-
-
-                if (dependencyFilePath.exists()) {
-                    // the subsequent call to digest could test the existence but we don't want to prematurely optimize performances
+        // stat and digest the other files in a single round trip to the build agent
+        if (!digestRequests.isEmpty()) {
+            Map<String, BatchDigestCallable.Result> digests;
+            try {
+                digests = workspace.act(new BatchDigestCallable(new ArrayList<>(digestRequests.values()), listener, "[withMaven] dependenciesFingerprintPublisher - "));
+            } catch (IOException | RuntimeException e) {
+                listener.error("[withMaven] WARNING: Exception fingerprinting " + dependenciesToDigest.size() + " dependencies, skip");
+                e.printStackTrace(listener.getLogger());
+                listener.getLogger().flush();
+                digests = Collections.emptyMap();
+            }
+            for (Map.Entry<String, MavenDependency> entry : dependenciesToDigest.entrySet()) {
+                String dependencyMavenRepoStyleFilePath = entry.getKey();
+                MavenDependency dependency = entry.getValue();
+                BatchDigestCallable.Result digest = digests.get(dependency.getFile());
+                if (digest == null) {
+                    continue;
+                } else if (digest.isDirectory()) {
                     if (LOGGER.isLoggable(Level.FINE)) {
-                        listener.getLogger().println("[withMaven] Fingerprint dependency " + dependencyMavenRepoStyleFilePath);
+                        listener.getLogger().println("[withMaven] Skip fingerprinting of maven dependency of type directory " + dependency);
                     }
-                    String artifactDigest = dependencyFilePath.digest();
-                    artifactsToFingerPrint.put(dependencyMavenRepoStyleFilePath, artifactDigest);
-                } else {
+                } else if (digest.isNotFound()) {
                     listener.getLogger().println("[withMaven] FAILURE to fingerprint " + dependencyMavenRepoStyleFilePath + ", file not found");
+                } else if (digest.getMd5() == null) {
+                    listener.error("[withMaven] WARNING: Exception fingerprinting " + dependency + ", skip: " + digest.getFailure());
+                } else {
+                    if (LOGGER.isLoggable(Level.FINE)) {
+                        listener.getLogger().println("[withMaven] Fingerprint dependency " + dependencyMavenRepoStyleFilePath);
+                    }
+                    if (digest.isCacheHit()) {
+                        digestCacheHits++;
+                    } else {
+                        digestCacheMisses++;
+                    }
+                    artifactsToFingerPrint.put(dependencyMavenRepoStyleFilePath, digest.getMd5());
                 }
-
-            } catch (IOException | RuntimeException e) {
-                listener.error("[withMaven] WARNING: Exception fingerprinting " + dependency + ", skip");
-                e.printStackTrace(listener.getLogger());
-                listener.getLogger().flush();
             }
         }
         LOGGER.log(Level.FINER, "Fingerprint {0}", artifactsToFingerPrint);
+        if (digestCacheHits + digestCacheMisses > 0) {
+            listener.getLogger().println("[withMaven] dependenciesFingerprintPublisher - Local repository digest cache: " +
+                    digestCacheHits + " hits, " + digestCacheMisses + " misses");
+        }
+        if (mavenSpyLogModel.getFileDigestCacheHits() != null) {
+            listener.getLogger().println("[withMaven] dependenciesFingerprintPublisher - Local repository digest cache in Maven: " +
+                    mavenSpyLogModel.getFileDigestCacheHits() + " hits, " + mavenSpyLogModel.getFileDigestCacheMisses() + " misses");
+        }
 
         // FINGERPRINT GENERATED MAVEN ARTIFACT
-        FingerprintMap fingerprintMap = Jenkins.getInstance().getFingerprintMap();
-        for (Map.Entry<String, String> artifactToFingerprint : artifactsToFingerPrint.entrySet()) {
-            String artifactPathInFingerprintZone = artifactToFingerprint.getKey();
-            String artifactMd5 = artifactToFingerprint.getValue();
-            fingerprintMap.getOrCreate(null, artifactPathInFingerprintZone, artifactMd5).addFor(run);
-        }
+        GlobalPipelineMavenConfig globalPipelineMavenConfig = GlobalPipelineMavenConfig.get();
+        FingerprintService fingerprintService = globalPipelineMavenConfig == null ? new FingerprintService() : globalPipelineMavenConfig.getFingerprintService();
+        fingerprintService.register(run, false, artifactsToFingerPrint);
 
         // add action
         Fingerprinter.FingerprintAction fingerprintAction = run.getAction(Fingerprinter.FingerprintAction.class);
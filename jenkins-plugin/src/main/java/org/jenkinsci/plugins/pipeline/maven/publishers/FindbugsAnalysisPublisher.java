@@ -33,14 +33,16 @@ import hudson.model.TaskListener;
 import hudson.plugins.findbugs.FindBugsPublisher;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
+import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogModel;
 import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogProcessor;
 import org.jenkinsci.plugins.pipeline.maven.util.XmlUtils;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.kohsuke.stapler.DataBoundConstructor;
-import org.w3c.dom.Element;
+import org.kohsuke.stapler.DataBoundSetter;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -55,6 +57,11 @@ public class FindbugsAnalysisPublisher extends AbstractHealthAwarePublisher {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Parse the reports on the build agent, see {@link AgentSideFindBugsPublisher}
+     */
+    private boolean parseReportsOnAgent = false;
+
     @DataBoundConstructor
     public FindbugsAnalysisPublisher() {
 
@@ -161,7 +168,7 @@ public class FindbugsAnalysisPublisher extends AbstractHealthAwarePublisher {
       </ExecutionEvent>
          */
     @Override
-    public void process(@Nonnull StepContext context, @Nonnull Element mavenSpyLogsElt) throws IOException, InterruptedException {
+    public void process(@Nonnull StepContext context, @Nonnull MavenSpyLogModel mavenSpyLogModel) throws IOException, InterruptedException {
 
         TaskListener listener = context.get(TaskListener.class);
         if (listener == null) {
@@ -173,7 +180,7 @@ public class FindbugsAnalysisPublisher extends AbstractHealthAwarePublisher {
         Launcher launcher = context.get(Launcher.class);
 
 
-         List<Element> findbugsEvents = XmlUtils.getExecutionEventsByPlugin(mavenSpyLogsElt, "org.codehaus.mojo", "findbugs-maven-plugin", "findbugs", "MojoSucceeded", "MojoFailed");
+         List<MavenSpyLogModel.ExecutionEvent> findbugsEvents = mavenSpyLogModel.getExecutionEventsByPlugin("org.codehaus.mojo", "findbugs-maven-plugin", "findbugs", "MojoSucceeded", "MojoFailed");
 
         if (findbugsEvents.isEmpty()) {
             LOGGER.log(Level.FINE, "No org.codehaus.mojo:findbugs-maven-plugin:findbugs execution found");
@@ -189,32 +196,33 @@ public class FindbugsAnalysisPublisher extends AbstractHealthAwarePublisher {
         }
 
 
-        for (Element findBugsTestEvent : findbugsEvents) {
+        List<FindbugsReportsParser.Report> reports = new ArrayList<>();
+        for (MavenSpyLogModel.ExecutionEvent findBugsTestEvent : findbugsEvents) {
 
-            Element pluginElt = XmlUtils.getUniqueChildElement(findBugsTestEvent, "plugin");
-            Element xmlOutputDirectoryElt = XmlUtils.getUniqueChildElementOrNull(pluginElt, "xmlOutputDirectory");
-            Element projectElt = XmlUtils.getUniqueChildElement(findBugsTestEvent, "project");
-            MavenArtifact mavenArtifact = XmlUtils.newMavenArtifact(projectElt);
-            MavenSpyLogProcessor.PluginInvocation pluginInvocation = XmlUtils.newPluginInvocation(pluginElt);
+            MavenSpyLogModel.PluginExecution plugin = findBugsTestEvent.getPlugin();
+            String xmlOutputDirectoryParameter = plugin.getParameter("xmlOutputDirectory");
+            MavenSpyLogModel.Project project = findBugsTestEvent.getProject();
+            MavenArtifact mavenArtifact = project.newMavenArtifact();
+            MavenSpyLogProcessor.PluginInvocation pluginInvocation = plugin.newPluginInvocation();
 
-            if (xmlOutputDirectoryElt == null) {
-                listener.getLogger().println("[withMaven] No <xmlOutputDirectoryElt> element found for <plugin> in " + XmlUtils.toString(findBugsTestEvent));
+            if (xmlOutputDirectoryParameter == null) {
+                listener.getLogger().println("[withMaven] No <xmlOutputDirectoryElt> element found for <plugin> in " + findBugsTestEvent);
                 continue;
             }
-            String xmlOutputDirectory = xmlOutputDirectoryElt.getTextContent().trim();
+            String xmlOutputDirectory = xmlOutputDirectoryParameter.trim();
             if (xmlOutputDirectory.contains("${project.build.directory}")) {
-                String projectBuildDirectory = XmlUtils.getProjectBuildDirectory(projectElt);
+                String projectBuildDirectory = project.getBuildDirectory();
                 if (projectBuildDirectory == null || projectBuildDirectory.isEmpty()) {
-                    listener.getLogger().println("[withMaven] '${project.build.directory}' found for <project> in " + XmlUtils.toString(findBugsTestEvent));
+                    listener.getLogger().println("[withMaven] '${project.build.directory}' found for <project> in " + findBugsTestEvent);
                     continue;
                 }
 
                 xmlOutputDirectory = xmlOutputDirectory.replace("${project.build.directory}", projectBuildDirectory);
 
             } else if (xmlOutputDirectory.contains("${basedir}")) {
-                String baseDir = projectElt.getAttribute("baseDir");
+                String baseDir = project.getBaseDir();
                 if (baseDir.isEmpty()) {
-                    listener.getLogger().println("[withMaven] '${basedir}' found for <project> in " + XmlUtils.toString(findBugsTestEvent));
+                    listener.getLogger().println("[withMaven] '${basedir}' found for <project> in " + findBugsTestEvent);
                     continue;
                 }
 
@@ -226,6 +234,10 @@ public class FindbugsAnalysisPublisher extends AbstractHealthAwarePublisher {
             String findBugsResultsFile = xmlOutputDirectory + "/findbugsXml.xml";
             listener.getLogger().println("[withMaven] findbugsPublisher - Archive FindBugs analysis results for Maven artifact " + mavenArtifact.toString() + " generated by " +
                     pluginInvocation + ": " + findBugsResultsFile);
+            if (parseReportsOnAgent) {
+                reports.add(new FindbugsReportsParser.Report(mavenArtifact.getId(), findBugsResultsFile));
+                continue;
+            }
             FindBugsPublisher findBugsPublisher = new FindBugsPublisher();
 
             findBugsPublisher.setPattern(findBugsResultsFile);
@@ -237,11 +249,32 @@ public class FindbugsAnalysisPublisher extends AbstractHealthAwarePublisher {
             } catch (Exception e) {
                 listener.error("[withMaven] findbugsPublisher - Silently ignore exception archiving FindBugs results for Maven artifact " + mavenArtifact.toString() + " generated by " +
                         pluginInvocation + ": " + e);
-                LOGGER.log(Level.WARNING, "Exception processing " + XmlUtils.toString(findBugsTestEvent), e);
+                LOGGER.log(Level.WARNING, "Exception processing " + findBugsTestEvent, e);
             }
 
         }
 
+        if (!reports.isEmpty()) {
+            AgentSideFindBugsPublisher findBugsPublisher = new AgentSideFindBugsPublisher(listener, "[withMaven] findbugsPublisher - ",
+                    "pipeline-maven-findbugs-index.ser.gz", reports);
+            setHealthAwarePublisherAttributes(findBugsPublisher);
+            try {
+                findBugsPublisher.perform(run, workspace, launcher, listener);
+            } catch (Exception e) {
+                listener.error("[withMaven] findbugsPublisher - Silently ignore exception archiving FindBugs results of " + reports.size() + " Maven module(s): " + e);
+                LOGGER.log(Level.WARNING, "Exception processing FindBugs results of " + reports.size() + " Maven modules", e);
+            }
+        }
+
+    }
+
+    public boolean isParseReportsOnAgent() {
+        return parseReportsOnAgent;
+    }
+
+    @DataBoundSetter
+    public void setParseReportsOnAgent(boolean parseReportsOnAgent) {
+        this.parseReportsOnAgent = parseReportsOnAgent;
     }
 
     /**
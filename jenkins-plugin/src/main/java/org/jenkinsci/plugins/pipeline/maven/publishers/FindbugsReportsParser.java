@@ -0,0 +1,452 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.publishers;
+
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Parse FindBugs and SpotBugs XML reports on the build agent, the reports are parsed in parallel with a streaming
+ * parser and only the compact list of the warnings of each report is sent back to the controller.
+ * <p>
+ * The reports whose digest is known by the controller are not parsed, only their digest is sent back.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ * @see AgentSideFindBugsPublisher
+ */
+class FindbugsReportsParser extends MasterToSlaveFileCallable<List<FindbugsReportsParser.ParsedReport>> {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Max number of reports parsed in parallel on the build agent, system property of the build agent
+     */
+    private static final int MAX_THREADS = Integer.getInteger(FindbugsReportsParser.class.getName() + ".MAX_THREADS", 4);
+
+    private final List<Report> reports;
+    private final Set<String> knownDigests;
+
+    /**
+     * @param reports      reports to parse
+     * @param knownDigests digests of the reports already parsed by a previous build
+     */
+    FindbugsReportsParser(@Nonnull List<Report> reports, @Nonnull Set<String> knownDigests) {
+        this.reports = reports;
+        this.knownDigests = knownDigests;
+    }
+
+    /**
+     * @return the parsed reports in the order of the requested reports
+     */
+    @Override
+    public List<ParsedReport> invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+        List<ParsedReport> parsedReports = new ArrayList<>(reports.size());
+        if (reports.isEmpty()) {
+            return parsedReports;
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, Math.min(MAX_THREADS, reports.size())),
+                new NamingThreadFactory(new DaemonThreadFactory(), FindbugsReportsParser.class.getName()));
+        try {
+            List<Future<ParsedReport>> futures = new ArrayList<>(reports.size());
+            for (Report report : reports) {
+                futures.add(executorService.submit(() -> parse(workspace, report)));
+            }
+            for (int i = 0; i < reports.size(); i++) {
+                try {
+                    parsedReports.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    parsedReports.add(ParsedReport.failure(reports.get(i), String.valueOf(e.getCause())));
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        return parsedReports;
+    }
+
+    @Nonnull
+    private ParsedReport parse(@Nonnull File workspace, @Nonnull Report report) throws IOException, XMLStreamException {
+        File file = new File(report.path);
+        if (!file.isAbsolute()) {
+            file = new File(workspace, report.path);
+        }
+        if (!file.isFile()) {
+            return ParsedReport.failure(report, "report not found");
+        }
+        String md5 = Util.getDigestOf(file);
+        ParsedReport parsedReport = new ParsedReport(report, md5, null);
+        if (knownDigests.contains(md5)) {
+            return parsedReport;
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            parse(in, parsedReport);
+        }
+        return parsedReport;
+    }
+
+    /**
+     * Streaming parser of the {@code <BugCollection>} XML format, see
+     * {@code edu.umd.cs.findbugs.SortedBugCollection#writeXML()}.
+     * The source files are resolved against the {@code <SrcDir>} of the {@code <Project>}, the warnings are
+     * de-duplicated by {@code instanceHash}.
+     */
+    static void parse(@Nonnull InputStream in, @Nonnull ParsedReport parsedReport) throws XMLStreamException {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(in);
+        parsedReport.warnings = new ArrayList<>();
+        parsedReport.patternDetails = new LinkedHashMap<>();
+        try {
+            List<String> sourceDirectories = new ArrayList<>();
+            Set<String> keys = new HashSet<>();
+            // resolving the files is expensive, the warnings of a report are often located in the same files
+            Map<String, String> resolvedFiles = new LinkedHashMap<>();
+            Warning warning = null;
+            SourceLine methodSourceLine = null;
+            SourceLine classSourceLine = null;
+            String pattern = null;
+            // path of the current element within the <BugInstance> or <BugPattern>
+            List<String> path = new ArrayList<>();
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if (warning == null && pattern == null) {
+                        if ("BugInstance".equals(name)) {
+                            warning = new Warning(reader.getAttributeValue(null, "type"), reader.getAttributeValue(null, "category"),
+                                    parseInt(reader.getAttributeValue(null, "priority"), 2), reader.getAttributeValue(null, "instanceHash"));
+                            methodSourceLine = null;
+                            classSourceLine = null;
+                            path.clear();
+                        } else if ("BugPattern".equals(name)) {
+                            pattern = reader.getAttributeValue(null, "type");
+                            path.clear();
+                        } else if ("SrcDir".equals(name)) {
+                            sourceDirectories.add(reader.getElementText().trim());
+                        }
+                        continue;
+                    }
+                    path.add(name);
+                    if (warning != null) {
+                        if ("LongMessage".equals(name) && path.size() == 1) {
+                            warning.message = reader.getElementText().trim();
+                            path.remove(path.size() - 1);
+                        } else if ("SourceLine".equals(name)) {
+                            SourceLine sourceLine = new SourceLine(reader);
+                            if (path.size() == 1) {
+                                // SourceLine child of the BugInstance, the primary one or the first one
+                                if (warning.sourceLine == null || "true".equals(reader.getAttributeValue(null, "primary"))) {
+                                    warning.sourceLine = sourceLine;
+                                }
+                            } else if ("Method".equals(path.get(0)) && methodSourceLine == null) {
+                                methodSourceLine = sourceLine;
+                            } else if ("Class".equals(path.get(0)) && classSourceLine == null) {
+                                classSourceLine = sourceLine;
+                            }
+                        }
+                    } else if ("Details".equals(name) && path.size() == 1) {
+                        parsedReport.patternDetails.put(pattern, reader.getElementText().trim());
+                        path.remove(path.size() - 1);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (!path.isEmpty()) {
+                        path.remove(path.size() - 1);
+                    } else if (warning != null) {
+                        if (warning.sourceLine == null) {
+                            warning.sourceLine = methodSourceLine != null ? methodSourceLine : classSourceLine;
+                        }
+                        if (warning.sourceLine != null && warning.sourceLine.sourcePath != null) {
+                            String sourcePath = warning.sourceLine.sourcePath;
+                            String fileName = resolvedFiles.get(sourcePath);
+                            if (fileName == null) {
+                                fileName = resolveSourceFile(sourceDirectories, sourcePath);
+                                resolvedFiles.put(sourcePath, fileName);
+                            }
+                            warning.fileName = fileName;
+                        }
+                        if (keys.add(warning.getKey())) {
+                            parsedReport.warnings.add(warning);
+                        }
+                        warning = null;
+                    } else {
+                        pattern = null;
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Nonnull
+    private static String resolveSourceFile(@Nonnull List<String> sourceDirectories, @Nonnull String sourcePath) {
+        for (String sourceDirectory : sourceDirectories) {
+            File sourceFile = new File(sourceDirectory, sourcePath);
+            if (sourceFile.isFile()) {
+                return sourceFile.getAbsolutePath();
+            }
+        }
+        return sourcePath;
+    }
+
+    private static int parseInt(@Nullable String value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Report generated by a Maven module
+     */
+    static class Report implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String moduleName;
+        private final String path;
+
+        /**
+         * @param moduleName name of the Maven module
+         * @param path       path of the report, relative to the workspace
+         */
+        Report(@Nonnull String moduleName, @Nonnull String path) {
+            this.moduleName = moduleName;
+            this.path = path;
+        }
+
+        @Nonnull
+        String getModuleName() {
+            return moduleName;
+        }
+
+        @Nonnull
+        String getPath() {
+            return path;
+        }
+    }
+
+    /**
+     * Warnings of a report
+     */
+    static class ParsedReport implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Report report;
+        @CheckForNull
+        private final String md5;
+        @CheckForNull
+        private final String failure;
+        @CheckForNull
+        private List<Warning> warnings;
+        @CheckForNull
+        private Map<String, String> patternDetails;
+
+        ParsedReport(@Nonnull Report report, @Nullable String md5, @Nullable String failure) {
+            this.report = report;
+            this.md5 = md5;
+            this.failure = failure;
+        }
+
+        @Nonnull
+        static ParsedReport failure(@Nonnull Report report, @Nonnull String failure) {
+            return new ParsedReport(report, null, failure);
+        }
+
+        @Nonnull
+        Report getReport() {
+            return report;
+        }
+
+        /**
+         * @return the digest of the report, {@code null} in case of {@link #getFailure() failure}
+         */
+        @CheckForNull
+        String getMd5() {
+            return md5;
+        }
+
+        /**
+         * @return the reason of the failure to parse the report, {@code null} if the report has been parsed
+         */
+        @CheckForNull
+        String getFailure() {
+            return failure;
+        }
+
+        /**
+         * @return the warnings of the report, {@code null} if the report has not been parsed because its digest is known
+         */
+        @CheckForNull
+        List<Warning> getWarnings() {
+            return warnings;
+        }
+
+        /**
+         * @return bug pattern type -> HTML description of the bug pattern
+         */
+        @CheckForNull
+        Map<String, String> getPatternDetails() {
+            return patternDetails;
+        }
+    }
+
+    /**
+     * {@code <BugInstance>} of a report
+     */
+    static class Warning implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String type;
+        private final String category;
+        private final int priority;
+        @CheckForNull
+        private final String instanceHash;
+        @CheckForNull
+        private String message;
+        @CheckForNull
+        private SourceLine sourceLine;
+        @CheckForNull
+        private String fileName;
+
+        Warning(@Nullable String type, @Nullable String category, int priority, @Nullable String instanceHash) {
+            this.type = type == null ? "" : type;
+            this.category = category == null ? "" : category;
+            this.priority = priority;
+            this.instanceHash = instanceHash;
+        }
+
+        /**
+         * @return key identifying the warning across the reports
+         */
+        @Nonnull
+        String getKey() {
+            if (instanceHash != null && !instanceHash.isEmpty()) {
+                return instanceHash;
+            }
+            return type + "|" + fileName + "|" + getStart() + "|" + getEnd() + "|" + message;
+        }
+
+        @Nonnull
+        String getType() {
+            return type;
+        }
+
+        @Nonnull
+        String getCategory() {
+            return category;
+        }
+
+        /**
+         * @return FindBugs priority, {@code 1} for high
+         */
+        int getPriority() {
+            return priority;
+        }
+
+        @CheckForNull
+        String getInstanceHash() {
+            return instanceHash;
+        }
+
+        @Nonnull
+        String getMessage() {
+            return message == null ? type : message;
+        }
+
+        /**
+         * @return absolute path of the source file if found on the build agent, path relative to the source
+         * directory otherwise, {@code null} if unknown
+         */
+        @CheckForNull
+        String getFileName() {
+            return fileName;
+        }
+
+        @CheckForNull
+        String getClassName() {
+            return sourceLine == null ? null : sourceLine.className;
+        }
+
+        int getStart() {
+            return sourceLine == null ? 0 : sourceLine.start;
+        }
+
+        int getEnd() {
+            return sourceLine == null ? 0 : sourceLine.end;
+        }
+    }
+
+    /**
+     * {@code <SourceLine>} of a {@code <BugInstance>}
+     */
+    static class SourceLine implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @CheckForNull
+        private final String className;
+        @CheckForNull
+        private final String sourcePath;
+        private final int start;
+        private final int end;
+
+        SourceLine(@Nonnull XMLStreamReader reader) {
+            this.className = reader.getAttributeValue(null, "classname");
+            this.sourcePath = reader.getAttributeValue(null, "sourcepath");
+            this.start = parseInt(reader.getAttributeValue(null, "start"), 0);
+            this.end = parseInt(reader.getAttributeValue(null, "end"), this.start);
+        }
+    }
+}
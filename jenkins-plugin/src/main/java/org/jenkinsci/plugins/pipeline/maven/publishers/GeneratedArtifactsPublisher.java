@@ -3,33 +3,46 @@ package org.jenkinsci.plugins.pipeline.maven.publishers;
 import hudson.Extension;
 import hudson.FilePath;
 import hudson.Launcher;
-import hudson.model.FingerprintMap;
 import hudson.model.Run;
 import hudson.model.StreamBuildListener;
 import hudson.model.TaskListener;
 import hudson.tasks.Fingerprinter;
 import jenkins.model.ArtifactManager;
-import jenkins.model.Jenkins;
+import jenkins.model.StandardArtifactManager;
 import jenkins.util.BuildListenerAdapter;
 import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.pipeline.maven.GlobalPipelineMavenConfig;
 import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
 import org.jenkinsci.plugins.pipeline.maven.MavenPublisher;
+import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogModel;
+import org.jenkinsci.plugins.pipeline.maven.service.FingerprintService;
+import org.jenkinsci.plugins.pipeline.maven.util.BatchDigestCallable;
 import org.jenkinsci.plugins.pipeline.maven.util.XmlUtils;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.w3c.dom.Element;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
@@ -40,13 +53,78 @@ public class GeneratedArtifactsPublisher extends MavenPublisher {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Digests of the artifacts computed while Maven is still running, see {@link #processEvent(StepContext, Element)}.
+     * They are reused only if the size and the last modification date of the artifact are unchanged: a subsequent
+     * Maven execution of the step may rebuild the artifact.
+     * artifactPathInWorkspace -> digest
+     */
+    private transient ConcurrentMap<String, BatchDigestCallable.Result> artifactDigests;
+
     @DataBoundConstructor
     public GeneratedArtifactsPublisher() {
 
     }
 
+    @Nonnull
+    private synchronized ConcurrentMap<String, BatchDigestCallable.Result> getArtifactDigests() {
+        if (artifactDigests == null) {
+            artifactDigests = new ConcurrentHashMap<>();
+        }
+        return artifactDigests;
+    }
+
+    /**
+     * Compute the digests of the files generated by a module as soon as the module is built, the artifacts are then
+     * archived and fingerprinted at the end of the build.
+     */
+    @Override
+    public void processEvent(@Nonnull StepContext context, @Nonnull Element eventElt) throws IOException, InterruptedException {
+        if (!"ExecutionEvent".equals(eventElt.getTagName()) || !"ProjectSucceeded".equals(eventElt.getAttribute("type"))) {
+            return;
+        }
+        FilePath workspace = context.get(FilePath.class);
+
+        List<String> files = new ArrayList<>();
+        files.add(XmlUtils.getProjectElement(eventElt).getAttribute("file"));
+        Element artifactElt = XmlUtils.getUniqueChildElementOrNull(eventElt, "artifact");
+        if (artifactElt != null) {
+            files.add(getFile(artifactElt));
+        }
+        Element attachedArtifactsElt = XmlUtils.getUniqueChildElementOrNull(eventElt, "attachedArtifacts");
+        if (attachedArtifactsElt != null) {
+            for (Element attachedArtifactElt : XmlUtils.getChildrenElements(attachedArtifactsElt, "artifact")) {
+                files.add(getFile(attachedArtifactElt));
+            }
+        }
+
+        List<BatchDigestCallable.Request> digestRequests = new ArrayList<>();
+        for (String file : files) {
+            if (StringUtils.isEmpty(file)) {
+                continue;
+            }
+            String artifactPathInWorkspace = XmlUtils.getPathInWorkspace(file, workspace);
+            if (StringUtils.isEmpty(artifactPathInWorkspace)) {
+                continue;
+            }
+            BatchDigestCallable.Result previousDigest = getArtifactDigests().get(artifactPathInWorkspace);
+            digestRequests.add(previousDigest == null ? new BatchDigestCallable.Request(artifactPathInWorkspace) : new BatchDigestCallable.Request(artifactPathInWorkspace, previousDigest));
+        }
+        for (Map.Entry<String, BatchDigestCallable.Result> digest : workspace.act(new BatchDigestCallable(digestRequests, null, "")).entrySet()) {
+            if (digest.getValue().getMd5() != null) {
+                getArtifactDigests().put(digest.getKey(), digest.getValue());
+            }
+        }
+    }
+
+    @Nullable
+    private static String getFile(@Nonnull Element artifactElt) {
+        Element fileElt = XmlUtils.getUniqueChildElementOrNull(artifactElt, "file");
+        return fileElt == null ? null : StringUtils.trim(fileElt.getTextContent());
+    }
+
     @Override
-    public void process(@Nonnull StepContext context, @Nonnull Element mavenSpyLogsElt) throws IOException, InterruptedException {
+    public void process(@Nonnull StepContext context, @Nonnull MavenSpyLogModel mavenSpyLogModel) throws IOException, InterruptedException {
 
         Run run = context.get(Run.class);
         ArtifactManager artifactManager = run.pickArtifactManager();
@@ -59,56 +137,95 @@ public class GeneratedArtifactsPublisher extends MavenPublisher {
         FilePath workspace = context.get(FilePath.class);
         final String fileSeparatorOnAgent = XmlUtils.getFileSeparatorOnRemote(workspace);
 
-        List<MavenArtifact> join = XmlUtils.listGeneratedArtifacts(mavenSpyLogsElt, true);
+        List<MavenArtifact> join = mavenSpyLogModel.getGeneratedArtifacts(true);
+        // digests computed by the Maven Spy, no need to read the files again but check that they still exist
+        Map<String, String> fileDigests = mavenSpyLogModel.getFileDigests();
 
         Map<String, String> artifactsToArchive = new HashMap<>(); // artifactPathInArchiveZone -> artifactPathInWorkspace
         Map<String, String> artifactsToFingerPrint = new HashMap<>(); // artifactPathInArchiveZone -> artifactMd5
+        Map<String, MavenArtifact> artifactsToDigest = new LinkedHashMap<>(); // artifactPathInArchiveZone -> mavenArtifact
+        Map<String, String> artifactsToDigestPathInWorkspace = new HashMap<>(); // artifactPathInArchiveZone -> artifactPathInWorkspace
         for (MavenArtifact mavenArtifact : join) {
-            try {
-                if (StringUtils.isEmpty(mavenArtifact.getFile())) {
-                    if (LOGGER.isLoggable(Level.FINER)) {
-                        listener.getLogger().println("[withMaven] artifactsPublisher - Can't archive maven artifact with no file attached: " + mavenArtifact);
-                    }
-                    continue;
-                } else if (!(mavenArtifact.getFile().endsWith("." + mavenArtifact.getExtension()))) {
-                    FilePath mavenGeneratedArtifact = workspace.child(XmlUtils.getPathInWorkspace(mavenArtifact.getFile(), workspace));
-                    if (mavenGeneratedArtifact.isDirectory()) {
-                        if (LOGGER.isLoggable(Level.FINE)) {
-                            listener.getLogger().println("[withMaven] artifactsPublisher - Skip archiving for generated maven artifact of type directory (it's likely to be target/classes, see JENKINS-43714) " + mavenArtifact);
-                        }
-                        continue;
-                    }
+            if (StringUtils.isEmpty(mavenArtifact.getFile())) {
+                if (LOGGER.isLoggable(Level.FINER)) {
+                    listener.getLogger().println("[withMaven] artifactsPublisher - Can't archive maven artifact with no file attached: " + mavenArtifact);
                 }
+                continue;
+            }
+
+            String artifactPathInArchiveZone =
+                    mavenArtifact.getGroupId().replace(".", fileSeparatorOnAgent) + fileSeparatorOnAgent +
+                            mavenArtifact.getArtifactId() + fileSeparatorOnAgent +
+                            mavenArtifact.getBaseVersion() + fileSeparatorOnAgent +
+                            mavenArtifact.getFileNameWithBaseVersion();
+
+            String artifactPathInWorkspace = XmlUtils.getPathInWorkspace(mavenArtifact.getFile(), workspace);
+            if (StringUtils.isEmpty(artifactPathInWorkspace)) {
+                listener.error("[withMaven] artifactsPublisher - Invalid path in the workspace (" + workspace.getRemote() + ") for artifact " + mavenArtifact);
+            } else if (Objects.equals(artifactPathInArchiveZone, mavenArtifact.getFile())) { // troubleshoot JENKINS-44088
+                listener.error("[withMaven] artifactsPublisher - Failed to relativize '" + mavenArtifact.getFile() + "' in workspace '" + workspace.getRemote() + "' with file separator '" + fileSeparatorOnAgent + "'");
+            } else {
+                artifactsToDigest.put(artifactPathInArchiveZone, mavenArtifact);
+                artifactsToDigestPathInWorkspace.put(artifactPathInArchiveZone, artifactPathInWorkspace);
+            }
+        }
 
-                String artifactPathInArchiveZone =
-                        mavenArtifact.getGroupId().replace(".", fileSeparatorOnAgent) + fileSeparatorOnAgent +
-                                mavenArtifact.getArtifactId() + fileSeparatorOnAgent +
-                                mavenArtifact.getBaseVersion() + fileSeparatorOnAgent +
-                                mavenArtifact.getFileNameWithBaseVersion();
-
-                String artifactPathInWorkspace = XmlUtils.getPathInWorkspace(mavenArtifact.getFile(), workspace);
-                if (StringUtils.isEmpty(artifactPathInWorkspace)) {
-                    listener.error("[withMaven] artifactsPublisher - Invalid path in the workspace (" + workspace.getRemote() + ") for artifact " + mavenArtifact);
-                } else if (Objects.equals(artifactPathInArchiveZone, mavenArtifact.getFile())) { // troubleshoot JENKINS-44088
-                    listener.error("[withMaven] artifactsPublisher - Failed to relativize '" + mavenArtifact.getFile() + "' in workspace '" + workspace.getRemote() + "' with file separator '" + fileSeparatorOnAgent + "'");
+        // stat the artifacts and digest the ones not digested yet in a single round trip to the build agent
+        Map<String, BatchDigestCallable.Result> digests = Collections.emptyMap();
+        if (!artifactsToDigest.isEmpty()) {
+            // the artifacts digested by the Maven Spy are not hashed again, the artifacts digested while Maven was
+            // running are only hashed again if they have changed since
+            Map<String, BatchDigestCallable.Request> digestRequests = new LinkedHashMap<>(); // artifactPathInWorkspace -> request
+            for (Map.Entry<String, MavenArtifact> artifactToDigest : artifactsToDigest.entrySet()) {
+                String artifactPathInWorkspace = artifactsToDigestPathInWorkspace.get(artifactToDigest.getKey());
+                if (digestRequests.containsKey(artifactPathInWorkspace)) {
+                    continue;
+                }
+                String spyDigest = fileDigests.get(artifactToDigest.getValue().getFile());
+                BatchDigestCallable.Result previousDigest = getArtifactDigests().get(artifactPathInWorkspace);
+                if (spyDigest != null) {
+                    digestRequests.put(artifactPathInWorkspace, new BatchDigestCallable.Request(artifactPathInWorkspace, spyDigest));
+                } else if (previousDigest != null) {
+                    digestRequests.put(artifactPathInWorkspace, new BatchDigestCallable.Request(artifactPathInWorkspace, previousDigest));
                 } else {
-                    FilePath artifactFilePath = new FilePath(workspace, artifactPathInWorkspace);
-                    if (artifactFilePath.exists()) {
-                        // the subsequent call to digest could test the existence but we don't want to prematurely optimize performances
-                        listener.getLogger().println("[withMaven] artifactsPublisher - Archive artifact " + artifactPathInWorkspace + " under " + artifactPathInArchiveZone);
-                        artifactsToArchive.put(artifactPathInArchiveZone, artifactPathInWorkspace);
-                        String artifactDigest = artifactFilePath.digest();
-                        artifactsToFingerPrint.put(artifactPathInArchiveZone, artifactDigest);
-                    } else {
-                        listener.getLogger().println("[withMaven] artifactsPublisher - FAILURE to archive " + artifactPathInWorkspace + " under " + artifactPathInArchiveZone + ", file not found in workspace " + workspace);
-                    }
+                    digestRequests.put(artifactPathInWorkspace, new BatchDigestCallable.Request(artifactPathInWorkspace));
                 }
+            }
+            try {
+                digests = workspace.act(new BatchDigestCallable(new ArrayList<>(digestRequests.values()), listener, "[withMaven] artifactsPublisher - "));
             } catch (IOException | RuntimeException e) {
-                listener.error("[withMaven] artifactsPublisher - WARNING: Exception archiving and fingerprinting " + mavenArtifact + ", skip archiving of the artifacts");
+                listener.error("[withMaven] artifactsPublisher - WARNING: Exception computing the digests of the artifacts " + artifactsToDigest.values() + ", skip archiving of these artifacts");
                 e.printStackTrace(listener.getLogger());
                 listener.getLogger().flush();
             }
         }
+        for (Map.Entry<String, MavenArtifact> artifactToDigest : artifactsToDigest.entrySet()) {
+            String artifactPathInArchiveZone = artifactToDigest.getKey();
+            MavenArtifact mavenArtifact = artifactToDigest.getValue();
+            String artifactPathInWorkspace = artifactsToDigestPathInWorkspace.get(artifactPathInArchiveZone);
+            BatchDigestCallable.Result digest = digests.get(artifactPathInWorkspace);
+            if (digest == null) {
+                continue;
+            } else if (digest.isDirectory()) {
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    listener.getLogger().println("[withMaven] artifactsPublisher - Skip archiving for generated maven artifact of type directory (it's likely to be target/classes, see JENKINS-43714) " + mavenArtifact);
+                }
+            } else if (digest.isNotFound()) {
+                listener.getLogger().println("[withMaven] artifactsPublisher - FAILURE to archive " + artifactPathInWorkspace + " under " + artifactPathInArchiveZone + ", file not found in workspace " + workspace);
+            } else if (digest.getFailure() != null) {
+                listener.error("[withMaven] artifactsPublisher - WARNING: Exception archiving and fingerprinting " + mavenArtifact + ", skip archiving of the artifacts: " + digest.getFailure());
+            } else {
+                listener.getLogger().println("[withMaven] artifactsPublisher - Archive artifact " + artifactPathInWorkspace + " under " + artifactPathInArchiveZone);
+                artifactsToArchive.put(artifactPathInArchiveZone, artifactPathInWorkspace);
+                artifactsToFingerPrint.put(artifactPathInArchiveZone, digest.getMd5());
+            }
+        }
+
+        // don't transfer again the artifacts identical to the artifacts archived by the previous build
+        if (File.separator.equals(fileSeparatorOnAgent)) {
+            copyUnchangedArtifactsOfPreviousBuild(run, artifactManager, artifactsToArchive, artifactsToFingerPrint, listener);
+        }
+
         if (LOGGER.isLoggable(Level.FINE)) {
             listener.getLogger().println("[withMaven] artifactsPublisher - Archive and fingerprint artifacts " + artifactsToArchive + " located in workspace " + workspace.getRemote());
         }
@@ -124,12 +241,9 @@ public class GeneratedArtifactsPublisher extends MavenPublisher {
         }
 
         // FINGERPRINT GENERATED MAVEN ARTIFACT
-        FingerprintMap fingerprintMap = Jenkins.getInstance().getFingerprintMap();
-        for (Map.Entry<String, String> artifactToFingerprint : artifactsToFingerPrint.entrySet()) {
-            String artifactPathInArchiveZone = artifactToFingerprint.getKey();
-            String artifactMd5 = artifactToFingerprint.getValue();
-            fingerprintMap.getOrCreate(run, artifactPathInArchiveZone, artifactMd5).addFor(run);
-        }
+        GlobalPipelineMavenConfig globalPipelineMavenConfig = GlobalPipelineMavenConfig.get();
+        FingerprintService fingerprintService = globalPipelineMavenConfig == null ? new FingerprintService() : globalPipelineMavenConfig.getFingerprintService();
+        fingerprintService.register(run, true, artifactsToFingerPrint);
 
         // add action
         Fingerprinter.FingerprintAction fingerprintAction = run.getAction(Fingerprinter.FingerprintAction.class);
@@ -140,6 +254,70 @@ public class GeneratedArtifactsPublisher extends MavenPublisher {
         }
     }
 
+    /**
+     * Copy on the controller, from the archive of the previous build, the artifacts byte-identical to the artifacts
+     * archived and fingerprinted by the previous build rather than transferring them again from the build agent.
+     * Only applies when both builds use the {@link StandardArtifactManager}, the archive of the previous build is
+     * hard linked when the file system supports it.
+     *
+     * @param artifactsToArchive     artifactPathInArchiveZone -> artifactPathInWorkspace, the copied artifacts are removed
+     * @param artifactsToFingerPrint artifactPathInArchiveZone -> artifactMd5
+     */
+    private static void copyUnchangedArtifactsOfPreviousBuild(@Nonnull Run run, @Nonnull ArtifactManager artifactManager,
+                                                              @Nonnull Map<String, String> artifactsToArchive, @Nonnull Map<String, String> artifactsToFingerPrint,
+                                                              @Nonnull TaskListener listener) {
+        Run previousBuild = run.getPreviousBuild();
+        if (!(artifactManager instanceof StandardArtifactManager) || previousBuild == null || !(previousBuild.getArtifactManager() instanceof StandardArtifactManager)) {
+            return;
+        }
+        Fingerprinter.FingerprintAction previousFingerprintAction = previousBuild.getAction(Fingerprinter.FingerprintAction.class);
+        if (previousFingerprintAction == null) {
+            return;
+        }
+        int copiedArtifacts = copyUnchangedArtifacts(previousBuild.getArtifactsDir(), previousFingerprintAction.getRecords(), run.getArtifactsDir(), artifactsToArchive, artifactsToFingerPrint);
+        if (copiedArtifacts > 0) {
+            listener.getLogger().println("[withMaven] artifactsPublisher - " + copiedArtifacts + " artifact(s) unchanged since " + previousBuild.getFullDisplayName() + ", not transferred again from the workspace");
+        }
+    }
+
+    /**
+     * Hard link, or copy if the file system doesn't support hard links, the previously archived artifacts that have the
+     * same digest than the artifacts to archive.
+     *
+     * @param previousArtifactsDigests artifactPathInArchiveZone -> artifactMd5 of the previous build
+     * @param artifactsToArchive       artifactPathInArchiveZone -> artifactPathInWorkspace, the copied artifacts are removed
+     * @param artifactsToFingerPrint   artifactPathInArchiveZone -> artifactMd5
+     * @return the number of copied artifacts
+     */
+    static int copyUnchangedArtifacts(@Nonnull File previousArtifactsDir, @Nonnull Map<String, String> previousArtifactsDigests, @Nonnull File artifactsDir,
+                                      @Nonnull Map<String, String> artifactsToArchive, @Nonnull Map<String, String> artifactsToFingerPrint) {
+        int copiedArtifacts = 0;
+        for (Iterator<Map.Entry<String, String>> it = artifactsToArchive.entrySet().iterator(); it.hasNext(); ) {
+            String artifactPathInArchiveZone = it.next().getKey();
+            String artifactMd5 = artifactsToFingerPrint.get(artifactPathInArchiveZone);
+            File previousArtifact = new File(previousArtifactsDir, artifactPathInArchiveZone);
+            if (artifactMd5 == null || !artifactMd5.equals(previousArtifactsDigests.get(artifactPathInArchiveZone)) || !previousArtifact.isFile()) {
+                continue;
+            }
+            File artifact = new File(artifactsDir, artifactPathInArchiveZone);
+            try {
+                Files.createDirectories(artifact.getParentFile().toPath());
+                try {
+                    Files.createLink(artifact.toPath(), previousArtifact.toPath());
+                } catch (IOException | UnsupportedOperationException e) {
+                    Files.copy(previousArtifact.toPath(), artifact.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.FINE, "Failure to copy " + previousArtifact + ", archive the artifact from the workspace", e);
+                continue;
+            }
+            LOGGER.log(Level.FINE, "Artifact {0} unchanged, copied from {1}", new Object[]{artifactPathInArchiveZone, previousArtifact});
+            it.remove();
+            copiedArtifacts++;
+        }
+        return copiedArtifacts;
+    }
+
     @Symbol("artifactsPublisher")
     @Extension public static class DescriptorImpl extends MavenPublisher.DescriptorImpl {
         @Nonnull
@@ -0,0 +1,339 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.publishers;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.plugins.analysis.core.BuildResult;
+import hudson.plugins.analysis.util.PluginLogger;
+import hudson.plugins.analysis.util.model.FileAnnotation;
+import hudson.plugins.tasks.TasksDescriptor;
+import hudson.plugins.tasks.TasksPublisher;
+import hudson.plugins.tasks.TasksResult;
+import hudson.plugins.tasks.TasksResultAction;
+import hudson.plugins.tasks.parser.Task;
+import hudson.plugins.tasks.parser.TasksParserResult;
+import hudson.plugins.tasks.parser.WorkspaceScanner;
+import hudson.remoting.ClassFilter;
+import hudson.remoting.ObjectInputStreamEx;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * {@link TasksPublisher} that only scans the files changed since the last scanned build.
+ * <p>
+ * The size, the last modification date, the digest and the tasks of each scanned file are stored in an index saved
+ * with the build. The next build only scans the files whose size, last modification date and digest changed and
+ * carries over the tasks of the other files from the index of the previous build.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ * @see TasksScannerPublisher#isIncremental()
+ */
+class IncrementalTasksPublisher extends TasksPublisher {
+    private static final Logger LOGGER = Logger.getLogger(IncrementalTasksPublisher.class.getName());
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Name of the index file in the folder of the build
+     */
+    static final String INDEX_FILE_NAME = "pipeline-maven-tasks-index.ser.gz";
+
+    /**
+     * Max number of previous builds looked up to find an index
+     */
+    private static final int MAX_PREVIOUS_BUILDS = 10;
+
+    private final transient TaskListener listener;
+
+    IncrementalTasksPublisher(@Nonnull TaskListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * The publisher is not registered, use the descriptor of the {@link TasksPublisher}
+     */
+    @Override
+    public TasksDescriptor getDescriptor() {
+        return Jenkins.getInstance().getDescriptorByType(TasksDescriptor.class);
+    }
+
+    /**
+     * Same as {@link TasksPublisher#perform(Run, FilePath, PluginLogger)} with incremental scanning
+     */
+    @Override
+    public BuildResult perform(Run<?, ?> build, FilePath workspace, PluginLogger logger) throws InterruptedException, IOException {
+        String defaultEncoding = getDefaultEncoding();
+        // the index can't be reused if the workspace or the settings changed
+        String indexKey = workspace.getRemote() + "|" + getPattern() + "|" + getExcludePattern() + "|" + defaultEncoding + "|" +
+                getHigh() + "|" + getNormal() + "|" + getLow() + "|" + getIgnoreCase() + "|" + getAsRegexp();
+
+        Index previousIndex = loadPreviousIndex(build, indexKey);
+        Map<String, FileState> previousFiles = previousIndex == null ? Collections.emptyMap() : previousIndex.files;
+
+        ScanResult scanResult = workspace.act(new IncrementalScanner(getPattern(), getExcludePattern(), defaultEncoding,
+                getHigh(), getNormal(), getLow(), getIgnoreCase(), getAsRegexp(), previousFiles));
+
+        TasksParserResult project = new TasksParserResult(scanResult.files.size());
+        Index index = Index.merge(indexKey, previousIndex, scanResult);
+        for (List<Task> tasks : index.tasks.values()) {
+            project.addAnnotations(tasks);
+        }
+        for (String errorMessage : scanResult.errorMessages) {
+            project.addErrorMessage(errorMessage);
+        }
+        listener.getLogger().println("[withMaven] openTasksPublisher - Scanned " + scanResult.changedFiles.size() + " new or modified files, " +
+                "tasks of " + (scanResult.files.size() - scanResult.changedFiles.size()) + " unchanged files carried over" +
+                (previousIndex == null ? "" : " from " + previousIndex.build));
+        logger.log("Found " + project.getNumberOfAnnotations() + " open tasks.");
+
+        index.build = build.getFullDisplayName();
+        try {
+            saveIndex(build, index);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Exception saving the tasks index of " + build, e);
+        }
+
+        TasksResult result = new TasksResult(build, defaultEncoding, project, usePreviousBuildAsReference(),
+                useOnlyStableBuildsAsReference(), getHigh(), getNormal(), getLow());
+        build.addAction(new TasksResultAction(build, this, result));
+        return result;
+    }
+
+    @CheckForNull
+    private static Index loadPreviousIndex(@Nonnull Run<?, ?> build, @Nonnull String indexKey) {
+        Run<?, ?> previousBuild = build.getPreviousBuild();
+        for (int i = 0; i < MAX_PREVIOUS_BUILDS && previousBuild != null; i++, previousBuild = previousBuild.getPreviousBuild()) {
+            File indexFile = new File(previousBuild.getRootDir(), INDEX_FILE_NAME);
+            if (!indexFile.exists()) {
+                continue;
+            }
+            try (ObjectInputStream in = new ObjectInputStreamEx(new GZIPInputStream(new FileInputStream(indexFile)),
+                    IncrementalTasksPublisher.class.getClassLoader(), ClassFilter.DEFAULT)) {
+                Index index = (Index) in.readObject();
+                if (Objects.equals(indexKey, index.key)) {
+                    return index;
+                }
+                LOGGER.log(Level.FINE, "Ignore tasks index of {0}, workspace or settings changed", previousBuild);
+                return null;
+            } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Exception loading tasks index " + indexFile + ", scan all the files", e);
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static void saveIndex(@Nonnull Run<?, ?> build, @Nonnull Index index) throws IOException {
+        File indexFile = new File(build.getRootDir(), INDEX_FILE_NAME);
+        try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(new FileOutputStream(indexFile)))) {
+            out.writeObject(index);
+        }
+    }
+
+    /**
+     * Tasks found in the files of the workspace, saved with the build
+     */
+    static class Index implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final String key;
+        String build;
+        /**
+         * path relative to the workspace -> state
+         */
+        final Map<String, FileState> files = new LinkedHashMap<>();
+        /**
+         * path relative to the workspace -> tasks, files without tasks are omitted
+         */
+        final Map<String, List<Task>> tasks = new HashMap<>();
+
+        Index(@Nonnull String key) {
+            this.key = key;
+        }
+
+        /**
+         * Index of the files of the scan, with the tasks of the new or modified files and the tasks of the unchanged
+         * files carried over from the previous index. The deleted files are dropped.
+         */
+        @Nonnull
+        static Index merge(@Nonnull String key, @CheckForNull Index previousIndex, @Nonnull ScanResult scanResult) {
+            Index index = new Index(key);
+            for (Map.Entry<String, FileState> file : scanResult.files.entrySet()) {
+                String path = file.getKey();
+                List<Task> tasks;
+                if (scanResult.changedFiles.containsKey(path)) {
+                    tasks = scanResult.changedFiles.get(path);
+                } else if (previousIndex != null) {
+                    tasks = previousIndex.tasks.getOrDefault(path, Collections.emptyList());
+                } else {
+                    tasks = Collections.emptyList();
+                }
+                if (!tasks.isEmpty()) {
+                    index.tasks.put(path, tasks);
+                }
+                index.files.put(path, file.getValue());
+            }
+            return index;
+        }
+    }
+
+    static class FileState implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final long length;
+        final long lastModified;
+        final String md5;
+
+        FileState(long length, long lastModified, @Nonnull String md5) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.md5 = md5;
+        }
+    }
+
+    static class ScanResult implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * all the files matching the pattern, path relative to the workspace -> state
+         */
+        final Map<String, FileState> files = new LinkedHashMap<>();
+        /**
+         * new or modified files, path relative to the workspace -> tasks
+         */
+        final Map<String, List<Task>> changedFiles = new HashMap<>();
+
+        final List<String> errorMessages = new ArrayList<>();
+    }
+
+    /**
+     * Scans on the build agent the files whose size, last modification date and digest changed with the
+     * {@link WorkspaceScanner} of the Task Scanner Plugin
+     */
+    static class IncrementalScanner extends MasterToSlaveFileCallable<ScanResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final String pattern;
+        private final String excludePattern;
+        private final String defaultEncoding;
+        private final String high;
+        private final String normal;
+        private final String low;
+        private final boolean ignoreCase;
+        private final boolean asRegexp;
+        private final Map<String, FileState> previousFiles;
+
+        IncrementalScanner(String pattern, String excludePattern, String defaultEncoding, String high, String normal, String low,
+                           boolean ignoreCase, boolean asRegexp, @Nonnull Map<String, FileState> previousFiles) {
+            this.pattern = pattern;
+            this.excludePattern = excludePattern;
+            this.defaultEncoding = defaultEncoding;
+            this.high = high;
+            this.normal = normal;
+            this.low = low;
+            this.ignoreCase = ignoreCase;
+            this.asRegexp = asRegexp;
+            this.previousFiles = previousFiles;
+        }
+
+        @Override
+        public ScanResult invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+            ScanResult result = new ScanResult();
+            List<String> changedFiles = new ArrayList<>();
+            for (String path : Util.createFileSet(workspace, pattern, StringUtils.trimToNull(excludePattern)).getDirectoryScanner().getIncludedFiles()) {
+                File file = new File(workspace, path);
+                FileState previousState = previousFiles.get(path);
+                long length = file.length();
+                long lastModified = file.lastModified();
+                if (previousState != null && previousState.length == length && previousState.lastModified == lastModified) {
+                    result.files.put(path, previousState);
+                    continue;
+                }
+                String md5;
+                try (InputStream in = new FileInputStream(file)) {
+                    md5 = Util.getDigestOf(in);
+                }
+                result.files.put(path, new FileState(length, lastModified, md5));
+                if (previousState == null || !previousState.md5.equals(md5)) {
+                    changedFiles.add(path);
+                    result.changedFiles.put(path, new ArrayList<>());
+                }
+            }
+            if (changedFiles.isEmpty()) {
+                return result;
+            }
+
+            // scan all the files matching the pattern rather than enumerating them when there is no index
+            String changedFilesPattern = previousFiles.isEmpty() ? pattern : StringUtils.join(changedFiles, ",");
+            String changedFilesExcludePattern = previousFiles.isEmpty() ? excludePattern : null;
+            TasksParserResult changedFilesResult = new WorkspaceScanner(changedFilesPattern, changedFilesExcludePattern, defaultEncoding,
+                    high, normal, low, ignoreCase, asRegexp).invoke(workspace, channel);
+
+            String workspacePath = workspace.getAbsolutePath() + File.separator;
+            for (FileAnnotation annotation : changedFilesResult.getAnnotations()) {
+                String fileName = annotation.getFileName();
+                String path = fileName.startsWith(workspacePath) ? fileName.substring(workspacePath.length()) : fileName;
+                List<Task> tasks = result.changedFiles.get(path);
+                if (tasks == null) {
+                    // file name not normalized the same way, invalid state to rescan it on the next build
+                    result.files.put(path, new FileState(-1, -1, ""));
+                    tasks = new ArrayList<>();
+                    result.changedFiles.put(path, tasks);
+                }
+                tasks.add((Task) annotation);
+            }
+            result.errorMessages.addAll(changedFilesResult.getErrorMessages());
+            return result;
+        }
+    }
+}
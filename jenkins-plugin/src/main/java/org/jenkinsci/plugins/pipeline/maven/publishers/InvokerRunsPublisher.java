@@ -35,11 +35,11 @@ import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
 import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogProcessor;
 import org.jenkinsci.plugins.maveninvoker.MavenInvokerRecorder;
 import org.jenkinsci.plugins.pipeline.maven.MavenPublisher;
+import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogModel;
 import org.jenkinsci.plugins.pipeline.maven.util.FileUtils;
 import org.jenkinsci.plugins.pipeline.maven.util.XmlUtils;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.kohsuke.stapler.DataBoundConstructor;
-import org.w3c.dom.Element;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -77,7 +77,7 @@ public class InvokerRunsPublisher extends MavenPublisher {
   </ExecutionEvent>
      */
     @Override
-    public void process(@Nonnull StepContext context, @Nonnull Element mavenSpyLogsElt) throws IOException, InterruptedException {
+    public void process(@Nonnull StepContext context, @Nonnull MavenSpyLogModel mavenSpyLogModel) throws IOException, InterruptedException {
 
         TaskListener listener = context.get(TaskListener.class);
         if (listener == null) {
@@ -85,8 +85,8 @@ public class InvokerRunsPublisher extends MavenPublisher {
             listener = new StreamBuildListener((OutputStream) System.err);
         }
 
-        List<Element> invokerRunRunEvents = XmlUtils.getExecutionEventsByPlugin(mavenSpyLogsElt, GROUP_ID, ARTIFACT_ID, RUN_GOAL, "MojoSucceeded", "MojoFailed");
-        List<Element> invokerRunIntegrationTestEvents = XmlUtils.getExecutionEventsByPlugin(mavenSpyLogsElt, GROUP_ID, ARTIFACT_ID, INTEGRATION_TEST_GOAL, "MojoSucceeded", "MojoFailed");
+        List<MavenSpyLogModel.ExecutionEvent> invokerRunRunEvents = mavenSpyLogModel.getExecutionEventsByPlugin(GROUP_ID, ARTIFACT_ID, RUN_GOAL, "MojoSucceeded", "MojoFailed");
+        List<MavenSpyLogModel.ExecutionEvent> invokerRunIntegrationTestEvents = mavenSpyLogModel.getExecutionEventsByPlugin(GROUP_ID, ARTIFACT_ID, INTEGRATION_TEST_GOAL, "MojoSucceeded", "MojoFailed");
 
         if (invokerRunRunEvents.isEmpty() && invokerRunIntegrationTestEvents.isEmpty()) {
             if (LOGGER.isLoggable(Level.FINE)) {
@@ -111,24 +111,21 @@ public class InvokerRunsPublisher extends MavenPublisher {
         executeReporter(context, listener, invokerRunIntegrationTestEvents);
     }
 
-    private void executeReporter(StepContext context, TaskListener listener, List<Element> testEvents) throws IOException, InterruptedException {
+    private void executeReporter(StepContext context, TaskListener listener, List<MavenSpyLogModel.ExecutionEvent> testEvents) throws IOException, InterruptedException {
         FilePath workspace = context.get(FilePath.class);
         final String fileSeparatorOnAgent = XmlUtils.getFileSeparatorOnRemote(workspace);
         Run run = context.get(Run.class);
         Launcher launcher = context.get(Launcher.class);
 
-        for (Element testEvent : testEvents) {
-            Element projectElt = XmlUtils.getUniqueChildElement(testEvent, "project");
-            Element pluginElt = XmlUtils.getUniqueChildElement(testEvent, "plugin");
-            Element reportsDirectoryElt = XmlUtils.getUniqueChildElementOrNull(pluginElt, "reportsDirectory");
-            Element cloneProjectsToElt = XmlUtils.getUniqueChildElementOrNull(pluginElt, "cloneProjectsTo");
-            Element projectsDirectoryElt = XmlUtils.getUniqueChildElementOrNull(pluginElt, "projectsDirectory");
-            MavenArtifact mavenArtifact = XmlUtils.newMavenArtifact(projectElt);
-            MavenSpyLogProcessor.PluginInvocation pluginInvocation = XmlUtils.newPluginInvocation(pluginElt);
-
-            String reportsDirectory = expandAndRelativize(reportsDirectoryElt, "reportsDirectory", testEvent, projectElt, workspace,listener);
-            String projectsDirectory = expandAndRelativize(projectsDirectoryElt, "projectsDirectory", testEvent, projectElt, workspace,listener);
-            String cloneProjectsTo = expandAndRelativize(cloneProjectsToElt, "cloneProjectsTo", testEvent, projectElt, workspace,listener);
+        for (MavenSpyLogModel.ExecutionEvent testEvent : testEvents) {
+            MavenSpyLogModel.Project project = testEvent.getProject();
+            MavenSpyLogModel.PluginExecution plugin = testEvent.getPlugin();
+            MavenArtifact mavenArtifact = project.newMavenArtifact();
+            MavenSpyLogProcessor.PluginInvocation pluginInvocation = plugin.newPluginInvocation();
+
+            String reportsDirectory = expandAndRelativize(plugin.getParameter("reportsDirectory"), "reportsDirectory", testEvent, project, workspace,listener);
+            String projectsDirectory = expandAndRelativize(plugin.getParameter("projectsDirectory"), "projectsDirectory", testEvent, project, workspace,listener);
+            String cloneProjectsTo = expandAndRelativize(plugin.getParameter("cloneProjectsTo"), "cloneProjectsTo", testEvent, project, workspace,listener);
             if (reportsDirectory == null || projectsDirectory == null ) continue;
 
             String testResults = reportsDirectory + fileSeparatorOnAgent + "*.xml";
@@ -140,20 +137,20 @@ public class InvokerRunsPublisher extends MavenPublisher {
                 archiver.perform(run, workspace, launcher, listener);
             } catch (Exception e) {
                 listener.error("[withMaven] invokerPublisher - Silently ignore exception archiving Invoker runs for Maven artifact " + mavenArtifact.toString() + " generated by " + pluginInvocation + ": " + e);
-                LOGGER.log(Level.WARNING, "Exception processing " + XmlUtils.toString(testEvent), e);
+                LOGGER.log(Level.WARNING, "Exception processing " + testEvent, e);
             }
 
         }
     }
 
     @Nullable
-    protected String expandAndRelativize(@Nullable Element element, @Nullable String name, Element testEvent, Element projectElt, FilePath workspace, TaskListener listener) {
-        if (element == null) {
-            listener.getLogger().println("[withMaven] invokerPublisher - No <" + name + "> element found for <plugin> in " + XmlUtils.toString(testEvent));
+    protected String expandAndRelativize(@Nullable String value, @Nullable String name, MavenSpyLogModel.ExecutionEvent testEvent, MavenSpyLogModel.Project project, FilePath workspace, TaskListener listener) {
+        if (value == null) {
+            listener.getLogger().println("[withMaven] invokerPublisher - No <" + name + "> element found for <plugin> in " + testEvent);
             return null;
         }
 
-        String result = element.getTextContent().trim();
+        String result = value.trim();
 
         if (result.contains("${invoker.projectsDirectory}")) {
             result = result.replace("${invoker.projectsDirectory}", "${basedir}/src/it");
@@ -162,27 +159,27 @@ public class InvokerRunsPublisher extends MavenPublisher {
         }
 
         if (result.contains("${project.build.directory}")) {
-            String projectBuildDirectory = XmlUtils.getProjectBuildDirectory(projectElt);
+            String projectBuildDirectory = project.getBuildDirectory();
             if (projectBuildDirectory == null || projectBuildDirectory.isEmpty()) {
-                listener.getLogger().println("[withMaven] invokerPublisher - '${project.build.directory}' found for <project> in " + XmlUtils.toString(testEvent));
+                listener.getLogger().println("[withMaven] invokerPublisher - '${project.build.directory}' found for <project> in " + testEvent);
                 return null;
             }
 
             result = result.replace("${project.build.directory}", projectBuildDirectory);
 
         } else if (result.contains("${basedir}")) {
-            String baseDir = projectElt.getAttribute("baseDir");
+            String baseDir = project.getBaseDir();
             if (baseDir.isEmpty()) {
-                listener.getLogger().println("[withMaven] invokerPublisher - '${basedir}' NOT found for <project> in " + XmlUtils.toString(testEvent));
+                listener.getLogger().println("[withMaven] invokerPublisher - '${basedir}' NOT found for <project> in " + testEvent);
                 return null;
             }
 
             result = result.replace("${basedir}", baseDir);
         } else if (!FileUtils.isAbsolutePath(result)) {
             char separator = FileUtils.isWindows(result) ? '\\' : '/';
-            String baseDir = projectElt.getAttribute("baseDir");
+            String baseDir = project.getBaseDir();
             if (baseDir.isEmpty()) {
-                listener.getLogger().println("[withMaven] invokerPublisher - '${basedir}' NOT found for <project> in " + XmlUtils.toString(testEvent));
+                listener.getLogger().println("[withMaven] invokerPublisher - '${basedir}' NOT found for <project> in " + testEvent);
                 return null;
             }
             result = baseDir + separator + result;
@@ -203,6 +200,14 @@ public class InvokerRunsPublisher extends MavenPublisher {
             return "Invoker Publisher";
         }
 
+        /**
+         * Failed invoker runs mark the build as unstable
+         */
+        @Override
+        public boolean mayChangeBuildResult() {
+            return true;
+        }
+
         @Override
         public int ordinal() {
             return 10;
@@ -18,21 +18,23 @@
 
 package org.jenkinsci.plugins.pipeline.maven.publishers;
 
-import static org.jenkinsci.plugins.pipeline.maven.publishers.DependenciesLister.listDependencies;
-
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.jgiven.JgivenReportGenerator;
 import org.jenkinsci.plugins.jgiven.JgivenReportGenerator.ReportConfig;
 import org.jenkinsci.plugins.pipeline.maven.MavenDependency;
 import org.jenkinsci.plugins.pipeline.maven.MavenPublisher;
+import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogModel;
+import org.jenkinsci.plugins.pipeline.maven.util.ReportDigestCache;
+import org.jenkinsci.plugins.pipeline.maven.util.WorkspaceSnapshot;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.kohsuke.stapler.DataBoundConstructor;
-import org.w3c.dom.Element;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -52,6 +54,8 @@ public class JGivenTestsPublisher extends MavenPublisher {
 
     public static final String REPORTS_DIR = "jgiven-reports";
 
+    private static final String REPORTS_PATTERN = "**/" + REPORTS_DIR + "/*";
+
     private static final Logger LOGGER = Logger.getLogger(JGivenTestsPublisher.class.getName());
 
     private static final long serialVersionUID = 1L;
@@ -62,7 +66,7 @@ public class JGivenTestsPublisher extends MavenPublisher {
     }
 
     @Override
-    public void process(@Nonnull final StepContext context, @Nonnull final Element mavenSpyLogsElt)
+    public void process(@Nonnull final StepContext context, @Nonnull final MavenSpyLogModel mavenSpyLogModel)
             throws IOException, InterruptedException {
 
         TaskListener listener = context.get(TaskListener.class);
@@ -75,15 +79,7 @@ public class JGivenTestsPublisher extends MavenPublisher {
         final Run run = context.get(Run.class);
         final Launcher launcher = context.get(Launcher.class);
 
-        boolean foundJGivenDependency = false;
-        List<MavenDependency> dependencies = listDependencies(mavenSpyLogsElt, LOGGER);
-        for (MavenDependency dependency : dependencies) {
-            if (dependency.getArtifactId().contains("jgiven")) {
-                foundJGivenDependency = true;
-                break;
-            }
-        }
-        if (!foundJGivenDependency) {
+        if (!hasJGivenDependency(mavenSpyLogModel)) {
             if (LOGGER.isLoggable(Level.FINE)) {
                 listener.getLogger().println("[withMaven] jgivenPublisher - JGiven not found within your project dependencies, aborting.");
             }
@@ -99,9 +95,11 @@ public class JGivenTestsPublisher extends MavenPublisher {
             return;
         }
 
-        final String pattern = "**/" + REPORTS_DIR + "/*";
-        final FilePath[] paths = workspace.list(pattern);
-        if (paths == null || paths.length == 0) {
+        final String pattern = REPORTS_PATTERN;
+        // the pattern has been listed before the execution of the publishers
+        List<String> files = mavenSpyLogModel.getWorkspaceSnapshot().list(pattern);
+        final int matchingFilesCount = files == null ? workspace.list(pattern).length : files.size();
+        if (matchingFilesCount == 0) {
             if (LOGGER.isLoggable(Level.FINE)) {
                 listener.getLogger().println("[withMaven] jgivenPublisher - Pattern \"" + pattern
                         + "\" does not match any file on workspace, aborting.");
@@ -111,14 +109,45 @@ public class JGivenTestsPublisher extends MavenPublisher {
 
         final JgivenReportGenerator generator = new JgivenReportGenerator(new ArrayList<ReportConfig>());
 
+        // the JSON reports are copied with their path relative to the workspace, the report directories that did
+        // not change can be copied from the folder of the previous build
+        Map<String, String> reportDigests = ReportDigestCache.getDigests(mavenSpyLogModel.getWorkspaceSnapshot(), pattern, REPORTS_DIR);
+        ReportDigestCache.ReportsRoot reportsRoot = ReportDigestCache.prepareReportsRoot(run, "jgivenPublisher", workspace, reportDigests,
+                previousBuild -> new File(previousBuild.getRootDir(), "jgiven/json"));
+        if (reportsRoot.getPreviousBuild() != null) {
+            listener.getLogger().println("[withMaven] jgivenPublisher - " + reportsRoot.getReusedReports().size() + " JGiven report directories unchanged since " +
+                    reportsRoot.getPreviousBuild().getFullDisplayName() + ", copy them from the reports of this build");
+        }
+
         try {
             listener.getLogger().println("[withMaven] jgivenPublisher - Running JGiven report generator");
-            generator.perform(run, workspace, launcher, listener);
+            generator.perform(run, reportsRoot.getRoot(), launcher, listener);
+            if (reportDigests != null) {
+                ReportDigestCache.save(run, "jgivenPublisher", reportDigests);
+            }
         } catch (final Exception e) {
             listener.error(
                     "[withMaven] jgivenPublisher - Silently ignore exception archiving JGiven reports: " + e);
             LOGGER.log(Level.WARNING, "Exception processing JGiven reports archiving", e);
+        } finally {
+            reportsRoot.cleanUp();
+        }
+    }
+
+    @Override
+    public void collectWorkspaceProbes(@Nonnull StepContext context, @Nonnull MavenSpyLogModel mavenSpyLogModel, @Nonnull WorkspaceSnapshot.Request request) {
+        if (hasJGivenDependency(mavenSpyLogModel)) {
+            request.addPattern(REPORTS_PATTERN);
+        }
+    }
+
+    private static boolean hasJGivenDependency(@Nonnull MavenSpyLogModel mavenSpyLogModel) {
+        for (MavenDependency dependency : mavenSpyLogModel.getDependencies()) {
+            if (dependency.getArtifactId().contains("jgiven")) {
+                return true;
+            }
         }
+        return false;
     }
 
     @Symbol("jgivenPublisher")
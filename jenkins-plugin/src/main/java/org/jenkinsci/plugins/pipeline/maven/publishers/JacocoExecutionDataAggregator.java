@@ -0,0 +1,236 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.publishers;
+
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.tools.ExecFileLoader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Merge on the build agent the JaCoCo execution data of the modules of a multi-module build and compute there the
+ * coverage summary against the classes of each module. Only the merged execution data and the summary are sent back
+ * to the controller, the class and source directories stay on the build agent.
+ * <p>
+ * The modules are analyzed separately so that classes with the same name in different modules don't collide.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ * @see org.jacoco.core.tools.ExecFileLoader
+ */
+class JacocoExecutionDataAggregator extends MasterToSlaveFileCallable<JacocoExecutionDataAggregator.Result> {
+    private static final long serialVersionUID = 1L;
+
+    private final List<Module> modules;
+
+    JacocoExecutionDataAggregator(@Nonnull List<Module> modules) {
+        this.modules = modules;
+    }
+
+    @Override
+    public Result invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+        Result result = new Result();
+
+        // modules configured with the same "destFile" share the execution data file
+        ExecFileLoader execFileLoader = new ExecFileLoader();
+        Set<File> loadedExecFiles = new HashSet<>();
+        for (Module module : modules) {
+            File execFile = resolve(workspace, module.execFile);
+            if (execFile.isFile() && loadedExecFiles.add(execFile)) {
+                execFileLoader.load(execFile);
+            }
+        }
+        if (loadedExecFiles.isEmpty()) {
+            return result;
+        }
+        ByteArrayOutputStream executionData = new ByteArrayOutputStream();
+        execFileLoader.save(executionData);
+        result.executionData = executionData.toByteArray();
+        result.execFilesCount = loadedExecFiles.size();
+
+        Set<File> analyzedClassesDirectories = new HashSet<>();
+        for (Module module : modules) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            File classesDirectory = resolve(workspace, module.classesDirectory);
+            if (!classesDirectory.isDirectory() || !analyzedClassesDirectories.add(classesDirectory)) {
+                continue;
+            }
+            CoverageBuilder coverageBuilder = new CoverageBuilder();
+            new Analyzer(execFileLoader.getExecutionDataStore(), coverageBuilder).analyzeAll(classesDirectory);
+            Summary summary = Summary.of(coverageBuilder.getBundle(module.name));
+            result.modules.put(module.name, summary);
+            result.total.add(summary);
+        }
+        return result;
+    }
+
+    @Nonnull
+    private static File resolve(@Nonnull File workspace, @Nonnull String path) {
+        File file = new File(path);
+        return file.isAbsolute() ? file : new File(workspace, path);
+    }
+
+    /**
+     * Maven module instrumented by the {@code org.jacoco:jacoco-maven-plugin:prepare-agent} goal
+     */
+    static class Module implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final String execFile;
+        private final String classesDirectory;
+
+        /**
+         * @param name             name of the module
+         * @param execFile         execution data file, relative to the workspace
+         * @param classesDirectory classes directory, relative to the workspace
+         */
+        Module(@Nonnull String name, @Nonnull String execFile, @Nonnull String classesDirectory) {
+            this.name = name;
+            this.execFile = execFile;
+            this.classesDirectory = classesDirectory;
+        }
+    }
+
+    /**
+     * Counters of the JaCoCo coverage summary, same names as {@code hudson.plugins.jacoco.model.CoverageElement.Type}
+     */
+    enum Counter {
+        INSTRUCTION, BRANCH, COMPLEXITY, LINE, METHOD, CLASS
+    }
+
+    /**
+     * Missed and covered items per {@link Counter}
+     */
+    static class Summary implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] missed = new int[Counter.values().length];
+        private final int[] covered = new int[Counter.values().length];
+
+        @Nonnull
+        static Summary of(@Nonnull IBundleCoverage bundle) {
+            Summary summary = new Summary();
+            summary.set(Counter.INSTRUCTION, bundle.getInstructionCounter());
+            summary.set(Counter.BRANCH, bundle.getBranchCounter());
+            summary.set(Counter.COMPLEXITY, bundle.getComplexityCounter());
+            summary.set(Counter.LINE, bundle.getLineCounter());
+            summary.set(Counter.METHOD, bundle.getMethodCounter());
+            summary.set(Counter.CLASS, bundle.getClassCounter());
+            return summary;
+        }
+
+        private void set(@Nonnull Counter counter, @Nonnull ICounter jacocoCounter) {
+            missed[counter.ordinal()] = jacocoCounter.getMissedCount();
+            covered[counter.ordinal()] = jacocoCounter.getCoveredCount();
+        }
+
+        void add(@Nonnull Summary other) {
+            for (int i = 0; i < missed.length; i++) {
+                missed[i] += other.missed[i];
+                covered[i] += other.covered[i];
+            }
+        }
+
+        int getMissed(@Nonnull Counter counter) {
+            return missed[counter.ordinal()];
+        }
+
+        int getCovered(@Nonnull Counter counter) {
+            return covered[counter.ordinal()];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder();
+            for (Counter counter : new Counter[]{Counter.LINE, Counter.BRANCH}) {
+                int total = getMissed(counter) + getCovered(counter);
+                if (result.length() > 0) {
+                    result.append(", ");
+                }
+                result.append(counter.name().toLowerCase()).append(": ").append(getCovered(counter)).append("/").append(total);
+            }
+            return result.toString();
+        }
+    }
+
+    /**
+     * Merged execution data and coverage summary
+     */
+    static class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @CheckForNull
+        private byte[] executionData;
+        private int execFilesCount;
+        private final Map<String, Summary> modules = new LinkedHashMap<>();
+        private final Summary total = new Summary();
+
+        /**
+         * @return the merged execution data, {@code null} if no execution data file was found
+         */
+        @CheckForNull
+        byte[] getExecutionData() {
+            return executionData;
+        }
+
+        /**
+         * @return number of merged execution data files
+         */
+        int getExecFilesCount() {
+            return execFilesCount;
+        }
+
+        /**
+         * @return summary per analyzed module
+         */
+        @Nonnull
+        Map<String, Summary> getModules() {
+            return modules;
+        }
+
+        @Nonnull
+        Summary getTotal() {
+            return total;
+        }
+    }
+}
@@ -24,26 +24,39 @@
 
 package org.jenkinsci.plugins.pipeline.maven.publishers;
 
+import hudson.EnvVars;
 import hudson.Extension;
 import hudson.FilePath;
 import hudson.Launcher;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.plugins.jacoco.JacocoBuildAction;
+import hudson.plugins.jacoco.JacocoHealthReportThresholds;
 import hudson.plugins.jacoco.JacocoPublisher;
+import hudson.plugins.jacoco.JacocoReportDir;
+import hudson.plugins.jacoco.model.Coverage;
+import hudson.plugins.jacoco.model.CoverageElement;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
 import org.jenkinsci.plugins.pipeline.maven.MavenPublisher;
+import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogModel;
 import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogProcessor;
 import org.jenkinsci.plugins.pipeline.maven.util.XmlUtils;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.kohsuke.stapler.DataBoundConstructor;
-import org.w3c.dom.Element;
+import org.kohsuke.stapler.DataBoundSetter;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 /**
@@ -54,6 +67,11 @@ public class JacocoReportPublisher extends MavenPublisher {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Merge the JaCoCo results of all the Maven modules in a single report, see {@link JacocoExecutionDataAggregator}
+     */
+    private boolean aggregateModules = false;
+
     @DataBoundConstructor
     public JacocoReportPublisher() {
 
@@ -111,27 +129,28 @@ public class JacocoReportPublisher extends MavenPublisher {
     /**
      * TODO only collect the jacoco report if unit tests have run
      * @param context
-     * @param mavenSpyLogsElt maven spy report. WARNING experimental structure for the moment, subject to change.
+     * @param mavenSpyLogModel maven spy report. WARNING experimental structure for the moment, subject to change.
      * @throws IOException
      * @throws InterruptedException
      */
     @Override
-    public void process(@Nonnull StepContext context, @Nonnull Element mavenSpyLogsElt) throws IOException, InterruptedException {
+    public void process(@Nonnull StepContext context, @Nonnull MavenSpyLogModel mavenSpyLogModel) throws IOException, InterruptedException {
 
         TaskListener listener = context.get(TaskListener.class);
         FilePath workspace = context.get(FilePath.class);
         Run run = context.get(Run.class);
         Launcher launcher = context.get(Launcher.class);
 
-        List<Element> jacocoPrepareAgentEvents = XmlUtils.getExecutionEventsByPlugin(mavenSpyLogsElt, "org.jacoco", "jacoco-maven-plugin", "prepare-agent", "MojoSucceeded", "MojoFailed");
+        List<MavenSpyLogModel.ExecutionEvent> jacocoPrepareAgentEvents = mavenSpyLogModel.getExecutionEventsByPlugin("org.jacoco", "jacoco-maven-plugin", "prepare-agent", "MojoSucceeded", "MojoFailed");
 
         if (jacocoPrepareAgentEvents.isEmpty()) {
             LOGGER.log(Level.FINE, "No org.jacoco:jacoco-maven-plugin:prepare-agent execution found");
             return;
-        } else if (jacocoPrepareAgentEvents.size() > 1) { // JENKINS-54139
+        } else if (jacocoPrepareAgentEvents.size() > 1 && !aggregateModules) { // JENKINS-54139
             if (LOGGER.isLoggable(Level.FINE))
             listener.getLogger().print("[withMaven - Jacoco] More than 1 Maven module (" + jacocoPrepareAgentEvents.size() + ") generated a Jacoco code coverage report, " +
-                    "skip automatic collect of Jacoco reports as the Jenkins Jacoco report is not designed to render multiple reports per build");
+                    "skip automatic collect of Jacoco reports as the Jenkins Jacoco report is not designed to render multiple reports per build. " +
+                    "Enable the aggregation of the Maven modules to publish a merged report");
             return;
         }
         try {
@@ -144,56 +163,31 @@ public class JacocoReportPublisher extends MavenPublisher {
         }
 
 
-        for (Element jacocoPrepareAgentEvent : jacocoPrepareAgentEvents) {
+        if (aggregateModules) {
+            aggregateAndPublish(jacocoPrepareAgentEvents, run, workspace, listener);
+            return;
+        }
+
+        for (MavenSpyLogModel.ExecutionEvent jacocoPrepareAgentEvent : jacocoPrepareAgentEvents) {
 
-            Element buildElement = XmlUtils.getUniqueChildElementOrNull(jacocoPrepareAgentEvent, "project", "build");
-            if (buildElement == null) {
+            MavenSpyLogModel.Project project = jacocoPrepareAgentEvent.getProject();
+            if (project == null || !project.hasBuild()) {
                 if (LOGGER.isLoggable(Level.FINE))
-                    LOGGER.log(Level.FINE, "Ignore execution event with missing 'build' child:" + XmlUtils.toString(jacocoPrepareAgentEvent));
+                    LOGGER.log(Level.FINE, "Ignore execution event with missing 'build' child:" + jacocoPrepareAgentEvent);
                 continue;
             }
 
-            Element pluginElt = XmlUtils.getUniqueChildElement(jacocoPrepareAgentEvent, "plugin");
-            Element destFileElt = XmlUtils.getUniqueChildElementOrNull(pluginElt, "destFile");
-            Element projectElt = XmlUtils.getUniqueChildElement(jacocoPrepareAgentEvent, "project");
-            MavenArtifact mavenArtifact = XmlUtils.newMavenArtifact(projectElt);
-            MavenSpyLogProcessor.PluginInvocation pluginInvocation = XmlUtils.newPluginInvocation(pluginElt);
+            MavenSpyLogModel.PluginExecution plugin = jacocoPrepareAgentEvent.getPlugin();
+            MavenArtifact mavenArtifact = project.newMavenArtifact();
+            MavenSpyLogProcessor.PluginInvocation pluginInvocation = plugin.newPluginInvocation();
 
-            if (destFileElt == null) {
-                listener.getLogger().println("[withMaven] No <destFile> element found for <plugin> in " + XmlUtils.toString(jacocoPrepareAgentEvent));
+            String destFile = getDestFile(jacocoPrepareAgentEvent, workspace, listener);
+            if (destFile == null) {
                 continue;
             }
-            String destFile = destFileElt.getTextContent().trim();
-            if (destFile.equals("${jacoco.destFile}")) {
-                destFile = "${project.build.directory}/jacoco.exec";
-                String projectBuildDirectory = XmlUtils.getProjectBuildDirectory(projectElt);
-                if (projectBuildDirectory == null || projectBuildDirectory.isEmpty()) {
-                    listener.getLogger().println("[withMaven] '${project.build.directory}' found for <project> in " + XmlUtils.toString(jacocoPrepareAgentEvent));
-                    continue;
-                }
-
-                destFile = destFile.replace("${project.build.directory}", projectBuildDirectory);
-            } else if (destFile.contains("${project.build.directory}")) {
-                String projectBuildDirectory = XmlUtils.getProjectBuildDirectory(projectElt);
-                if (projectBuildDirectory == null || projectBuildDirectory.isEmpty()) {
-                    listener.getLogger().println("[withMaven] '${project.build.directory}' found for <project> in " + XmlUtils.toString(jacocoPrepareAgentEvent));
-                    continue;
-                }
-                destFile = destFile.replace("${project.build.directory}", projectBuildDirectory);
-
-            } else if (destFile.contains("${basedir}")) {
-                String baseDir = projectElt.getAttribute("baseDir");
-                if (baseDir.isEmpty()) {
-                    listener.getLogger().println("[withMaven] '${basedir}' found for <project> in " + XmlUtils.toString(jacocoPrepareAgentEvent));
-                    continue;
-                }
-                destFile = destFile.replace("${basedir}", baseDir);
-            }
-
-            destFile = XmlUtils.getPathInWorkspace(destFile, workspace);
 
-            String sourceDirectory = buildElement.getAttribute("sourceDirectory");
-            String classesDirectory = buildElement.getAttribute("directory") + "/classes";
+            String sourceDirectory = project.getBuildSourceDirectory();
+            String classesDirectory = project.getBuildDirectory() + "/classes";
 
             String sourceDirectoryRelativePath = XmlUtils.getPathInWorkspace(sourceDirectory, workspace);
             String classesDirectoryRelativePath = XmlUtils.getPathInWorkspace(classesDirectory, workspace);
@@ -211,11 +205,173 @@ public class JacocoReportPublisher extends MavenPublisher {
             } catch (Exception e) {
                 listener.error("[withMaven] jacocoPublisher - Silently ignore exception archiving JaCoCo results for Maven artifact " + mavenArtifact.toString() + " generated by " +
                         pluginInvocation + ": " + e);
-                LOGGER.log(Level.WARNING, "Exception processing " + XmlUtils.toString(jacocoPrepareAgentEvent), e);
+                LOGGER.log(Level.WARNING, "Exception processing " + jacocoPrepareAgentEvent, e);
+            }
+
+        }
+
+    }
+
+    /**
+     * Merge the execution data of all the modules and compute the coverage summary on the build agent, see
+     * {@link JacocoExecutionDataAggregator}, then publish a single {@link JacocoBuildAction} with the merged
+     * execution data. The class and source directories are not archived: the aggregated report only renders the
+     * coverage summary and the trend, it doesn't support the drill-down into the packages, the classes and the sources.
+     * The health report thresholds are the ones of the {@link JacocoPublisher} used for the non aggregated reports.
+     */
+    private void aggregateAndPublish(@Nonnull List<MavenSpyLogModel.ExecutionEvent> jacocoPrepareAgentEvents, @Nonnull Run run,
+                                     @Nonnull FilePath workspace, @Nonnull TaskListener listener) throws IOException, InterruptedException {
+        List<JacocoExecutionDataAggregator.Module> modules = new ArrayList<>();
+        for (MavenSpyLogModel.ExecutionEvent jacocoPrepareAgentEvent : jacocoPrepareAgentEvents) {
+            MavenSpyLogModel.Project project = jacocoPrepareAgentEvent.getProject();
+            if (project == null || !project.hasBuild()) {
+                if (LOGGER.isLoggable(Level.FINE))
+                    LOGGER.log(Level.FINE, "Ignore execution event with missing 'build' child:" + jacocoPrepareAgentEvent);
+                continue;
+            }
+            String destFile = getDestFile(jacocoPrepareAgentEvent, workspace, listener);
+            if (destFile == null) {
+                continue;
+            }
+            String classesDirectory = XmlUtils.getPathInWorkspace(project.getBuildDirectory() + "/classes", workspace);
+            modules.add(new JacocoExecutionDataAggregator.Module(project.newMavenArtifact().getId(), destFile, classesDirectory));
+        }
+        if (modules.isEmpty()) {
+            return;
+        }
+
+        synchronized (run) {
+            if (run.getAction(JacocoBuildAction.class) != null) {
+                listener.getLogger().println("[withMaven] jacocoPublisher - JaCoCo code coverage already published for this build, " +
+                        "skip the aggregation of the JaCoCo results of " + modules.size() + " Maven module(s)");
+                return;
+            }
+        }
+
+        long nanosBefore = System.nanoTime();
+        JacocoExecutionDataAggregator.Result result;
+        try {
+            result = workspace.act(new JacocoExecutionDataAggregator(modules));
+        } catch (IOException | RuntimeException e) {
+            listener.error("[withMaven] jacocoPublisher - Silently ignore exception aggregating the JaCoCo results of " + modules.size() + " Maven module(s): " + e);
+            LOGGER.log(Level.WARNING, "Exception aggregating JaCoCo results of " + modules.size() + " Maven modules", e);
+            return;
+        }
+        byte[] executionData = result.getExecutionData();
+        if (executionData == null) {
+            listener.getLogger().println("[withMaven] jacocoPublisher - No JaCoCo execution data found for the " + modules.size() + " Maven module(s), skip");
+            return;
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            for (Map.Entry<String, JacocoExecutionDataAggregator.Summary> module : result.getModules().entrySet()) {
+                LOGGER.log(Level.FINE, "JaCoCo code coverage of " + module.getKey() + ": " + module.getValue());
+            }
+        }
+        listener.getLogger().println("[withMaven] jacocoPublisher - Archive JaCoCo analysis results of " + result.getModules().size() + " Maven module(s) merged from " +
+                result.getExecFilesCount() + " execFile(s) on the build agent in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - nanosBefore) + "ms: " + result.getTotal());
+
+        // same layout as hudson.plugins.jacoco.JacocoReportDir#addExecFiles()
+        JacocoReportDir reportDir = new JacocoReportDir(run.getRootDir());
+        FilePath execFile = new FilePath(reportDir.getExecFilesDir()).child("exec0").child("jacoco.exec");
+        execFile.getParent().mkdirs();
+        try (OutputStream out = execFile.write()) {
+            out.write(executionData);
+        }
+
+        Map<CoverageElement.Type, Coverage> ratios = new EnumMap<>(CoverageElement.Type.class);
+        for (JacocoExecutionDataAggregator.Counter counter : JacocoExecutionDataAggregator.Counter.values()) {
+            ratios.put(CoverageElement.Type.valueOf(counter.name()),
+                    new Coverage(result.getTotal().getMissed(counter), result.getTotal().getCovered(counter)));
+        }
+        JacocoHealthReportThresholds thresholds;
+        try {
+            thresholds = getHealthReportThresholds(new JacocoPublisher(), run, listener);
+        } catch (NumberFormatException e) {
+            listener.error("[withMaven] jacocoPublisher - Silently ignore invalid JaCoCo health report thresholds: " + e);
+            return;
+        }
+        // no drill-down, the classes and the sources are not archived in the JacocoReportDir
+        JacocoBuildAction action = new JacocoBuildAction(ratios, thresholds, listener, new String[0], new String[0]);
+        synchronized (run) {
+            run.addAction(action);
+        }
+    }
+
+    /**
+     * Same thresholds as the ones computed by {@link JacocoPublisher#perform(Run, FilePath, Launcher, TaskListener)},
+     * the environment variables are expanded.
+     *
+     * @throws NumberFormatException if a threshold is not an integer
+     */
+    @Nonnull
+    private JacocoHealthReportThresholds getHealthReportThresholds(@Nonnull JacocoPublisher jacocoPublisher, @Nonnull Run run,
+                                                                   @Nonnull TaskListener listener) throws IOException, InterruptedException {
+        EnvVars env = run.getEnvironment(listener);
+        return new JacocoHealthReportThresholds(
+                Integer.parseInt(env.expand(jacocoPublisher.getMinimumClassCoverage())),
+                Integer.parseInt(env.expand(jacocoPublisher.getMaximumClassCoverage())),
+                Integer.parseInt(env.expand(jacocoPublisher.getMinimumMethodCoverage())),
+                Integer.parseInt(env.expand(jacocoPublisher.getMaximumMethodCoverage())),
+                Integer.parseInt(env.expand(jacocoPublisher.getMinimumLineCoverage())),
+                Integer.parseInt(env.expand(jacocoPublisher.getMaximumLineCoverage())),
+                Integer.parseInt(env.expand(jacocoPublisher.getMinimumBranchCoverage())),
+                Integer.parseInt(env.expand(jacocoPublisher.getMaximumBranchCoverage())),
+                Integer.parseInt(env.expand(jacocoPublisher.getMinimumInstructionCoverage())),
+                Integer.parseInt(env.expand(jacocoPublisher.getMaximumInstructionCoverage())),
+                Integer.parseInt(env.expand(jacocoPublisher.getMinimumComplexityCoverage())),
+                Integer.parseInt(env.expand(jacocoPublisher.getMaximumComplexityCoverage())));
+    }
+
+    /**
+     * @return the execution data file of the given {@code org.jacoco:jacoco-maven-plugin:prepare-agent} execution,
+     * relative to the workspace, {@code null} if it can not be resolved
+     */
+    @CheckForNull
+    private String getDestFile(@Nonnull MavenSpyLogModel.ExecutionEvent jacocoPrepareAgentEvent, @Nonnull FilePath workspace, @Nonnull TaskListener listener) {
+        MavenSpyLogModel.Project project = jacocoPrepareAgentEvent.getProject();
+        String destFileParameter = jacocoPrepareAgentEvent.getPlugin().getParameter("destFile");
+
+        if (destFileParameter == null) {
+            listener.getLogger().println("[withMaven] No <destFile> element found for <plugin> in " + jacocoPrepareAgentEvent);
+            return null;
+        }
+        String destFile = destFileParameter.trim();
+        if (destFile.equals("${jacoco.destFile}")) {
+            destFile = "${project.build.directory}/jacoco.exec";
+            String projectBuildDirectory = project.getBuildDirectory();
+            if (projectBuildDirectory == null || projectBuildDirectory.isEmpty()) {
+                listener.getLogger().println("[withMaven] '${project.build.directory}' found for <project> in " + jacocoPrepareAgentEvent);
+                return null;
             }
 
+            destFile = destFile.replace("${project.build.directory}", projectBuildDirectory);
+        } else if (destFile.contains("${project.build.directory}")) {
+            String projectBuildDirectory = project.getBuildDirectory();
+            if (projectBuildDirectory == null || projectBuildDirectory.isEmpty()) {
+                listener.getLogger().println("[withMaven] '${project.build.directory}' found for <project> in " + jacocoPrepareAgentEvent);
+                return null;
+            }
+            destFile = destFile.replace("${project.build.directory}", projectBuildDirectory);
+
+        } else if (destFile.contains("${basedir}")) {
+            String baseDir = project.getBaseDir();
+            if (baseDir.isEmpty()) {
+                listener.getLogger().println("[withMaven] '${basedir}' found for <project> in " + jacocoPrepareAgentEvent);
+                return null;
+            }
+            destFile = destFile.replace("${basedir}", baseDir);
         }
 
+        return XmlUtils.getPathInWorkspace(destFile, workspace);
+    }
+
+    public boolean isAggregateModules() {
+        return aggregateModules;
+    }
+
+    @DataBoundSetter
+    public void setAggregateModules(boolean aggregateModules) {
+        this.aggregateModules = aggregateModules;
     }
 
     @Symbol("jacocoPublisher")
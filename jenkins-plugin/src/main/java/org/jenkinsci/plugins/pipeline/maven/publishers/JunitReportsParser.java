@@ -0,0 +1,227 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.publishers;
+
+import hudson.AbortException;
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import hudson.tasks.junit.TestResult;
+import hudson.tasks.test.PipelineTestDetails;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Characters;
+import javax.xml.stream.events.XMLEvent;
+
+/**
+ * Parse JUnit XML reports on the build agent, the reports are parsed in parallel and the {@link TestResult} is sent
+ * back to the controller.
+ * <p>
+ * If a max length is defined, the {@code <system-out>} and {@code <system-err>} elements are truncated on the build
+ * agent with a streaming parser before the reports are parsed.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ * @see hudson.tasks.junit.JUnitParser
+ */
+class JunitReportsParser extends MasterToSlaveFileCallable<TestResult> {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Max number of reports parsed in parallel on the build agent, system property of the build agent
+     */
+    private static final int MAX_THREADS = Integer.getInteger(JunitReportsParser.class.getName() + ".MAX_THREADS", 4);
+
+    private final String testResults;
+    private final long buildTime;
+    private final long nowMaster;
+    private final boolean keepLongStdio;
+    /**
+     * max number of characters of the standard output and error, {@code 0} for no limit
+     */
+    private final int maxStdioLength;
+    @CheckForNull
+    private final PipelineTestDetails pipelineTestDetails;
+
+    /**
+     * @param testResults         comma separated patterns of the reports, relative to the workspace
+     * @param buildTime           start time of the build, older reports are ignored
+     * @param keepLongStdio       see {@link hudson.tasks.junit.JUnitResultArchiver#setKeepLongStdio(boolean)}
+     * @param maxStdioLength      max number of characters of the standard output and error, {@code 0} for no limit
+     * @param pipelineTestDetails
+     */
+    JunitReportsParser(@Nonnull String testResults, long buildTime, boolean keepLongStdio, int maxStdioLength, @Nullable PipelineTestDetails pipelineTestDetails) {
+        this.testResults = testResults;
+        this.buildTime = buildTime;
+        this.nowMaster = System.currentTimeMillis();
+        this.keepLongStdio = keepLongStdio;
+        this.maxStdioLength = maxStdioLength;
+        this.pipelineTestDetails = pipelineTestDetails;
+    }
+
+    @Override
+    public TestResult invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+        // compensate the clock difference between the controller and the agent, see hudson.tasks.junit.JUnitParser
+        long localBuildTime = buildTime + (System.currentTimeMillis() - nowMaster);
+
+        List<File> reports = new ArrayList<>();
+        String[] includedFiles = Util.createFileSet(workspace, testResults).getDirectoryScanner().getIncludedFiles();
+        for (String includedFile : includedFiles) {
+            File report = new File(workspace, includedFile);
+            // only count files that were actually updated during this build, 3s error margin
+            if (localBuildTime - 3000 <= report.lastModified() && report.length() > 0) {
+                reports.add(report);
+            }
+        }
+        if (includedFiles.length > 0 && reports.isEmpty()) {
+            throw new AbortException("Test reports were found but none of them are new: " + testResults);
+        }
+
+        TestResult result = new TestResult(keepLongStdio);
+        if (!reports.isEmpty()) {
+            ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, Math.min(MAX_THREADS, reports.size())),
+                    new NamingThreadFactory(new DaemonThreadFactory(), JunitReportsParser.class.getName()));
+            try {
+                List<Future<TestResult>> futures = new ArrayList<>(reports.size());
+                for (File report : reports) {
+                    futures.add(executorService.submit(() -> parse(report)));
+                }
+                // merge in the order of the reports for a reproducible result
+                for (Future<TestResult> future : futures) {
+                    try {
+                        result.merge(future.get());
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        if (cause instanceof IOException) {
+                            throw (IOException) cause;
+                        }
+                        throw new IOException(cause);
+                    }
+                }
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+        result.tally();
+        return result;
+    }
+
+    @Nonnull
+    private TestResult parse(@Nonnull File report) throws IOException, XMLStreamException {
+        TestResult result = new TestResult(keepLongStdio);
+        // the length in characters of the stdio can't exceed the size of the report
+        if (maxStdioLength <= 0 || report.length() <= maxStdioLength) {
+            result.parse(report, pipelineTestDetails);
+            return result;
+        }
+        File truncatedReport = File.createTempFile(report.getName(), ".xml");
+        try {
+            try (InputStream in = new FileInputStream(report); OutputStream out = new FileOutputStream(truncatedReport)) {
+                truncateStdio(in, out, maxStdioLength);
+            }
+            result.parse(truncatedReport, pipelineTestDetails);
+            return result;
+        } finally {
+            truncatedReport.delete();
+        }
+    }
+
+    /**
+     * Copy the report truncating the text of the {@code <system-out>} and {@code <system-err>} elements
+     */
+    static void truncateStdio(@Nonnull InputStream in, @Nonnull OutputStream out, int maxStdioLength) throws XMLStreamException {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLEventFactory xmlEventFactory = XMLEventFactory.newInstance();
+
+        XMLEventReader reader = xmlInputFactory.createXMLEventReader(in);
+        XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(out, "UTF-8");
+        try {
+            boolean inStdio = false;
+            long length = 0;
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartDocument()) {
+                    // the copy is encoded in UTF-8 whatever the encoding of the report
+                    writer.add(xmlEventFactory.createStartDocument("UTF-8", "1.0"));
+                } else if (event.isStartElement() && isStdio(event.asStartElement().getName())) {
+                    inStdio = true;
+                    length = 0;
+                    writer.add(event);
+                } else if (event.isEndElement() && isStdio(event.asEndElement().getName())) {
+                    if (length > maxStdioLength) {
+                        writer.add(xmlEventFactory.createCharacters("\n...[truncated " + (length - maxStdioLength) + " chars]...\n"));
+                    }
+                    inStdio = false;
+                    writer.add(event);
+                } else if (inStdio && event.isCharacters()) {
+                    Characters characters = event.asCharacters();
+                    String data = characters.getData();
+                    if (length + data.length() <= maxStdioLength) {
+                        writer.add(event);
+                    } else if (length < maxStdioLength) {
+                        String head = data.substring(0, (int) (maxStdioLength - length));
+                        writer.add(characters.isCData() ? xmlEventFactory.createCData(head) : xmlEventFactory.createCharacters(head));
+                    }
+                    length += data.length();
+                } else {
+                    writer.add(event);
+                }
+            }
+            writer.flush();
+        } finally {
+            writer.close();
+            reader.close();
+        }
+    }
+
+    private static boolean isStdio(@Nonnull QName name) {
+        return "system-out".equals(name.getLocalPart()) || "system-err".equals(name.getLocalPart());
+    }
+}
@@ -33,12 +33,15 @@ import hudson.model.StreamBuildListener;
 import hudson.model.TaskListener;
 import hudson.tasks.junit.JUnitResultArchiver;
 import hudson.tasks.junit.TestDataPublisher;
+import hudson.tasks.junit.TestResult;
 import hudson.tasks.junit.TestResultAction;
 import hudson.tasks.junit.TestResultSummary;
 import hudson.tasks.junit.pipeline.JUnitResultsStepExecution;
 import hudson.tasks.test.PipelineTestDetails;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
+import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogModel;
+import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogParser;
 import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogProcessor;
 import org.jenkinsci.plugins.pipeline.maven.MavenPublisher;
 import org.jenkinsci.plugins.pipeline.maven.util.XmlUtils;
@@ -51,15 +54,24 @@ import org.w3c.dom.Element;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamException;
 
 /**
  * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
@@ -90,11 +102,89 @@ public class JunitTestsPublisher extends MavenPublisher {
 
     private boolean ignoreAttachments;
 
+    /**
+     * Parse the test reports on the build agent in parallel, see {@link JunitReportsParser}
+     */
+    private boolean parseReportsOnAgent;
+
+    /**
+     * Max number of characters of the standard output and error of the tests when the reports are parsed on the
+     * build agent, {@code null} or {@code 0} for no limit
+     */
+    @CheckForNull
+    private Integer maxStdioLength;
+
+    /**
+     * Keys of the test executions already archived while Maven was still running, see {@link #processEvent(StepContext, Element)}
+     */
+    private transient Set<String> archivedTestEvents;
+
     @DataBoundConstructor
     public JunitTestsPublisher() {
 
     }
 
+    @Nonnull
+    private synchronized Set<String> getArchivedTestEvents() {
+        if (archivedTestEvents == null) {
+            archivedTestEvents = ConcurrentHashMap.newKeySet();
+        }
+        return archivedTestEvents;
+    }
+
+    /**
+     * Archive the test results of a surefire or failsafe execution as soon as the execution is completed.
+     */
+    @Override
+    public void processEvent(@Nonnull StepContext context, @Nonnull Element eventElt) throws IOException, InterruptedException {
+        if (!"ExecutionEvent".equals(eventElt.getTagName())) {
+            return;
+        }
+        String type = eventElt.getAttribute("type");
+        if (!"MojoSucceeded".equals(type) && !"MojoFailed".equals(type)) {
+            return;
+        }
+        Element pluginElt = XmlUtils.getUniqueChildElementOrNull(eventElt, "plugin");
+        if (pluginElt == null || !GROUP_ID.equals(pluginElt.getAttribute("groupId"))) {
+            return;
+        }
+        boolean surefire = SUREFIRE_ID.equals(pluginElt.getAttribute("artifactId")) && SUREFIRE_GOAL.equals(pluginElt.getAttribute("goal"));
+        boolean failsafe = FAILSAFE_ID.equals(pluginElt.getAttribute("artifactId")) && FAILSAFE_GOAL.equals(pluginElt.getAttribute("goal"));
+        if (!surefire && !failsafe) {
+            return;
+        }
+        try {
+            Class.forName("hudson.tasks.junit.JUnitResultArchiver");
+        } catch (ClassNotFoundException e) {
+            return;
+        }
+
+        TaskListener listener = context.get(TaskListener.class);
+        if (listener == null) {
+            LOGGER.warning("TaskListener is NULL, default to stderr");
+            listener = new StreamBuildListener((OutputStream) System.err);
+        }
+        MavenSpyLogModel.ExecutionEvent executionEvent;
+        try {
+            executionEvent = MavenSpyLogParser.parseExecutionEvent(eventElt);
+        } catch (XMLStreamException e) {
+            throw new IOException("Exception parsing " + XmlUtils.toString(eventElt), e);
+        }
+        executeReporter(context, listener, Collections.singletonList(executionEvent));
+    }
+
+    /**
+     * Identify an execution event in the streamed report as well as in the report file
+     */
+    @Nonnull
+    private static String getTestEventKey(@Nonnull MavenSpyLogModel.ExecutionEvent testEvent) {
+        MavenSpyLogModel.PluginExecution plugin = testEvent.getPlugin();
+        MavenSpyLogModel.Project project = testEvent.getProject();
+        return testEvent.getType() + " " + testEvent.getTime() + " " +
+                project.getGroupId() + ":" + project.getArtifactId() + " " +
+                plugin.getArtifactId() + ":" + plugin.getGoal() + "@" + plugin.getExecutionId();
+    }
+
     /*
 <ExecutionEvent type="MojoStarted" class="org.apache.maven.lifecycle.internal.DefaultExecutionEvent" _time="2017-02-03 10:15:12.554">
     <project baseDir="/Users/cleclerc/git/jenkins/pipeline-maven-plugin/maven-spy" file="/Users/cleclerc/git/jenkins/pipeline-maven-plugin/maven-spy/pom.xml" groupId="org.jenkins-ci.plugins" name="Maven Spy for the Pipeline Maven Integration Plugin" artifactId="pipeline-maven-spy" version="2.0-SNAPSHOT">
@@ -178,7 +268,7 @@ public class JunitTestsPublisher extends MavenPublisher {
   </ExecutionEvent>
      */
     @Override
-    public void process(@Nonnull StepContext context, @Nonnull Element mavenSpyLogsElt) throws IOException, InterruptedException {
+    public void process(@Nonnull StepContext context, @Nonnull MavenSpyLogModel mavenSpyLogModel) throws IOException, InterruptedException {
 
         TaskListener listener = context.get(TaskListener.class);
         if (listener == null) {
@@ -196,59 +286,69 @@ public class JunitTestsPublisher extends MavenPublisher {
             return;
         }
 
-        List<Element> sureFireTestEvents = XmlUtils.getExecutionEventsByPlugin(mavenSpyLogsElt, GROUP_ID, SUREFIRE_ID, SUREFIRE_GOAL, "MojoSucceeded", "MojoFailed");
-        List<Element> failSafeTestEvents = XmlUtils.getExecutionEventsByPlugin(mavenSpyLogsElt, GROUP_ID, FAILSAFE_ID, FAILSAFE_GOAL, "MojoSucceeded", "MojoFailed");
+        List<MavenSpyLogModel.ExecutionEvent> sureFireTestEvents = mavenSpyLogModel.getExecutionEventsByPlugin(GROUP_ID, SUREFIRE_ID, SUREFIRE_GOAL, "MojoSucceeded", "MojoFailed");
+        List<MavenSpyLogModel.ExecutionEvent> failSafeTestEvents = mavenSpyLogModel.getExecutionEventsByPlugin(GROUP_ID, FAILSAFE_ID, FAILSAFE_GOAL, "MojoSucceeded", "MojoFailed");
+
+        if (sureFireTestEvents.isEmpty() && LOGGER.isLoggable(Level.FINE)) {
+            listener.getLogger().println("[withMaven] junitPublisher - No " + GROUP_ID + ":" + SUREFIRE_ID + ":" + SUREFIRE_GOAL + " execution found");
+        }
+        if (failSafeTestEvents.isEmpty() && LOGGER.isLoggable(Level.FINE)) {
+            listener.getLogger().println("[withMaven] junitPublisher - No " + GROUP_ID + ":" + FAILSAFE_ID + ":" + FAILSAFE_GOAL + " execution found");
+        }
 
-        executeReporter(context, listener, sureFireTestEvents, SUREFIRE_ID + ":" + SUREFIRE_GOAL);
-        executeReporter(context, listener, failSafeTestEvents, FAILSAFE_ID + ":" + FAILSAFE_GOAL);
+        List<MavenSpyLogModel.ExecutionEvent> testEvents = new ArrayList<>(sureFireTestEvents.size() + failSafeTestEvents.size());
+        testEvents.addAll(sureFireTestEvents);
+        testEvents.addAll(failSafeTestEvents);
+        executeReporter(context, listener, testEvents);
     }
 
-    private void executeReporter(StepContext context, TaskListener listener, List<Element> testEvents, String goal) throws IOException, InterruptedException {
+    /**
+     * Archive the test results of all the given surefire and failsafe executions in a single pass: one glob of the
+     * reports directories, one parsing and one update of the {@link TestResultAction}. If the single pass fails, the
+     * test results are archived execution by execution to isolate the faulty report.
+     */
+    private void executeReporter(StepContext context, TaskListener listener, List<MavenSpyLogModel.ExecutionEvent> testEvents) throws IOException, InterruptedException {
         FilePath workspace = context.get(FilePath.class);
         final String fileSeparatorOnAgent = XmlUtils.getFileSeparatorOnRemote(workspace);
 
         Run run = context.get(Run.class);
         Launcher launcher = context.get(Launcher.class);
 
-        if (testEvents.isEmpty()) {
-            if (LOGGER.isLoggable(Level.FINE)) {
-                listener.getLogger().println("[withMaven] junitPublisher - No " + GROUP_ID + ":" + goal + " execution found");
+        // testResults pattern -> key of the test event, the same reports directory may be used by several executions
+        Map<String, String> testResultsByEventKey = new LinkedHashMap<>();
+        for (MavenSpyLogModel.ExecutionEvent testEvent : testEvents) {
+            String testEventKey = getTestEventKey(testEvent);
+            if (getArchivedTestEvents().contains(testEventKey)) {
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    listener.getLogger().println("[withMaven] junitPublisher - Test results of " + testEventKey + " already archived");
+                }
+                continue;
             }
-            return;
-        }
+            MavenSpyLogModel.PluginExecution plugin = testEvent.getPlugin();
+            String reportsDirectoryParameter = plugin.getParameter("reportsDirectory");
+            MavenSpyLogModel.Project project = testEvent.getProject();
+            MavenArtifact mavenArtifact = project.newMavenArtifact();
 
-        /*
-        See commented code below: JUnitResultArchiver.parseAndAttach(...)
-        FlowNode node = context.get(FlowNode.class);
-        String nodeId = node.getId();
-        */
-
-        for (Element testEvent : testEvents) {
-            Element pluginElt = XmlUtils.getUniqueChildElement(testEvent, "plugin");
-            Element reportsDirectoryElt = XmlUtils.getUniqueChildElementOrNull(pluginElt, "reportsDirectory");
-            Element projectElt = XmlUtils.getUniqueChildElement(testEvent, "project");
-            MavenArtifact mavenArtifact = XmlUtils.newMavenArtifact(projectElt);
+            MavenSpyLogProcessor.PluginInvocation pluginInvocation = plugin.newPluginInvocation();
 
-            MavenSpyLogProcessor.PluginInvocation pluginInvocation = XmlUtils.newPluginInvocation(pluginElt);
-
-            if (reportsDirectoryElt == null) {
-                listener.getLogger().println("[withMaven] No <reportsDirectory> element found for <plugin> in " + XmlUtils.toString(testEvent));
+            if (reportsDirectoryParameter == null) {
+                listener.getLogger().println("[withMaven] No <reportsDirectory> element found for <plugin> in " + testEvent);
                 continue;
             }
-            String reportsDirectory = reportsDirectoryElt.getTextContent().trim();
+            String reportsDirectory = reportsDirectoryParameter.trim();
             if (reportsDirectory.contains("${project.build.directory}")) {
-                String projectBuildDirectory = XmlUtils.getProjectBuildDirectory(projectElt);
+                String projectBuildDirectory = project.getBuildDirectory();
                 if (projectBuildDirectory == null || projectBuildDirectory.isEmpty()) {
-                    listener.getLogger().println("[withMaven] '${project.build.directory}' found for <project> in " + XmlUtils.toString(testEvent));
+                    listener.getLogger().println("[withMaven] '${project.build.directory}' found for <project> in " + testEvent);
                     continue;
                 }
 
                 reportsDirectory = reportsDirectory.replace("${project.build.directory}", projectBuildDirectory);
 
             } else if (reportsDirectory.contains("${basedir}")) {
-                String baseDir = projectElt.getAttribute("baseDir");
+                String baseDir = project.getBaseDir();
                 if (baseDir.isEmpty()) {
-                    listener.getLogger().println("[withMaven] '${basedir}' found for <project> in " + XmlUtils.toString(testEvent));
+                    listener.getLogger().println("[withMaven] '${basedir}' found for <project> in " + testEvent);
                     continue;
                 }
 
@@ -260,74 +360,219 @@ public class JunitTestsPublisher extends MavenPublisher {
             String testResults = reportsDirectory + fileSeparatorOnAgent + "*.xml";
             listener.getLogger().println("[withMaven] junitPublisher - Archive test results for Maven artifact " + mavenArtifact.getId() + " generated by " +
                 pluginInvocation.getId() + ": " + testResults);
-            JUnitResultArchiver archiver = new JUnitResultArchiver(testResults);
+            testResultsByEventKey.put(testEventKey, testResults);
+        }
 
-            if (healthScaleFactor != null) {
-                archiver.setHealthScaleFactor(this.healthScaleFactor);
-            }
-            archiver.setKeepLongStdio(this.keepLongStdio);
+        if (testResultsByEventKey.isEmpty()) {
+            return;
+        }
 
-            // even if "org.apache.maven.plugins:maven-surefire-plugin@test" succeeds, it maybe with "-DskipTests" and thus not have any test results.
-            archiver.setAllowEmptyResults(true);
+        getArchivedTestEvents().addAll(archiveTestResults(testResultsByEventKey,
+                testResults -> parseAndAttach(context, listener, run, workspace, launcher, testResults),
+                () -> getArchivedTestsCount(run), listener));
+    }
 
+    /**
+     * Archive the test results in a single pass and, if it fails, reports directory by reports directory. The test
+     * results merged in the {@link TestResultAction} before a failure are not archived again.
+     *
+     * @param testResultsByEventKey key of the test event -> pattern of the test reports
+     * @param archiver             archive the test results of comma separated patterns
+     * @param archivedTestsCount   number of tests archived by the build, {@code null} if none
+     * @return the keys of the test events whose test results are archived
+     */
+    @Nonnull
+    static Set<String> archiveTestResults(@Nonnull Map<String, String> testResultsByEventKey, @Nonnull TestResultsArchiver archiver,
+                                          @Nonnull Supplier<Integer> archivedTestsCount, @Nonnull TaskListener listener) {
+        // the same reports directory may be used by several executions, it is archived once
+        Map<String, List<String>> eventKeysByTestResults = new LinkedHashMap<>();
+        for (Map.Entry<String, String> testResultsOfEvent : testResultsByEventKey.entrySet()) {
+            eventKeysByTestResults.computeIfAbsent(testResultsOfEvent.getValue(), testResults -> new ArrayList<>()).add(testResultsOfEvent.getKey());
+        }
+        Set<String> archivedEventKeys = new LinkedHashSet<>();
 
-            if (Boolean.TRUE.equals(this.ignoreAttachments)) {
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    listener.getLogger().println("[withMaven] junitPublisher - Ignore junit test attachments");
+        Set<String> testResults = eventKeysByTestResults.keySet();
+        if (testResults.size() > 1 && LOGGER.isLoggable(Level.FINE)) {
+            listener.getLogger().println("[withMaven] junitPublisher - Archive the test results of " + testResults.size() + " reports directories in a single pass");
+        }
+        Integer testsCountBefore = archivedTestsCount.get();
+        try {
+            archiver.archive(String.join(",", testResults));
+            archivedEventKeys.addAll(testResultsByEventKey.keySet());
+            return archivedEventKeys;
+        } catch (Exception e) {
+            boolean merged = !Objects.equals(testsCountBefore, archivedTestsCount.get());
+            if (testResults.size() == 1 || merged) {
+                listener.error("[withMaven] junitPublisher - Silently ignore exception archiving JUnit results " + testResults + ": " + e);
+                LOGGER.log(Level.WARNING, "Exception archiving " + testResults, e);
+                if (merged) {
+                    // archiving the test results again would duplicate them
+                    archivedEventKeys.addAll(testResultsByEventKey.keySet());
                 }
-            } else {
-                String className = "hudson.plugins.junitattachments.AttachmentPublisher";
-                try {
-                    TestDataPublisher attachmentPublisher =  (TestDataPublisher) Class.forName(className).newInstance();
-                    if (LOGGER.isLoggable(Level.FINE)) {
-                        listener.getLogger().println("[withMaven] junitPublisher - Publish junit test attachments...");
-                    }
-                    archiver.setTestDataPublishers(Collections.singletonList(attachmentPublisher));
-                } catch(ClassNotFoundException e){
-                    listener.getLogger().print("[withMaven] junitPublisher - Jenkins ");
-                    listener.hyperlink("https://wiki.jenkins-ci.org/display/JENKINS/JUnit+Attachments+Plugin", "JUnit Attachments Plugin");
-                    listener.getLogger().print(" not found, can't publish test attachments.");
-                } catch (IllegalAccessException|InstantiationException e) {
-                    PrintWriter err = listener.error("[withMaven] junitPublisher - Failure to publish test attachments, exception instantiating '" + className + "'");
-                    e.printStackTrace(err);
+                return archivedEventKeys;
+            }
+            LOGGER.log(Level.FINE, "Exception archiving " + testResults + ", archive the reports directories one by one", e);
+        }
+        for (Map.Entry<String, List<String>> eventKeysOfTestResults : eventKeysByTestResults.entrySet()) {
+            testsCountBefore = archivedTestsCount.get();
+            try {
+                archiver.archive(eventKeysOfTestResults.getKey());
+                archivedEventKeys.addAll(eventKeysOfTestResults.getValue());
+            } catch (Exception e) {
+                listener.error("[withMaven] junitPublisher - Silently ignore exception archiving JUnit results of " + eventKeysOfTestResults.getValue() + ": " + e);
+                LOGGER.log(Level.WARNING, "Exception archiving " + eventKeysOfTestResults.getKey(), e);
+                if (!Objects.equals(testsCountBefore, archivedTestsCount.get())) {
+                    archivedEventKeys.addAll(eventKeysOfTestResults.getValue());
                 }
             }
+        }
+        return archivedEventKeys;
+    }
+
+    /**
+     * @return the number of tests archived by the build, {@code null} if none
+     */
+    @CheckForNull
+    private static Integer getArchivedTestsCount(@Nonnull Run run) {
+        synchronized (run) {
+            TestResultAction action = run.getAction(TestResultAction.class);
+            return action == null ? null : action.getResult().getTotalCount();
+        }
+    }
+
+    /**
+     * Archive test results, see {@link #parseAndAttach(StepContext, TaskListener, Run, FilePath, Launcher, String)}
+     */
+    interface TestResultsArchiver {
+        /**
+         * @param testResults comma separated patterns of the test reports
+         */
+        void archive(@Nonnull String testResults) throws Exception;
+    }
+
+    /**
+     * @param testResults comma separated patterns of the test reports
+     */
+    private void parseAndAttach(StepContext context, TaskListener listener, Run run, FilePath workspace, Launcher launcher, String testResults) throws Exception {
+        JUnitResultArchiver archiver = new JUnitResultArchiver(testResults);
+
+        if (healthScaleFactor != null) {
+            archiver.setHealthScaleFactor(this.healthScaleFactor);
+        }
+        archiver.setKeepLongStdio(this.keepLongStdio);
+
+        // even if "org.apache.maven.plugins:maven-surefire-plugin@test" succeeds, it maybe with "-DskipTests" and thus not have any test results.
+        archiver.setAllowEmptyResults(true);
+
 
+        if (Boolean.TRUE.equals(this.ignoreAttachments)) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                listener.getLogger().println("[withMaven] junitPublisher - Ignore junit test attachments");
+            }
+        } else {
+            String className = "hudson.plugins.junitattachments.AttachmentPublisher";
             try {
-                // see hudson.tasks.junit.pipeline.JUnitResultsStepExecution.run
-                FlowNode node = context.get(FlowNode.class);
-                String nodeId = node.getId();
-                List<FlowNode> enclosingBlocks = JUnitResultsStepExecution.getEnclosingStagesAndParallels(node);
-                PipelineTestDetails pipelineTestDetails = new PipelineTestDetails();
-                pipelineTestDetails.setNodeId(nodeId);
-                pipelineTestDetails.setEnclosingBlocks(JUnitResultsStepExecution.getEnclosingBlockIds(enclosingBlocks));
-                pipelineTestDetails.setEnclosingBlockNames(JUnitResultsStepExecution.getEnclosingBlockNames(enclosingBlocks));
-
-                TestResultAction testResultAction = JUnitResultArchiver.parseAndAttach(archiver, pipelineTestDetails, run, workspace, launcher, listener);
-
-                if (testResultAction == null) {
-                    // no unit test results found
-                    if (LOGGER.isLoggable(Level.FINE)) {
-                        listener.getLogger().println("[withMaven] junitPublisher - no unit test results found, ignore");
-                    }
-                } else if (testResultAction.getResult().getFailCount() == 0) {
-                    // unit tests are all successful
-                    if (LOGGER.isLoggable(Level.FINE)) {
-                        listener.getLogger().println("[withMaven] junitPublisher - unit tests are all successful");
-                    }
-                } else {
-                    if (LOGGER.isLoggable(Level.FINE)) {
-                        listener.getLogger().println("[withMaven] junitPublisher - " + testResultAction.getResult().getFailCount() + " unit test failure(s) found, mark job as unstable");
+                TestDataPublisher attachmentPublisher =  (TestDataPublisher) Class.forName(className).newInstance();
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    listener.getLogger().println("[withMaven] junitPublisher - Publish junit test attachments...");
+                }
+                archiver.setTestDataPublishers(Collections.singletonList(attachmentPublisher));
+            } catch(ClassNotFoundException e){
+                listener.getLogger().print("[withMaven] junitPublisher - Jenkins ");
+                listener.hyperlink("https://wiki.jenkins-ci.org/display/JENKINS/JUnit+Attachments+Plugin", "JUnit Attachments Plugin");
+                listener.getLogger().print(" not found, can't publish test attachments.");
+            } catch (IllegalAccessException|InstantiationException e) {
+                PrintWriter err = listener.error("[withMaven] junitPublisher - Failure to publish test attachments, exception instantiating '" + className + "'");
+                e.printStackTrace(err);
+            }
+        }
+
+        // see hudson.tasks.junit.pipeline.JUnitResultsStepExecution.run
+        FlowNode node = context.get(FlowNode.class);
+        String nodeId = node.getId();
+        List<FlowNode> enclosingBlocks = JUnitResultsStepExecution.getEnclosingStagesAndParallels(node);
+        PipelineTestDetails pipelineTestDetails = new PipelineTestDetails();
+        pipelineTestDetails.setNodeId(nodeId);
+        pipelineTestDetails.setEnclosingBlocks(JUnitResultsStepExecution.getEnclosingBlockIds(enclosingBlocks));
+        pipelineTestDetails.setEnclosingBlockNames(JUnitResultsStepExecution.getEnclosingBlockNames(enclosingBlocks));
+
+        TestResultAction testResultAction;
+        if (parseReportsOnAgent) {
+            testResultAction = parseOnAgentAndAttach(archiver, pipelineTestDetails, run, workspace, launcher, listener);
+        } else {
+            testResultAction = JUnitResultArchiver.parseAndAttach(archiver, pipelineTestDetails, run, workspace, launcher, listener);
+        }
+
+        if (testResultAction == null) {
+            // no unit test results found
+            if (LOGGER.isLoggable(Level.FINE)) {
+                listener.getLogger().println("[withMaven] junitPublisher - no unit test results found, ignore");
+            }
+        } else if (testResultAction.getResult().getFailCount() == 0) {
+            // unit tests are all successful
+            if (LOGGER.isLoggable(Level.FINE)) {
+                listener.getLogger().println("[withMaven] junitPublisher - unit tests are all successful");
+            }
+        } else {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                listener.getLogger().println("[withMaven] junitPublisher - " + testResultAction.getResult().getFailCount() + " unit test failure(s) found, mark job as unstable");
+            }
+            // TODO: Once JENKINS-43995 lands, update this to set the step status instead of the entire build.
+            // context.setResult(Result.UNSTABLE);
+            run.setResult(Result.UNSTABLE);
+        }
+    }
+
+    /**
+     * Same as {@link JUnitResultArchiver#parseAndAttach(hudson.tasks.junit.JUnitTask, PipelineTestDetails, Run, FilePath, Launcher, TaskListener)}
+     * but the reports are parsed in parallel on the build agent, see {@link JunitReportsParser}.
+     *
+     * @return {@code null} if no test result is found
+     */
+    @CheckForNull
+    private TestResultAction parseOnAgentAndAttach(JUnitResultArchiver archiver, PipelineTestDetails pipelineTestDetails, Run run, FilePath workspace, Launcher launcher, TaskListener listener) throws IOException, InterruptedException {
+        long nanosBefore = System.nanoTime();
+        int maxStdioLength = this.maxStdioLength == null ? 0 : this.maxStdioLength;
+        TestResult result = workspace.act(new JunitReportsParser(archiver.getTestResults(), run.getTimeInMillis(), archiver.isKeepLongStdio(), maxStdioLength, pipelineTestDetails));
+        if (LOGGER.isLoggable(Level.FINE)) {
+            listener.getLogger().println("[withMaven] junitPublisher - Parsed " + result.getTotalCount() + " tests on the build agent in " +
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - nanosBefore) + "ms");
+        }
+
+        if (result.getTotalCount() == 0) {
+            return null;
+        }
+
+        synchronized (run) {
+            TestResultAction action = run.getAction(TestResultAction.class);
+            boolean appending;
+            if (action == null) {
+                appending = false;
+                action = new TestResultAction(run, result, listener);
+            } else {
+                appending = true;
+                result.freeze(action);
+                action.mergeResult(result, listener);
+            }
+            action.setHealthScaleFactor(archiver.getHealthScaleFactor());
+
+            List<TestResultAction.Data> data = new ArrayList<>();
+            if (archiver.getTestDataPublishers() != null) {
+                for (TestDataPublisher testDataPublisher : archiver.getTestDataPublishers()) {
+                    TestResultAction.Data d = testDataPublisher.contributeTestResult(run, workspace, launcher, listener, result);
+                    if (d != null) {
+                        data.add(d);
                     }
-                    // TODO: Once JENKINS-43995 lands, update this to set the step status instead of the entire build.
-                    // context.setResult(Result.UNSTABLE);
-                    run.setResult(Result.UNSTABLE);
                 }
-            } catch (Exception e) {
-                listener.error("[withMaven] junitPublisher - Silently ignore exception archiving JUnit results for Maven artifact " + mavenArtifact.toString() + " generated by " + pluginInvocation + ": " + e);
-                LOGGER.log(Level.WARNING, "Exception processing " + XmlUtils.toString(testEvent), e);
             }
+            action.setData(data);
 
+            if (appending) {
+                run.save();
+            } else {
+                run.addAction(action);
+            }
+            return action;
         }
     }
 
@@ -359,13 +604,34 @@ public class JunitTestsPublisher extends MavenPublisher {
         this.healthScaleFactor = healthScaleFactor;
     }
 
+    public boolean isParseReportsOnAgent() {
+        return parseReportsOnAgent;
+    }
+
+    @DataBoundSetter
+    public void setParseReportsOnAgent(boolean parseReportsOnAgent) {
+        this.parseReportsOnAgent = parseReportsOnAgent;
+    }
+
+    @CheckForNull
+    public Integer getMaxStdioLength() {
+        return maxStdioLength;
+    }
+
+    @DataBoundSetter
+    public void setMaxStdioLength(@Nullable Integer maxStdioLength) {
+        this.maxStdioLength = maxStdioLength;
+    }
+
     @Override
     public String toString() {
         return "JunitTestsPublisher[" +
                 "disabled=" + isDisabled() + "," +
                 "healthScaleFactor=" + (healthScaleFactor == null ? ""  : healthScaleFactor) + "," +
                 "keepLongStdio=" + keepLongStdio + "," +
-                "ignoreAttachments=" + ignoreAttachments +
+                "ignoreAttachments=" + ignoreAttachments + "," +
+                "parseReportsOnAgent=" + parseReportsOnAgent + "," +
+                "maxStdioLength=" + (maxStdioLength == null ? "" : maxStdioLength) +
                 ']';
     }
 
@@ -386,6 +652,13 @@ public class JunitTestsPublisher extends MavenPublisher {
             return 10;
         }
 
+        /**
+         * Test failures mark the build as unstable
+         */
+        @Override
+        public boolean mayChangeBuildResult() {
+            return true;
+        }
 
         @Nonnull
         @Override
@@ -0,0 +1,434 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.publishers;
+
+import hudson.Util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Performance profile of a Maven execution: duration of the modules, of the mojo executions, of the builder threads
+ * and of the artifact downloads.
+ * Built by {@link BuildProfilePublisher} from the timings reported by the Maven Spy.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenBuildProfile implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Start time of the first module, in millis since epoch
+     */
+    long startTime;
+
+    /**
+     * Wall-clock duration, from the start of the first module to the end of the last one
+     */
+    long durationInMillis;
+
+    long criticalPathDurationInMillis;
+
+    long artifactDownloadCount;
+
+    long artifactDownloadDurationInMillis;
+
+    long artifactDownloadSizeInBytes;
+
+    long metadataDownloadCount;
+
+    long metadataDownloadDurationInMillis;
+
+    /**
+     * Artifacts resolved from the local repository when it is seeded by a read-only repository
+     */
+    long localArtifactCount;
+
+    /**
+     * Artifacts resolved from the read-only repository seeding the local repository
+     */
+    long seedArtifactCount;
+
+    /**
+     * Sorted by start time
+     */
+    final List<ModuleTiming> modules = new ArrayList<>();
+
+    /**
+     * Ids ({@code groupId:artifactId}) of the modules of the critical path, from the first to the last module
+     */
+    final List<String> criticalPath = new ArrayList<>();
+
+    /**
+     * Slowest mojo executions, sorted by descending duration
+     */
+    final List<MojoTiming> slowestMojoExecutions = new ArrayList<>();
+
+    /**
+     * Cumulated duration of the mojo executions by plugin goal, sorted by descending duration
+     */
+    final List<GoalTiming> goals = new ArrayList<>();
+
+    /**
+     * Sorted by thread name
+     */
+    final List<ThreadTiming> threads = new ArrayList<>();
+
+    /**
+     * Slowest downloads, sorted by descending duration
+     */
+    final List<DownloadTiming> slowestDownloads = new ArrayList<>();
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getDurationInMillis() {
+        return durationInMillis;
+    }
+
+    public String getDuration() {
+        return Util.getTimeSpanString(durationInMillis);
+    }
+
+    public long getCriticalPathDurationInMillis() {
+        return criticalPathDurationInMillis;
+    }
+
+    public String getCriticalPathDuration() {
+        return Util.getTimeSpanString(criticalPathDurationInMillis);
+    }
+
+    public long getArtifactDownloadCount() {
+        return artifactDownloadCount;
+    }
+
+    public long getArtifactDownloadDurationInMillis() {
+        return artifactDownloadDurationInMillis;
+    }
+
+    public String getArtifactDownloadDuration() {
+        return Util.getTimeSpanString(artifactDownloadDurationInMillis);
+    }
+
+    public long getArtifactDownloadSizeInBytes() {
+        return artifactDownloadSizeInBytes;
+    }
+
+    public long getMetadataDownloadCount() {
+        return metadataDownloadCount;
+    }
+
+    public long getMetadataDownloadDurationInMillis() {
+        return metadataDownloadDurationInMillis;
+    }
+
+    public String getMetadataDownloadDuration() {
+        return Util.getTimeSpanString(metadataDownloadDurationInMillis);
+    }
+
+    public long getLocalArtifactCount() {
+        return localArtifactCount;
+    }
+
+    public long getSeedArtifactCount() {
+        return seedArtifactCount;
+    }
+
+    /**
+     * @return percentage of the artifacts resolved from the local repository or downloaded that were found in the
+     * read-only repository seeding the local repository
+     */
+    public int getSeedHitPercentage() {
+        long total = localArtifactCount + artifactDownloadCount;
+        return total == 0 ? 0 : (int) (seedArtifactCount * 100 / total);
+    }
+
+    @Nonnull
+    public List<ModuleTiming> getModules() {
+        return modules;
+    }
+
+    @Nonnull
+    public List<String> getCriticalPath() {
+        return criticalPath;
+    }
+
+    @Nonnull
+    public List<MojoTiming> getSlowestMojoExecutions() {
+        return slowestMojoExecutions;
+    }
+
+    @Nonnull
+    public List<GoalTiming> getGoals() {
+        return goals;
+    }
+
+    @Nonnull
+    public List<ThreadTiming> getThreads() {
+        return threads;
+    }
+
+    @Nonnull
+    public List<DownloadTiming> getSlowestDownloads() {
+        return slowestDownloads;
+    }
+
+    /**
+     * @return position of the beginning of the module in the Gantt chart, in percent of the build duration
+     */
+    public int getStartOffsetPercentage(@Nonnull ModuleTiming module) {
+        return durationInMillis == 0 ? 0 : (int) ((module.startTime - startTime) * 100 / durationInMillis);
+    }
+
+    /**
+     * @return width of the module in the Gantt chart, in percent of the build duration
+     */
+    public int getDurationPercentage(@Nonnull ModuleTiming module) {
+        return durationInMillis == 0 ? 0 : (int) Math.max(1, module.durationInMillis * 100 / durationInMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "MavenBuildProfile{" +
+                "duration=" + durationInMillis + "ms" +
+                ", criticalPath=" + criticalPathDurationInMillis + "ms " + criticalPath +
+                ", modules=" + modules.size() +
+                ", threads=" + threads.size() +
+                ", artifactDownloads=" + artifactDownloadCount + " in " + artifactDownloadDurationInMillis + "ms" +
+                '}';
+    }
+
+    public static class ModuleTiming implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final String groupId;
+        final String artifactId;
+        final String name;
+        final String thread;
+        final long startTime;
+        final long durationInMillis;
+        final boolean failed;
+        boolean onCriticalPath;
+
+        public ModuleTiming(String groupId, String artifactId, String name, String thread, long startTime, long durationInMillis, boolean failed) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.name = name;
+            this.thread = thread;
+            this.startTime = startTime;
+            this.durationInMillis = durationInMillis;
+            this.failed = failed;
+        }
+
+        /**
+         * @return {@code groupId:artifactId}
+         */
+        public String getId() {
+            return groupId + ":" + artifactId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getDurationInMillis() {
+            return durationInMillis;
+        }
+
+        public String getDuration() {
+            return Util.getTimeSpanString(durationInMillis);
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+
+        public boolean isOnCriticalPath() {
+            return onCriticalPath;
+        }
+    }
+
+    public static class MojoTiming implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final String module;
+        final String goal;
+        final String executionId;
+        final String thread;
+        final long durationInMillis;
+
+        public MojoTiming(String module, String goal, String executionId, String thread, long durationInMillis) {
+            this.module = module;
+            this.goal = goal;
+            this.executionId = executionId;
+            this.thread = thread;
+            this.durationInMillis = durationInMillis;
+        }
+
+        public String getModule() {
+            return module;
+        }
+
+        /**
+         * @return {@code groupId:artifactId:goal}
+         */
+        public String getGoal() {
+            return goal;
+        }
+
+        public String getExecutionId() {
+            return executionId;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        public long getDurationInMillis() {
+            return durationInMillis;
+        }
+
+        public String getDuration() {
+            return Util.getTimeSpanString(durationInMillis);
+        }
+    }
+
+    public static class GoalTiming implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final String goal;
+        int executionCount;
+        long durationInMillis;
+
+        public GoalTiming(String goal) {
+            this.goal = goal;
+        }
+
+        /**
+         * @return {@code groupId:artifactId:goal}
+         */
+        public String getGoal() {
+            return goal;
+        }
+
+        public int getExecutionCount() {
+            return executionCount;
+        }
+
+        public long getDurationInMillis() {
+            return durationInMillis;
+        }
+
+        public String getDuration() {
+            return Util.getTimeSpanString(durationInMillis);
+        }
+    }
+
+    public static class ThreadTiming implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final String name;
+        int moduleCount;
+        long busyTimeInMillis;
+
+        public ThreadTiming(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getModuleCount() {
+            return moduleCount;
+        }
+
+        public long getBusyTimeInMillis() {
+            return busyTimeInMillis;
+        }
+
+        public String getBusyTime() {
+            return Util.getTimeSpanString(busyTimeInMillis);
+        }
+    }
+
+    public static class DownloadTiming implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final String type;
+        final String id;
+        final String repositoryId;
+        final long durationInMillis;
+        final long sizeInBytes;
+
+        public DownloadTiming(String type, String id, String repositoryId, long durationInMillis, long sizeInBytes) {
+            this.type = type;
+            this.id = id;
+            this.repositoryId = repositoryId;
+            this.durationInMillis = durationInMillis;
+            this.sizeInBytes = sizeInBytes;
+        }
+
+        /**
+         * @return "artifact" or "metadata"
+         */
+        public String getType() {
+            return type;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getRepositoryId() {
+            return repositoryId;
+        }
+
+        public long getDurationInMillis() {
+            return durationInMillis;
+        }
+
+        public String getDuration() {
+            return Util.getTimeSpanString(durationInMillis);
+        }
+
+        public long getSizeInBytes() {
+            return sizeInBytes;
+        }
+    }
+}
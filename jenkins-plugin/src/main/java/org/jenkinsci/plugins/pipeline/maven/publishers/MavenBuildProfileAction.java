@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.publishers;
+
+import hudson.model.Action;
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+import jenkins.tasks.SimpleBuildStep;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Performance profiles of the Maven executions of the build, one {@link MavenBuildProfile} per {@code withMaven}
+ * Maven execution.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenBuildProfileAction implements RunAction2, SimpleBuildStep.LastBuildAction, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient Run run;
+
+    private final List<MavenBuildProfile> buildProfiles = new ArrayList<>();
+
+    public MavenBuildProfileAction(@Nonnull Run run) {
+        this.run = run;
+    }
+
+    @Override
+    public synchronized void onAttached(Run<?, ?> run) {
+        this.run = run;
+    }
+
+    @Override
+    public synchronized void onLoad(Run<?, ?> run) {
+        this.run = run;
+    }
+
+    public synchronized void addBuildProfile(@Nonnull MavenBuildProfile buildProfile) {
+        buildProfiles.add(buildProfile);
+    }
+
+    @Nonnull
+    public synchronized List<MavenBuildProfile> getBuildProfiles() {
+        return new ArrayList<>(buildProfiles);
+    }
+
+    /**
+     * @return cumulated wall-clock duration of the Maven executions of the build
+     */
+    public synchronized long getDurationInMillis() {
+        return buildProfiles.stream().mapToLong(MavenBuildProfile::getDurationInMillis).sum();
+    }
+
+    public synchronized long getCriticalPathDurationInMillis() {
+        return buildProfiles.stream().mapToLong(MavenBuildProfile::getCriticalPathDurationInMillis).sum();
+    }
+
+    public synchronized long getArtifactDownloadDurationInMillis() {
+        return buildProfiles.stream().mapToLong(MavenBuildProfile::getArtifactDownloadDurationInMillis).sum();
+    }
+
+    public synchronized Run getRun() {
+        return run;
+    }
+
+    @Override
+    public synchronized Collection<? extends Action> getProjectActions() {
+        return Collections.singleton(new MavenBuildProfileProjectAction(run.getParent()));
+    }
+
+    @CheckForNull
+    @Override
+    public String getIconFileName() {
+        return "/plugin/pipeline-maven/images/24x24/apache-maven.png";
+    }
+
+    @CheckForNull
+    @Override
+    public String getDisplayName() {
+        return "Maven Build Profile";
+    }
+
+    @CheckForNull
+    @Override
+    public String getUrlName() {
+        return "mavenBuildProfile";
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.publishers;
+
+import hudson.Util;
+import hudson.model.Action;
+import hudson.model.Job;
+import hudson.model.Run;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Trend of the {@link MavenBuildProfile}s of the last builds of the job.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenBuildProfileProjectAction implements Action {
+
+    private static final int TREND_SIZE = 20;
+
+    private final Job<?, ?> job;
+
+    public MavenBuildProfileProjectAction(@Nonnull Job<?, ?> job) {
+        this.job = job;
+    }
+
+    public Job<?, ?> getJob() {
+        return job;
+    }
+
+    /**
+     * @return profiles of the last builds, most recent first
+     */
+    @Nonnull
+    public List<MavenBuildProfileAction> getTrend() {
+        List<MavenBuildProfileAction> trend = new ArrayList<>();
+        for (Run<?, ?> build : job.getBuilds().limit(TREND_SIZE)) {
+            MavenBuildProfileAction action = build.getAction(MavenBuildProfileAction.class);
+            if (action != null) {
+                trend.add(action);
+            }
+        }
+        return trend;
+    }
+
+    public String getTimeSpanString(long durationInMillis) {
+        return Util.getTimeSpanString(durationInMillis);
+    }
+
+    @CheckForNull
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @CheckForNull
+    @Override
+    public String getDisplayName() {
+        return "Maven Build Profile Trend";
+    }
+
+    @CheckForNull
+    @Override
+    public String getUrlName() {
+        return "mavenBuildProfileTrend";
+    }
+}
@@ -11,14 +11,14 @@ import org.jenkinsci.plugins.pipeline.maven.GlobalPipelineMavenConfig;
 import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
 import org.jenkinsci.plugins.pipeline.maven.MavenDependency;
 import org.jenkinsci.plugins.pipeline.maven.MavenPublisher;
+import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogModel;
 import org.jenkinsci.plugins.pipeline.maven.dao.PipelineMavenPluginDao;
-import org.jenkinsci.plugins.pipeline.maven.util.XmlUtils;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
-import org.w3c.dom.Element;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -28,8 +28,6 @@ import java.util.logging.Logger;
 
 import javax.annotation.Nonnull;
 
-import static org.jenkinsci.plugins.pipeline.maven.publishers.DependenciesLister.*;
-
 /**
  * Fingerprint the dependencies of the maven project.
  *
@@ -95,16 +93,16 @@ public class PipelineGraphPublisher extends MavenPublisher {
     }
 
     @Override
-    public void process(@Nonnull StepContext context, @Nonnull Element mavenSpyLogsElt) throws IOException, InterruptedException {
+    public void process(@Nonnull StepContext context, @Nonnull MavenSpyLogModel mavenSpyLogModel) throws IOException, InterruptedException {
         Run run = context.get(Run.class);
         TaskListener listener = context.get(TaskListener.class);
 
         PipelineMavenPluginDao dao = GlobalPipelineMavenConfig.get().getDao();
 
-        List<MavenArtifact> parentProjects = listParentProjects(mavenSpyLogsElt, LOGGER);
-        List<MavenDependency> dependencies = listDependencies(mavenSpyLogsElt, LOGGER);
-        List<MavenArtifact> generatedArtifacts = XmlUtils.listGeneratedArtifacts(mavenSpyLogsElt, true);
-        List<String> executedLifecyclePhases = XmlUtils.getExecutedLifecyclePhases(mavenSpyLogsElt);
+        List<MavenArtifact> parentProjects = mavenSpyLogModel.getParentProjects();
+        List<MavenDependency> dependencies = mavenSpyLogModel.getDependencies();
+        List<MavenArtifact> generatedArtifacts = mavenSpyLogModel.getGeneratedArtifacts(true);
+        List<String> executedLifecyclePhases = mavenSpyLogModel.getExecutedLifecyclePhases();
 
         recordParentProject(parentProjects, generatedArtifacts, run,listener, dao);
         recordDependencies(dependencies, generatedArtifacts, run, listener, dao);
@@ -401,6 +399,15 @@ public class PipelineGraphPublisher extends MavenPublisher {
             return ".skip-pipeline-graph";
         }
 
+        /**
+         * Record the generated artifacts once they have been archived and fingerprinted
+         */
+        @Nonnull
+        @Override
+        public Set<String> getPublishersToRunBefore() {
+            return Collections.singleton(GeneratedArtifactsPublisher.class.getName());
+        }
+
         /**
          * Only propose "package", "install" and "deploy" because the other lifecycle phases are unlikely to be useful
          * @return
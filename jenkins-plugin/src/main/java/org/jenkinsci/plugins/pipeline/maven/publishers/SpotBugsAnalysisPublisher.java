@@ -33,15 +33,17 @@ import hudson.model.TaskListener;
 import hudson.plugins.findbugs.FindBugsPublisher;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
+import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogModel;
 import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogProcessor;
 import org.jenkinsci.plugins.pipeline.maven.util.XmlUtils;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.kohsuke.stapler.DataBoundConstructor;
-import org.w3c.dom.Element;
+import org.kohsuke.stapler.DataBoundSetter;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -56,6 +58,11 @@ public class SpotBugsAnalysisPublisher extends AbstractHealthAwarePublisher {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Parse the reports on the build agent, see {@link AgentSideFindBugsPublisher}
+     */
+    private boolean parseReportsOnAgent = false;
+
     @DataBoundConstructor
     public SpotBugsAnalysisPublisher() {
 
@@ -164,14 +171,14 @@ public class SpotBugsAnalysisPublisher extends AbstractHealthAwarePublisher {
     </ExecutionEvent>
          */
     @Override
-    public void process(@Nonnull StepContext context, @Nonnull Element mavenSpyLogsElt) throws IOException, InterruptedException {
+    public void process(@Nonnull StepContext context, @Nonnull MavenSpyLogModel mavenSpyLogModel) throws IOException, InterruptedException {
 
         TaskListener listener = context.get(TaskListener.class);
         FilePath workspace = context.get(FilePath.class);
         Run run = context.get(Run.class);
         Launcher launcher = context.get(Launcher.class);
 
-         List<Element> spotbugsEvents = XmlUtils.getExecutionEventsByPlugin(mavenSpyLogsElt, "com.github.spotbugs", "spotbugs-maven-plugin", "spotbugs", "MojoSucceeded", "MojoFailed");
+         List<MavenSpyLogModel.ExecutionEvent> spotbugsEvents = mavenSpyLogModel.getExecutionEventsByPlugin("com.github.spotbugs", "spotbugs-maven-plugin", "spotbugs", "MojoSucceeded", "MojoFailed");
 
         if (spotbugsEvents.isEmpty()) {
             LOGGER.log(Level.FINE, "No com.github.spotbugs:spotbugs-maven-plugin:spotbugs execution found");
@@ -186,36 +193,37 @@ public class SpotBugsAnalysisPublisher extends AbstractHealthAwarePublisher {
             return;
         }
 
-        for (Element findBugsTestEvent : spotbugsEvents) {
-            String findBugsEventType = findBugsTestEvent.getAttribute("type");
+        List<FindbugsReportsParser.Report> reports = new ArrayList<>();
+        for (MavenSpyLogModel.ExecutionEvent findBugsTestEvent : spotbugsEvents) {
+            String findBugsEventType = findBugsTestEvent.getType();
             if (!findBugsEventType.equals("MojoSucceeded") && !findBugsEventType.equals("MojoFailed")) {
                 continue;
             }
 
-            Element pluginElt = XmlUtils.getUniqueChildElement(findBugsTestEvent, "plugin");
-            Element xmlOutputDirectoryElt = XmlUtils.getUniqueChildElementOrNull(pluginElt, "xmlOutputDirectory");
-            Element projectElt = XmlUtils.getUniqueChildElement(findBugsTestEvent, "project");
-            MavenArtifact mavenArtifact = XmlUtils.newMavenArtifact(projectElt);
-            MavenSpyLogProcessor.PluginInvocation pluginInvocation = XmlUtils.newPluginInvocation(pluginElt);
+            MavenSpyLogModel.PluginExecution plugin = findBugsTestEvent.getPlugin();
+            String xmlOutputDirectoryParameter = plugin.getParameter("xmlOutputDirectory");
+            MavenSpyLogModel.Project project = findBugsTestEvent.getProject();
+            MavenArtifact mavenArtifact = project.newMavenArtifact();
+            MavenSpyLogProcessor.PluginInvocation pluginInvocation = plugin.newPluginInvocation();
 
-            if (xmlOutputDirectoryElt == null) {
-                listener.getLogger().println("[withMaven] No <xmlOutputDirectoryElt> element found for <plugin> in " + XmlUtils.toString(findBugsTestEvent));
+            if (xmlOutputDirectoryParameter == null) {
+                listener.getLogger().println("[withMaven] No <xmlOutputDirectoryElt> element found for <plugin> in " + findBugsTestEvent);
                 continue;
             }
-            String xmlOutputDirectory = xmlOutputDirectoryElt.getTextContent().trim();
+            String xmlOutputDirectory = xmlOutputDirectoryParameter.trim();
             if (xmlOutputDirectory.contains("${project.build.directory}")) {
-                String projectBuildDirectory = XmlUtils.getProjectBuildDirectory(projectElt);
+                String projectBuildDirectory = project.getBuildDirectory();
                 if (projectBuildDirectory == null || projectBuildDirectory.isEmpty()) {
-                    listener.getLogger().println("[withMaven] '${project.build.directory}' found for <project> in " + XmlUtils.toString(findBugsTestEvent));
+                    listener.getLogger().println("[withMaven] '${project.build.directory}' found for <project> in " + findBugsTestEvent);
                     continue;
                 }
 
                 xmlOutputDirectory = xmlOutputDirectory.replace("${project.build.directory}", projectBuildDirectory);
 
             } else if (xmlOutputDirectory.contains("${basedir}")) {
-                String baseDir = projectElt.getAttribute("baseDir");
+                String baseDir = project.getBaseDir();
                 if (baseDir.isEmpty()) {
-                    listener.getLogger().println("[withMaven] '${basedir}' found for <project> in " + XmlUtils.toString(findBugsTestEvent));
+                    listener.getLogger().println("[withMaven] '${basedir}' found for <project> in " + findBugsTestEvent);
                     continue;
                 }
 
@@ -227,6 +235,10 @@ public class SpotBugsAnalysisPublisher extends AbstractHealthAwarePublisher {
             String findBugsResultsFile = xmlOutputDirectory + "/spotbugsXml.xml";
             listener.getLogger().println("[withMaven] SpotBugsPublisher - Archive SpotBugs analysis results for Maven artifact " + mavenArtifact.toString() + " generated by " +
                     pluginInvocation + ": " + findBugsResultsFile);
+            if (parseReportsOnAgent) {
+                reports.add(new FindbugsReportsParser.Report(mavenArtifact.getId(), findBugsResultsFile));
+                continue;
+            }
             FindBugsPublisher findBugsPublisher = new FindBugsPublisher();
 
             findBugsPublisher.setPattern(findBugsResultsFile);
@@ -238,13 +250,34 @@ public class SpotBugsAnalysisPublisher extends AbstractHealthAwarePublisher {
             } catch (Exception e) {
                 listener.error("[withMaven] SpotBugsPublisher - Silently ignore exception archiving FindBugs results for Maven artifact " + mavenArtifact.toString() + " generated by " +
                         pluginInvocation + ": " + e);
-                LOGGER.log(Level.WARNING, "Exception processing " + XmlUtils.toString(findBugsTestEvent), e);
+                LOGGER.log(Level.WARNING, "Exception processing " + findBugsTestEvent, e);
             }
 
         }
 
+        if (!reports.isEmpty()) {
+            AgentSideFindBugsPublisher findBugsPublisher = new AgentSideFindBugsPublisher(listener, "[withMaven] SpotBugsPublisher - ",
+                    "pipeline-maven-spotbugs-index.ser.gz", reports);
+            setHealthAwarePublisherAttributes(findBugsPublisher);
+            try {
+                findBugsPublisher.perform(run, workspace, launcher, listener);
+            } catch (Exception e) {
+                listener.error("[withMaven] SpotBugsPublisher - Silently ignore exception archiving SpotBugs results of " + reports.size() + " Maven module(s): " + e);
+                LOGGER.log(Level.WARNING, "Exception processing SpotBugs results of " + reports.size() + " Maven modules", e);
+            }
+        }
+
     }
     
+    public boolean isParseReportsOnAgent() {
+        return parseReportsOnAgent;
+    }
+
+    @DataBoundSetter
+    public void setParseReportsOnAgent(boolean parseReportsOnAgent) {
+        this.parseReportsOnAgent = parseReportsOnAgent;
+    }
+
     @Symbol("spotbugsPublisher")
     @Extension
     public static class DescriptorImpl extends AbstractHealthAwarePublisher.DescriptorImpl {
@@ -9,16 +9,19 @@ import hudson.model.TaskListener;
 import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
+import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogModel;
+import org.jenkinsci.plugins.pipeline.maven.util.WorkspaceSnapshot;
 import org.jenkinsci.plugins.pipeline.maven.util.XmlUtils;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
-import org.w3c.dom.Element;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -66,6 +69,11 @@ public class TasksScannerPublisher extends AbstractHealthAwarePublisher {
      */
     private boolean asRegexp = false;
 
+    /**
+     * Only scan the files changed since the last scanned build, see {@link IncrementalTasksPublisher}
+     */
+    private boolean incremental = false;
+
     @DataBoundConstructor
     public TasksScannerPublisher() {
 
@@ -80,7 +88,7 @@ public class TasksScannerPublisher extends AbstractHealthAwarePublisher {
     </ExecutionEvent>
      */
     @Override
-    public void process(@Nonnull StepContext context, @Nonnull Element mavenSpyLogsElt) throws IOException, InterruptedException {
+    public void process(@Nonnull StepContext context, @Nonnull MavenSpyLogModel mavenSpyLogModel) throws IOException, InterruptedException {
         TaskListener listener = context.get(TaskListener.class);
         if (listener == null) {
             LOGGER.warning("TaskListener is NULL, default to stderr");
@@ -102,38 +110,27 @@ public class TasksScannerPublisher extends AbstractHealthAwarePublisher {
             return;
         }
 
-        List<String> sourceDirectoriesPatterns = new ArrayList<>();
-        for (Element executionEvent : XmlUtils.getExecutionEvents(mavenSpyLogsElt, "ProjectSucceeded", "ProjectFailed")) {
+        Map<String, MavenArtifact> sourceDirectories = getSourceDirectories(mavenSpyLogModel, workspace); // sourceDirectoryRelativePath -> mavenArtifact
 
-            /*
-            <ExecutionEvent type="ProjectSucceeded" class="org.apache.maven.lifecycle.internal.DefaultExecutionEvent" _time="2017-03-08 21:03:33.564">
-                <project baseDir="/Users/cleclerc/git/jenkins/pipeline-maven-plugin/maven-spy" file="/Users/cleclerc/git/jenkins/pipeline-maven-plugin/maven-spy/pom.xml" groupId="org.jenkins-ci.plugins" name="Maven Spy for the Pipeline Maven Integration Plugin" artifactId="pipeline-maven-spy" version="2.0-beta-7-SNAPSHOT">
-                  <build sourceDirectory="/Users/cleclerc/git/jenkins/pipeline-maven-plugin/maven-spy/src/main/java" directory="/Users/cleclerc/git/jenkins/pipeline-maven-plugin/maven-spy/target"/>
-                </project>
-                ...
-            </ExecutionEvent>
-             */
-            Element buildElement = XmlUtils.getUniqueChildElementOrNull(executionEvent, "project", "build");
-            if (buildElement == null) {
-                if (LOGGER.isLoggable(Level.FINE))
-                    LOGGER.log(Level.FINE, "Ignore execution event with missing 'build' child:" + XmlUtils.toString(executionEvent));
-                continue;
+        // existence of the source directories probed before the execution of the publishers, see collectWorkspaceProbes()
+        WorkspaceSnapshot workspaceSnapshot = mavenSpyLogModel.getWorkspaceSnapshot();
+        WorkspaceSnapshot.Request missingProbes = new WorkspaceSnapshot.Request();
+        for (String sourceDirectoryRelativePath : sourceDirectories.keySet()) {
+            if (workspaceSnapshot.getPath(sourceDirectoryRelativePath) == null) {
+                missingProbes.addPath(sourceDirectoryRelativePath);
             }
-            Element projectElt = XmlUtils.getUniqueChildElement(executionEvent, "project");
-            MavenArtifact mavenArtifact = XmlUtils.newMavenArtifact(projectElt);
-
-            String sourceDirectory = buildElement.getAttribute("sourceDirectory");
-
-            // JENKINS-44359
-            if (Objects.equals(sourceDirectory, "${project.basedir}/src/main/java")) {
-                if (LOGGER.isLoggable(Level.FINE))
-                    LOGGER.log(Level.FINE, "Skip task scanning for " + XmlUtils.toString(executionEvent));
-                continue;
-            }
-
-            String sourceDirectoryRelativePath = XmlUtils.getPathInWorkspace(sourceDirectory, workspace);
+        }
+        if (!missingProbes.isEmpty()) {
+            workspaceSnapshot = workspace.act(new WorkspaceSnapshot.ProbeCallable(missingProbes));
+            workspaceSnapshot.add(mavenSpyLogModel.getWorkspaceSnapshot());
+        }
 
-            if (workspace.child(sourceDirectoryRelativePath).exists()) {
+        List<String> sourceDirectoriesPatterns = new ArrayList<>();
+        for (Map.Entry<String, MavenArtifact> sourceDirectory : sourceDirectories.entrySet()) {
+            String sourceDirectoryRelativePath = sourceDirectory.getKey();
+            MavenArtifact mavenArtifact = sourceDirectory.getValue();
+            WorkspaceSnapshot.PathInfo sourceDirectoryInfo = workspaceSnapshot.getPath(sourceDirectoryRelativePath);
+            if (sourceDirectoryInfo != null && sourceDirectoryInfo.exists()) {
                 sourceDirectoriesPatterns.add(sourceDirectoryRelativePath + fileSeparatorOnAgent + "**" + fileSeparatorOnAgent + "*");
                 listener.getLogger().println("[withMaven] openTasksPublisher - Scan Tasks for Maven artifact " + mavenArtifact.getId() + " in source directory " + sourceDirectoryRelativePath);
             } else {
@@ -154,7 +151,7 @@ public class TasksScannerPublisher extends AbstractHealthAwarePublisher {
             run.removeAction(tasksResult);
         }
 
-        hudson.plugins.tasks.TasksPublisher tasksPublisher = new hudson.plugins.tasks.TasksPublisher();
+        hudson.plugins.tasks.TasksPublisher tasksPublisher = incremental ? new IncrementalTasksPublisher(listener) : new hudson.plugins.tasks.TasksPublisher();
         String pattern = StringUtils.isEmpty(this.pattern)? XmlUtils.join(sourceDirectoriesPatterns, ",") : this.pattern;
         tasksPublisher.setPattern(pattern);
         tasksPublisher.setExcludePattern(StringUtils.trimToNull(this.excludePattern));
@@ -175,6 +172,53 @@ public class TasksScannerPublisher extends AbstractHealthAwarePublisher {
         }
     }
 
+    @Override
+    public void collectWorkspaceProbes(@Nonnull StepContext context, @Nonnull MavenSpyLogModel mavenSpyLogModel, @Nonnull WorkspaceSnapshot.Request request) throws IOException, InterruptedException {
+        FilePath workspace = context.get(FilePath.class);
+        for (String sourceDirectoryRelativePath : getSourceDirectories(mavenSpyLogModel, workspace).keySet()) {
+            request.addPath(sourceDirectoryRelativePath);
+        }
+    }
+
+    /**
+     * @return sourceDirectoryRelativePath -> mavenArtifact
+     */
+    @Nonnull
+    private static Map<String, MavenArtifact> getSourceDirectories(@Nonnull MavenSpyLogModel mavenSpyLogModel, @Nonnull FilePath workspace) {
+        Map<String, MavenArtifact> sourceDirectories = new LinkedHashMap<>();
+        for (MavenSpyLogModel.ExecutionEvent executionEvent : mavenSpyLogModel.getExecutionEvents("ProjectSucceeded", "ProjectFailed")) {
+
+            /*
+            <ExecutionEvent type="ProjectSucceeded" class="org.apache.maven.lifecycle.internal.DefaultExecutionEvent" _time="2017-03-08 21:03:33.564">
+                <project baseDir="/Users/cleclerc/git/jenkins/pipeline-maven-plugin/maven-spy" file="/Users/cleclerc/git/jenkins/pipeline-maven-plugin/maven-spy/pom.xml" groupId="org.jenkins-ci.plugins" name="Maven Spy for the Pipeline Maven Integration Plugin" artifactId="pipeline-maven-spy" version="2.0-beta-7-SNAPSHOT">
+                  <build sourceDirectory="/Users/cleclerc/git/jenkins/pipeline-maven-plugin/maven-spy/src/main/java" directory="/Users/cleclerc/git/jenkins/pipeline-maven-plugin/maven-spy/target"/>
+                </project>
+                ...
+            </ExecutionEvent>
+             */
+            MavenSpyLogModel.Project project = executionEvent.getProject();
+            if (project == null || !project.hasBuild()) {
+                if (LOGGER.isLoggable(Level.FINE))
+                    LOGGER.log(Level.FINE, "Ignore execution event with missing 'build' child:" + executionEvent);
+                continue;
+            }
+            MavenArtifact mavenArtifact = project.newMavenArtifact();
+
+            String sourceDirectory = project.getBuildSourceDirectory();
+
+            // JENKINS-44359
+            if (Objects.equals(sourceDirectory, "${project.basedir}/src/main/java")) {
+                if (LOGGER.isLoggable(Level.FINE))
+                    LOGGER.log(Level.FINE, "Skip task scanning for " + executionEvent);
+                continue;
+            }
+
+            String sourceDirectoryRelativePath = XmlUtils.getPathInWorkspace(sourceDirectory, workspace);
+            sourceDirectories.putIfAbsent(sourceDirectoryRelativePath, mavenArtifact);
+        }
+        return sourceDirectories;
+    }
+
     public String getHighPriorityTaskIdentifiers() {
         return highPriorityTaskIdentifiers;
     }
@@ -238,6 +282,15 @@ public class TasksScannerPublisher extends AbstractHealthAwarePublisher {
         this.asRegexp = asRegexp;
     }
 
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    @DataBoundSetter
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
     @Symbol("openTasksPublisher")
     @Extension
     public static class DescriptorImpl extends AbstractHealthAwarePublisher.DescriptorImpl {
@@ -0,0 +1,78 @@
+package org.jenkinsci.plugins.pipeline.maven.service;
+
+import hudson.BulkChange;
+import hudson.model.Fingerprint;
+import hudson.model.FingerprintMap;
+import hudson.model.Run;
+import jenkins.model.Jenkins;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Registers in bulk the usage of fingerprints by a build.
+ * <p>
+ * {@link Fingerprint#addFor(Run)} saves the fingerprint on disk on each call, the same popular dependencies being
+ * used by most of the builds, this service:
+ * <ul>
+ * <li>de-duplicates the files of a batch by digest and skips the fingerprints already referencing the build,</li>
+ * <li>saves each modified fingerprint once per batch.</li>
+ * </ul>
+ * The fingerprints are retrieved from the {@link FingerprintMap} of Jenkins which manages their lifecycle in memory.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class FingerprintService {
+
+    private final static Logger LOGGER = Logger.getLogger(FingerprintService.class.getName());
+
+    /**
+     * Record the usage of the given files by the build, creating the missing fingerprints.
+     *
+     * @param run      build using the files
+     * @param original {@code true} if the files have been produced by the build (e.g. generated artifacts),
+     *                 {@code false} if they are only used by the build (e.g. dependencies)
+     * @param records  fileName -> md5
+     * @throws IOException
+     */
+    public void register(@Nonnull Run run, boolean original, @Nonnull Map<String, String> records) throws IOException {
+        FingerprintMap fingerprintMap = Jenkins.getInstance().getFingerprintMap();
+
+        Set<String> registeredDigests = new HashSet<>();
+        List<Fingerprint> modifiedFingerprints = new ArrayList<>();
+        // saves are deferred, see FingerprintMap#create() and Fingerprint#add(String, int)
+        BulkChange bulkChange = new BulkChange(BulkChange.ALL);
+        try {
+            for (Map.Entry<String, String> record : records.entrySet()) {
+                String fileName = record.getKey();
+                String md5 = record.getValue();
+                if (!registeredDigests.add(md5)) {
+                    continue;
+                }
+                Fingerprint fingerprint = fingerprintMap.getOrCreate(original ? run : null, fileName, md5);
+                if (!fingerprint.getRangeSet(run.getParent()).includes(run.getNumber())) {
+                    fingerprint.addFor(run);
+                    modifiedFingerprints.add(fingerprint);
+                }
+            }
+        } finally {
+            bulkChange.abort();
+        }
+
+        for (Fingerprint fingerprint : modifiedFingerprints) {
+            fingerprint.save();
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "{0}: registered {1} files, {2} fingerprints modified",
+                    new Object[]{run, records.size(), modifiedFingerprints.size()});
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.pipeline.maven.stream;
+
+import hudson.Util;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.security.MasterToSlaveCallable;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Collects, on the build agent, the events streamed by the Jenkins Maven Event Spy on a loopback socket and forwards
+ * them by batches to a {@link MavenSpyEventListener} exported by the Jenkins master.
+ * <p>
+ * Each Maven execution opens its own connection, see {@code org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.StreamingMavenEventReporter}.
+ * The first frame of a connection must be the token of the collector, connections of other local processes are dropped.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenSpyEventCollector {
+
+    private static final Logger LOGGER = Logger.getLogger(MavenSpyEventCollector.class.getName());
+
+    /**
+     * Collectors running on this JVM
+     */
+    private static final ConcurrentMap<String, MavenSpyEventCollector> COLLECTORS = new ConcurrentHashMap<>();
+
+    private static final int MAX_BATCH_SIZE = 100;
+
+    private static final int MAX_FRAME_SIZE_IN_BYTES = 64 * 1024 * 1024;
+
+    private static final int TOKEN_SIZE_IN_BYTES = 32;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final String id;
+
+    private final byte[] token;
+
+    private final MavenSpyEventListener listener;
+
+    private final ServerSocket serverSocket;
+
+    private final ExecutorService executorService;
+
+    private final AtomicInteger connectionCounter = new AtomicInteger();
+
+    private MavenSpyEventCollector(@Nonnull String id, @Nonnull String token, @Nonnull MavenSpyEventListener listener) throws IOException {
+        this.id = id;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+        this.listener = listener;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        this.executorService = Executors.newCachedThreadPool(new NamingThreadFactory(new DaemonThreadFactory(), "MavenSpyEventCollector-" + id));
+        executorService.submit(this::acceptConnections);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                String connectionId = id + "-" + connectionCounter.incrementAndGet();
+                executorService.submit(() -> collect(connectionId, socket));
+            } catch (SocketException e) {
+                // server socket closed
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Exception accepting connection on " + serverSocket, e);
+            }
+        }
+    }
+
+    private void collect(@Nonnull String connectionId, @Nonnull Socket socket) {
+        List<String> events = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            if (!authenticate(connectionId, in)) {
+                return;
+            }
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length < 0 || length > MAX_FRAME_SIZE_IN_BYTES) {
+                    LOGGER.log(Level.WARNING, "Invalid frame of {0} bytes received on {1}, close connection", new Object[]{length, connectionId});
+                    break;
+                }
+                byte[] frame = new byte[length];
+                in.readFully(frame);
+                events.add(new String(frame, StandardCharsets.UTF_8));
+                if (events.size() >= MAX_BATCH_SIZE || in.available() == 0) {
+                    listener.onEvents(connectionId, events);
+                    events = new ArrayList<>();
+                }
+            }
+            if (!events.isEmpty()) {
+                listener.onEvents(connectionId, events);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Exception collecting events of " + connectionId, e);
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the first frame of the connection is the token of this collector
+     */
+    private boolean authenticate(@Nonnull String connectionId, @Nonnull DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return false;
+        }
+        if (length != token.length) {
+            LOGGER.log(Level.WARNING, "Connection {0} does not provide the expected token, close connection", connectionId);
+            return false;
+        }
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        if (!MessageDigest.isEqual(token, frame)) {
+            LOGGER.log(Level.WARNING, "Connection {0} does not provide the expected token, close connection", connectionId);
+            return false;
+        }
+        return true;
+    }
+
+    private void stop(long timeoutInMillis) throws InterruptedException {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Exception closing " + serverSocket, e);
+        }
+        executorService.shutdown();
+        if (!executorService.awaitTermination(timeoutInMillis, TimeUnit.MILLISECONDS)) {
+            LOGGER.log(Level.INFO, "Timeout waiting for the end of the Maven executions streaming events to collector {0}", id);
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * @return a new random token to authenticate the connections of the Maven executions
+     */
+    @Nonnull
+    public static String newToken() {
+        byte[] bytes = new byte[TOKEN_SIZE_IN_BYTES];
+        RANDOM.nextBytes(bytes);
+        return Util.toHexString(bytes);
+    }
+
+    /**
+     * Start a collector on the build agent.
+     */
+    public static class Start extends MasterToSlaveCallable<Integer, IOException> {
+        private static final long serialVersionUID = 1L;
+
+        private final String id;
+        private final String token;
+        private final MavenSpyEventListener listener;
+
+        /**
+         * @param token    secret that the Maven executions must send as first frame, see {@link #newToken()}
+         * @param listener proxy of the listener exported by the master, see {@link hudson.remoting.VirtualChannel#export(Class, Object)}
+         */
+        public Start(@Nonnull String id, @Nonnull String token, @Nonnull MavenSpyEventListener listener) {
+            this.id = id;
+            this.token = token;
+            this.listener = listener;
+        }
+
+        /**
+         * @return the loopback port on which the collector listens
+         */
+        @Override
+        public Integer call() throws IOException {
+            MavenSpyEventCollector collector = new MavenSpyEventCollector(id, token, listener);
+            COLLECTORS.put(id, collector);
+            return collector.getPort();
+        }
+    }
+
+    /**
+     * Stop a collector, waiting for the events of the Maven executions still connected to be forwarded.
+     */
+    public static class Stop extends MasterToSlaveCallable<Void, InterruptedException> {
+        private static final long serialVersionUID = 1L;
+
+        private final String id;
+        private final long timeoutInMillis;
+
+        public Stop(@Nonnull String id, long timeoutInMillis) {
+            this.id = id;
+            this.timeoutInMillis = timeoutInMillis;
+        }
+
+        @Override
+        public Void call() throws InterruptedException {
+            MavenSpyEventCollector collector = COLLECTORS.remove(id);
+            if (collector != null) {
+                collector.stop(timeoutInMillis);
+            }
+            return null;
+        }
+    }
+}
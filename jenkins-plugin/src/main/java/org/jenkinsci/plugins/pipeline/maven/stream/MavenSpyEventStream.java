@@ -0,0 +1,337 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.pipeline.maven.stream;
+
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import org.apache.commons.lang.SerializationUtils;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.plugins.pipeline.maven.GlobalPipelineMavenConfig;
+import org.jenkinsci.plugins.pipeline.maven.MavenPublisher;
+import org.jenkinsci.plugins.pipeline.maven.MavenPublisherStrategy;
+import org.jenkinsci.plugins.pipeline.maven.util.WorkspaceSnapshot;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.GuardedBy;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+/**
+ * Rebuilds, on the Jenkins master, the maven spy reports streamed while Maven is running and dispatches their events
+ * to the {@link MavenPublisher#processEvent(StepContext, Element)} of the publishers so that they make progress during
+ * the build.
+ * <p>
+ * The publishers of the stream are private copies of the publishers of the step: the same instances are used to process
+ * the complete reports at the end of the build, see {@link #getPublishers()} and {@link #getCompletedReport(String)}.
+ * <p>
+ * The DOM of the streamed reports is only kept when an enabled publisher doesn't support the
+ * {@link org.jenkinsci.plugins.pipeline.maven.model.MavenSpyLogModel} and within the Maven Spy logs memory budget of
+ * {@link GlobalPipelineMavenConfig}, like the reports parsed at the end of the build.
+ * <p>
+ * Streams are not persisted: after a restart of Jenkins, the reports are read from the files generated by the spy.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenSpyEventStream implements MavenSpyEventListener {
+
+    private static final Logger LOGGER = Logger.getLogger(MavenSpyEventStream.class.getName());
+
+    private static final ConcurrentMap<String, MavenSpyEventStream> STREAMS = new ConcurrentHashMap<>();
+
+    private final String id;
+
+    private final StepContext context;
+
+    private final List<MavenPublisher> publishers;
+
+    /**
+     * Publishers enabled when the stream has been created, they receive the events
+     */
+    private final List<MavenPublisher> activePublishers;
+
+    /**
+     * Events are processed sequentially, in the order in which they have been received
+     */
+    private final ExecutorService executorService;
+
+    private final DocumentBuilder documentBuilder;
+
+    /**
+     * {@code true} if the DOM of the reports is required by a publisher
+     */
+    private final boolean keepReports;
+
+    /**
+     * max size of the reports kept in memory, {@code 0} for no limit
+     */
+    private final long memoryBudgetInBytes;
+
+    /**
+     * connectionId -> report being streamed
+     */
+    @GuardedBy("this")
+    private final Map<String, StreamedReport> reportsByConnection = new HashMap<>();
+
+    /**
+     * maven spy report file name -> {@code <mavenExecution>} element of the report
+     */
+    private final ConcurrentMap<String, Element> completedReports = new ConcurrentHashMap<>();
+
+    private MavenSpyEventStream(@Nonnull StepContext context, @Nonnull List<MavenPublisher> publishers, @Nonnull List<MavenPublisher> activePublishers,
+                                boolean keepReports, long memoryBudgetInBytes) {
+        this.id = UUID.randomUUID().toString();
+        this.context = context;
+        this.publishers = publishers;
+        this.activePublishers = activePublishers;
+        this.keepReports = keepReports;
+        this.memoryBudgetInBytes = memoryBudgetInBytes;
+        this.executorService = Executors.newSingleThreadExecutor(new NamingThreadFactory(new DaemonThreadFactory(), "MavenSpyEventStream-" + id));
+        try {
+            this.documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("Failure to create a DocumentBuilder", e);
+        }
+    }
+
+    /**
+     * Create a stream and register it so that it can be retrieved with {@link #get(String)} at the end of the build.
+     */
+    @Nonnull
+    public static MavenSpyEventStream newStream(@Nonnull StepContext context, @Nonnull List<MavenPublisher> options,
+                                                @Nonnull MavenPublisherStrategy publisherStrategy) throws IOException, InterruptedException {
+        TaskListener listener = context.get(TaskListener.class);
+        FilePath workspace = context.get(FilePath.class);
+
+        List<MavenPublisher> publishers = new ArrayList<>();
+        // probe the marker files in a single round trip to the build agent
+        WorkspaceSnapshot.Request markerFilesRequest = new WorkspaceSnapshot.Request();
+        for (MavenPublisher publisher : publisherStrategy.buildPublishersList(options, listener)) {
+            // private copy, the publishers of the global configuration are shared by the builds
+            MavenPublisher copy = (MavenPublisher) SerializationUtils.clone(publisher);
+            publishers.add(copy);
+            String skipFileName = copy.getDescriptor().getSkipFileName();
+            if (!copy.isDisabled() && StringUtils.isNotEmpty(skipFileName)) {
+                markerFilesRequest.addPath(skipFileName);
+            }
+        }
+        WorkspaceSnapshot workspaceSnapshot = markerFilesRequest.isEmpty() ? null : workspace.act(new WorkspaceSnapshot.ProbeCallable(markerFilesRequest));
+
+        List<MavenPublisher> activePublishers = new ArrayList<>();
+        for (MavenPublisher publisher : publishers) {
+            String skipFileName = publisher.getDescriptor().getSkipFileName();
+            if (publisher.isDisabled() || (StringUtils.isNotEmpty(skipFileName) && workspaceSnapshot.getPath(skipFileName).exists())) {
+                // skip
+            } else {
+                activePublishers.add(publisher);
+            }
+        }
+        // publishers which don't support the model still require the DOM of the reports
+        boolean keepReports = activePublishers.stream().anyMatch(publisher -> !publisher.supportsMavenSpyLogModel());
+        GlobalPipelineMavenConfig globalPipelineMavenConfig = GlobalPipelineMavenConfig.get();
+        int memoryBudgetInMegabytes = globalPipelineMavenConfig == null ? 0 : globalPipelineMavenConfig.getMavenSpyLogMemoryBudgetInMegabytes();
+
+        MavenSpyEventStream stream = new MavenSpyEventStream(context, Collections.unmodifiableList(publishers), activePublishers,
+                keepReports, memoryBudgetInMegabytes * 1024L * 1024L);
+        STREAMS.put(stream.getId(), stream);
+        return stream;
+    }
+
+    @CheckForNull
+    public static MavenSpyEventStream get(@Nonnull String id) {
+        return STREAMS.get(id);
+    }
+
+    @Nonnull
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the publishers to use to process the complete reports
+     */
+    @Nonnull
+    public List<MavenPublisher> getPublishers() {
+        return publishers;
+    }
+
+    /**
+     * @param mavenSpyLogsFileName name of the report file (e.g. "maven-spy-20180507-110430-195.log")
+     * @return the {@code <mavenExecution>} element of the report if it has been completely streamed, {@code null} otherwise
+     */
+    @CheckForNull
+    public Element getCompletedReport(@Nonnull String mavenSpyLogsFileName) {
+        return completedReports.get(mavenSpyLogsFileName);
+    }
+
+    @Override
+    public void onEvents(@Nonnull String connectionId, @Nonnull List<String> events) {
+        executorService.submit(() -> {
+            for (String event : events) {
+                processEvent(connectionId, event);
+            }
+        });
+    }
+
+    private void processEvent(@Nonnull String connectionId, @Nonnull String event) {
+        Element eventElt;
+        synchronized (this) {
+            try {
+                eventElt = documentBuilder.parse(new InputSource(new StringReader(event))).getDocumentElement();
+            } catch (SAXException | IOException e) {
+                LOGGER.log(Level.WARNING, "Exception parsing streamed event of " + connectionId + ", ignore the stream: " + event, e);
+                reportsByConnection.remove(connectionId);
+                return;
+            }
+
+            if ("streamHeader".equals(eventElt.getTagName())) {
+                StreamedReport report = new StreamedReport();
+                if (keepReports) {
+                    report.document = documentBuilder.newDocument();
+                    report.document.appendChild(report.document.createElement("mavenExecution"));
+                }
+                reportsByConnection.put(connectionId, report);
+                return;
+            }
+
+            StreamedReport report = reportsByConnection.get(connectionId);
+            if (report == null) {
+                // header not received or stream ignored after an error, the report file will be used
+                return;
+            }
+
+            if ("streamEnd".equals(eventElt.getTagName())) {
+                reportsByConnection.remove(connectionId);
+                if (report.document != null) {
+                    completedReports.put(eventElt.getAttribute("logFile"), report.document.getDocumentElement());
+                }
+                return;
+            }
+
+            if (report.document != null) {
+                report.sizeInBytes += event.length();
+                if (memoryBudgetInBytes > 0 && report.sizeInBytes > memoryBudgetInBytes) {
+                    // the report file will be used
+                    LOGGER.log(Level.FINE, "Streamed report of {0} exceeds the memory budget of {1} bytes, discard it", new Object[]{connectionId, memoryBudgetInBytes});
+                    report.document = null;
+                } else {
+                    eventElt = (Element) report.document.importNode(eventElt, true);
+                    report.document.getDocumentElement().appendChild(eventElt);
+                }
+            }
+        }
+
+        for (MavenPublisher publisher : activePublishers) {
+            try {
+                publisher.processEvent(context, eventElt);
+            } catch (IOException | RuntimeException e) {
+                // the event will be processed again at the end of the build
+                LOGGER.log(Level.FINE, "Exception processing streamed event with " + publisher, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Wait for the processing of the events already received and unregister the stream.
+     */
+    public void close(long timeoutInMillis) throws InterruptedException {
+        STREAMS.remove(id);
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(timeoutInMillis, TimeUnit.MILLISECONDS)) {
+                TaskListener listener = getListener();
+                if (listener != null) {
+                    listener.getLogger().println("[withMaven] Timeout processing the streamed Maven events, process the remaining events at the end of the build");
+                }
+                executorService.shutdownNow();
+                executorService.awaitTermination(timeoutInMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            executorService.shutdownNow();
+            throw e;
+        }
+    }
+
+    /**
+     * Unregister the stream and discard the events not yet processed, e.g. when the step fails before starting its body.
+     */
+    public void abort() {
+        STREAMS.remove(id);
+        executorService.shutdownNow();
+        completedReports.clear();
+    }
+
+    @CheckForNull
+    private TaskListener getListener() {
+        try {
+            return context.get(TaskListener.class);
+        } catch (IOException | InterruptedException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MavenSpyEventStream[" + id + "]";
+    }
+
+    private static class StreamedReport {
+        /**
+         * {@code null} if the DOM of the report is not kept
+         */
+        @CheckForNull
+        Document document;
+        /**
+         * size of the events of the report
+         */
+        long sizeInBytes;
+    }
+}
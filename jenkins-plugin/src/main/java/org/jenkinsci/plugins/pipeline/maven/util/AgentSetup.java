@@ -0,0 +1,174 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import hudson.AbortException;
+import hudson.FilePath;
+import jenkins.security.MasterToSlaveCallable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Files to create on the build agent when the {@code withMaven} step starts. The controller computes the content of
+ * the files and the build agent creates all of them in a single round trip: folders, copies of the files of the
+ * workspace, generated files with their permissions and verification of the cached Maven Spy jar.
+ * <p>
+ * The operations are applied in the order: folders, copies, writes.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class AgentSetup extends MasterToSlaveCallable<Boolean, IOException> {
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> dirs = new ArrayList<>();
+    private final List<Copy> copies = new ArrayList<>();
+    private final List<Write> writes = new ArrayList<>();
+    @CheckForNull
+    private String mavenSpyJarCacheDir;
+    @CheckForNull
+    private MavenSpyJarCache.Verify mavenSpyJarVerify;
+
+    /**
+     * Create the given folder and its parents
+     */
+    public void mkdirs(@Nonnull FilePath dir) {
+        dirs.add(dir.getRemote());
+    }
+
+    /**
+     * Copy the given file of the build agent
+     *
+     * @param missingSourceMessage message of the {@link AbortException} thrown if the source does not exist
+     */
+    public void copy(@Nonnull FilePath source, @Nonnull FilePath destination, @Nonnull String missingSourceMessage) {
+        copies.add(new Copy(source.getRemote(), destination.getRemote(), missingSourceMessage));
+    }
+
+    /**
+     * Write the given content, replacing the existing file if any
+     *
+     * @param executable {@code true} to make the file executable ({@code chmod 755})
+     */
+    public void write(@Nonnull FilePath file, @Nonnull byte[] content, boolean executable) {
+        writes.add(new Write(file.getRemote(), content, executable));
+    }
+
+    /**
+     * @see MavenSpyJarCache#getCachedJar(FilePath, byte[], AgentSetup)
+     */
+    void verifyMavenSpyJar(@Nonnull String cacheDir, @Nonnull MavenSpyJarCache.Verify verify) {
+        this.mavenSpyJarCacheDir = cacheDir;
+        this.mavenSpyJarVerify = verify;
+    }
+
+    /**
+     * @return {@code false} if the Maven Spy jar is missing in the cache of the build agent, {@code true} if present
+     * or not verified
+     */
+    @Override
+    public Boolean call() throws IOException {
+        for (String dir : dirs) {
+            mkdirs(new File(dir));
+        }
+        for (Copy copy : copies) {
+            File source = new File(copy.source);
+            if (!source.isFile()) {
+                throw new AbortException(copy.missingSourceMessage);
+            }
+            File destination = new File(copy.destination);
+            mkdirs(destination.getParentFile());
+            Files.copy(source.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        for (Write write : writes) {
+            File file = new File(write.file);
+            mkdirs(file.getParentFile());
+            Files.write(file.toPath(), write.content);
+            if (write.executable) {
+                try {
+                    new FilePath(file).chmod(0755);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted making " + file + " executable", e);
+                }
+            }
+        }
+        if (mavenSpyJarVerify == null) {
+            return true;
+        }
+        try {
+            return mavenSpyJarVerify.invoke(new File(mavenSpyJarCacheDir), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted verifying the Maven Spy jar in " + mavenSpyJarCacheDir, e);
+        }
+    }
+
+    private static void mkdirs(@CheckForNull File dir) throws IOException {
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Failure to create " + dir);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AgentSetup{dirs=" + dirs.size() + ", copies=" + copies.size() + ", writes=" + writes.size() +
+                ", mavenSpyJarCacheDir=" + mavenSpyJarCacheDir + "}";
+    }
+
+    private static class Copy implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String source;
+        private final String destination;
+        private final String missingSourceMessage;
+
+        Copy(String source, String destination, String missingSourceMessage) {
+            this.source = source;
+            this.destination = destination;
+            this.missingSourceMessage = missingSourceMessage;
+        }
+    }
+
+    private static class Write implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String file;
+        private final byte[] content;
+        private final boolean executable;
+
+        Write(String file, byte[] content, boolean executable) {
+            this.file = file;
+            this.content = content;
+            this.executable = executable;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import hudson.Util;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Stat and compute the MD5 digests of a batch of files in a single round trip to the build agent, the files are
+ * hashed in parallel on a bounded pool of threads. The files located in a Maven local repository use the
+ * {@link DigestCache} of the repository. The files whose digest is already known are not hashed again if their size and
+ * last modification date are unchanged.
+ * <p>
+ * Invoked on the workspace, the relative paths are resolved against the workspace.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class BatchDigestCallable extends MasterToSlaveFileCallable<Map<String, BatchDigestCallable.Result>> {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Max number of files hashed in parallel on the build agent, system property of the build agent
+     */
+    private static final int MAX_THREADS = Integer.getInteger(BatchDigestCallable.class.getName() + ".MAX_THREADS", 4);
+
+    private static final long PROGRESS_INTERVAL_IN_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private final List<Request> requests;
+
+    @CheckForNull
+    private final TaskListener listener;
+
+    @Nonnull
+    private final String logPrefix;
+
+    /**
+     * @param requests  files to digest
+     * @param listener  listener to report the progress of long batches, {@code null} to not report the progress
+     * @param logPrefix prefix of the progress messages (e.g. {@code "[withMaven] dependenciesFingerprintPublisher - "})
+     */
+    public BatchDigestCallable(@Nonnull List<Request> requests, @Nullable TaskListener listener, @Nonnull String logPrefix) {
+        this.requests = requests;
+        this.listener = listener;
+        this.logPrefix = logPrefix;
+    }
+
+    /**
+     * @return results indexed by {@link Request#getPath()} in the order of the requests
+     */
+    @Override
+    public Map<String, Result> invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        if (requests.isEmpty()) {
+            return results;
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, Math.min(MAX_THREADS, requests.size())),
+                new NamingThreadFactory(new DaemonThreadFactory(), BatchDigestCallable.class.getName()));
+        try {
+            AtomicInteger completed = new AtomicInteger();
+            List<Future<Result>> futures = new ArrayList<>(requests.size());
+            for (Request request : requests) {
+                futures.add(executorService.submit(() -> {
+                    try {
+                        return digest(workspace, request);
+                    } finally {
+                        completed.incrementAndGet();
+                    }
+                }));
+            }
+            long lastProgress = System.currentTimeMillis();
+            for (int i = 0; i < requests.size(); i++) {
+                Future<Result> future = futures.get(i);
+                Result result;
+                while (true) {
+                    try {
+                        result = future.get(PROGRESS_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        // still running
+                    } catch (ExecutionException e) {
+                        result = Result.failure(String.valueOf(e.getCause()));
+                        break;
+                    }
+                    if (listener != null && System.currentTimeMillis() - lastProgress >= PROGRESS_INTERVAL_IN_MILLIS) {
+                        listener.getLogger().println(logPrefix + "Digested " + completed.get() + "/" + requests.size() + " files...");
+                        lastProgress = System.currentTimeMillis();
+                    }
+                }
+                results.put(requests.get(i).getPath(), result);
+            }
+            return results;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Nonnull
+    private static Result digest(@Nonnull File workspace, @Nonnull Request request) throws IOException {
+        File file = new File(request.path);
+        if (!file.isAbsolute()) {
+            file = new File(workspace, request.path);
+        }
+        if (file.isDirectory()) {
+            return Result.DIRECTORY;
+        } else if (!file.exists()) {
+            return Result.NOT_FOUND;
+        }
+        long length = file.length();
+        long lastModified = file.lastModified();
+        // digest known without size and date: only the existence of the file is checked
+        if (request.md5 != null && (request.length == -1 || request.length == length && request.lastModified == lastModified)) {
+            return new Result(request.md5, true, null, length, lastModified);
+        }
+        File localRepository = request.groupId == null ? null : DigestCache.getLocalRepository(file, request.groupId, request.artifactId, request.baseVersion);
+        if (localRepository == null) {
+            try (InputStream in = new FileInputStream(file)) {
+                return new Result(Util.getDigestOf(in), false, null, length, lastModified);
+            }
+        }
+        DigestCache.Digest digest = DigestCache.get(localRepository).digest(file);
+        return new Result(digest.getMd5(), digest.isCacheHit(), null, length, lastModified);
+    }
+
+    /**
+     * File to digest
+     */
+    public static class Request implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String path;
+        @CheckForNull
+        private final String groupId;
+        @CheckForNull
+        private final String artifactId;
+        @CheckForNull
+        private final String baseVersion;
+        @CheckForNull
+        private final String md5;
+        private final long length;
+        private final long lastModified;
+
+        /**
+         * File of a Maven artifact, digested with the {@link DigestCache} if the file is located in a local repository
+         */
+        public Request(@Nonnull String path, @Nonnull String groupId, @Nonnull String artifactId, @Nonnull String baseVersion) {
+            this.path = path;
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.baseVersion = baseVersion;
+            this.md5 = null;
+            this.length = -1;
+            this.lastModified = -1;
+        }
+
+        public Request(@Nonnull String path) {
+            this.path = path;
+            this.groupId = null;
+            this.artifactId = null;
+            this.baseVersion = null;
+            this.md5 = null;
+            this.length = -1;
+            this.lastModified = -1;
+        }
+
+        /**
+         * File already digested, hashed again only if its size or its last modification date have changed
+         *
+         * @param previous result of the previous digest of the file
+         */
+        public Request(@Nonnull String path, @Nonnull Result previous) {
+            this.path = path;
+            this.groupId = null;
+            this.artifactId = null;
+            this.baseVersion = null;
+            this.md5 = previous.md5;
+            this.length = previous.length;
+            this.lastModified = previous.lastModified;
+        }
+
+        /**
+         * File already digested (e.g. by the Maven Spy while Maven was running), not hashed again: only its existence
+         * is checked
+         *
+         * @param md5 digest of the file
+         */
+        public Request(@Nonnull String path, @Nonnull String md5) {
+            this.path = path;
+            this.groupId = null;
+            this.artifactId = null;
+            this.baseVersion = null;
+            this.md5 = md5;
+            this.length = -1;
+            this.lastModified = -1;
+        }
+
+        @Nonnull
+        public String getPath() {
+            return path;
+        }
+    }
+
+    /**
+     * MD5 digest of a file or reason of the failure to compute it
+     */
+    public static class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public static final Result NOT_FOUND = failure("file not found");
+
+        public static final Result DIRECTORY = failure("directory");
+
+        @CheckForNull
+        private final String md5;
+        private final boolean cacheHit;
+        @CheckForNull
+        private final String failure;
+        private final long length;
+        private final long lastModified;
+
+        private Result(@Nullable String md5, boolean cacheHit, @Nullable String failure, long length, long lastModified) {
+            this.md5 = md5;
+            this.cacheHit = cacheHit;
+            this.failure = failure;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        @Nonnull
+        static Result failure(@Nonnull String failure) {
+            return new Result(null, false, failure, -1, -1);
+        }
+
+        /**
+         * @return the digest, {@code null} in case of {@link #getFailure() failure}
+         */
+        @CheckForNull
+        public String getMd5() {
+            return md5;
+        }
+
+        /**
+         * @return {@code true} if the digest has been found in the {@link DigestCache} or reused from the {@link Request}
+         */
+        public boolean isCacheHit() {
+            return cacheHit;
+        }
+
+        /**
+         * @return size of the file in bytes, {@code -1} in case of {@link #getFailure() failure}
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * @return last modification date of the file, {@code -1} in case of {@link #getFailure() failure}
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * @return the reason of the failure (e.g. {@code file not found}), {@code null} if the digest has been computed
+         */
+        @CheckForNull
+        public String getFailure() {
+            return failure;
+        }
+
+        public boolean isDirectory() {
+            return DIRECTORY.failure.equals(failure);
+        }
+
+        public boolean isNotFound() {
+            return NOT_FOUND.failure.equals(failure);
+        }
+
+        @Override
+        public String toString() {
+            return md5 != null ? md5 : "failure: " + failure;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import hudson.Util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Persistent cache of the digests of the files of a Maven local repository, shared by the builds running on an agent.
+ * <p>
+ * The cache file is read and appended with the implementation of the Maven Spy
+ * ({@link org.jenkinsci.plugins.pipeline.maven.eventspy.handler.DigestCache}), whose shared source folder is compiled
+ * by the plugin, so that the plugin and the Maven Spy share the same file format.
+ * <p>
+ * Instances live on the build agent, one per local repository, see {@link BatchDigestCallable}.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class DigestCache {
+
+    /**
+     * Caches of this JVM indexed by cache file, a single instance per file avoids overlapping file locks within the JVM
+     */
+    private static final ConcurrentMap<File, DigestCache> CACHES = new ConcurrentHashMap<>();
+
+    private final org.jenkinsci.plugins.pipeline.maven.eventspy.handler.DigestCache cache;
+
+    private DigestCache(@Nonnull File localRepository) throws IOException {
+        this.cache = new org.jenkinsci.plugins.pipeline.maven.eventspy.handler.DigestCache(localRepository);
+    }
+
+    @Nonnull
+    public static DigestCache get(@Nonnull File localRepository) throws IOException {
+        File cacheFile = new File(new File(localRepository, org.jenkinsci.plugins.pipeline.maven.eventspy.handler.DigestCache.FOLDER_NAME),
+                org.jenkinsci.plugins.pipeline.maven.eventspy.handler.DigestCache.FILE_NAME).getCanonicalFile();
+        DigestCache digestCache = CACHES.get(cacheFile);
+        if (digestCache == null) {
+            DigestCache newDigestCache = new DigestCache(localRepository);
+            digestCache = CACHES.putIfAbsent(cacheFile, newDigestCache);
+            if (digestCache == null) {
+                digestCache = newDigestCache;
+            }
+        }
+        return digestCache;
+    }
+
+    /**
+     * Thread safe, the files missing in the cache are read outside of the lock so that several files can be hashed
+     * in parallel.
+     *
+     * @return the digest of the file, from the cache if the file has not changed since it has been cached
+     */
+    @Nonnull
+    public Digest digest(@Nonnull File file) throws IOException {
+        String md5 = cache.get(file);
+        if (md5 != null) {
+            return new Digest(md5, true);
+        }
+        long size = file.length();
+        long lastModified = file.lastModified();
+        try (InputStream in = new FileInputStream(file)) {
+            md5 = Util.getDigestOf(in);
+        }
+        cache.put(file, size, lastModified, md5);
+        return new Digest(md5, false);
+    }
+
+    /**
+     * @return the local repository containing the given artifact file according to the Maven repository layout
+     * {@code <localRepository>/<groupId as path>/<artifactId>/<baseVersion>/<file>}, {@code null} if the file is not
+     * located in a local repository (e.g. file of a module of the reactor)
+     */
+    @CheckForNull
+    public static File getLocalRepository(@Nonnull File file, @Nonnull String groupId, @Nonnull String artifactId, @Nonnull String baseVersion) {
+        File dir = file.getParentFile();
+        if (dir == null || !baseVersion.equals(dir.getName())) {
+            return null;
+        }
+        dir = dir.getParentFile();
+        if (dir == null || !artifactId.equals(dir.getName())) {
+            return null;
+        }
+        String[] groupIdSegments = groupId.split("\\.");
+        for (int i = groupIdSegments.length - 1; i >= 0; i--) {
+            dir = dir.getParentFile();
+            if (dir == null || !groupIdSegments[i].equals(dir.getName())) {
+                return null;
+            }
+        }
+        return dir.getParentFile();
+    }
+
+    /**
+     * MD5 digest of a file
+     */
+    public static class Digest implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String md5;
+        private final boolean cacheHit;
+
+        public Digest(@Nonnull String md5, boolean cacheHit) {
+            this.md5 = md5;
+            this.cacheHit = cacheHit;
+        }
+
+        @Nonnull
+        public String getMd5() {
+            return md5;
+        }
+
+        /**
+         * @return {@code true} if the digest has been found in the cache
+         */
+        public boolean isCacheHit() {
+            return cacheHit;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Read-only Maven repository shared by the builds of a build agent and seeding their local repositories (see
+ * {@code maven.repo.local.tail} in Maven 3.9+). The builds write the downloaded artifacts in their own local
+ * repository and the Maven Spy lists the release artifacts downloaded from remote repositories in the
+ * {@link #newDownloadedArtifactsFile(FilePath) downloaded artifacts file}. These artifacts are promoted into the seed
+ * in the background at the end of the successful {@code withMaven} steps.
+ * <p>
+ * The files are promoted one by one with an atomic move from a staging folder of the seed so that the builds reading
+ * the seed concurrently never see partially written files. Snapshots and artifacts installed by the build (tracked
+ * without remote repository in {@code _remote.repositories}) are never promoted.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class LocalRepositorySeed {
+
+    static final String TRACKING_FILE_NAME = "_remote.repositories";
+
+    static final String STAGING_DIR_NAME = ".staging";
+
+    /**
+     * System property of the Maven Spy, see {@code RepositoryEventHandler#DOWNLOADED_ARTIFACTS_FILE_PROPERTY_NAME}
+     */
+    public static final String DOWNLOADED_ARTIFACTS_FILE_PROPERTY_NAME = "org.jenkinsci.plugins.pipeline.maven.eventspy.handler.RepositoryEventHandler.downloadedArtifactsFile";
+
+    private LocalRepositorySeed() {
+    }
+
+    /**
+     * @param seed seed repository
+     * @return a new file, in the staging folder of the seed, in which the Maven Spy lists the release artifacts
+     * downloaded by the build. The file is not in the temporary folder of the step that is deleted before the end of
+     * the promotion.
+     */
+    @Nonnull
+    public static FilePath newDownloadedArtifactsFile(@Nonnull FilePath seed) {
+        return seed.child(STAGING_DIR_NAME).child("downloaded-artifacts-" + UUID.randomUUID().toString().substring(0, 8) + ".txt");
+    }
+
+    /**
+     * Promote in the background the artifacts listed in the given file into the seed, the file is deleted once
+     * processed.
+     *
+     * @param downloadedArtifactsFile see {@link #newDownloadedArtifactsFile(FilePath)}
+     * @param seed                    seed repository
+     * @return the number of files promoted into the seed
+     */
+    @Nonnull
+    public static Future<Integer> promoteAsync(@Nonnull FilePath downloadedArtifactsFile, @Nonnull FilePath seed) throws IOException, InterruptedException {
+        return downloadedArtifactsFile.actAsync(new Promote(seed.getRemote()));
+    }
+
+    /**
+     * Promote the artifacts listed in the file on which the callable is invoked, one
+     * {@code <local repository>\t<path relative to the local repository>} line per artifact.
+     */
+    static class Promote extends MasterToSlaveFileCallable<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final String seed;
+
+        Promote(@Nonnull String seed) {
+            this.seed = seed;
+        }
+
+        @Override
+        public Integer invoke(File downloadedArtifactsFile, VirtualChannel channel) throws IOException, InterruptedException {
+            if (!downloadedArtifactsFile.isFile()) {
+                // nothing downloaded
+                return 0;
+            }
+            try {
+                Path seedPath = new File(seed).toPath();
+                Path stagingDir = seedPath.resolve(STAGING_DIR_NAME);
+                Files.createDirectories(stagingDir);
+
+                // version folder of the local repository -> names of the downloaded files
+                Map<Path, Set<String>> downloadedFiles = new LinkedHashMap<>();
+                // version folder of the local repository -> version folder of the seed
+                Map<Path, Path> targetDirs = new LinkedHashMap<>();
+                for (String line : Files.readAllLines(downloadedArtifactsFile.toPath(), StandardCharsets.UTF_8)) {
+                    int separator = line.indexOf('\t');
+                    if (separator == -1) {
+                        continue;
+                    }
+                    Path relativePath = Paths.get(line.substring(separator + 1));
+                    if (relativePath.getParent() == null) {
+                        continue;
+                    }
+                    Path versionDir = Paths.get(line.substring(0, separator)).resolve(relativePath.getParent());
+                    downloadedFiles.computeIfAbsent(versionDir, dir -> new LinkedHashSet<>()).add(relativePath.getFileName().toString());
+                    targetDirs.put(versionDir, seedPath.resolve(relativePath.getParent().toString()));
+                }
+
+                int promotedFiles = 0;
+                for (Map.Entry<Path, Set<String>> entry : downloadedFiles.entrySet()) {
+                    Path versionDir = entry.getKey();
+                    Path trackingFile = versionDir.resolve(TRACKING_FILE_NAME);
+                    if (versionDir.getFileName().toString().endsWith("-SNAPSHOT") || !Files.isRegularFile(trackingFile)) {
+                        continue;
+                    }
+                    List<String> trackingEntries = getTrackingEntries(Files.readAllLines(trackingFile, StandardCharsets.UTF_8), entry.getValue());
+                    if (!isDownloaded(trackingEntries)) {
+                        continue;
+                    }
+                    promotedFiles += promoteVersion(versionDir, targetDirs.get(versionDir), stagingDir, entry.getValue(), trackingEntries);
+                }
+                return promotedFiles;
+            } finally {
+                Files.deleteIfExists(downloadedArtifactsFile.toPath());
+            }
+        }
+
+        /**
+         * @return the number of promoted files
+         */
+        private int promoteVersion(@Nonnull Path versionDir, @Nonnull Path targetDir, @Nonnull Path stagingDir,
+                                   @Nonnull Set<String> fileNames, @Nonnull List<String> trackingEntries) throws IOException {
+            int promotedFiles = 0;
+            for (String fileName : fileNames) {
+                Path target = targetDir.resolve(fileName);
+                if (!isPromotable(fileName) || Files.exists(target)) {
+                    continue;
+                }
+                Files.createDirectories(targetDir);
+                Path stagingFile = stagingDir.resolve(UUID.randomUUID().toString());
+                try {
+                    Files.copy(versionDir.resolve(fileName), stagingFile);
+                } catch (NoSuchFileException e) {
+                    // deleted since the download, e.g. workspace cleanup
+                    continue;
+                }
+                if (move(stagingFile, target)) {
+                    promotedFiles++;
+                }
+            }
+
+            Path targetTrackingFile = targetDir.resolve(TRACKING_FILE_NAME);
+            if (promotedFiles > 0 || !Files.exists(targetTrackingFile)) {
+                Set<String> mergedTrackingEntries = new LinkedHashSet<>();
+                if (Files.exists(targetTrackingFile)) {
+                    mergedTrackingEntries.addAll(Files.readAllLines(targetTrackingFile, StandardCharsets.UTF_8));
+                }
+                mergedTrackingEntries.addAll(trackingEntries);
+                Files.createDirectories(targetDir);
+                Path stagingFile = stagingDir.resolve(UUID.randomUUID().toString());
+                Files.write(stagingFile, new ArrayList<>(mergedTrackingEntries), StandardCharsets.UTF_8);
+                // replace the tracking file, the last of the concurrent promotions wins
+                try {
+                    Files.move(stagingFile, targetTrackingFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(stagingFile, targetTrackingFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            return promotedFiles;
+        }
+
+        /**
+         * @return {@code false} if the file has been promoted concurrently by another build
+         */
+        private boolean move(@Nonnull Path stagingFile, @Nonnull Path target) throws IOException {
+            try {
+                try {
+                    Files.move(stagingFile, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(stagingFile, target);
+                }
+                return true;
+            } catch (FileAlreadyExistsException e) {
+                Files.deleteIfExists(stagingFile);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @param trackingEntries lines of the {@code _remote.repositories} file
+     * @param fileNames       names of the files of the version
+     * @return the lines of the {@code _remote.repositories} file tracking the given files
+     */
+    @Nonnull
+    static List<String> getTrackingEntries(@Nonnull List<String> trackingEntries, @Nonnull Set<String> fileNames) {
+        List<String> result = new ArrayList<>();
+        for (String entry : trackingEntries) {
+            int separator = entry.indexOf('>');
+            if (separator != -1 && fileNames.contains(entry.substring(0, separator).trim())) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param trackingEntries lines of the {@code _remote.repositories} file, e.g. {@code my-lib-1.0.jar>central=}
+     * @return {@code true} if all the files of the version have been downloaded from a remote repository
+     */
+    static boolean isDownloaded(@Nonnull List<String> trackingEntries) {
+        boolean downloaded = false;
+        for (String entry : trackingEntries) {
+            entry = entry.trim();
+            if (entry.isEmpty() || entry.startsWith("#")) {
+                continue;
+            }
+            int separator = entry.indexOf('>');
+            if (separator == -1 || entry.startsWith("=", separator + 1)) {
+                // installed by the build
+                return false;
+            }
+            downloaded = true;
+        }
+        return downloaded;
+    }
+
+    /**
+     * Skip the metadata and the leftovers of the resolution (failed or in progress downloads, locks)
+     */
+    static boolean isPromotable(@Nonnull String fileName) {
+        return !fileName.equals(TRACKING_FILE_NAME) &&
+                !fileName.startsWith("maven-metadata") &&
+                !fileName.equals("resolver-status.properties") &&
+                !fileName.endsWith(".lastUpdated") &&
+                !fileName.endsWith(".part") &&
+                !fileName.contains(".part-") &&
+                !fileName.endsWith(".tmp") &&
+                !fileName.endsWith(".lock");
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.TaskListener;
+import hudson.slaves.ComputerListener;
+import hudson.slaves.OfflineCause;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Cache of the Maven executables discovered on the build agents when no Maven installation is specified in the
+ * {@code withMaven} step, avoiding to launch {@code printenv}, {@code which mvn} or {@code where mvn.cmd} processes
+ * and to fetch the environment of the agent at each step.
+ * <p>
+ * The discoveries are cached per build agent, container and {@code PATH} for {@link #TTL_IN_MINUTES} minutes and
+ * invalidated when the build agent goes online or offline.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenExecutableDiscoveryCache {
+    private static final Logger LOGGER = Logger.getLogger(MavenExecutableDiscoveryCache.class.getName());
+
+    /**
+     * Duration during which a discovery is reused, {@code 0} to disable the cache
+     */
+    private static final int TTL_IN_MINUTES = Integer.getInteger(MavenExecutableDiscoveryCache.class.getName() + ".TTL_IN_MINUTES", 10);
+
+    /**
+     * Fields identifying the container of the launcher decorators of the docker-workflow and kubernetes plugins
+     */
+    private static final String[] CONTAINER_FIELD_NAMES = {"container", "containerName"};
+
+    /**
+     * Maximum number of enclosing instances of a launcher decorator looked up for the container fields
+     */
+    private static final int MAX_ENCLOSING_INSTANCES = 2;
+
+    private static final String KEY_SEPARATOR = "|";
+
+    /**
+     * key -> discovery
+     */
+    private static final ConcurrentMap<String, Discovery> discoveries = new ConcurrentHashMap<>();
+
+    private MavenExecutableDiscoveryCache() {
+    }
+
+    /**
+     * @param computer build agent
+     * @param launcher launcher of the step, possibly decorated to run in a container
+     * @param env      environment of the step
+     * @return the key of the discovery or {@code null} if the discovery cannot be cached (e.g. unknown container)
+     */
+    @CheckForNull
+    public static String getKey(@Nonnull Computer computer, @Nonnull Launcher launcher, @Nonnull EnvVars env) {
+        if (TTL_IN_MINUTES <= 0) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(computer.getName());
+        Launcher launcher1 = launcher;
+        while (launcher1 instanceof Launcher.DecoratedLauncher) {
+            key.append(KEY_SEPARATOR).append(launcher1.getClass().getName());
+            if (launcher1.getClass().getName().contains("Container")) {
+                String container = getContainerIdentity(launcher1);
+                if (container == null) {
+                    LOGGER.log(Level.FINE, "Cannot identify the container of {0}, don''t cache the discovery", launcher1.getClass().getName());
+                    return null;
+                }
+                key.append("=").append(container);
+            }
+            launcher1 = ((Launcher.DecoratedLauncher) launcher1).getInner();
+        }
+        key.append(KEY_SEPARATOR).append(Util.getDigestOf(env.get("PATH", "") + KEY_SEPARATOR +
+                env.get("MAVEN_HOME", "") + KEY_SEPARATOR + env.get("M2_HOME", "")));
+        return key.toString();
+    }
+
+    /**
+     * The launcher decorators of the docker-workflow and kubernetes plugins are anonymous classes reading the
+     * container of their enclosing decorator, the fields of the enclosing instances are looked up as well.
+     *
+     * @param launcher launcher decorated to run in a container
+     * @return the identity of the container, {@code null} if not found
+     */
+    @CheckForNull
+    static String getContainerIdentity(@Nonnull Launcher launcher) {
+        Object object = launcher;
+        try {
+            for (int depth = 0; object != null && depth <= MAX_ENCLOSING_INSTANCES; depth++) {
+                Field enclosingInstanceField = null;
+                for (Class<?> clazz = object.getClass(); clazz != null && clazz != Launcher.DecoratedLauncher.class && clazz != Object.class; clazz = clazz.getSuperclass()) {
+                    for (String fieldName : CONTAINER_FIELD_NAMES) {
+                        Field field;
+                        try {
+                            field = clazz.getDeclaredField(fieldName);
+                        } catch (NoSuchFieldException e) {
+                            continue;
+                        }
+                        field.setAccessible(true);
+                        Object value = field.get(object);
+                        return value == null ? null : value.toString();
+                    }
+                    if (enclosingInstanceField == null) {
+                        for (Field field : clazz.getDeclaredFields()) {
+                            if (field.isSynthetic() && field.getName().startsWith("this$")) {
+                                enclosingInstanceField = field;
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (enclosingInstanceField == null) {
+                    return null;
+                }
+                enclosingInstanceField.setAccessible(true);
+                object = enclosingInstanceField.get(object);
+            }
+        } catch (IllegalAccessException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Exception reading the container of " + launcher.getClass().getName(), e);
+        }
+        return null;
+    }
+
+    /**
+     * @param key see {@link #getKey(Computer, Launcher, EnvVars)}
+     * @return the discovery if not expired
+     */
+    @CheckForNull
+    public static Discovery get(@Nonnull String key) {
+        Discovery discovery = discoveries.get(key);
+        if (discovery == null) {
+            return null;
+        } else if (System.currentTimeMillis() - discovery.timestamp > TimeUnit.MINUTES.toMillis(TTL_IN_MINUTES)) {
+            discoveries.remove(key, discovery);
+            return null;
+        }
+        return discovery;
+    }
+
+    /**
+     * @param key            see {@link #getKey(Computer, Launcher, EnvVars)}
+     * @param mvnExecPath    remote path of the discovered Maven executable
+     * @param mavenHome      Maven home found in the environment of the build agent, {@code null} if found in a
+     *                       container or with {@code which}/{@code where}
+     * @param consoleMessage message describing where Maven has been found
+     */
+    public static void put(@Nonnull String key, @Nonnull String mvnExecPath, @CheckForNull String mavenHome, @Nonnull String consoleMessage) {
+        long now = System.currentTimeMillis();
+        // purge the expired discoveries, e.g. of the containers that no longer exist
+        discoveries.values().removeIf(discovery -> now - discovery.timestamp > TimeUnit.MINUTES.toMillis(TTL_IN_MINUTES));
+        discoveries.put(key, new Discovery(mvnExecPath, mavenHome, consoleMessage, now));
+    }
+
+    /**
+     * Invalidate the discoveries of the given build agent
+     */
+    public static void invalidate(@Nonnull Computer computer) {
+        String prefix = computer.getName() + KEY_SEPARATOR;
+        if (discoveries.keySet().removeIf(key -> key.startsWith(prefix))) {
+            LOGGER.log(Level.FINE, "Invalidated the Maven executables discovered on {0}", computer.getName());
+        }
+    }
+
+    public static class Discovery {
+        @Nonnull
+        private final String mvnExecPath;
+        @CheckForNull
+        private final String mavenHome;
+        @Nonnull
+        private final String consoleMessage;
+        private final long timestamp;
+
+        Discovery(@Nonnull String mvnExecPath, @CheckForNull String mavenHome, @Nonnull String consoleMessage, long timestamp) {
+            this.mvnExecPath = mvnExecPath;
+            this.mavenHome = mavenHome;
+            this.consoleMessage = consoleMessage;
+            this.timestamp = timestamp;
+        }
+
+        @Nonnull
+        public String getMvnExecPath() {
+            return mvnExecPath;
+        }
+
+        @CheckForNull
+        public String getMavenHome() {
+            return mavenHome;
+        }
+
+        @Nonnull
+        public String getConsoleMessage() {
+            return consoleMessage;
+        }
+    }
+
+    /**
+     * The tools installed on a build agent may have changed when it reconnects
+     */
+    @Extension
+    public static class ComputerListenerImpl extends ComputerListener {
+        @Override
+        public void onOnline(Computer c, TaskListener listener) {
+            invalidate(c);
+        }
+
+        @Override
+        public void onOffline(@Nonnull Computer c, @CheckForNull OfflineCause cause) {
+            invalidate(c);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import com.cloudbees.plugins.credentials.common.StandardUsernameCredentials;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import org.jenkinsci.plugins.configfiles.maven.security.ServerCredentialMapping;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Cache, for the duration of a build, of the credentials of the Maven servers resolved for the Maven settings files
+ * of the Config File Provider. The {@code withMaven} steps of a build, typically running in parallel stages, reuse the
+ * credentials resolved by the first step rather than looking them up again in the credentials providers.
+ * <p>
+ * The resolved credentials are cached per config file and server to credentials mappings so that a modified config
+ * file is resolved again. Only the references to the {@link StandardUsernameCredentials} are cached, the settings
+ * rendered with the credentials are never cached. The steps still collect the credentials for the console masking and
+ * for {@link com.cloudbees.plugins.credentials.CredentialsProvider#trackAll(Run, List)}.
+ * The resolved credentials of a build are discarded when the build completes or is deleted.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenServerCredentialsCache {
+    private static final Logger LOGGER = Logger.getLogger(MavenServerCredentialsCache.class.getName());
+
+    private static final String KEY_SEPARATOR = "|";
+
+    /**
+     * externalizable id of the build -> key -> Maven server id -> credentials
+     */
+    private static final ConcurrentMap<String, ConcurrentMap<String, Map<String, StandardUsernameCredentials>>> resolvedCredentialsByBuild = new ConcurrentHashMap<>();
+
+    private MavenServerCredentialsCache() {
+    }
+
+    /**
+     * @param configId                 id of the config file
+     * @param serverCredentialMappings Maven server id to credentials id mappings of the config file
+     * @return the key of the resolved credentials
+     */
+    @Nonnull
+    public static String getKey(@Nonnull String configId, @Nonnull List<ServerCredentialMapping> serverCredentialMappings) {
+        TreeSet<String> mappings = new TreeSet<>();
+        for (ServerCredentialMapping serverCredentialMapping : serverCredentialMappings) {
+            mappings.add(serverCredentialMapping.getServerId() + "=" + serverCredentialMapping.getCredentialsId());
+        }
+        return configId + KEY_SEPARATOR + String.join(KEY_SEPARATOR, mappings);
+    }
+
+    /**
+     * @param key see {@link #getKey(String, List)}
+     * @return the credentials resolved by a previous step of the build, {@code null} if none
+     */
+    @CheckForNull
+    public static Map<String, StandardUsernameCredentials> get(@Nonnull Run<?, ?> run, @Nonnull String key) {
+        Map<String, Map<String, StandardUsernameCredentials>> resolvedCredentials = resolvedCredentialsByBuild.get(run.getExternalizableId());
+        return resolvedCredentials == null ? null : resolvedCredentials.get(key);
+    }
+
+    /**
+     * @param key                 see {@link #getKey(String, List)}
+     * @param resolvedCredentials Maven server id -> credentials
+     */
+    public static void put(@Nonnull Run<?, ?> run, @Nonnull String key, @Nonnull Map<String, StandardUsernameCredentials> resolvedCredentials) {
+        resolvedCredentialsByBuild.computeIfAbsent(run.getExternalizableId(), id -> new ConcurrentHashMap<>())
+                .put(key, Collections.unmodifiableMap(new LinkedHashMap<>(resolvedCredentials)));
+    }
+
+    /**
+     * Discard the resolved credentials of the given build
+     */
+    public static void invalidate(@Nonnull Run<?, ?> run) {
+        if (resolvedCredentialsByBuild.remove(run.getExternalizableId()) != null) {
+            LOGGER.log(Level.FINE, "Discarded the Maven servers credentials resolved for {0}", run);
+        }
+    }
+
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run<?, ?>> {
+        @Override
+        public void onCompleted(Run<?, ?> run, @Nonnull TaskListener listener) {
+            invalidate(run);
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            invalidate(run);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Content addressed cache of the Maven Spy jar on the build agents. The jar is uploaded once per build agent and
+ * version of the jar in {@code $AGENT_ROOT/caches/pipeline-maven-spy/pipeline-maven-spy-<md5>.jar} rather than in the
+ * temporary folder of each {@code withMaven} step.
+ * <p>
+ * The versions of the jar not used for {@link #STALE_JAR_AGE_IN_DAYS} days are deleted in the background, the
+ * builds resumed after an upgrade of the plugin may still use them.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenSpyJarCache {
+    private static final Logger LOGGER = Logger.getLogger(MavenSpyJarCache.class.getName());
+
+    /**
+     * Number of days after which the unused versions of the jar are deleted
+     */
+    private static final int STALE_JAR_AGE_IN_DAYS = Integer.getInteger(MavenSpyJarCache.class.getName() + ".STALE_JAR_AGE_IN_DAYS", 7);
+
+    private static final long CLEANUP_INTERVAL_IN_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final String FILE_NAME_PREFIX = "pipeline-maven-spy-";
+
+    private static final String FILE_NAME_SUFFIX = ".jar";
+
+    /**
+     * remote path of the cache folder -> time of the last cleanup
+     */
+    private static final ConcurrentMap<String, Long> lastCleanups = new ConcurrentHashMap<>();
+
+    private MavenSpyJarCache() {
+    }
+
+    /**
+     * @param agentRoot root folder of the build agent
+     * @param jar       content of the Maven Spy jar
+     * @return the Maven Spy jar on the build agent
+     */
+    @Nonnull
+    public static FilePath getCachedJar(@Nonnull FilePath agentRoot, @Nonnull byte[] jar) throws IOException, InterruptedException {
+        FilePath cacheDir = getCacheDir(agentRoot);
+        String md5 = Util.getDigestOf(new ByteArrayInputStream(jar));
+        String fileName = getFileName(md5);
+        FilePath cachedJar = cacheDir.child(fileName);
+
+        if (!cacheDir.act(new Verify(fileName, jar.length, md5))) {
+            // the parallel steps running on the same agent may upload the jar at the same time
+            FilePath tmpJar = cacheDir.child(fileName + "." + UUID.randomUUID().toString().substring(0, 8) + ".tmp");
+            tmpJar.copyFrom(new ByteArrayInputStream(jar));
+            try {
+                tmpJar.renameTo(cachedJar);
+            } catch (IOException e) {
+                // e.g. the jar uploaded by another step is in use on Windows
+                tmpJar.delete();
+                if (!cacheDir.act(new Verify(fileName, jar.length, md5))) {
+                    throw e;
+                }
+            }
+            LOGGER.log(Level.FINE, "Cached Maven Spy jar {0}", cachedJar);
+        }
+
+        scheduleCleanup(cacheDir, fileName);
+        return cachedJar;
+    }
+
+    /**
+     * Lookup the jar in the cache as part of the given setup of the build agent rather than with a dedicated
+     * round trip. If the setup reports the jar as missing, {@link #getCachedJar(FilePath, byte[])} uploads it.
+     *
+     * @param agentRoot root folder of the build agent
+     * @param jar       content of the Maven Spy jar
+     * @param setup     setup of the build agent
+     * @return the Maven Spy jar on the build agent once the setup successfully verified it
+     */
+    @Nonnull
+    public static FilePath getCachedJar(@Nonnull FilePath agentRoot, @Nonnull byte[] jar, @Nonnull AgentSetup setup) throws IOException, InterruptedException {
+        FilePath cacheDir = getCacheDir(agentRoot);
+        String md5 = Util.getDigestOf(new ByteArrayInputStream(jar));
+        String fileName = getFileName(md5);
+        setup.verifyMavenSpyJar(cacheDir.getRemote(), new Verify(fileName, jar.length, md5));
+        scheduleCleanup(cacheDir, fileName);
+        return cacheDir.child(fileName);
+    }
+
+    @Nonnull
+    private static FilePath getCacheDir(@Nonnull FilePath agentRoot) {
+        return agentRoot.child("caches").child("pipeline-maven-spy");
+    }
+
+    @Nonnull
+    private static String getFileName(@Nonnull String md5) {
+        return FILE_NAME_PREFIX + md5 + FILE_NAME_SUFFIX;
+    }
+
+    private static void scheduleCleanup(@Nonnull FilePath cacheDir, @Nonnull String fileName) throws IOException, InterruptedException {
+        Long lastCleanup = lastCleanups.get(cacheDir.getRemote());
+        long now = System.currentTimeMillis();
+        if (lastCleanup == null || now - lastCleanup > CLEANUP_INTERVAL_IN_MILLIS) {
+            lastCleanups.put(cacheDir.getRemote(), now);
+            // don't wait for the cleanup
+            cacheDir.actAsync(new Cleanup(fileName, TimeUnit.DAYS.toMillis(STALE_JAR_AGE_IN_DAYS)));
+        }
+    }
+
+    /**
+     * Verify on the build agent the length and the digest of the cached jar and mark it as used. The jars already
+     * verified by the agent and not modified since are only checked by length.
+     */
+    static class Verify extends MasterToSlaveFileCallable<Boolean> {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * path of the jar -> last modification date of the verified jar, static state of the build agent
+         */
+        private static final ConcurrentMap<String, Long> verifiedJars = new ConcurrentHashMap<>();
+
+        private static final long TOUCH_INTERVAL_IN_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+        private final String fileName;
+        private final long length;
+        private final String md5;
+
+        Verify(@Nonnull String fileName, long length, @Nonnull String md5) {
+            this.fileName = fileName;
+            this.length = length;
+            this.md5 = md5;
+        }
+
+        /**
+         * @return {@code true} if the jar is in the cache
+         */
+        @Override
+        public Boolean invoke(File cacheDir, VirtualChannel channel) throws IOException, InterruptedException {
+            File jar = new File(cacheDir, fileName);
+            if (!jar.isFile() || jar.length() != length) {
+                if (!cacheDir.isDirectory() && !cacheDir.mkdirs() && !cacheDir.isDirectory()) {
+                    throw new IOException("Failure to create " + cacheDir);
+                }
+                return false;
+            }
+            String path = jar.getPath();
+            Long verifiedLastModified = verifiedJars.get(path);
+            if (verifiedLastModified == null || verifiedLastModified != jar.lastModified()) {
+                try (InputStream in = new FileInputStream(jar)) {
+                    if (!md5.equals(Util.getDigestOf(in))) {
+                        verifiedJars.remove(path);
+                        return false;
+                    }
+                }
+            }
+            // the last modification date tells the cleanup that the jar is in use
+            long now = System.currentTimeMillis();
+            if (now - jar.lastModified() > TOUCH_INTERVAL_IN_MILLIS) {
+                jar.setLastModified(now);
+            }
+            verifiedJars.put(path, jar.lastModified());
+            return true;
+        }
+    }
+
+    /**
+     * Delete on the build agent the jars not used for a while and the leftovers of interrupted uploads
+     */
+    static class Cleanup extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final String currentFileName;
+        private final long staleAgeInMillis;
+
+        Cleanup(@Nonnull String currentFileName, long staleAgeInMillis) {
+            this.currentFileName = currentFileName;
+            this.staleAgeInMillis = staleAgeInMillis;
+        }
+
+        @Override
+        public Void invoke(File cacheDir, VirtualChannel channel) throws IOException, InterruptedException {
+            File[] files = cacheDir.listFiles();
+            if (files == null) {
+                return null;
+            }
+            long now = System.currentTimeMillis();
+            for (File file : files) {
+                String name = file.getName();
+                if (name.equals(currentFileName) || !name.startsWith(FILE_NAME_PREFIX) || now - file.lastModified() < staleAgeInMillis) {
+                    continue;
+                }
+                if (!file.delete()) {
+                    // the jar may be in use on Windows
+                    LOGGER.log(Level.FINE, "Failure to delete stale Maven Spy jar {0}", file);
+                }
+            }
+            return null;
+        }
+    }
+}
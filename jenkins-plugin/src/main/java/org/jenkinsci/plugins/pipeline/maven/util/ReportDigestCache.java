@@ -0,0 +1,315 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Run;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Digests of the report directories published by a build, saved with the build to detect the report directories that
+ * did not change since the previous successful build (e.g. modules not rebuilt by an incremental build) and reuse the
+ * copy of these directories stored by the previous build rather than uploading them again from the build agent.
+ * <p>
+ * The digest of a report directory is computed on the controller from the relative paths, lengths and last
+ * modification dates of its files probed by the {@link WorkspaceSnapshot}, the reports are not read again on the build
+ * agent.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class ReportDigestCache {
+    private static final Logger LOGGER = Logger.getLogger(ReportDigestCache.class.getName());
+
+    /**
+     * Name of the file in the folder of the build, {@code publisher:report directory -> digest}
+     */
+    static final String FILE_NAME = "pipeline-maven-report-digests.properties";
+
+    /**
+     * Name of the folder of the build in which the reports are staged when only some of them changed
+     */
+    static final String STAGING_DIR_NAME = "pipeline-maven-reports-staging";
+
+    private ReportDigestCache() {
+    }
+
+    /**
+     * @param snapshot            snapshot of the workspace in which the pattern has been listed
+     * @param pattern             Ant pattern matching the files of the reports, see {@link WorkspaceSnapshot#list(String)}
+     * @param reportDirectoryName name of the report directories (e.g. {@code target/concordion-reports})
+     * @return report directory relative to the workspace -> digest, {@code null} if the pattern or its files have not
+     * been probed
+     */
+    @CheckForNull
+    public static Map<String, String> getDigests(@Nonnull WorkspaceSnapshot snapshot, @Nonnull String pattern, @Nonnull String reportDirectoryName) {
+        List<String> files = snapshot.list(pattern);
+        if (files == null) {
+            return null;
+        }
+        List<String> sortedFiles = new ArrayList<>(files);
+        Collections.sort(sortedFiles);
+        Map<String, MessageDigest> messageDigests = new TreeMap<>();
+        for (String file : sortedFiles) {
+            String path = file.replace('\\', '/');
+            int index = ("/" + path).indexOf("/" + reportDirectoryName + "/");
+            WorkspaceSnapshot.PathInfo pathInfo = snapshot.getPath(file);
+            if (index == -1) {
+                continue;
+            } else if (pathInfo == null) {
+                return null;
+            }
+            String reportDirectory = path.substring(0, index + reportDirectoryName.length());
+            MessageDigest messageDigest = messageDigests.computeIfAbsent(reportDirectory, d -> newMessageDigest());
+            messageDigest.update((path.substring(reportDirectory.length() + 1) + "=" + pathInfo.length() + ":" + pathInfo.lastModified() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        Map<String, String> digests = new TreeMap<>();
+        for (Map.Entry<String, MessageDigest> messageDigest : messageDigests.entrySet()) {
+            digests.put(messageDigest.getKey(), Util.toHexString(messageDigest.getValue().digest()));
+        }
+        return digests;
+    }
+
+    /**
+     * Prepare the root from which the reports of the build are published: the workspace if no report directory can
+     * be reused, the reports stored by the previous successful build if none changed and otherwise a folder of the
+     * build in which the unchanged report directories are copied from the previous build and the others from the
+     * workspace.
+     *
+     * @param run                      current build
+     * @param publisher                name of the publisher (e.g. {@code concordionPublisher})
+     * @param workspace                workspace of the build
+     * @param digests                  report directory -> digest of the reports of the current build, {@code null}
+     *                                 if unknown
+     * @param previousReportsDirectory folder in which a build stored the reports, by their path relative to the
+     *                                 workspace
+     * @return the root of the reports, to {@link ReportsRoot#cleanUp()} once published
+     */
+    @Nonnull
+    public static ReportsRoot prepareReportsRoot(@Nonnull Run<?, ?> run, @Nonnull String publisher, @Nonnull FilePath workspace,
+                                                 @CheckForNull Map<String, String> digests, @Nonnull Function<Run<?, ?>, File> previousReportsDirectory) throws IOException, InterruptedException {
+        if (digests == null || digests.isEmpty()) {
+            return new ReportsRoot(workspace, null, null, Collections.<String>emptySet());
+        }
+        Run<?, ?> previousSuccessfulBuild = run.getPreviousSuccessfulBuild();
+        if (previousSuccessfulBuild == null) {
+            return new ReportsRoot(workspace, null, null, Collections.<String>emptySet());
+        }
+        File previousReports = previousReportsDirectory.apply(previousSuccessfulBuild);
+        Map<String, String> previousDigests = load(previousSuccessfulBuild, publisher);
+        Set<String> reusedReports = getReusableReports(previousDigests, digests, previousReports);
+        if (reusedReports.isEmpty()) {
+            return new ReportsRoot(workspace, null, null, reusedReports);
+        } else if (reusedReports.equals(previousDigests.keySet()) && reusedReports.equals(digests.keySet())) {
+            return new ReportsRoot(new FilePath(previousReports), null, previousSuccessfulBuild, reusedReports);
+        }
+        File stagingDirectory = new File(new File(run.getRootDir(), STAGING_DIR_NAME), publisher);
+        FilePath stagingRoot = new FilePath(stagingDirectory);
+        stage(workspace, previousReports, stagingRoot, previousDigests.keySet(), digests.keySet(), reusedReports);
+        return new ReportsRoot(stagingRoot, stagingDirectory, previousSuccessfulBuild, reusedReports);
+    }
+
+    /**
+     * @return the report directories unchanged since the previous build and still stored by the previous build
+     */
+    @Nonnull
+    static Set<String> getReusableReports(@Nonnull Map<String, String> previousDigests, @Nonnull Map<String, String> digests, @Nonnull File previousReports) {
+        Set<String> reusableReports = new TreeSet<>();
+        for (Map.Entry<String, String> digest : digests.entrySet()) {
+            if (digest.getValue().equals(previousDigests.get(digest.getKey())) && new File(previousReports, digest.getKey()).isDirectory()) {
+                reusableReports.add(digest.getKey());
+            }
+        }
+        return reusableReports;
+    }
+
+    /**
+     * Copy the reports stored by the previous build in the staging folder and replace the report directories that
+     * changed or no longer exist by the ones of the workspace
+     */
+    static void stage(@Nonnull FilePath workspace, @Nonnull File previousReports, @Nonnull FilePath stagingRoot,
+                      @Nonnull Set<String> previousReportDirectories, @Nonnull Set<String> reportDirectories, @Nonnull Set<String> reusedReports) throws IOException, InterruptedException {
+        stagingRoot.deleteRecursive();
+        stagingRoot.mkdirs();
+        new FilePath(previousReports).copyRecursiveTo(stagingRoot);
+        for (String reportDirectory : previousReportDirectories) {
+            if (!reusedReports.contains(reportDirectory)) {
+                stagingRoot.child(reportDirectory).deleteRecursive();
+            }
+        }
+        for (String reportDirectory : reportDirectories) {
+            if (!reusedReports.contains(reportDirectory)) {
+                workspace.child(reportDirectory).copyRecursiveTo(stagingRoot.child(reportDirectory));
+            }
+        }
+    }
+
+    /**
+     * Save the digests of the report directories published by the build
+     *
+     * @param run       current build
+     * @param publisher name of the publisher (e.g. {@code concordionPublisher})
+     * @param digests   report directory -> digest
+     */
+    public static void save(@Nonnull Run<?, ?> run, @Nonnull String publisher, @Nonnull Map<String, String> digests) {
+        File file = new File(run.getRootDir(), FILE_NAME);
+        // the publishers may run in parallel
+        synchronized (ReportDigestCache.class) {
+            Properties properties = new Properties();
+            try {
+                if (file.exists()) {
+                    try (InputStream in = new FileInputStream(file)) {
+                        properties.load(in);
+                    }
+                }
+                for (Map.Entry<String, String> digest : digests.entrySet()) {
+                    properties.setProperty(publisher + ":" + digest.getKey(), digest.getValue());
+                }
+                try (OutputStream out = new FileOutputStream(file)) {
+                    properties.store(out, null);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Exception saving the report digests of " + run + " in " + file, e);
+            }
+        }
+    }
+
+    /**
+     * @return report directory -> digest of the reports published by the given publisher, sorted by report directory
+     */
+    @Nonnull
+    static Map<String, String> load(@Nonnull Run<?, ?> run, @Nonnull String publisher) {
+        Map<String, String> digests = new TreeMap<>();
+        File file = new File(run.getRootDir(), FILE_NAME);
+        if (!file.exists()) {
+            return digests;
+        }
+        Properties properties = new Properties();
+        synchronized (ReportDigestCache.class) {
+            try (InputStream in = new FileInputStream(file)) {
+                properties.load(in);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Exception loading the report digests of " + run + " from " + file, e);
+                return digests;
+            }
+        }
+        String prefix = publisher + ":";
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                digests.put(key.substring(prefix.length()), properties.getProperty(key));
+            }
+        }
+        return digests;
+    }
+
+    @Nonnull
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Root from which the reports of a build are published
+     */
+    public static class ReportsRoot {
+        @Nonnull
+        private final FilePath root;
+        @CheckForNull
+        private final File stagingDirectory;
+        @CheckForNull
+        private final Run<?, ?> previousBuild;
+        @Nonnull
+        private final Set<String> reusedReports;
+
+        ReportsRoot(@Nonnull FilePath root, @CheckForNull File stagingDirectory, @CheckForNull Run<?, ?> previousBuild, @Nonnull Set<String> reusedReports) {
+            this.root = root;
+            this.stagingDirectory = stagingDirectory;
+            this.previousBuild = previousBuild;
+            this.reusedReports = reusedReports;
+        }
+
+        @Nonnull
+        public FilePath getRoot() {
+            return root;
+        }
+
+        /**
+         * @return the build from which report directories are reused, {@code null} if none
+         */
+        @CheckForNull
+        public Run<?, ?> getPreviousBuild() {
+            return previousBuild;
+        }
+
+        /**
+         * @return the report directories copied from the reports stored by the previous build
+         */
+        @Nonnull
+        public Set<String> getReusedReports() {
+            return reusedReports;
+        }
+
+        /**
+         * Delete the staging folder, if any
+         */
+        public void cleanUp() {
+            if (stagingDirectory != null) {
+                try {
+                    new FilePath(stagingDirectory).deleteRecursive();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Exception deleting " + stagingDirectory, e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import org.apache.tools.ant.BuildException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * State of the paths and patterns of the workspace probed by the publishers, collected on the build agent in a single
+ * round trip by the {@link ProbeCallable} rather than with one remote call per {@link hudson.FilePath#exists()} or
+ * {@link hudson.FilePath#list(String)}.
+ * <p>
+ * The snapshot is taken before the publishers are executed, the publishers must fall back to the
+ * {@link hudson.FilePath} for the paths and patterns they didn't request or that they generate.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ * @see org.jenkinsci.plugins.pipeline.maven.MavenPublisher#collectWorkspaceProbes(org.jenkinsci.plugins.workflow.steps.StepContext, org.jenkinsci.plugins.pipeline.maven.MavenSpyLogModel, Request)
+ */
+public class WorkspaceSnapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * path relative to the workspace -> state
+     */
+    private final Map<String, PathInfo> paths = new HashMap<>();
+
+    /**
+     * Ant pattern -> paths relative to the workspace of the matching files, the state of the matching files is
+     * probed as well
+     */
+    private final Map<String, List<String>> patterns = new HashMap<>();
+
+    /**
+     * @param path path relative to the workspace
+     * @return the state of the path, {@code null} if the path has not been probed nor matched by a probed pattern
+     */
+    @CheckForNull
+    public PathInfo getPath(@Nonnull String path) {
+        return paths.get(path);
+    }
+
+    /**
+     * @param pattern Ant pattern, see {@link hudson.FilePath#list(String)}
+     * @return paths relative to the workspace of the files matching the pattern, {@code null} if the pattern has not
+     * been probed
+     */
+    @CheckForNull
+    public List<String> list(@Nonnull String pattern) {
+        return patterns.get(pattern);
+    }
+
+    /**
+     * Add the probes of the given snapshot to this snapshot
+     */
+    public void add(@Nonnull WorkspaceSnapshot other) {
+        paths.putAll(other.paths);
+        patterns.putAll(other.patterns);
+    }
+
+    @Override
+    public String toString() {
+        return "WorkspaceSnapshot[paths=" + paths.size() + ", patterns=" + patterns.size() + "]";
+    }
+
+    /**
+     * State of a path of the workspace
+     */
+    public static class PathInfo implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean exists;
+        private final boolean directory;
+        private final long length;
+        private final long lastModified;
+
+        PathInfo(boolean exists, boolean directory, long length, long lastModified) {
+            this.exists = exists;
+            this.directory = directory;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        public boolean exists() {
+            return exists;
+        }
+
+        public boolean isDirectory() {
+            return directory;
+        }
+
+        /**
+         * @return the length of the file, {@code 0} for a directory or a path that doesn't exist
+         */
+        public long length() {
+            return length;
+        }
+
+        /**
+         * @return see {@link File#lastModified()}
+         */
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public String toString() {
+            return exists ? (directory ? "directory" : "file[length=" + length + "]") : "not found";
+        }
+    }
+
+    /**
+     * Paths and patterns to probe
+     */
+    public static class Request implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Set<String> paths = new LinkedHashSet<>();
+        private final Set<String> patterns = new LinkedHashSet<>();
+
+        /**
+         * @param path path relative to the workspace
+         */
+        public Request addPath(@Nonnull String path) {
+            paths.add(path);
+            return this;
+        }
+
+        /**
+         * @param pattern Ant pattern, see {@link hudson.FilePath#list(String)}
+         */
+        public Request addPattern(@Nonnull String pattern) {
+            patterns.add(pattern);
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return paths.isEmpty() && patterns.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "WorkspaceSnapshot.Request[paths=" + paths + ", patterns=" + patterns + "]";
+        }
+    }
+
+    /**
+     * Probe the paths and patterns of the request on the build agent, invoked on the workspace
+     */
+    public static class ProbeCallable extends MasterToSlaveFileCallable<WorkspaceSnapshot> {
+        private static final long serialVersionUID = 1L;
+
+        private final Request request;
+
+        public ProbeCallable(@Nonnull Request request) {
+            this.request = request;
+        }
+
+        @Override
+        public WorkspaceSnapshot invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+            WorkspaceSnapshot snapshot = new WorkspaceSnapshot();
+            for (String path : request.paths) {
+                snapshot.paths.put(path, probe(new File(workspace, path)));
+            }
+            for (String pattern : request.patterns) {
+                if (!workspace.isDirectory()) {
+                    snapshot.patterns.put(pattern, Collections.emptyList());
+                    continue;
+                }
+                String[] includedFiles;
+                try {
+                    includedFiles = Util.createFileSet(workspace, pattern).getDirectoryScanner().getIncludedFiles();
+                } catch (BuildException e) {
+                    // not probed, the publisher will report the invalid pattern
+                    continue;
+                }
+                snapshot.patterns.put(pattern, Arrays.asList(includedFiles));
+                for (String includedFile : includedFiles) {
+                    snapshot.paths.put(includedFile, probe(new File(workspace, includedFile)));
+                }
+            }
+            return snapshot;
+        }
+
+        @Nonnull
+        private static PathInfo probe(@Nonnull File file) {
+            boolean exists = file.exists();
+            boolean directory = exists && file.isDirectory();
+            return new PathInfo(exists, directory, exists && !directory ? file.length() : 0, file.lastModified());
+        }
+    }
+}
@@ -31,6 +31,7 @@ import org.jenkinsci.plugins.pipeline.maven.MavenArtifact;
 import org.jenkinsci.plugins.pipeline.maven.MavenDependency;
 import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogProcessor;
 import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -40,9 +41,11 @@ import java.io.StringWriter;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.logging.Level;
@@ -62,6 +65,8 @@ import javax.xml.transform.stream.StreamResult;
 public class XmlUtils {
     private static final Logger LOGGER = Logger.getLogger(XmlUtils.class.getName());
 
+    private static final String PROJECT_DEFINITIONS_USER_DATA_KEY = XmlUtils.class.getName() + ".projectDefinitions";
+
     public static MavenArtifact newMavenArtifact(Element artifactElt) {
         MavenArtifact mavenArtifact = new MavenArtifact();
         loadMavenArtifact(artifactElt, mavenArtifact);
@@ -136,6 +141,65 @@ public class XmlUtils {
         return result;
     }
 
+    /**
+     * Return the {@code <project>} element of the given event.
+     * <p>
+     * The Maven Spy writes each project once as a {@code <projectDef id="...">} element and then references it
+     * in the events with a {@code <project ref="..."/>} element, the reference is resolved to the {@code <projectDef>}.
+     * Inline {@code <project>} elements of older Maven Spy logs are returned as is.
+     *
+     * @param event element having a {@code <project>} child (e.g. {@code <ExecutionEvent>})
+     */
+    @Nonnull
+    public static Element getProjectElement(@Nonnull Element event) {
+        Element projectElt = getProjectElementOrNull(event);
+        if (projectElt == null) {
+            throw new IllegalStateException("No <project> element found");
+        }
+        return projectElt;
+    }
+
+    /**
+     * @see #getProjectElement(Element)
+     */
+    @Nullable
+    public static Element getProjectElementOrNull(@Nonnull Element event) {
+        Element projectElt = getUniqueChildElementOrNull(event, "project");
+        if (projectElt == null || !projectElt.hasAttribute("ref")) {
+            return projectElt;
+        }
+        String ref = projectElt.getAttribute("ref");
+        Element projectDefElt = getProjectDefinitions(event.getOwnerDocument(), false).get(ref);
+        if (projectDefElt == null) {
+            // the document may have grown since the index has been built (events streamed while Maven is running)
+            projectDefElt = getProjectDefinitions(event.getOwnerDocument(), true).get(ref);
+        }
+        if (projectDefElt == null) {
+            throw new IllegalStateException("No <projectDef id=\"" + ref + "\"> element found");
+        }
+        return projectDefElt;
+    }
+
+    /**
+     * Index of the {@code <projectDef>} elements by {@code id}, lazily built and attached to the document.
+     *
+     * @param rebuild {@code true} to rebuild the index
+     */
+    @Nonnull
+    private static Map<String, Element> getProjectDefinitions(@Nonnull Document document, boolean rebuild) {
+        synchronized (document) {
+            Map<String, Element> projectDefinitions = (Map<String, Element>) document.getUserData(PROJECT_DEFINITIONS_USER_DATA_KEY);
+            if (projectDefinitions == null || rebuild) {
+                projectDefinitions = new HashMap<>();
+                for (Element projectDefElt : getChildrenElements(document.getDocumentElement(), "projectDef")) {
+                    projectDefinitions.put(projectDefElt.getAttribute("id"), projectDefElt);
+                }
+                document.setUserData(PROJECT_DEFINITIONS_USER_DATA_KEY, projectDefinitions, null);
+            }
+            return projectDefinitions;
+        }
+    }
+
     @Nonnull
     public static List<Element> getChildrenElements(@Nonnull Element element, @Nonnull String childElementName) {
         NodeList childElts = element.getChildNodes();
@@ -164,6 +228,30 @@ public class XmlUtils {
         }
     }
 
+    /**
+     * Digests of the files computed by the Maven Spy.
+     * <pre>{@code
+     * <FileDigests algorithm="MD5">
+     *     <file path="/path/to/my-project-workspace/target/my-jar-0.5-SNAPSHOT.jar" md5="5d41402abc4b2a76b9719d911017c592"/>
+     * </FileDigests>
+     * }</pre>
+     *
+     * @return MD5 digests indexed by the path of the file as written in the maven spy report, empty if the digests have not been computed
+     */
+    @Nonnull
+    public static Map<String, String> getFileDigests(@Nonnull Element mavenSpyLogs) {
+        Map<String, String> result = new HashMap<>();
+        for (Element fileDigestsElt : getChildrenElements(mavenSpyLogs, "FileDigests")) {
+            if (!"MD5".equals(fileDigestsElt.getAttribute("algorithm"))) {
+                continue;
+            }
+            for (Element fileElt : getChildrenElements(fileDigestsElt, "file")) {
+                result.put(fileElt.getAttribute("path"), fileElt.getAttribute("md5"));
+            }
+        }
+        return result;
+    }
+
     @Nonnull
     public static List<Element> getExecutionEvents(@Nonnull Element mavenSpyLogs, String... expectedType) {
 
@@ -436,13 +524,18 @@ public class XmlUtils {
     @Nonnull
     public static List<MavenArtifact> listGeneratedArtifacts(Element mavenSpyLogs, boolean includeAttachedArtifacts) {
 
-        List<Element> artifactDeployedEvents = XmlUtils.getArtifactDeployedEvents(mavenSpyLogs);
+        // index the deployed artifacts by file rather than searching the deployed events for each generated artifact
+        Map<String, String> repositoryUrlsByDeployedFile = new HashMap<>();
+        for (Element artifactDeployedEvent : XmlUtils.getArtifactDeployedEvents(mavenSpyLogs)) {
+            String deployedArtifactFilePath = getUniqueChildElement(artifactDeployedEvent, "artifact").getAttribute("file");
+            repositoryUrlsByDeployedFile.putIfAbsent(deployedArtifactFilePath, getUniqueChildElement(artifactDeployedEvent, "repository").getAttribute("url"));
+        }
 
         List<MavenArtifact> result = new ArrayList<>();
 
         for (Element projectSucceededElt : XmlUtils.getExecutionEvents(mavenSpyLogs, "ProjectSucceeded")) {
 
-            Element projectElt = XmlUtils.getUniqueChildElement(projectSucceededElt, "project");
+            Element projectElt = XmlUtils.getProjectElement(projectSucceededElt);
             MavenArtifact projectArtifact = XmlUtils.newMavenArtifact(projectElt);
             MavenArtifact pomArtifact = new MavenArtifact();
             pomArtifact.setGroupId(projectArtifact.getGroupId());
@@ -471,12 +564,8 @@ public class XmlUtils {
                 } else {
                     mavenArtifact.setFile(StringUtils.trim(fileElt.getTextContent()));
 
-                    Element artifactDeployedEvent = XmlUtils.getArtifactDeployedEvent(artifactDeployedEvents, mavenArtifact.getFile());
-                    if(artifactDeployedEvent == null) {
-                        // artifact has not been deployed ("mvn deploy")
-                    } else {
-                        mavenArtifact.setRepositoryUrl(XmlUtils.getUniqueChildElement(artifactDeployedEvent, "repository").getAttribute("url"));
-                    }
+                    // null if the artifact has not been deployed ("mvn deploy")
+                    mavenArtifact.setRepositoryUrl(repositoryUrlsByDeployedFile.get(mavenArtifact.getFile()));
                 }
                 result.add(mavenArtifact);
             }
@@ -496,13 +585,8 @@ public class XmlUtils {
                     } else {
                         attachedMavenArtifact.setFile(StringUtils.trim(fileElt.getTextContent()));
 
-                        Element attachedArtifactDeployedEvent = XmlUtils.getArtifactDeployedEvent(artifactDeployedEvents, attachedMavenArtifact.getFile());
-                        if(attachedArtifactDeployedEvent == null) {
-                            // artifact has not been deployed ("mvn deploy")
-                        } else {
-                            attachedMavenArtifact.setRepositoryUrl(XmlUtils.getUniqueChildElement(attachedArtifactDeployedEvent, "repository").getAttribute("url"));
-                        }
-
+                        // null if the artifact has not been deployed ("mvn deploy")
+                        attachedMavenArtifact.setRepositoryUrl(repositoryUrlsByDeployedFile.get(attachedMavenArtifact.getFile()));
                     }
                     result.add(attachedMavenArtifact);
                 }
@@ -0,0 +1,178 @@
+package org.jenkinsci.plugins.pipeline.maven;
+
+import hudson.util.StreamTaskListener;
+import org.hamcrest.Matchers;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenPublishersExecutorTest {
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    private final ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+    private final StreamTaskListener listener = new StreamTaskListener(log, StandardCharsets.UTF_8);
+
+    @Test
+    public void test_publishers_to_run_before_are_completed_first() throws Exception {
+        List<MavenPublisher> publishers = Arrays.asList(
+                new TestPublisher(events, "graph", false, 0, "artifacts"),
+                new TestPublisher(events, "artifacts", false, 300),
+                new TestPublisher(events, "profile", false, 0));
+
+        new MavenPublishersExecutor(listener, 1, TimeUnit.MINUTES).execute(publishers, publisher -> ((TestPublisher) publisher).run());
+
+        Assert.assertThat(events, Matchers.containsInAnyOrder("start artifacts", "end artifacts", "start graph", "end graph", "start profile", "end profile"));
+        Assert.assertThat(events.indexOf("end artifacts"), Matchers.lessThan(events.indexOf("start graph")));
+    }
+
+    @Test
+    public void test_publishers_changing_the_build_result_run_one_at_a_time() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<MavenPublisher> publishers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            publishers.add(new TestPublisher(events, "junit-" + i, true, 100) {
+                @Override
+                void run() throws InterruptedException {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        super.run();
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                }
+            });
+        }
+
+        new MavenPublishersExecutor(listener, 1, TimeUnit.MINUTES).execute(publishers, publisher -> ((TestPublisher) publisher).run());
+
+        Assert.assertThat(events.size(), Matchers.is(8));
+        Assert.assertThat(maxRunning.get(), Matchers.is(1));
+    }
+
+    @Test
+    public void test_cycle_in_the_publishers_to_run_before_falls_back_to_the_sequential_order() throws Exception {
+        List<MavenPublisher> publishers = Arrays.asList(
+                new TestPublisher(events, "a", false, 0, "b"),
+                new TestPublisher(events, "b", false, 0, "a"));
+
+        new MavenPublishersExecutor(listener, 1, TimeUnit.MINUTES).execute(publishers, publisher -> ((TestPublisher) publisher).run());
+
+        Assert.assertThat(events, Matchers.contains("start a", "end a", "start b", "end b"));
+    }
+
+    @Test
+    public void test_publisher_exceeding_the_timeout_is_interrupted() throws Exception {
+        List<MavenPublisher> publishers = Arrays.asList(
+                new TestPublisher(events, "hanging", false, TimeUnit.MINUTES.toMillis(10)),
+                new TestPublisher(events, "profile", false, 0));
+
+        long startTime = System.nanoTime();
+        new MavenPublishersExecutor(listener, 500, TimeUnit.MILLISECONDS).execute(publishers, publisher -> ((TestPublisher) publisher).run());
+
+        Assert.assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime), Matchers.lessThan(30L));
+        Assert.assertThat(events, Matchers.hasItem("end profile"));
+        Assert.assertThat(events, Matchers.not(Matchers.hasItem("end hanging")));
+        Assert.assertThat(new String(log.toByteArray(), StandardCharsets.UTF_8), Matchers.containsString("hanging timed out"));
+    }
+
+    @Test
+    public void test_timeout_is_not_consumed_waiting_for_a_thread() throws Exception {
+        List<MavenPublisher> publishers = new ArrayList<>();
+        for (int i = 0; i < 3 * MavenPublishersExecutor.MAX_THREADS; i++) {
+            publishers.add(new TestPublisher(events, "publisher-" + i, false, 300));
+        }
+
+        new MavenPublishersExecutor(listener, 1, TimeUnit.SECONDS).execute(publishers, publisher -> ((TestPublisher) publisher).run());
+
+        Assert.assertThat(events.size(), Matchers.is(2 * publishers.size()));
+        Assert.assertThat(new String(log.toByteArray(), StandardCharsets.UTF_8), Matchers.not(Matchers.containsString("timed out")));
+    }
+
+    private static class TestPublisher extends MavenPublisher {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<String> events;
+        private final transient DescriptorImpl descriptor;
+        private final long durationInMillis;
+
+        TestPublisher(List<String> events, String id, boolean mayChangeBuildResult, long durationInMillis, String... publishersToRunBefore) {
+            this.events = events;
+            this.descriptor = new DescriptorImpl(id, mayChangeBuildResult, new HashSet<>(Arrays.asList(publishersToRunBefore)));
+            this.durationInMillis = durationInMillis;
+        }
+
+        void run() throws InterruptedException {
+            events.add("start " + descriptor.getId());
+            Thread.sleep(durationInMillis);
+            events.add("end " + descriptor.getId());
+        }
+
+        @Override
+        public void process(@Nonnull StepContext context, @Nonnull MavenSpyLogModel mavenSpyLogModel) {
+        }
+
+        @Override
+        public DescriptorImpl getDescriptor() {
+            return descriptor;
+        }
+
+        private static class DescriptorImpl extends MavenPublisher.DescriptorImpl {
+            private final String id;
+            private final boolean mayChangeBuildResult;
+            private final Set<String> publishersToRunBefore;
+
+            DescriptorImpl(String id, boolean mayChangeBuildResult, Set<String> publishersToRunBefore) {
+                this.id = id;
+                this.mayChangeBuildResult = mayChangeBuildResult;
+                this.publishersToRunBefore = publishersToRunBefore;
+            }
+
+            @Nonnull
+            @Override
+            public String getId() {
+                return id;
+            }
+
+            @Nonnull
+            @Override
+            public String getDisplayName() {
+                return id;
+            }
+
+            @Override
+            public String getSkipFileName() {
+                return null;
+            }
+
+            @Nonnull
+            @Override
+            public Set<String> getPublishersToRunBefore() {
+                return publishersToRunBefore;
+            }
+
+            @Override
+            public boolean mayChangeBuildResult() {
+                return mayChangeBuildResult;
+            }
+        }
+    }
+}
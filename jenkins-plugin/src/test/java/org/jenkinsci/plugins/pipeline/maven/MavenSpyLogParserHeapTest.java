@@ -0,0 +1,159 @@
+package org.jenkinsci.plugins.pipeline.maven;
+
+import org.hamcrest.Matchers;
+import org.jenkinsci.plugins.pipeline.maven.publishers.BuildProfilePublisher;
+import org.jenkinsci.plugins.pipeline.maven.publishers.MavenBuildProfile;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Parse a synthetic Maven Spy log of {@code MavenSpyLogParserHeapTest.sizeInMegabytes} MB with verbose mojo
+ * configurations and verify that the heap stays bounded when the execution events are spilled to disk, both for the
+ * parsing and for the queries of the publishers.
+ * <p>
+ * Slow test writing a large file, skipped unless the size is given:
+ * {@code mvn test -Dtest=MavenSpyLogParserHeapTest -DMavenSpyLogParserHeapTest.sizeInMegabytes=500}
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenSpyLogParserHeapTest {
+
+    private static final Long SIZE_IN_MEGABYTES = Long.getLong(MavenSpyLogParserHeapTest.class.getSimpleName() + ".sizeInMegabytes");
+
+    private static final long MAX_RETAINED_HEAP_IN_BYTES = 32 * 1024 * 1024;
+
+    private static final long MAX_PUBLISHERS_HEAP_IN_BYTES = 64 * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void test_heap_usage_of_a_large_maven_spy_log() throws Exception {
+        Assume.assumeTrue("Slow test, set MavenSpyLogParserHeapTest.sizeInMegabytes to run it", SIZE_IN_MEGABYTES != null);
+        File mavenSpyLogs = tmp.newFile("maven-spy-large.log");
+        int mojoCount = generateMavenSpyLogs(mavenSpyLogs, SIZE_IN_MEGABYTES * 1024 * 1024);
+
+        long heapBefore = usedHeap();
+        MavenSpyLogModel mavenSpyLogModel = new MavenSpyLogParser.ParseCallable(100 * 1024 * 1024).invoke(mavenSpyLogs, null);
+        long retainedHeap = usedHeap() - heapBefore;
+        System.out.println("Maven Spy logs: " + mavenSpyLogs.length() / 1024 / 1024 + " MB, " + mojoCount + " mojo executions, " +
+                "retained heap: " + retainedHeap / 1024 / 1024 + " MB");
+
+        Assert.assertThat(mavenSpyLogModel.isExecutionEventsSpilled(), Matchers.is(true));
+        Assert.assertThat(retainedHeap, Matchers.lessThan(MAX_RETAINED_HEAP_IN_BYTES));
+
+        mavenSpyLogModel.spilledExecutionEvents.attach(new File(mavenSpyLogs.getPath() + ".events"));
+        try {
+            List<MavenSpyLogModel.ExecutionEvent> surefireEvents = mavenSpyLogModel.getExecutionEventsByPlugin("org.apache.maven.plugins", "maven-surefire-plugin", "test", "MojoSucceeded");
+            Assert.assertThat(surefireEvents.size(), Matchers.is(1));
+            Assert.assertThat(surefireEvents.get(0).getPlugin().getParameter("reportsDirectory"), Matchers.is("${project.build.directory}/surefire-reports"));
+            Assert.assertThat(mavenSpyLogModel.getGeneratedArtifacts(false).size(), Matchers.is(2));
+
+            // queries scanning all the mojo executions
+            HeapSampler heapSampler = new HeapSampler();
+            List<String> lifecyclePhases;
+            MavenBuildProfile buildProfile;
+            try {
+                lifecyclePhases = mavenSpyLogModel.getExecutedLifecyclePhases();
+                buildProfile = BuildProfilePublisher.newBuildProfile(mavenSpyLogModel);
+            } finally {
+                heapSampler.close();
+            }
+            long publishersHeap = heapSampler.getMaxUsedHeap() - heapBefore;
+            Assert.assertThat(lifecyclePhases, Matchers.contains("verify", "test"));
+            Assert.assertThat(buildProfile.getSlowestMojoExecutions().size(), Matchers.is(20));
+            System.out.println("Heap used by the publishers: " + publishersHeap / 1024 / 1024 + " MB");
+            Assert.assertThat(publishersHeap, Matchers.lessThan(MAX_PUBLISHERS_HEAP_IN_BYTES));
+        } finally {
+            mavenSpyLogModel.spilledExecutionEvents.close();
+        }
+    }
+
+    /**
+     * Sample the used heap after a GC while the test thread is running
+     */
+    private static class HeapSampler {
+        private final Thread thread;
+        private volatile long maxUsedHeap;
+        private volatile boolean running = true;
+
+        HeapSampler() {
+            thread = new Thread(() -> {
+                while (running) {
+                    maxUsedHeap = Math.max(maxUsedHeap, usedHeap());
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "heap-sampler");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long getMaxUsedHeap() {
+            return maxUsedHeap;
+        }
+
+        void close() throws InterruptedException {
+            running = false;
+            thread.join();
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * @return number of generated mojo executions
+     */
+    private static int generateMavenSpyLogs(File file, long sizeInBytes) throws IOException {
+        int mojoCount = 0;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8))) {
+            out.write("<mavenExecution>\n");
+            out.write("<projectDef id='p1' baseDir='/path/to/my-jar' file='/path/to/my-jar/pom.xml' groupId='com.example' artifactId='my-jar' version='0.5-SNAPSHOT' packaging='jar'>" +
+                    "<build directory='/path/to/my-jar/target'/></projectDef>\n");
+            out.write("<ExecutionEvent type='ProjectStarted' _time='2018-03-04 19:48:20.000'><project ref='p1'/></ExecutionEvent>\n");
+            long written = 0;
+            while (written < sizeInBytes) {
+                StringBuilder event = new StringBuilder();
+                event.append("<ExecutionEvent type='MojoStarted' _time='2018-03-04 19:48:21.000'><project ref='p1'/></ExecutionEvent>\n");
+                event.append("<ExecutionEvent type='MojoSucceeded' _time='2018-03-04 19:48:22.000' startTime='1520189301000' durationInMillis='").append(mojoCount % 1000).append("'><project ref='p1'/>");
+                event.append("<plugin executionId='execution-").append(mojoCount).append("' goal='run' lifecyclePhase='verify' groupId='com.example.plugins' artifactId='verbose-maven-plugin' version='1.0'>");
+                for (int i = 0; i < 20; i++) {
+                    event.append("<parameter").append(i).append(">value-").append(mojoCount).append('-').append(i).append("-0123456789abcdefghijklmnopqrstuvwxyz0123456789abcdefghijklmnopqrstuvwxyz</parameter").append(i).append('>');
+                }
+                event.append("</plugin></ExecutionEvent>\n");
+                out.write(event.toString());
+                written += event.length();
+                mojoCount++;
+            }
+            out.write("<ExecutionEvent type='MojoSucceeded' _time='2018-03-04 19:48:23.000'><project ref='p1'/>" +
+                    "<plugin executionId='default-test' goal='test' lifecyclePhase='test' groupId='org.apache.maven.plugins' artifactId='maven-surefire-plugin' version='2.19.1'>" +
+                    "<reportsDirectory>${project.build.directory}/surefire-reports</reportsDirectory></plugin></ExecutionEvent>\n");
+            out.write("<ExecutionEvent type='ProjectSucceeded' _time='2018-03-04 19:48:24.000' startTime='1520189300000' durationInMillis='4000'><project ref='p1'/>" +
+                    "<artifact groupId='com.example' artifactId='my-jar' baseVersion='0.5-SNAPSHOT' version='0.5-SNAPSHOT' snapshot='true' type='jar'><file>/path/to/my-jar/target/my-jar-0.5-SNAPSHOT.jar</file></artifact>" +
+                    "</ExecutionEvent>\n");
+            out.write("</mavenExecution>\n");
+        }
+        return mojoCount + 1;
+    }
+}
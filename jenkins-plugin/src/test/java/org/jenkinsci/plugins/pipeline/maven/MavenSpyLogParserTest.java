@@ -0,0 +1,213 @@
+package org.jenkinsci.plugins.pipeline.maven;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenSpyLogParserTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private MavenSpyLogModel parse(String mavenSpyLogs) throws Exception {
+        InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(mavenSpyLogs);
+        in.getClass(); // check non null
+        return MavenSpyLogParser.parse(in);
+    }
+
+    @Test
+    public void test_getGeneratedArtifacts() throws Exception {
+        MavenSpyLogModel mavenSpyLogModel = parse("org/jenkinsci/plugins/pipeline/maven/maven-spy-deploy-jar.xml");
+
+        Assert.assertThat(mavenSpyLogModel.getGeneratedArtifacts(false).size(), Matchers.is(2)); // a jar file and a pom file are generated
+
+        List<MavenArtifact> generatedArtifacts = mavenSpyLogModel.getGeneratedArtifacts(true);
+        System.out.println(generatedArtifacts);
+        Assert.assertThat(generatedArtifacts.size(), Matchers.is(3));
+
+        MavenArtifact jarArtifact = generatedArtifacts.get(1);
+        Assert.assertThat(jarArtifact.getType(), Matchers.is("jar"));
+        Assert.assertThat(jarArtifact.getFile(), Matchers.is("/path/to/my-jar/target/my-jar-0.5-SNAPSHOT.jar"));
+        Assert.assertThat(jarArtifact.getRepositoryUrl(), Matchers.is("https://nexus.beescloud.com/content/repositories/snapshots/"));
+        Assert.assertThat(generatedArtifacts.get(2).getClassifier(), Matchers.is("sources"));
+    }
+
+    @Test
+    public void test_getGeneratedArtifacts_includeAttachedArtifacts() throws Exception {
+        MavenSpyLogModel mavenSpyLogModel = parse("org/jenkinsci/plugins/pipeline/maven/maven-spy-include-attached-artifacts.log");
+
+        List<MavenArtifact> generatedArtifacts = mavenSpyLogModel.getGeneratedArtifacts(true);
+        Assert.assertThat(generatedArtifacts.size(), Matchers.is(2)); // pom artifact plus 1 attachment
+        Assert.assertThat(generatedArtifacts.get(1).getType(), Matchers.is("ova"));
+    }
+
+    @Test
+    public void test_getExecutedLifecyclePhases() throws Exception {
+        MavenSpyLogModel mavenSpyLogModel = parse("org/jenkinsci/plugins/pipeline/maven/maven-spy-package-jar.xml");
+
+        Assert.assertThat(mavenSpyLogModel.getExecutedLifecyclePhases(), Matchers.contains("process-resources", "compile", "process-test-resources", "test-compile", "test", "package"));
+    }
+
+    @Test
+    public void test_getDependencies() throws Exception {
+        MavenSpyLogModel mavenSpyLogModel = parse("org/jenkinsci/plugins/pipeline/maven/maven-spy.xml");
+
+        List<MavenDependency> dependencies = mavenSpyLogModel.getDependencies();
+        Assert.assertThat(dependencies.size(), Matchers.is(2));
+        Assert.assertThat(dependencies.get(0).getArtifactId(), Matchers.is("spring-test"));
+        Assert.assertThat(dependencies.get(0).getFile(), Matchers.is("/path/to/spring-petclinic/spring-test/3.2.16.RELEASE/spring-test-3.2.16.RELEASE.jar"));
+        Assert.assertThat(dependencies.get(1).getArtifactId(), Matchers.is("spring-core"));
+        Assert.assertThat(dependencies.get(1).getFile(), Matchers.is("/path/to/spring-petclinic/3.2.16.RELEASE/spring-core-3.2.16.RELEASE.jar"));
+    }
+
+    @Test
+    public void test_project_references() throws Exception {
+        MavenSpyLogModel mavenSpyLogModel = parse("org/jenkinsci/plugins/pipeline/maven/maven-spy-build-profile.xml");
+
+        List<MavenSpyLogModel.ExecutionEvent> projectStartedEvents = mavenSpyLogModel.getExecutionEvents("ProjectStarted");
+        Assert.assertThat(projectStartedEvents.isEmpty(), Matchers.is(false));
+        for (MavenSpyLogModel.ExecutionEvent projectStartedEvent : projectStartedEvents) {
+            Assert.assertThat(projectStartedEvent.getProject().getGroupId(), Matchers.is("com.example"));
+        }
+    }
+
+    @Test
+    public void test_getExecutionEvents_in_the_order_of_the_report() throws Exception {
+        MavenSpyLogModel mavenSpyLogModel = parse("org/jenkinsci/plugins/pipeline/maven/maven-spy-build-profile.xml");
+
+        List<MavenSpyLogModel.ExecutionEvent> expected = new ArrayList<>();
+        for (MavenSpyLogModel.ExecutionEvent executionEvent : mavenSpyLogModel.executionEvents) {
+            if (executionEvent.getType().startsWith("Project")) {
+                expected.add(executionEvent);
+            }
+        }
+        Assert.assertThat(expected.size(), Matchers.is(8));
+        Assert.assertThat(mavenSpyLogModel.getExecutionEvents("ProjectStarted", "ProjectSucceeded", "ProjectFailed"), Matchers.is(expected));
+    }
+
+    @Test
+    public void test_merge() throws Exception {
+        MavenSpyLogModel deployJar = parse("org/jenkinsci/plugins/pipeline/maven/maven-spy-deploy-jar.xml");
+        MavenSpyLogModel petclinic = parse("org/jenkinsci/plugins/pipeline/maven/maven-spy.xml");
+        MavenSpyLogModel petclinicAgain = parse("org/jenkinsci/plugins/pipeline/maven/maven-spy.xml");
+
+        MavenSpyLogModel merged = MavenSpyLogModel.merge(Arrays.asList(deployJar, petclinic, petclinicAgain));
+
+        Assert.assertThat(merged.getMavenExecutions(), Matchers.contains(deployJar, petclinic, petclinicAgain));
+        List<MavenDependency> expectedDependencies = new ArrayList<>(deployJar.getDependencies());
+        expectedDependencies.addAll(petclinic.getDependencies());
+        Assert.assertThat(merged.getDependencies(), Matchers.is(expectedDependencies));
+        Assert.assertThat(merged.getGeneratedArtifacts(true).size(),
+                Matchers.is(deployJar.getGeneratedArtifacts(true).size() + 2 * petclinic.getGeneratedArtifacts(true).size()));
+        Assert.assertThat(merged.getGeneratedArtifacts(true).get(1).getRepositoryUrl(), Matchers.is("https://nexus.beescloud.com/content/repositories/snapshots/"));
+
+        List<MavenSpyLogModel.ExecutionEvent> expected = new ArrayList<>();
+        for (MavenSpyLogModel mavenSpyLogModel : merged.getMavenExecutions()) {
+            expected.addAll(mavenSpyLogModel.getExecutionEvents("ProjectStarted", "ProjectSucceeded"));
+        }
+        Assert.assertThat(merged.getExecutionEvents("ProjectStarted", "ProjectSucceeded"), Matchers.is(expected));
+        Assert.assertThat(MavenSpyLogModel.merge(Collections.singletonList(petclinic)), Matchers.sameInstance(petclinic));
+    }
+
+    @Test
+    public void test_spilled_execution_events() throws Exception {
+        MavenSpyLogModel expected = parse("org/jenkinsci/plugins/pipeline/maven/maven-spy-deploy-jar.xml");
+
+        File mavenSpyLogs = tmp.newFile("maven-spy-deploy-jar.log");
+        try (InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream("org/jenkinsci/plugins/pipeline/maven/maven-spy-deploy-jar.xml")) {
+            Files.copy(in, mavenSpyLogs.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        MavenSpyLogModel mavenSpyLogModel = new MavenSpyLogParser.ParseCallable(1).invoke(mavenSpyLogs, null);
+        Assert.assertThat(mavenSpyLogModel.isExecutionEventsSpilled(), Matchers.is(true));
+        Assert.assertThat(mavenSpyLogModel.executionEvents.isEmpty(), Matchers.is(true));
+
+        mavenSpyLogModel.spilledExecutionEvents.attach(new File(mavenSpyLogs.getPath() + ".events"));
+        try {
+            List<MavenSpyLogModel.ExecutionEvent> executionEvents = mavenSpyLogModel.getExecutionEvents(MavenSpyLogModel.EXECUTION_EVENT_TYPES.toArray(new String[0]));
+            Assert.assertThat(executionEvents.toString(), Matchers.is(expected.getExecutionEvents(MavenSpyLogModel.EXECUTION_EVENT_TYPES.toArray(new String[0])).toString()));
+            Assert.assertThat(mavenSpyLogModel.getExecutionEventsByPlugin("org.apache.maven.plugins", "maven-deploy-plugin", "deploy", "MojoSucceeded").size(), Matchers.is(1));
+            Assert.assertThat(mavenSpyLogModel.getGeneratedArtifacts(true).toString(), Matchers.is(expected.getGeneratedArtifacts(true).toString()));
+        } finally {
+            mavenSpyLogModel.spilledExecutionEvents.close();
+        }
+    }
+
+    @Test
+    public void test_plugin_parameters() throws Exception {
+        String xml = "<mavenExecution>" +
+                "<ExecutionEvent type='MojoSucceeded' _time='2017-08-04 22:09:34.205'>" +
+                "<project baseDir='/path/to/my-jar' file='/path/to/my-jar/pom.xml' groupId='com.example' artifactId='my-jar' version='0.5-SNAPSHOT'>" +
+                "<build directory='/path/to/my-jar/target'/>" +
+                "</project>" +
+                "<plugin executionId='default' goal='integration-test' groupId='org.apache.maven.plugins' artifactId='maven-failsafe-plugin' version='2.19.1'>" +
+                "<reportsDirectory> ${project.build.directory}/failsafe-reports </reportsDirectory>" +
+                "<systemPropertyVariables><concordion.output.dir>target/concordion-reports</concordion.output.dir></systemPropertyVariables>" +
+                "</plugin>" +
+                "</ExecutionEvent>" +
+                "<ExecutionEvent type='MojoStarted'/>" +
+                "<FileDigests algorithm='MD5' cacheHits='2' cacheMisses='1'>" +
+                "<file path='/path/to/my-jar/target/my-jar-0.5-SNAPSHOT.jar' md5='5d41402abc4b2a76b9719d911017c592'/>" +
+                "</FileDigests>" +
+                "</mavenExecution>";
+        MavenSpyLogModel mavenSpyLogModel = MavenSpyLogParser.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+
+        Assert.assertThat(mavenSpyLogModel.getExecutionEvents("MojoStarted").isEmpty(), Matchers.is(true));
+        List<MavenSpyLogModel.ExecutionEvent> executionEvents = mavenSpyLogModel.getExecutionEventsByPlugin("org.apache.maven.plugins", "maven-failsafe-plugin", "integration-test", "MojoSucceeded");
+        Assert.assertThat(executionEvents.size(), Matchers.is(1));
+        MavenSpyLogModel.ExecutionEvent executionEvent = executionEvents.get(0);
+        Assert.assertThat(executionEvent.getProject().getBuildDirectory(), Matchers.is("/path/to/my-jar/target"));
+        Assert.assertThat(executionEvent.getPlugin().getParameter("reportsDirectory"), Matchers.is(" ${project.build.directory}/failsafe-reports "));
+        Assert.assertThat(executionEvent.getPlugin().getParameter("systemPropertyVariables/concordion.output.dir"), Matchers.is("target/concordion-reports"));
+
+        Assert.assertThat(mavenSpyLogModel.getFileDigests().get("/path/to/my-jar/target/my-jar-0.5-SNAPSHOT.jar"), Matchers.is("5d41402abc4b2a76b9719d911017c592"));
+        Assert.assertThat(mavenSpyLogModel.getFileDigestCacheHits(), Matchers.is(2L));
+    }
+
+    @Test
+    public void test_parseExecutionEvent_with_project_reference() throws Exception {
+        String xml = "<mavenExecution>" +
+                "<projectDef id='p1' groupId='com.example' artifactId='my-jar' version='0.5-SNAPSHOT' baseDir='/path/to/my-jar'/>" +
+                "<ExecutionEvent type='MojoSucceeded' _time='2017-08-04 22:09:34.205'>" +
+                "<project ref='p1'/>" +
+                "<plugin executionId='default-test' goal='test' groupId='org.apache.maven.plugins' artifactId='maven-surefire-plugin' version='2.19.1'/>" +
+                "</ExecutionEvent>" +
+                "</mavenExecution>";
+        Element mavenSpyLogs = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml))).getDocumentElement();
+        Element executionEventElt = (Element) mavenSpyLogs.getElementsByTagName("ExecutionEvent").item(0);
+
+        MavenSpyLogModel.ExecutionEvent executionEvent = MavenSpyLogParser.parseExecutionEvent(executionEventElt);
+        Assert.assertThat(executionEvent.getTime(), Matchers.is("2017-08-04 22:09:34.205"));
+        Assert.assertThat(executionEvent.getProject().getArtifactId(), Matchers.is("my-jar"));
+        Assert.assertThat(executionEvent.getPlugin().getGoal(), Matchers.is("test"));
+    }
+
+    @Test(expected = XMLStreamException.class)
+    public void test_missing_project_definition() throws Exception {
+        String xml = "<mavenExecution>" +
+                "<ExecutionEvent type='ProjectStarted'><project ref='p1'/></ExecutionEvent>" +
+                "</mavenExecution>";
+        MavenSpyLogParser.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+}
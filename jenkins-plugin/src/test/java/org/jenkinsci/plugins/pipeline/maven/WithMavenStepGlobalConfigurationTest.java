@@ -23,7 +23,11 @@
  */
 package org.jenkinsci.plugins.pipeline.maven;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
 import hudson.model.Result;
+import hudson.tasks.junit.TestResultAction;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.pipeline.maven.publishers.FindbugsAnalysisPublisher;
 import org.jenkinsci.plugins.pipeline.maven.publishers.GeneratedArtifactsPublisher;
@@ -104,6 +108,35 @@ public class WithMavenStepGlobalConfigurationTest extends AbstractIntegrationTes
     }
 
 
+    @Test
+    public void maven_build_jar_project_on_master_with_maven_spy_event_streaming_succeeds() throws Exception {
+        GlobalPipelineMavenConfig globalPipelineMavenConfig = GlobalPipelineMavenConfig.get();
+        globalPipelineMavenConfig.setMavenSpyEventStreaming(true);
+        try {
+            loadMavenJarProjectInGitRepo(this.gitRepoRule);
+
+            String pipelineScript = "node('master') {\n" +
+                    "    git($/" + gitRepoRule.toString() + "/$)\n" +
+                    "    withMaven() {\n" +
+                    "        sh 'mvn package verify'\n" +
+                    "    }\n" +
+                    "}";
+
+            WorkflowJob pipeline = jenkinsRule.createProject(WorkflowJob.class, "build-on-master-with-maven-spy-event-streaming");
+            pipeline.setDefinition(new CpsFlowDefinition(pipelineScript, true));
+            WorkflowRun build = jenkinsRule.assertBuildStatus(Result.SUCCESS, pipeline.scheduleBuild2(0));
+
+            jenkinsRule.assertLogContains("under jenkins/mvn/test/mono-module-maven-app/0.1-SNAPSHOT/mono-module-maven-app-0.1-SNAPSHOT.jar", build);
+
+            // test results archived while Maven was running must not be archived a second time at the end of the build
+            TestResultAction testResultAction = build.getAction(TestResultAction.class);
+            assertThat(testResultAction.getTotalCount(), is(3));
+            assertThat(testResultAction.getFailCount(), is(0));
+        } finally {
+            globalPipelineMavenConfig.setMavenSpyEventStreaming(false);
+        }
+    }
+
     @Test
     public void maven_build_jar_project_on_master_with_findbugs_publisher_configured_both_globally_and_on_the_pipeline_succeeds() throws Exception {
         maven_build_jar_project_on_master_with_publisher_configured_both_globally_and_on_the_pipeline_succeeds(new FindbugsAnalysisPublisher.DescriptorImpl());
@@ -0,0 +1,56 @@
+package org.jenkinsci.plugins.pipeline.maven.publishers;
+
+import org.hamcrest.Matchers;
+import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogModel;
+import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStream;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class BuildProfilePublisherTest {
+
+    @Test
+    public void test_newBuildProfile() throws Exception {
+        InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream("org/jenkinsci/plugins/pipeline/maven/maven-spy-build-profile.xml");
+        in.getClass(); // check non null
+        MavenSpyLogModel mavenSpyLogs = MavenSpyLogParser.parse(in);
+
+        MavenBuildProfile buildProfile = BuildProfilePublisher.newBuildProfile(mavenSpyLogs);
+        System.out.println(buildProfile);
+
+        Assert.assertThat(buildProfile.getDurationInMillis(), Matchers.is(12_000L));
+        Assert.assertThat(buildProfile.getModules().size(), Matchers.is(4));
+        Assert.assertThat(buildProfile.getModules().get(3).isFailed(), Matchers.is(true));
+
+        Assert.assertThat(buildProfile.getCriticalPath(), Matchers.contains("com.example:parent", "com.example:core", "com.example:app"));
+        Assert.assertThat(buildProfile.getCriticalPathDurationInMillis(), Matchers.is(12_000L));
+
+        Assert.assertThat(buildProfile.getThreads().size(), Matchers.is(2));
+        Assert.assertThat(buildProfile.getThreads().get(0).getName(), Matchers.is("BuilderThread 0"));
+        Assert.assertThat(buildProfile.getThreads().get(0).getBusyTimeInMillis(), Matchers.is(10_000L));
+
+        Assert.assertThat(buildProfile.getSlowestMojoExecutions().get(0).getGoal(), Matchers.is("org.apache.maven.plugins:maven-surefire-plugin:test"));
+        Assert.assertThat(buildProfile.getGoals().get(0).getGoal(), Matchers.is("org.apache.maven.plugins:maven-surefire-plugin:test"));
+        Assert.assertThat(buildProfile.getGoals().get(1).getExecutionCount(), Matchers.is(2));
+        Assert.assertThat(buildProfile.getGoals().get(1).getDurationInMillis(), Matchers.is(4_500L));
+
+        Assert.assertThat(buildProfile.getArtifactDownloadCount(), Matchers.is(12L));
+        Assert.assertThat(buildProfile.getSlowestDownloads().size(), Matchers.is(2));
+        Assert.assertThat(buildProfile.getLocalArtifactCount(), Matchers.is(88L));
+        Assert.assertThat(buildProfile.getSeedArtifactCount(), Matchers.is(75L));
+        Assert.assertThat(buildProfile.getSeedHitPercentage(), Matchers.is(75));
+    }
+
+    @Test
+    public void test_newBuildProfile_without_timings() throws Exception {
+        InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream("org/jenkinsci/plugins/pipeline/maven/maven-spy-deploy-jar.xml");
+        in.getClass(); // check non null
+        MavenSpyLogModel mavenSpyLogs = MavenSpyLogParser.parse(in);
+
+        Assert.assertThat(BuildProfilePublisher.newBuildProfile(mavenSpyLogs), Matchers.nullValue());
+    }
+}
@@ -0,0 +1,61 @@
+package org.jenkinsci.plugins.pipeline.maven.publishers;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class FindbugsReportsParserTest {
+
+    @Test
+    public void test_parse_report() throws Exception {
+        String report = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<BugCollection version=\"3.1.0\" sequence=\"0\" timestamp=\"0\" analysisTimestamp=\"0\" release=\"\">\n" +
+                "  <Project projectName=\"demo\"><Jar>/path/to/demo/target/classes</Jar><SrcDir>/path/to/demo/src/main/java</SrcDir></Project>\n" +
+                "  <BugInstance type=\"NP_NULL_ON_SOME_PATH\" priority=\"1\" rank=\"5\" abbrev=\"NP\" category=\"CORRECTNESS\" instanceHash=\"hash1\">\n" +
+                "    <ShortMessage>Possible null pointer dereference</ShortMessage>\n" +
+                "    <LongMessage>Possible null pointer dereference in com.example.Foo.bar()</LongMessage>\n" +
+                "    <Class classname=\"com.example.Foo\" primary=\"true\"><SourceLine classname=\"com.example.Foo\" start=\"1\" end=\"50\" sourcepath=\"com/example/Foo.java\"/></Class>\n" +
+                "    <Method classname=\"com.example.Foo\" name=\"bar\" primary=\"true\"><SourceLine classname=\"com.example.Foo\" start=\"10\" end=\"20\" sourcepath=\"com/example/Foo.java\"/></Method>\n" +
+                "    <SourceLine classname=\"com.example.Foo\" primary=\"true\" start=\"12\" end=\"12\" sourcepath=\"com/example/Foo.java\"/>\n" +
+                "  </BugInstance>\n" +
+                "  <BugInstance type=\"DM_DEFAULT_ENCODING\" priority=\"3\" category=\"I18N\" instanceHash=\"hash2\">\n" +
+                "    <LongMessage>Reliance on default encoding in com.example.Bar.baz()</LongMessage>\n" +
+                "    <Class classname=\"com.example.Bar\"><SourceLine classname=\"com.example.Bar\" start=\"1\" end=\"9\" sourcepath=\"com/example/Bar.java\"/></Class>\n" +
+                "    <Method classname=\"com.example.Bar\" name=\"baz\"><SourceLine classname=\"com.example.Bar\" start=\"5\" end=\"7\" sourcepath=\"com/example/Bar.java\"/></Method>\n" +
+                "  </BugInstance>\n" +
+                "  <BugInstance type=\"NP_NULL_ON_SOME_PATH\" priority=\"1\" category=\"CORRECTNESS\" instanceHash=\"hash1\"><LongMessage>duplicate</LongMessage></BugInstance>\n" +
+                "  <BugPattern type=\"NP_NULL_ON_SOME_PATH\" abbrev=\"NP\" category=\"CORRECTNESS\"><ShortDescription>Possible null pointer dereference</ShortDescription><Details><![CDATA[<p>details</p>]]></Details></BugPattern>\n" +
+                "</BugCollection>";
+
+        FindbugsReportsParser.ParsedReport parsedReport = new FindbugsReportsParser.ParsedReport(
+                new FindbugsReportsParser.Report("com.example:demo:1.0", "target/findbugsXml.xml"), "md5", null);
+        FindbugsReportsParser.parse(new ByteArrayInputStream(report.getBytes(StandardCharsets.UTF_8)), parsedReport);
+
+        List<FindbugsReportsParser.Warning> warnings = parsedReport.getWarnings();
+        Assert.assertThat(warnings.size(), Matchers.is(2));
+
+        FindbugsReportsParser.Warning nullPointer = warnings.get(0);
+        Assert.assertThat(nullPointer.getType(), Matchers.is("NP_NULL_ON_SOME_PATH"));
+        Assert.assertThat(nullPointer.getPriority(), Matchers.is(1));
+        Assert.assertThat(nullPointer.getMessage(), Matchers.is("Possible null pointer dereference in com.example.Foo.bar()"));
+        Assert.assertThat(nullPointer.getClassName(), Matchers.is("com.example.Foo"));
+        Assert.assertThat(nullPointer.getStart(), Matchers.is(12));
+        // the source directory doesn't exist, the path relative to the source directory is kept
+        Assert.assertThat(nullPointer.getFileName(), Matchers.is("com/example/Foo.java"));
+
+        FindbugsReportsParser.Warning defaultEncoding = warnings.get(1);
+        Assert.assertThat(defaultEncoding.getCategory(), Matchers.is("I18N"));
+        // no SourceLine child of the BugInstance, use the one of the method
+        Assert.assertThat(defaultEncoding.getStart(), Matchers.is(5));
+        Assert.assertThat(defaultEncoding.getEnd(), Matchers.is(7));
+
+        Assert.assertThat(parsedReport.getPatternDetails().get("NP_NULL_ON_SOME_PATH"), Matchers.is("<p>details</p>"));
+    }
+}
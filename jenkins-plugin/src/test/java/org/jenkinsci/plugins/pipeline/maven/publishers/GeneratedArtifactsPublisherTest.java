@@ -0,0 +1,86 @@
+package org.jenkinsci.plugins.pipeline.maven.publishers;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class GeneratedArtifactsPublisherTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void test_unchanged_artifacts_are_copied_from_the_archive_of_the_previous_build() throws Exception {
+        File previousArtifactsDir = tmp.newFolder("previous");
+        write(previousArtifactsDir, "com/example/lib/1.0-SNAPSHOT/lib-1.0-SNAPSHOT.jar", "lib");
+        write(previousArtifactsDir, "com/example/app/1.0-SNAPSHOT/app-1.0-SNAPSHOT.war", "app");
+        File artifactsDir = tmp.newFolder("current");
+
+        Map<String, String> previousArtifactsDigests = new HashMap<>();
+        previousArtifactsDigests.put("com/example/lib/1.0-SNAPSHOT/lib-1.0-SNAPSHOT.jar", "md5-lib");
+        previousArtifactsDigests.put("com/example/app/1.0-SNAPSHOT/app-1.0-SNAPSHOT.war", "md5-app");
+        previousArtifactsDigests.put("com/example/deleted/1.0-SNAPSHOT/deleted-1.0-SNAPSHOT.jar", "md5-deleted");
+
+        Map<String, String> artifactsToArchive = new TreeMap<>();
+        Map<String, String> artifactsToFingerPrint = new HashMap<>();
+        // unchanged
+        artifactsToArchive.put("com/example/lib/1.0-SNAPSHOT/lib-1.0-SNAPSHOT.jar", "lib/target/lib-1.0-SNAPSHOT.jar");
+        artifactsToFingerPrint.put("com/example/lib/1.0-SNAPSHOT/lib-1.0-SNAPSHOT.jar", "md5-lib");
+        // rebuilt
+        artifactsToArchive.put("com/example/app/1.0-SNAPSHOT/app-1.0-SNAPSHOT.war", "app/target/app-1.0-SNAPSHOT.war");
+        artifactsToFingerPrint.put("com/example/app/1.0-SNAPSHOT/app-1.0-SNAPSHOT.war", "md5-app-rebuilt");
+        // fingerprinted by the previous build but no longer in its archive
+        artifactsToArchive.put("com/example/deleted/1.0-SNAPSHOT/deleted-1.0-SNAPSHOT.jar", "deleted/target/deleted-1.0-SNAPSHOT.jar");
+        artifactsToFingerPrint.put("com/example/deleted/1.0-SNAPSHOT/deleted-1.0-SNAPSHOT.jar", "md5-deleted");
+
+        int copiedArtifacts = GeneratedArtifactsPublisher.copyUnchangedArtifacts(previousArtifactsDir, previousArtifactsDigests, artifactsDir, artifactsToArchive, artifactsToFingerPrint);
+
+        Assert.assertThat(copiedArtifacts, Matchers.is(1));
+        Assert.assertThat(artifactsToArchive.keySet(), Matchers.contains(
+                "com/example/app/1.0-SNAPSHOT/app-1.0-SNAPSHOT.war",
+                "com/example/deleted/1.0-SNAPSHOT/deleted-1.0-SNAPSHOT.jar"));
+        Assert.assertThat(read(artifactsDir, "com/example/lib/1.0-SNAPSHOT/lib-1.0-SNAPSHOT.jar"), Matchers.is("lib"));
+        Assert.assertThat(new File(artifactsDir, "com/example/app/1.0-SNAPSHOT/app-1.0-SNAPSHOT.war").exists(), Matchers.is(false));
+        // the fingerprints of the copied artifacts are still recorded
+        Assert.assertThat(artifactsToFingerPrint.size(), Matchers.is(3));
+    }
+
+    @Test
+    public void test_artifacts_not_fingerprinted_are_not_copied() throws Exception {
+        File previousArtifactsDir = tmp.newFolder("previous");
+        write(previousArtifactsDir, "com/example/lib/1.0-SNAPSHOT/lib-1.0-SNAPSHOT.jar", "lib");
+        File artifactsDir = tmp.newFolder("current");
+
+        Map<String, String> artifactsToArchive = new TreeMap<>();
+        artifactsToArchive.put("com/example/lib/1.0-SNAPSHOT/lib-1.0-SNAPSHOT.jar", "lib/target/lib-1.0-SNAPSHOT.jar");
+
+        int copiedArtifacts = GeneratedArtifactsPublisher.copyUnchangedArtifacts(previousArtifactsDir, new HashMap<>(), artifactsDir, artifactsToArchive, new HashMap<>());
+
+        Assert.assertThat(copiedArtifacts, Matchers.is(0));
+        Assert.assertThat(artifactsToArchive.keySet(), Matchers.contains("com/example/lib/1.0-SNAPSHOT/lib-1.0-SNAPSHOT.jar"));
+        Assert.assertThat(new File(artifactsDir, "com/example/lib/1.0-SNAPSHOT/lib-1.0-SNAPSHOT.jar").exists(), Matchers.is(false));
+    }
+
+    private static void write(File root, String path, String content) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(File root, String path) throws IOException {
+        return new String(Files.readAllBytes(new File(root, path).toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,110 @@
+package org.jenkinsci.plugins.pipeline.maven.publishers;
+
+import hudson.plugins.analysis.util.model.Priority;
+import hudson.plugins.tasks.parser.Task;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class IncrementalTasksPublisherTest {
+
+    private static final String PATTERN = "**/*.java";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void test_merge_carries_over_the_tasks_of_the_unchanged_files() {
+        IncrementalTasksPublisher.Index previousIndex = new IncrementalTasksPublisher.Index("key");
+        previousIndex.files.put("Unchanged.java", new IncrementalTasksPublisher.FileState(10, 1000, "md5-unchanged"));
+        previousIndex.files.put("Modified.java", new IncrementalTasksPublisher.FileState(10, 1000, "md5-modified"));
+        previousIndex.files.put("Deleted.java", new IncrementalTasksPublisher.FileState(10, 1000, "md5-deleted"));
+        previousIndex.tasks.put("Unchanged.java", Collections.singletonList(task(1, "carried over")));
+        previousIndex.tasks.put("Modified.java", Collections.singletonList(task(2, "fixed")));
+        previousIndex.tasks.put("Deleted.java", Collections.singletonList(task(3, "deleted")));
+
+        IncrementalTasksPublisher.ScanResult scanResult = new IncrementalTasksPublisher.ScanResult();
+        scanResult.files.put("Unchanged.java", previousIndex.files.get("Unchanged.java"));
+        scanResult.files.put("Modified.java", new IncrementalTasksPublisher.FileState(12, 2000, "md5-modified-2"));
+        scanResult.files.put("New.java", new IncrementalTasksPublisher.FileState(20, 2000, "md5-new"));
+        scanResult.changedFiles.put("Modified.java", new ArrayList<>());
+        scanResult.changedFiles.put("New.java", Collections.singletonList(task(4, "new")));
+
+        IncrementalTasksPublisher.Index index = IncrementalTasksPublisher.Index.merge("key", previousIndex, scanResult);
+
+        Assert.assertThat(index.files.keySet(), Matchers.contains("Unchanged.java", "Modified.java", "New.java"));
+        Assert.assertThat(index.files.get("Modified.java").md5, Matchers.is("md5-modified-2"));
+        Assert.assertThat(index.tasks.keySet(), Matchers.containsInAnyOrder("Unchanged.java", "New.java"));
+        Assert.assertThat(index.tasks.get("Unchanged.java").get(0).getMessage(), Matchers.is("carried over"));
+        Assert.assertThat(index.tasks.get("New.java").get(0).getMessage(), Matchers.is("new"));
+    }
+
+    @Test
+    public void test_scan_only_the_files_modified_since_the_previous_index() throws Exception {
+        File workspace = tmp.newFolder("workspace");
+        File unchanged = write(workspace, "src/main/java/Unchanged.java", "// TODO unchanged\n");
+        File touched = write(workspace, "src/main/java/Touched.java", "// TODO touched\n");
+        write(workspace, "src/main/java/Modified.java", "// nothing to do\n");
+
+        IncrementalTasksPublisher.ScanResult firstScan = scan(workspace, Collections.emptyMap());
+        Assert.assertThat(firstScan.files.size(), Matchers.is(3));
+        Assert.assertThat(firstScan.changedFiles.size(), Matchers.is(3));
+        IncrementalTasksPublisher.Index firstIndex = IncrementalTasksPublisher.Index.merge("key", null, firstScan);
+        Assert.assertThat(firstIndex.tasks.size(), Matchers.is(2));
+
+        // same content, different modification date
+        Assert.assertThat(touched.setLastModified(touched.lastModified() - 10_000), Matchers.is(true));
+        write(workspace, "src/main/java/Modified.java", "// TODO modified\n// FIXME modified\n");
+        write(workspace, "src/main/java/New.java", "// TODO new\n");
+
+        IncrementalTasksPublisher.ScanResult secondScan = scan(workspace, firstIndex.files);
+        Assert.assertThat(secondScan.files.size(), Matchers.is(4));
+        Assert.assertThat(secondScan.changedFiles.keySet(), Matchers.containsInAnyOrder(path("Modified.java"), path("New.java")));
+        Assert.assertThat(secondScan.files.get(path("Unchanged.java")), Matchers.sameInstance(firstIndex.files.get(path("Unchanged.java"))));
+        Assert.assertThat(secondScan.files.get(path("Touched.java")).lastModified, Matchers.is(touched.lastModified()));
+
+        IncrementalTasksPublisher.Index secondIndex = IncrementalTasksPublisher.Index.merge("key", firstIndex, secondScan);
+        Assert.assertThat(secondIndex.tasks.keySet(), Matchers.containsInAnyOrder(path("Unchanged.java"), path("Touched.java"), path("Modified.java"), path("New.java")));
+        Assert.assertThat(secondIndex.tasks.get(path("Modified.java")).size(), Matchers.is(2));
+
+        // deleted file, nothing to scan
+        Assert.assertThat(unchanged.delete(), Matchers.is(true));
+        IncrementalTasksPublisher.ScanResult thirdScan = scan(workspace, secondIndex.files);
+        Assert.assertThat(thirdScan.changedFiles.size(), Matchers.is(0));
+        IncrementalTasksPublisher.Index thirdIndex = IncrementalTasksPublisher.Index.merge("key", secondIndex, thirdScan);
+        Assert.assertThat(thirdIndex.tasks.keySet(), Matchers.containsInAnyOrder(path("Touched.java"), path("Modified.java"), path("New.java")));
+    }
+
+    private static IncrementalTasksPublisher.ScanResult scan(File workspace, Map<String, IncrementalTasksPublisher.FileState> previousFiles) throws Exception {
+        return new IncrementalTasksPublisher.IncrementalScanner(PATTERN, "", "UTF-8", "FIXME", "TODO", "", false, false, previousFiles).invoke(workspace, null);
+    }
+
+    private static String path(String fileName) {
+        return String.join(File.separator, Arrays.asList("src", "main", "java", fileName));
+    }
+
+    private static Task task(int lineNumber, String message) {
+        return new Task(Priority.NORMAL, lineNumber, "TODO", message);
+    }
+
+    private static File write(File root, String path, String content) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -4,11 +4,10 @@ import hudson.FilePath;
 import hudson.model.TaskListener;
 import hudson.util.StreamTaskListener;
 import org.hamcrest.Matchers;
-import org.jenkinsci.plugins.pipeline.maven.util.XmlUtils;
+import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogModel;
+import org.jenkinsci.plugins.pipeline.maven.MavenSpyLogParser;
 import org.junit.Assert;
 import org.junit.Test;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 import java.io.File;
 import java.io.InputStream;
@@ -16,8 +15,6 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.xml.parsers.DocumentBuilderFactory;
-
 /**
  * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
  */
@@ -42,35 +39,32 @@ public class InvokerRunsPublisherTest {
      */
     protected void test_relative_path_and_absolute_path_and_variabilized_path_run_goal(String mavenSpyLogs, String goal) throws Exception {
         InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(mavenSpyLogs);
-        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in);
+        MavenSpyLogModel mavenSpyLogModel = MavenSpyLogParser.parse(in);
         InvokerRunsPublisher invokerRunsPublisher = new InvokerRunsPublisher();
-        List<Element> invokerRunEvents = XmlUtils.getExecutionEventsByPlugin(doc.getDocumentElement(), InvokerRunsPublisher.GROUP_ID, InvokerRunsPublisher.ARTIFACT_ID, goal, "MojoSucceeded");
+        List<MavenSpyLogModel.ExecutionEvent> invokerRunEvents = mavenSpyLogModel.getExecutionEventsByPlugin(InvokerRunsPublisher.GROUP_ID, InvokerRunsPublisher.ARTIFACT_ID, goal, "MojoSucceeded");
 
         FilePath workspace = new FilePath(new File("/path/to/khmarbaise/maui/src/main/resources/mp-it-1"));
         TaskListener listener = new StreamTaskListener(System.out, StandardCharsets.UTF_8);
 
         System.out.println(invokerRunEvents.size());
-        List<Element> invokerRunSucceededEvents = new ArrayList<>();
-        for (Element invokerRunEvent : invokerRunEvents) {
-            String eventType = invokerRunEvent.getAttribute("type");
+        List<MavenSpyLogModel.ExecutionEvent> invokerRunSucceededEvents = new ArrayList<>();
+        for (MavenSpyLogModel.ExecutionEvent invokerRunEvent : invokerRunEvents) {
+            String eventType = invokerRunEvent.getType();
             if (eventType.equals("MojoSucceeded")) {
                 invokerRunSucceededEvents.add(invokerRunEvent);
             }
         }
         Assert.assertThat(invokerRunSucceededEvents.size(), Matchers.is(1));
-        Element invokerRunSucceedEvent = invokerRunSucceededEvents.get(0);
+        MavenSpyLogModel.ExecutionEvent invokerRunSucceedEvent = invokerRunSucceededEvents.get(0);
 
-        Element projectElt = XmlUtils.getUniqueChildElement(invokerRunSucceedEvent, "project");
-        Element pluginElt = XmlUtils.getUniqueChildElement(invokerRunSucceedEvent, "plugin");
-        Element reportsDirectoryElt = XmlUtils.getUniqueChildElementOrNull(pluginElt, "reportsDirectory");
-        Element cloneProjectsToElt = XmlUtils.getUniqueChildElementOrNull(pluginElt, "cloneProjectsTo");
-        Element projectsDirectoryElt = XmlUtils.getUniqueChildElementOrNull(pluginElt, "projectsDirectory");
+        MavenSpyLogModel.Project project = invokerRunSucceedEvent.getProject();
+        MavenSpyLogModel.PluginExecution plugin = invokerRunSucceedEvent.getPlugin();
 
-        String reportsDirectory = invokerRunsPublisher.expandAndRelativize(reportsDirectoryElt, "reportsDirectory", invokerRunSucceedEvent, projectElt, workspace, listener);
+        String reportsDirectory = invokerRunsPublisher.expandAndRelativize(plugin.getParameter("reportsDirectory"), "reportsDirectory", invokerRunSucceedEvent, project, workspace, listener);
         Assert.assertThat(reportsDirectory, Matchers.is("target/invoker-reports"));
-        String projectsDirectory = invokerRunsPublisher.expandAndRelativize(projectsDirectoryElt, "projectsDirectory", invokerRunSucceedEvent, projectElt, workspace, listener);
+        String projectsDirectory = invokerRunsPublisher.expandAndRelativize(plugin.getParameter("projectsDirectory"), "projectsDirectory", invokerRunSucceedEvent, project, workspace, listener);
         Assert.assertThat(projectsDirectory, Matchers.is("src/it"));
-        String cloneProjectsTo = invokerRunsPublisher.expandAndRelativize(cloneProjectsToElt, "cloneProjectsTo", invokerRunSucceedEvent, projectElt, workspace, listener);
+        String cloneProjectsTo = invokerRunsPublisher.expandAndRelativize(plugin.getParameter("cloneProjectsTo"), "cloneProjectsTo", invokerRunSucceedEvent, project, workspace, listener);
         Assert.assertThat(cloneProjectsTo, Matchers.is("target/it"));
     }
 }
@@ -0,0 +1,71 @@
+package org.jenkinsci.plugins.pipeline.maven.publishers;
+
+import org.hamcrest.Matchers;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class JacocoExecutionDataAggregatorTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void test_merge_execution_data_of_modules() throws Exception {
+        File workspace = tmp.newFolder("workspace");
+        writeExecFile(new File(workspace, "module-a/target/jacoco.exec"), new ExecutionData(1, "com/example/A", new boolean[]{true, false}));
+        writeExecFile(new File(workspace, "module-b/target/jacoco.exec"), new ExecutionData(2, "com/example/B", new boolean[]{false, true}));
+
+        JacocoExecutionDataAggregator aggregator = new JacocoExecutionDataAggregator(Arrays.asList(
+                new JacocoExecutionDataAggregator.Module("com.example:module-a:1.0", "module-a/target/jacoco.exec", "module-a/target/classes"),
+                new JacocoExecutionDataAggregator.Module("com.example:module-b:1.0", "module-b/target/jacoco.exec", "module-b/target/classes"),
+                new JacocoExecutionDataAggregator.Module("com.example:module-c:1.0", "module-c/target/jacoco.exec", "module-c/target/classes")));
+        JacocoExecutionDataAggregator.Result result = aggregator.invoke(workspace, null);
+
+        Assert.assertThat(result.getExecFilesCount(), Matchers.is(2));
+        Assert.assertThat(result.getExecutionData(), Matchers.notNullValue());
+        ExecFileLoader merged = new ExecFileLoader();
+        merged.load(new ByteArrayInputStream(result.getExecutionData()));
+        ExecutionDataStore executionDataStore = merged.getExecutionDataStore();
+        Assert.assertThat(executionDataStore.get(1).getName(), Matchers.is("com/example/A"));
+        Assert.assertThat(executionDataStore.get(2).getName(), Matchers.is("com/example/B"));
+        // no classes directory, nothing to analyze
+        Assert.assertThat(result.getModules().isEmpty(), Matchers.is(true));
+    }
+
+    @Test
+    public void test_no_execution_data() throws Exception {
+        File workspace = tmp.newFolder("workspace");
+
+        JacocoExecutionDataAggregator aggregator = new JacocoExecutionDataAggregator(Arrays.asList(
+                new JacocoExecutionDataAggregator.Module("com.example:module-a:1.0", "module-a/target/jacoco.exec", "module-a/target/classes")));
+        JacocoExecutionDataAggregator.Result result = aggregator.invoke(workspace, null);
+
+        Assert.assertThat(result.getExecutionData(), Matchers.nullValue());
+        Assert.assertThat(result.getExecFilesCount(), Matchers.is(0));
+    }
+
+    private static void writeExecFile(File file, ExecutionData executionData) throws Exception {
+        file.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(file)) {
+            ExecutionDataWriter writer = new ExecutionDataWriter(out);
+            writer.visitSessionInfo(new SessionInfo(file.getParentFile().getParentFile().getName(), 0, 0));
+            writer.visitClassExecution(executionData);
+        }
+    }
+}
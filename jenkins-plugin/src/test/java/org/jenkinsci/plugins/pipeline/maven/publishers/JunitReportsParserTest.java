@@ -0,0 +1,37 @@
+package org.jenkinsci.plugins.pipeline.maven.publishers;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class JunitReportsParserTest {
+
+    @Test
+    public void test_truncate_stdio() throws Exception {
+        String report = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>\n" +
+                "<testsuite name=\"com.example.FooTest\" tests=\"1\">\n" +
+                "  <testcase name=\"test\" classname=\"com.example.FooTest\" time=\"0.1\">\n" +
+                "    <system-out><![CDATA[0123456789abcdefghij]]></system-out>\n" +
+                "  </testcase>\n" +
+                "  <system-err>short</system-err>\n" +
+                "</testsuite>";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JunitReportsParser.truncateStdio(new ByteArrayInputStream(report.getBytes(StandardCharsets.ISO_8859_1)), out, 10);
+        String truncatedReport = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        System.out.println(truncatedReport);
+
+        Assert.assertThat(truncatedReport, Matchers.containsString("0123456789"));
+        Assert.assertThat(truncatedReport, Matchers.not(Matchers.containsString("abcdefghij")));
+        Assert.assertThat(truncatedReport, Matchers.containsString("...[truncated 10 chars]..."));
+        Assert.assertThat(truncatedReport, Matchers.containsString("<system-err>short</system-err>"));
+        Assert.assertThat(truncatedReport, Matchers.containsString("name=\"com.example.FooTest\""));
+    }
+}
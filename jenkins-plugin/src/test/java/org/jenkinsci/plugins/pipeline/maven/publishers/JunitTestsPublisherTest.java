@@ -0,0 +1,99 @@
+package org.jenkinsci.plugins.pipeline.maven.publishers;
+
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class JunitTestsPublisherTest {
+
+    private final TaskListener listener = new StreamTaskListener(new ByteArrayOutputStream(), StandardCharsets.UTF_8);
+
+    private final List<String> archivedTestResults = new ArrayList<>();
+
+    private final AtomicInteger archivedTestsCount = new AtomicInteger();
+
+    @Test
+    public void test_reports_directory_shared_by_several_executions_is_archived_once() {
+        Map<String, String> testResultsByEventKey = new LinkedHashMap<>();
+        testResultsByEventKey.put("module-a:surefire:default-test", "module-a/target/surefire-reports/*.xml");
+        testResultsByEventKey.put("module-a:surefire:slow-tests", "module-a/target/surefire-reports/*.xml");
+        testResultsByEventKey.put("module-b:surefire:default-test", "module-b/target/surefire-reports/*.xml");
+
+        Set<String> archivedEventKeys = JunitTestsPublisher.archiveTestResults(testResultsByEventKey, archivedTestResults::add, archivedTestsCount::get, listener);
+
+        Assert.assertThat(archivedTestResults, Matchers.contains("module-a/target/surefire-reports/*.xml,module-b/target/surefire-reports/*.xml"));
+        Assert.assertThat(archivedEventKeys, Matchers.contains("module-a:surefire:default-test", "module-a:surefire:slow-tests", "module-b:surefire:default-test"));
+    }
+
+    @Test
+    public void test_failure_of_the_single_pass_falls_back_to_the_reports_directories_one_by_one() {
+        Map<String, String> testResultsByEventKey = new LinkedHashMap<>();
+        testResultsByEventKey.put("module-a:surefire:default-test", "module-a/target/surefire-reports/*.xml");
+        testResultsByEventKey.put("module-a:surefire:slow-tests", "module-a/target/surefire-reports/*.xml");
+        testResultsByEventKey.put("module-b:surefire:default-test", "module-b/target/surefire-reports/*.xml");
+        testResultsByEventKey.put("module-c:failsafe:integration-test", "module-c/target/failsafe-reports/*.xml");
+
+        Set<String> archivedEventKeys = JunitTestsPublisher.archiveTestResults(testResultsByEventKey, testResults -> {
+            archivedTestResults.add(testResults);
+            if (testResults.contains("module-b")) {
+                throw new IOException("invalid report in module-b");
+            }
+            archivedTestsCount.addAndGet(10);
+        }, archivedTestsCount::get, listener);
+
+        Assert.assertThat(archivedTestResults, Matchers.contains(
+                "module-a/target/surefire-reports/*.xml,module-b/target/surefire-reports/*.xml,module-c/target/failsafe-reports/*.xml",
+                "module-a/target/surefire-reports/*.xml",
+                "module-b/target/surefire-reports/*.xml",
+                "module-c/target/failsafe-reports/*.xml"));
+        Assert.assertThat(archivedEventKeys, Matchers.contains("module-a:surefire:default-test", "module-a:surefire:slow-tests", "module-c:failsafe:integration-test"));
+        Assert.assertThat(archivedTestsCount.get(), Matchers.is(20));
+    }
+
+    @Test
+    public void test_failure_of_a_single_reports_directory_is_not_archived() {
+        Map<String, String> testResultsByEventKey = new LinkedHashMap<>();
+        testResultsByEventKey.put("module-a:surefire:default-test", "module-a/target/surefire-reports/*.xml");
+
+        Set<String> archivedEventKeys = JunitTestsPublisher.archiveTestResults(testResultsByEventKey, testResults -> {
+            archivedTestResults.add(testResults);
+            throw new IOException("invalid report in module-a");
+        }, archivedTestsCount::get, listener);
+
+        Assert.assertThat(archivedTestResults, Matchers.contains("module-a/target/surefire-reports/*.xml"));
+        Assert.assertThat(archivedEventKeys, Matchers.empty());
+    }
+
+    @Test
+    public void test_test_results_merged_before_a_failure_are_not_archived_again() {
+        Map<String, String> testResultsByEventKey = new LinkedHashMap<>();
+        testResultsByEventKey.put("module-a:surefire:test", "module-a/target/surefire-reports/*.xml");
+        testResultsByEventKey.put("module-b:surefire:test", "module-b/target/surefire-reports/*.xml");
+
+        Set<String> archivedEventKeys = JunitTestsPublisher.archiveTestResults(testResultsByEventKey, testResults -> {
+            archivedTestResults.add(testResults);
+            archivedTestsCount.addAndGet(10);
+            // e.g. failure of a test data publisher after the merge of the test results
+            throw new IOException("failure contributing the test attachments");
+        }, archivedTestsCount::get, listener);
+
+        Assert.assertThat(archivedTestResults, Matchers.contains("module-a/target/surefire-reports/*.xml,module-b/target/surefire-reports/*.xml"));
+        Assert.assertThat(archivedEventKeys, Matchers.contains("module-a:surefire:test", "module-b:surefire:test"));
+        Assert.assertThat(archivedTestsCount.get(), Matchers.is(10));
+    }
+}
@@ -0,0 +1,87 @@
+package org.jenkinsci.plugins.pipeline.maven.service;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Fingerprint;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class FingerprintServiceTest {
+
+    private static final String LIB_MD5 = "780b5a8b72eebe6d0dbff1c11b5658fa";
+    private static final String APP_MD5 = "0123456789abcdef0123456789abcdef";
+
+    @Rule
+    public JenkinsRule jenkinsRule = new JenkinsRule();
+
+    @Test
+    public void test_register_dependencies_deduplicated_by_digest() throws Exception {
+        FreeStyleProject project = jenkinsRule.createFreeStyleProject("my-project");
+        FreeStyleBuild build = jenkinsRule.buildAndAssertSuccess(project);
+
+        Map<String, String> records = new LinkedHashMap<>();
+        records.put("org/example/lib/1.0/lib-1.0.jar", LIB_MD5);
+        records.put("org/example/lib-copy/1.0/lib-copy-1.0.jar", LIB_MD5);
+        records.put("org/example/app/1.0/app-1.0.war", APP_MD5);
+
+        FingerprintService fingerprintService = new FingerprintService();
+        fingerprintService.register(build, false, records);
+        // registering the same files again for the same build doesn't modify the fingerprints
+        fingerprintService.register(build, false, records);
+
+        Fingerprint libFingerprint = jenkinsRule.jenkins.getFingerprintMap().get(LIB_MD5);
+        Assert.assertThat(libFingerprint, Matchers.notNullValue());
+        Assert.assertThat(libFingerprint.getFileName(), Matchers.is("org/example/lib/1.0/lib-1.0.jar"));
+        Assert.assertThat(libFingerprint.getOriginal(), Matchers.nullValue());
+        Assert.assertThat(libFingerprint.getUsages().keySet(), Matchers.contains("my-project"));
+        Assert.assertThat(libFingerprint.getRangeSet(project).includes(build.getNumber()), Matchers.is(true));
+        Assert.assertThat(jenkinsRule.jenkins.getFingerprintMap().get(APP_MD5), Matchers.notNullValue());
+
+        Assert.assertThat(readFingerprintFile(LIB_MD5), Matchers.containsString("my-project"));
+        Assert.assertThat(readFingerprintFile(APP_MD5), Matchers.containsString("my-project"));
+    }
+
+    @Test
+    public void test_register_generated_artifacts_with_their_original_build() throws Exception {
+        FreeStyleProject project = jenkinsRule.createFreeStyleProject("my-project");
+        FreeStyleBuild build = jenkinsRule.buildAndAssertSuccess(project);
+
+        Map<String, String> records = new LinkedHashMap<>();
+        records.put("org/example/app/1.0/app-1.0.war", APP_MD5);
+
+        FingerprintService fingerprintService = new FingerprintService();
+        fingerprintService.register(build, true, records);
+
+        Fingerprint appFingerprint = jenkinsRule.jenkins.getFingerprintMap().get(APP_MD5);
+        Assert.assertThat(appFingerprint, Matchers.notNullValue());
+        Assert.assertThat(appFingerprint.getOriginal(), Matchers.notNullValue());
+        Assert.assertThat(appFingerprint.getOriginal().getName(), Matchers.is("my-project"));
+        Assert.assertThat(appFingerprint.getOriginal().getNumber(), Matchers.is(build.getNumber()));
+
+        FreeStyleBuild secondBuild = jenkinsRule.buildAndAssertSuccess(project);
+        fingerprintService.register(secondBuild, false, records);
+        Assert.assertThat(appFingerprint.getRangeSet(project).includes(secondBuild.getNumber()), Matchers.is(true));
+        Assert.assertThat(readFingerprintFile(APP_MD5), Matchers.containsString(build.getNumber() + "-" + secondBuild.getNumber()));
+    }
+
+    /**
+     * @see Fingerprint#save()
+     */
+    private String readFingerprintFile(String md5) throws Exception {
+        File fingerprintFile = new File(jenkinsRule.jenkins.getRootDir(), "fingerprints/" + md5.substring(0, 2) + '/' + md5.substring(2, 4) + '/' + md5.substring(4) + ".xml");
+        Assert.assertThat(fingerprintFile + " not saved", fingerprintFile.isFile(), Matchers.is(true));
+        return new String(Files.readAllBytes(fingerprintFile.toPath()), StandardCharsets.UTF_8);
+    }
+}
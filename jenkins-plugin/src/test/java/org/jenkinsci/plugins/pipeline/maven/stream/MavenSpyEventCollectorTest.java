@@ -0,0 +1,55 @@
+package org.jenkinsci.plugins.pipeline.maven.stream;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenSpyEventCollectorTest {
+
+    @Test
+    public void test_connections_without_the_token_are_dropped() throws Exception {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        String token = MavenSpyEventCollector.newToken();
+        int port = new MavenSpyEventCollector.Start("test-collector", token, (connectionId, batch) -> events.addAll(batch)).call();
+        try {
+            send(port, "not-the-token", "<ExecutionEvent type=\"intruder\"/>");
+            send(port, "<streamHeader logFile=\"maven-spy.log\"/>", "<ExecutionEvent type=\"intruder\"/>");
+            send(port, token, "<ExecutionEvent type=\"ProjectStarted\"/>");
+            for (int i = 0; i < 100 && events.isEmpty(); i++) {
+                Thread.sleep(100);
+            }
+        } finally {
+            new MavenSpyEventCollector.Stop("test-collector", 10000).call();
+        }
+
+        Assert.assertThat(events, Matchers.contains("<ExecutionEvent type=\"ProjectStarted\"/>"));
+    }
+
+    @Test
+    public void test_tokens_are_random() {
+        Assert.assertThat(MavenSpyEventCollector.newToken(), Matchers.not(Matchers.is(MavenSpyEventCollector.newToken())));
+    }
+
+    private static void send(int port, String... frames) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getByName("127.0.0.1"), port)) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            for (String frame : frames) {
+                byte[] bytes = frame.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import hudson.AbortException;
+import hudson.FilePath;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class AgentSetupTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void test_setup() throws Exception {
+        File workspace = tmp.newFolder("workspace");
+        File settings = new File(workspace, "settings.xml");
+        Files.write(settings.toPath(), "<settings/>".getBytes(StandardCharsets.UTF_8));
+        File tempBinDir = new File(workspace, "withMaven1234/bin");
+
+        AgentSetup setup = new AgentSetup();
+        setup.mkdirs(new FilePath(tempBinDir));
+        setup.mkdirs(new FilePath(new File(workspace, ".repository")));
+        setup.copy(new FilePath(settings), new FilePath(new File(tempBinDir, "settings.xml")), "settings.xml not found");
+        setup.write(new FilePath(new File(tempBinDir, "mvn")), "#!/bin/sh -e".getBytes(StandardCharsets.UTF_8), true);
+
+        Assert.assertThat(setup.call(), Matchers.is(true));
+        Assert.assertThat(new File(workspace, ".repository").isDirectory(), Matchers.is(true));
+        Assert.assertThat(new String(Files.readAllBytes(new File(tempBinDir, "settings.xml").toPath()), StandardCharsets.UTF_8), Matchers.is("<settings/>"));
+        Assert.assertThat(new String(Files.readAllBytes(new File(tempBinDir, "mvn").toPath()), StandardCharsets.UTF_8), Matchers.is("#!/bin/sh -e"));
+    }
+
+    @Test
+    public void test_missing_source() throws Exception {
+        File workspace = tmp.newFolder("workspace");
+
+        AgentSetup setup = new AgentSetup();
+        setup.copy(new FilePath(new File(workspace, "settings.xml")), new FilePath(new File(workspace, "tmp/settings.xml")), "settings.xml not found");
+        try {
+            setup.call();
+            Assert.fail("AbortException expected");
+        } catch (AbortException e) {
+            Assert.assertThat(e.getMessage(), Matchers.is("settings.xml not found"));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class BatchDigestCallableTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void test_digest_batch() throws Exception {
+        File workspace = tmp.newFolder("workspace");
+        File localRepository = tmp.newFolder("repository");
+        File dependency = new File(localRepository, "com/example/my-jar/1.0/my-jar-1.0.jar");
+        dependency.getParentFile().mkdirs();
+        Files.write(dependency.toPath(), "hello".getBytes(StandardCharsets.UTF_8));
+        File generatedFile = new File(workspace, "target/my-war-1.0.war");
+        generatedFile.getParentFile().mkdirs();
+        Files.write(generatedFile.toPath(), "hello world".getBytes(StandardCharsets.UTF_8));
+
+        List<BatchDigestCallable.Request> requests = Arrays.asList(
+                new BatchDigestCallable.Request(dependency.getPath(), "com.example", "my-jar", "1.0"),
+                new BatchDigestCallable.Request("target/my-war-1.0.war"),
+                new BatchDigestCallable.Request("target/classes"),
+                new BatchDigestCallable.Request("target/missing.jar"));
+        new File(workspace, "target/classes").mkdirs();
+
+        Map<String, BatchDigestCallable.Result> results = new BatchDigestCallable(requests, null, "").invoke(workspace, null);
+        Assert.assertThat(results.keySet(), Matchers.contains(dependency.getPath(), "target/my-war-1.0.war", "target/classes", "target/missing.jar"));
+        Assert.assertThat(results.get(dependency.getPath()).getMd5(), Matchers.is("5d41402abc4b2a76b9719d911017c592"));
+        Assert.assertThat(results.get(dependency.getPath()).isCacheHit(), Matchers.is(false));
+        Assert.assertThat(results.get("target/my-war-1.0.war").getMd5(), Matchers.is("5eb63bbbe01eeed093cb22bb8f5acdc3"));
+        Assert.assertThat(results.get("target/classes").isDirectory(), Matchers.is(true));
+        Assert.assertThat(results.get("target/missing.jar").isNotFound(), Matchers.is(true));
+        Assert.assertThat(results.get("target/missing.jar").getMd5(), Matchers.nullValue());
+
+        // the digest of the file of the local repository is cached
+        results = new BatchDigestCallable(requests, null, "").invoke(workspace, null);
+        Assert.assertThat(results.get(dependency.getPath()).isCacheHit(), Matchers.is(true));
+    }
+
+    @Test
+    public void test_previous_digest_reused_only_if_file_unchanged() throws Exception {
+        File workspace = tmp.newFolder("workspace");
+        File generatedFile = new File(workspace, "target/my-jar-1.0.jar");
+        generatedFile.getParentFile().mkdirs();
+        Files.write(generatedFile.toPath(), "hello".getBytes(StandardCharsets.UTF_8));
+
+        BatchDigestCallable.Result previous = new BatchDigestCallable(Arrays.asList(new BatchDigestCallable.Request("target/my-jar-1.0.jar")), null, "")
+                .invoke(workspace, null).get("target/my-jar-1.0.jar");
+        Assert.assertThat(previous.getMd5(), Matchers.is("5d41402abc4b2a76b9719d911017c592"));
+        Assert.assertThat(previous.isCacheHit(), Matchers.is(false));
+
+        List<BatchDigestCallable.Request> requests = Arrays.asList(new BatchDigestCallable.Request("target/my-jar-1.0.jar", previous));
+        BatchDigestCallable.Result unchanged = new BatchDigestCallable(requests, null, "").invoke(workspace, null).get("target/my-jar-1.0.jar");
+        Assert.assertThat(unchanged.getMd5(), Matchers.is("5d41402abc4b2a76b9719d911017c592"));
+        Assert.assertThat(unchanged.isCacheHit(), Matchers.is(true));
+
+        // rebuilt by a subsequent Maven execution
+        Files.write(generatedFile.toPath(), "world".getBytes(StandardCharsets.UTF_8));
+        generatedFile.setLastModified(previous.getLastModified() + 2000);
+        BatchDigestCallable.Result changed = new BatchDigestCallable(requests, null, "").invoke(workspace, null).get("target/my-jar-1.0.jar");
+        Assert.assertThat(changed.getMd5(), Matchers.is("7d793037a0760186574b0282f2f435e7"));
+        Assert.assertThat(changed.isCacheHit(), Matchers.is(false));
+    }
+
+    @Test
+    public void test_known_digest_only_checks_the_existence_of_the_file() throws Exception {
+        File workspace = tmp.newFolder("workspace");
+        File generatedFile = new File(workspace, "target/my-jar-1.0.jar");
+        generatedFile.getParentFile().mkdirs();
+        Files.write(generatedFile.toPath(), "hello".getBytes(StandardCharsets.UTF_8));
+
+        // digest computed by the Maven Spy
+        List<BatchDigestCallable.Request> requests = Arrays.asList(
+                new BatchDigestCallable.Request("target/my-jar-1.0.jar", "5d41402abc4b2a76b9719d911017c592"),
+                new BatchDigestCallable.Request("target/deleted.jar", "7d793037a0760186574b0282f2f435e7"));
+        Map<String, BatchDigestCallable.Result> results = new BatchDigestCallable(requests, null, "").invoke(workspace, null);
+
+        Assert.assertThat(results.get("target/my-jar-1.0.jar").getMd5(), Matchers.is("5d41402abc4b2a76b9719d911017c592"));
+        Assert.assertThat(results.get("target/my-jar-1.0.jar").isCacheHit(), Matchers.is(true));
+        Assert.assertThat(results.get("target/deleted.jar").isNotFound(), Matchers.is(true));
+    }
+}
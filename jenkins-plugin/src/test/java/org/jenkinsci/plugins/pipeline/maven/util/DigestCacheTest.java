@@ -0,0 +1,49 @@
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class DigestCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void test_getLocalRepository() throws Exception {
+        File localRepository = tmp.newFolder("repository");
+        File file = new File(localRepository, "org/apache/commons/commons-lang3/3.5/commons-lang3-3.5.jar");
+
+        Assert.assertThat(DigestCache.getLocalRepository(file, "org.apache.commons", "commons-lang3", "3.5"), Matchers.is(localRepository));
+        Assert.assertThat(DigestCache.getLocalRepository(file, "org.apache", "commons-lang3", "3.5"), Matchers.nullValue());
+        Assert.assertThat(DigestCache.getLocalRepository(new File(tmp.getRoot(), "target/my-jar-1.0.jar"), "com.example", "my-jar", "1.0"), Matchers.nullValue());
+    }
+
+    @Test
+    public void test_digest_is_cached_until_file_changes() throws Exception {
+        File localRepository = tmp.newFolder("repository");
+        File file = new File(localRepository, "com/example/my-jar/1.0/my-jar-1.0.jar");
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), "hello".getBytes(StandardCharsets.UTF_8));
+
+        DigestCache cache = DigestCache.get(localRepository);
+        DigestCache.Digest first = cache.digest(file);
+        Assert.assertThat(first.getMd5(), Matchers.is("5d41402abc4b2a76b9719d911017c592"));
+        Assert.assertThat(first.isCacheHit(), Matchers.is(false));
+        Assert.assertThat(cache.digest(file).isCacheHit(), Matchers.is(true));
+
+        Files.write(file.toPath(), "hello world".getBytes(StandardCharsets.UTF_8));
+        DigestCache.Digest modified = cache.digest(file);
+        Assert.assertThat(modified.isCacheHit(), Matchers.is(false));
+        Assert.assertThat(modified.getMd5(), Matchers.is("5eb63bbbe01eeed093cb22bb8f5acdc3"));
+    }
+}
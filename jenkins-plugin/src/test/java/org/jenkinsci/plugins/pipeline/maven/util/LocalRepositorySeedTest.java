@@ -0,0 +1,97 @@
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class LocalRepositorySeedTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void test_promote_downloaded_releases() throws Exception {
+        File localRepository = tmp.newFolder("repository");
+        File seed = tmp.newFolder("seed");
+
+        File release = new File(localRepository, "com/example/my-lib/1.0");
+        write(new File(release, "my-lib-1.0.jar"), "jar");
+        write(new File(release, "my-lib-1.0.pom"), "pom");
+        write(new File(release, "my-lib-1.0-sources.jar.lastUpdated"), "failed download");
+        write(new File(release, "_remote.repositories"), "my-lib-1.0.jar>central=\nmy-lib-1.0.pom>central=");
+
+        File installed = new File(localRepository, "com/example/my-app/2.0");
+        write(new File(installed, "my-app-2.0.jar"), "jar");
+        write(new File(installed, "_remote.repositories"), "my-app-2.0.jar>=");
+
+        File snapshot = new File(localRepository, "com/example/my-lib/1.1-SNAPSHOT");
+        write(new File(snapshot, "my-lib-1.1-SNAPSHOT.jar"), "jar");
+        write(new File(snapshot, "_remote.repositories"), "my-lib-1.1-SNAPSHOT.jar>snapshots=");
+
+        // downloaded by a previous build, not listed
+        File previousRelease = new File(localRepository, "com/example/my-other-lib/1.0");
+        write(new File(previousRelease, "my-other-lib-1.0.jar"), "jar");
+        write(new File(previousRelease, "_remote.repositories"), "my-other-lib-1.0.jar>central=");
+
+        File downloadedArtifacts = new File(seed, ".staging/downloaded-artifacts.txt");
+        write(downloadedArtifacts, String.join("\n",
+                localRepository + "\t" + path("com/example/my-lib/1.0/my-lib-1.0.jar"),
+                localRepository + "\t" + path("com/example/my-lib/1.0/my-lib-1.0.pom"),
+                localRepository + "\t" + path("com/example/my-lib/1.0/my-lib-1.0-javadoc.jar"),
+                localRepository + "\t" + path("com/example/my-app/2.0/my-app-2.0.jar"),
+                localRepository + "\t" + path("com/example/my-lib/1.1-SNAPSHOT/my-lib-1.1-SNAPSHOT.jar")));
+
+        int promotedFiles = new LocalRepositorySeed.Promote(seed.getPath()).invoke(downloadedArtifacts, null);
+        Assert.assertThat(promotedFiles, Matchers.is(2));
+        Assert.assertThat(new File(seed, "com/example/my-lib/1.0/my-lib-1.0.jar").isFile(), Matchers.is(true));
+        Assert.assertThat(new File(seed, "com/example/my-lib/1.0/my-lib-1.0.pom").isFile(), Matchers.is(true));
+        Assert.assertThat(new File(seed, "com/example/my-lib/1.0/_remote.repositories").isFile(), Matchers.is(true));
+        Assert.assertThat(new File(seed, "com/example/my-lib/1.0/my-lib-1.0-sources.jar.lastUpdated").exists(), Matchers.is(false));
+        Assert.assertThat(new File(seed, "com/example/my-app").exists(), Matchers.is(false));
+        Assert.assertThat(new File(seed, "com/example/my-lib/1.1-SNAPSHOT").exists(), Matchers.is(false));
+        Assert.assertThat(new File(seed, "com/example/my-other-lib").exists(), Matchers.is(false));
+        Assert.assertThat(downloadedArtifacts.exists(), Matchers.is(false));
+
+        // already promoted
+        write(downloadedArtifacts, localRepository + "\t" + path("com/example/my-lib/1.0/my-lib-1.0.jar"));
+        promotedFiles = new LocalRepositorySeed.Promote(seed.getPath()).invoke(downloadedArtifacts, null);
+        Assert.assertThat(promotedFiles, Matchers.is(0));
+
+        // nothing downloaded
+        promotedFiles = new LocalRepositorySeed.Promote(seed.getPath()).invoke(downloadedArtifacts, null);
+        Assert.assertThat(promotedFiles, Matchers.is(0));
+    }
+
+    @Test
+    public void test_getTrackingEntries() {
+        Assert.assertThat(LocalRepositorySeed.getTrackingEntries(Arrays.asList("#NOTE: generated", "my-lib-1.0.jar>central=", "my-lib-1.0.pom>central="),
+                Collections.singleton("my-lib-1.0.jar")), Matchers.contains("my-lib-1.0.jar>central="));
+    }
+
+    @Test
+    public void test_isDownloaded() {
+        Assert.assertThat(LocalRepositorySeed.isDownloaded(Arrays.asList("#NOTE: generated", "my-lib-1.0.jar>central=")), Matchers.is(true));
+        Assert.assertThat(LocalRepositorySeed.isDownloaded(Arrays.asList("my-lib-1.0.pom>central=", "my-lib-1.0.jar>=")), Matchers.is(false));
+        Assert.assertThat(LocalRepositorySeed.isDownloaded(Collections.emptyList()), Matchers.is(false));
+    }
+
+    private static String path(String path) {
+        return path.replace('/', File.separatorChar);
+    }
+
+    private static void write(File file, String content) throws Exception {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,66 @@
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import hudson.Launcher;
+import hudson.model.TaskListener;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenExecutableDiscoveryCacheTest {
+
+    private final Launcher launcher = new Launcher.LocalLauncher(TaskListener.NULL);
+
+    @Test
+    public void test_container_of_decorated_launcher() {
+        Launcher decoratedLauncher = new ContainerDecoratedLauncher(launcher, "3b2f5c8e91a4");
+
+        Assert.assertThat(MavenExecutableDiscoveryCache.getContainerIdentity(decoratedLauncher), Matchers.is("3b2f5c8e91a4"));
+    }
+
+    @Test
+    public void test_container_of_anonymous_launcher_read_from_the_enclosing_decorator() {
+        // e.g. WithContainerStep.Decorator of docker-workflow and ContainerExecDecorator of kubernetes
+        Launcher mavenLauncher = new ContainerExecDecorator("maven").decorate(launcher);
+        Launcher jdkLauncher = new ContainerExecDecorator("jdk").decorate(launcher);
+
+        Assert.assertThat(MavenExecutableDiscoveryCache.getContainerIdentity(mavenLauncher), Matchers.is("maven"));
+        Assert.assertThat(MavenExecutableDiscoveryCache.getContainerIdentity(jdkLauncher), Matchers.is("jdk"));
+    }
+
+    @Test
+    public void test_unknown_container() {
+        Launcher decoratedLauncher = new Launcher.DecoratedLauncher(launcher) {
+        };
+
+        Assert.assertThat(MavenExecutableDiscoveryCache.getContainerIdentity(decoratedLauncher), Matchers.nullValue());
+    }
+
+    private static class ContainerDecoratedLauncher extends Launcher.DecoratedLauncher {
+        private final String container;
+
+        ContainerDecoratedLauncher(Launcher inner, String container) {
+            super(inner);
+            this.container = container;
+        }
+    }
+
+    private static class ContainerExecDecorator {
+        private final String containerName;
+
+        ContainerExecDecorator(String containerName) {
+            this.containerName = containerName;
+        }
+
+        Launcher decorate(Launcher launcher) {
+            return new Launcher.DecoratedLauncher(launcher) {
+                @Override
+                public String toString() {
+                    return "Launcher in container " + containerName;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import hudson.FilePath;
+import hudson.Util;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenSpyJarCacheTest {
+
+    private static final byte[] SPY_JAR_V1 = "maven spy jar v1".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SPY_JAR_V2 = "maven spy jar v2".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void test_jar_uploaded_once_per_version() throws Exception {
+        File agentRoot = tmp.newFolder("agent");
+
+        File cachedJar = new File(MavenSpyJarCache.getCachedJar(new FilePath(agentRoot), SPY_JAR_V1).getRemote());
+        Assert.assertThat(cachedJar, Matchers.is(new File(agentRoot, "caches/pipeline-maven-spy/pipeline-maven-spy-" + Util.getDigestOf("maven spy jar v1") + ".jar")));
+        Assert.assertThat(Files.readAllBytes(cachedJar.toPath()), Matchers.is(SPY_JAR_V1));
+
+        long lastModified = cachedJar.lastModified() - TimeUnit.SECONDS.toMillis(10);
+        Assert.assertThat(cachedJar.setLastModified(lastModified), Matchers.is(true));
+        Assert.assertThat(new File(MavenSpyJarCache.getCachedJar(new FilePath(agentRoot), SPY_JAR_V1).getRemote()), Matchers.is(cachedJar));
+        // not uploaded again
+        Assert.assertThat(cachedJar.lastModified(), Matchers.is(lastModified));
+
+        File cachedJarV2 = new File(MavenSpyJarCache.getCachedJar(new FilePath(agentRoot), SPY_JAR_V2).getRemote());
+        Assert.assertThat(cachedJarV2, Matchers.not(cachedJar));
+        Assert.assertThat(Files.readAllBytes(cachedJarV2.toPath()), Matchers.is(SPY_JAR_V2));
+        Assert.assertThat(cachedJar.exists(), Matchers.is(true));
+    }
+
+    @Test
+    public void test_corrupted_jar_uploaded_again() throws Exception {
+        File agentRoot = tmp.newFolder("agent");
+        File cachedJar = new File(MavenSpyJarCache.getCachedJar(new FilePath(agentRoot), SPY_JAR_V1).getRemote());
+
+        // same length, different content
+        Files.write(cachedJar.toPath(), SPY_JAR_V2);
+        Assert.assertThat(cachedJar.setLastModified(cachedJar.lastModified() - TimeUnit.SECONDS.toMillis(10)), Matchers.is(true));
+
+        MavenSpyJarCache.getCachedJar(new FilePath(agentRoot), SPY_JAR_V1);
+        Assert.assertThat(Files.readAllBytes(cachedJar.toPath()), Matchers.is(SPY_JAR_V1));
+    }
+
+    @Test
+    public void test_verify_creates_the_missing_cache_dir() throws Exception {
+        File cacheDir = new File(tmp.getRoot(), "caches/pipeline-maven-spy");
+
+        Boolean cached = new MavenSpyJarCache.Verify("pipeline-maven-spy-123.jar", SPY_JAR_V1.length, Util.getDigestOf("maven spy jar v1")).invoke(cacheDir, null);
+
+        Assert.assertThat(cached, Matchers.is(false));
+        Assert.assertThat(cacheDir.isDirectory(), Matchers.is(true));
+    }
+
+    @Test
+    public void test_cleanup_of_the_stale_jars() throws Exception {
+        File cacheDir = tmp.newFolder("caches", "pipeline-maven-spy");
+        long staleLastModified = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(8);
+        File currentJar = write(cacheDir, "pipeline-maven-spy-current.jar", staleLastModified);
+        File staleJar = write(cacheDir, "pipeline-maven-spy-stale.jar", staleLastModified);
+        File staleUpload = write(cacheDir, "pipeline-maven-spy-stale.jar.1234abcd.tmp", staleLastModified);
+        File recentJar = write(cacheDir, "pipeline-maven-spy-recent.jar", System.currentTimeMillis());
+        File otherFile = write(cacheDir, "other.txt", staleLastModified);
+
+        new MavenSpyJarCache.Cleanup(currentJar.getName(), TimeUnit.DAYS.toMillis(7)).invoke(cacheDir, null);
+
+        Assert.assertThat(currentJar.exists(), Matchers.is(true));
+        Assert.assertThat(staleJar.exists(), Matchers.is(false));
+        Assert.assertThat(staleUpload.exists(), Matchers.is(false));
+        Assert.assertThat(recentJar.exists(), Matchers.is(true));
+        Assert.assertThat(otherFile.exists(), Matchers.is(true));
+    }
+
+    private static File write(File dir, String fileName, long lastModified) throws IOException {
+        File file = new File(dir, fileName);
+        Files.write(file.toPath(), SPY_JAR_V1);
+        Assert.assertThat(file.setLastModified(lastModified), Matchers.is(true));
+        return file;
+    }
+}
@@ -0,0 +1,108 @@
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import hudson.FilePath;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class ReportDigestCacheTest {
+
+    private static final String PATTERN = "**/target/concordion-reports/**";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void test_digests_per_report_directory() throws Exception {
+        File workspace = tmp.newFolder("workspace");
+        write(workspace, "module-a/target/concordion-reports/index.html", "module a");
+        write(workspace, "module-a/target/concordion-reports/css/report.css", "body {}");
+        write(workspace, "module-b/target/concordion-reports/index.html", "module b");
+
+        Map<String, String> digests = ReportDigestCache.getDigests(probe(workspace), PATTERN, "target/concordion-reports");
+
+        Assert.assertThat(digests.keySet(), Matchers.contains("module-a/target/concordion-reports", "module-b/target/concordion-reports"));
+
+        write(workspace, "module-b/target/concordion-reports/index.html", "module b rebuilt");
+        Map<String, String> newDigests = ReportDigestCache.getDigests(probe(workspace), PATTERN, "target/concordion-reports");
+
+        Assert.assertThat(newDigests.get("module-a/target/concordion-reports"), Matchers.is(digests.get("module-a/target/concordion-reports")));
+        Assert.assertThat(newDigests.get("module-b/target/concordion-reports"), Matchers.not(digests.get("module-b/target/concordion-reports")));
+    }
+
+    @Test
+    public void test_digests_unknown_if_pattern_not_probed() {
+        Assert.assertThat(ReportDigestCache.getDigests(new WorkspaceSnapshot(), PATTERN, "target/concordion-reports"), Matchers.nullValue());
+    }
+
+    @Test
+    public void test_reusable_reports_unchanged_and_stored_by_previous_build() throws Exception {
+        File previousReports = tmp.newFolder("previous");
+        new File(previousReports, "module-a/target/concordion-reports").mkdirs();
+        new File(previousReports, "module-b/target/concordion-reports").mkdirs();
+
+        Map<String, String> previousDigests = new TreeMap<>();
+        previousDigests.put("module-a/target/concordion-reports", "1");
+        previousDigests.put("module-b/target/concordion-reports", "2");
+        previousDigests.put("module-c/target/concordion-reports", "3");
+        Map<String, String> digests = new TreeMap<>();
+        digests.put("module-a/target/concordion-reports", "1");
+        digests.put("module-b/target/concordion-reports", "22");
+        digests.put("module-c/target/concordion-reports", "3");
+        digests.put("module-d/target/concordion-reports", "4");
+
+        Assert.assertThat(ReportDigestCache.getReusableReports(previousDigests, digests, previousReports), Matchers.contains("module-a/target/concordion-reports"));
+    }
+
+    @Test
+    public void test_stage_unchanged_reports_of_previous_build_and_changed_reports_of_workspace() throws Exception {
+        File previousReports = tmp.newFolder("previous");
+        write(previousReports, "module-a/target/concordion-reports/index.html", "module a");
+        write(previousReports, "module-b/target/concordion-reports/index.html", "module b");
+        write(previousReports, "module-c/target/concordion-reports/index.html", "module c");
+        File workspace = tmp.newFolder("workspace");
+        write(workspace, "module-a/target/concordion-reports/index.html", "module a");
+        write(workspace, "module-b/target/concordion-reports/index.html", "module b rebuilt");
+        write(workspace, "module-d/target/concordion-reports/index.html", "module d");
+        File staging = new File(tmp.getRoot(), "staging");
+
+        ReportDigestCache.stage(new FilePath(workspace), previousReports, new FilePath(staging),
+                new HashSet<>(Arrays.asList("module-a/target/concordion-reports", "module-b/target/concordion-reports", "module-c/target/concordion-reports")),
+                new HashSet<>(Arrays.asList("module-a/target/concordion-reports", "module-b/target/concordion-reports", "module-d/target/concordion-reports")),
+                Collections.singleton("module-a/target/concordion-reports"));
+
+        Assert.assertThat(read(staging, "module-a/target/concordion-reports/index.html"), Matchers.is("module a"));
+        Assert.assertThat(read(staging, "module-b/target/concordion-reports/index.html"), Matchers.is("module b rebuilt"));
+        Assert.assertThat(new File(staging, "module-c/target/concordion-reports").exists(), Matchers.is(false));
+        Assert.assertThat(read(staging, "module-d/target/concordion-reports/index.html"), Matchers.is("module d"));
+    }
+
+    private static WorkspaceSnapshot probe(File workspace) throws Exception {
+        return new WorkspaceSnapshot.ProbeCallable(new WorkspaceSnapshot.Request().addPattern(PATTERN)).invoke(workspace, null);
+    }
+
+    private static void write(File root, String path, String content) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(File root, String path) throws IOException {
+        return new String(Files.readAllBytes(new File(root, path).toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,104 @@
+package org.jenkinsci.plugins.pipeline.maven.util;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class WorkspaceSnapshotTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void test_probe_paths() throws Exception {
+        File workspace = tmp.newFolder("workspace");
+        File jar = write(workspace, "target/my-jar-1.0.jar", "my jar");
+        new File(workspace, "target/classes").mkdirs();
+
+        WorkspaceSnapshot snapshot = probe(workspace, new WorkspaceSnapshot.Request()
+                .addPath("target/my-jar-1.0.jar")
+                .addPath("target/classes")
+                .addPath(".skip-publish-junit-results"));
+
+        WorkspaceSnapshot.PathInfo jarInfo = snapshot.getPath("target/my-jar-1.0.jar");
+        Assert.assertThat(jarInfo.exists(), Matchers.is(true));
+        Assert.assertThat(jarInfo.isDirectory(), Matchers.is(false));
+        Assert.assertThat(jarInfo.length(), Matchers.is(6L));
+        Assert.assertThat(jarInfo.lastModified(), Matchers.is(jar.lastModified()));
+
+        WorkspaceSnapshot.PathInfo classesInfo = snapshot.getPath("target/classes");
+        Assert.assertThat(classesInfo.exists(), Matchers.is(true));
+        Assert.assertThat(classesInfo.isDirectory(), Matchers.is(true));
+        Assert.assertThat(classesInfo.length(), Matchers.is(0L));
+
+        Assert.assertThat(snapshot.getPath(".skip-publish-junit-results").exists(), Matchers.is(false));
+        // not probed
+        Assert.assertThat(snapshot.getPath("pom.xml"), Matchers.nullValue());
+    }
+
+    @Test
+    public void test_probe_patterns_and_their_matching_files() throws Exception {
+        File workspace = tmp.newFolder("workspace");
+        write(workspace, "module-a/target/surefire-reports/TEST-a.xml", "<testsuite/>");
+        write(workspace, "module-b/target/surefire-reports/TEST-b.xml", "<testsuite/>");
+        write(workspace, "module-b/target/surefire-reports/b.txt", "");
+
+        WorkspaceSnapshot snapshot = probe(workspace, new WorkspaceSnapshot.Request()
+                .addPattern("**/target/surefire-reports/*.xml")
+                .addPattern("**/target/jgiven-reports/json/*.json"));
+
+        String reportA = String.join(File.separator, "module-a", "target", "surefire-reports", "TEST-a.xml");
+        String reportB = String.join(File.separator, "module-b", "target", "surefire-reports", "TEST-b.xml");
+        Assert.assertThat(snapshot.list("**/target/surefire-reports/*.xml"), Matchers.containsInAnyOrder(reportA, reportB));
+        Assert.assertThat(snapshot.getPath(reportA).exists(), Matchers.is(true));
+        Assert.assertThat(snapshot.getPath(reportA).length(), Matchers.is(12L));
+        Assert.assertThat(snapshot.list("**/target/jgiven-reports/json/*.json"), Matchers.empty());
+        // not probed
+        Assert.assertThat(snapshot.list("**/target/concordion-reports/**"), Matchers.nullValue());
+    }
+
+    @Test
+    public void test_probe_patterns_of_a_missing_workspace() throws Exception {
+        File workspace = new File(tmp.getRoot(), "missing-workspace");
+
+        WorkspaceSnapshot snapshot = probe(workspace, new WorkspaceSnapshot.Request()
+                .addPath("pom.xml")
+                .addPattern("**/target/surefire-reports/*.xml"));
+
+        Assert.assertThat(snapshot.getPath("pom.xml").exists(), Matchers.is(false));
+        Assert.assertThat(snapshot.list("**/target/surefire-reports/*.xml"), Matchers.empty());
+    }
+
+    @Test
+    public void test_add_the_probes_of_another_snapshot() throws Exception {
+        File workspace = tmp.newFolder("workspace");
+        write(workspace, "pom.xml", "<project/>");
+
+        WorkspaceSnapshot snapshot = probe(workspace, new WorkspaceSnapshot.Request().addPath("pom.xml"));
+        snapshot.add(probe(workspace, new WorkspaceSnapshot.Request().addPattern("*.xml")));
+
+        Assert.assertThat(snapshot.getPath("pom.xml").exists(), Matchers.is(true));
+        Assert.assertThat(snapshot.list("*.xml"), Matchers.contains("pom.xml"));
+    }
+
+    private static WorkspaceSnapshot probe(File workspace, WorkspaceSnapshot.Request request) throws Exception {
+        return new WorkspaceSnapshot.ProbeCallable(request).invoke(workspace, null);
+    }
+
+    private static File write(File root, String path, String content) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
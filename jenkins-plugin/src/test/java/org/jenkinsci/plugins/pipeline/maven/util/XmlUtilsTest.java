@@ -19,6 +19,7 @@ import java.io.InputStream;
 import java.io.StringReader;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -126,6 +127,61 @@ public class XmlUtilsTest {
         Assert.assertThat(actualElements.size(), CoreMatchers.is(0));
     }
 
+    @Test
+    public void getProjectElement_resolves_project_reference() throws Exception {
+        String xml =
+                "<mavenExecution>" +
+                        "<projectDef id='p1' groupId='com.example' artifactId='my-jar'><build directory='/path/to/my-jar/target'/></projectDef>" +
+                        "<ExecutionEvent type='ProjectStarted'><project ref='p1'/></ExecutionEvent>" +
+                        "<ExecutionEvent type='ProjectSucceeded'><project ref='p1'/></ExecutionEvent>" +
+                        "</mavenExecution>";
+        Element documentElement = toXml(xml);
+        for (Element executionEvent : XmlUtils.getExecutionEvents(documentElement, "ProjectStarted", "ProjectSucceeded")) {
+            Element projectElt = XmlUtils.getProjectElement(executionEvent);
+            Assert.assertThat(projectElt.getAttribute("artifactId"), CoreMatchers.is("my-jar"));
+            Assert.assertThat(XmlUtils.getProjectBuildDirectory(projectElt), CoreMatchers.is("/path/to/my-jar/target"));
+        }
+    }
+
+    @Test
+    public void getProjectElement_inline_project() throws Exception {
+        String xml =
+                "<mavenExecution>" +
+                        "<ExecutionEvent type='ProjectStarted'><project groupId='com.example' artifactId='my-jar'/></ExecutionEvent>" +
+                        "</mavenExecution>";
+        Element documentElement = toXml(xml);
+        Element executionEvent = XmlUtils.getExecutionEvents(documentElement, "ProjectStarted").get(0);
+        Assert.assertThat(XmlUtils.getProjectElement(executionEvent).getAttribute("artifactId"), CoreMatchers.is("my-jar"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void getProjectElement_unknown_project_reference() throws Exception {
+        String xml =
+                "<mavenExecution>" +
+                        "<ExecutionEvent type='ProjectStarted'><project ref='p1'/></ExecutionEvent>" +
+                        "</mavenExecution>";
+        Element documentElement = toXml(xml);
+        XmlUtils.getProjectElement(XmlUtils.getExecutionEvents(documentElement, "ProjectStarted").get(0));
+    }
+
+    @Test
+    public void getFileDigests() throws Exception {
+        String xml =
+                "<mavenExecution>" +
+                        "<FileDigests algorithm='MD5'>" +
+                        "<file path='/path/to/my-jar/target/my-jar-0.5-SNAPSHOT.jar' md5='5d41402abc4b2a76b9719d911017c592'/>" +
+                        "</FileDigests>" +
+                        "</mavenExecution>";
+        Map<String, String> fileDigests = XmlUtils.getFileDigests(toXml(xml));
+        Assert.assertThat(fileDigests.size(), CoreMatchers.is(1));
+        Assert.assertThat(fileDigests.get("/path/to/my-jar/target/my-jar-0.5-SNAPSHOT.jar"), CoreMatchers.is("5d41402abc4b2a76b9719d911017c592"));
+    }
+
+    @Test
+    public void getFileDigests_not_computed() throws Exception {
+        Assert.assertThat(XmlUtils.getFileDigests(toXml("<mavenExecution/>")).isEmpty(), CoreMatchers.is(true));
+    }
+
     private Element toXml(String xml) throws SAXException, IOException {
         return documentBuilder.parse(new InputSource(new StringReader(xml))).getDocumentElement();
     }
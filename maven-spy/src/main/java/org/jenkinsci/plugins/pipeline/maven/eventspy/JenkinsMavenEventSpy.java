@@ -26,7 +26,9 @@ package org.jenkinsci.plugins.pipeline.maven.eventspy;
 
 import org.apache.maven.eventspy.AbstractEventSpy;
 import org.apache.maven.eventspy.EventSpy;
+import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.AbstractMavenEventHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.ArtifactDeployedEventHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.CatchAllExecutionHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.DefaultSettingsBuildingRequestHandler;
@@ -34,20 +36,25 @@ import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.DependencyResolutio
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.DependencyResolutionResultHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.DeployDeployExecutionHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.FailsafeTestExecutionHandler;
+import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.FileDigester;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.InvokerRunExecutionHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.InvokerStartExecutionHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.JarJarExecutionHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.MavenEventHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.MavenExecutionRequestHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.MavenExecutionResultHandler;
+import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.MavenExecutionTimer;
+import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.MavenProjectTable;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.ProjectFailedExecutionHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.ProjectStartedExecutionHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.ProjectSucceededExecutionHandler;
+import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.RepositoryEventHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.SessionEndedHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.handler.SurefireTestExecutionHandler;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.DevNullMavenEventReporter;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.FileMavenEventReporter;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.MavenEventReporter;
+import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.StreamingMavenEventReporter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,8 +66,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Properties;
 import java.util.Set;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
@@ -78,6 +88,11 @@ public class JenkinsMavenEventSpy extends AbstractEventSpy {
 
     public final static String DISABLE_MAVEN_EVENT_SPY_ENVIRONMENT_VARIABLE_NAME =  "JENKINS_MAVEN_AGENT_DISABLED";
 
+    /**
+     * Max time to wait, at the end of the execution, for the digests of the files still being computed
+     */
+    private final static long FILE_DIGESTS_TIMEOUT_IN_MILLIS = Long.getLong(JenkinsMavenEventSpy.class.getName() + ".fileDigestsTimeoutInMillis", 60000);
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private MavenEventReporter reporter;
@@ -95,6 +110,13 @@ public class JenkinsMavenEventSpy extends AbstractEventSpy {
 
     private List<MavenEventHandler> handlers = new ArrayList();
 
+    private RepositoryEventHandler repositoryEventHandler;
+
+    /**
+     * {@code null} if the digests of the files are not computed
+     */
+    private FileDigester fileDigester;
+
     public JenkinsMavenEventSpy() throws IOException {
         this.disabled = isEventSpyDisabled();
         if (disabled) {
@@ -115,7 +137,31 @@ public class JenkinsMavenEventSpy extends AbstractEventSpy {
         }
 
         if (reporter == null) {
-            this.reporter = new FileMavenEventReporter();
+            FileMavenEventReporter fileReporter = new FileMavenEventReporter();
+            this.reporter = fileReporter;
+            String eventStreamPort = System.getProperty(StreamingMavenEventReporter.EVENT_STREAM_PORT_PROPERTY_NAME);
+            String eventStreamTokenFile = System.getProperty(StreamingMavenEventReporter.EVENT_STREAM_TOKEN_FILE_PROPERTY_NAME);
+            if (eventStreamPort != null && !eventStreamPort.trim().isEmpty()) {
+                String eventStreamToken = null;
+                if (eventStreamTokenFile == null || eventStreamTokenFile.trim().isEmpty()) {
+                    logger.warn("[jenkins-event-spy] No token to stream events to port " + eventStreamPort + ", only generate the report file");
+                } else {
+                    try {
+                        eventStreamToken = FileUtils.fileRead(new File(eventStreamTokenFile.trim()), "UTF-8").trim();
+                    } catch (IOException e) {
+                        logger.warn("[jenkins-event-spy] Failure to read the token to stream events to port " + eventStreamPort + ", only generate the report file: " + e);
+                    }
+                }
+                if (eventStreamToken != null && !eventStreamToken.isEmpty()) {
+                    try {
+                        this.reporter = new StreamingMavenEventReporter(fileReporter, Integer.parseInt(eventStreamPort.trim()), eventStreamToken);
+                    } catch (IOException e) {
+                        logger.warn("[jenkins-event-spy] Failure to stream events to port " + eventStreamPort + ", only generate the report file: " + e);
+                    } catch (NumberFormatException e) {
+                        logger.warn("[jenkins-event-spy] Invalid event stream port '" + eventStreamPort + "', only generate the report file");
+                    }
+                }
+            }
         }
         // Initialize handlers
         handlers.add(new ProjectSucceededExecutionHandler(reporter));
@@ -134,9 +180,26 @@ public class JenkinsMavenEventSpy extends AbstractEventSpy {
         handlers.add(new SessionEndedHandler(reporter));
         handlers.add(new DeployDeployExecutionHandler(reporter));
         handlers.add(new ArtifactDeployedEventHandler(reporter));
+        repositoryEventHandler = new RepositoryEventHandler(reporter, getMavenVersion(context));
+        handlers.add(repositoryEventHandler);
 
         handlers.add(new CatchAllExecutionHandler(reporter));
 
+        // State shared by the handlers: definitions of the projects already reported, start times of the executions
+        // and digests of the files
+        MavenProjectTable projectTable = new MavenProjectTable();
+        MavenExecutionTimer executionTimer = new MavenExecutionTimer();
+        if (Boolean.getBoolean(FileDigester.FILE_DIGESTS_PROPERTY_NAME)) {
+            fileDigester = new FileDigester();
+        }
+        for (MavenEventHandler handler : handlers) {
+            if (handler instanceof AbstractMavenEventHandler) {
+                ((AbstractMavenEventHandler) handler).setProjectTable(projectTable);
+                ((AbstractMavenEventHandler) handler).setExecutionTimer(executionTimer);
+                ((AbstractMavenEventHandler) handler).setFileDigester(fileDigester);
+            }
+        }
+
         // Print context
         Xpp3Dom element = new Xpp3Dom("context");
         for (Map.Entry<String, Object> entry : context.getData().entrySet()) {
@@ -180,10 +243,26 @@ public class JenkinsMavenEventSpy extends AbstractEventSpy {
         if (disabled) {
             return;
         }
+        if (fileDigester != null) {
+            reporter.print(fileDigester.newFileDigestsElement(FILE_DIGESTS_TIMEOUT_IN_MILLIS));
+            fileDigester.shutdown();
+        }
+        if (repositoryEventHandler != null) {
+            repositoryEventHandler.printSummary();
+        }
         reporter.print("close: ignored:" + ignoredList + ", blackListed: " + blackList);
         reporter.close();
     }
 
+    /**
+     * @return the version of Maven, {@code null} if unknown
+     */
+    @Nullable
+    static String getMavenVersion(@Nonnull EventSpy.Context context) {
+        Object versionProperties = context.getData().get("versionProperties");
+        return versionProperties instanceof Properties ? ((Properties) versionProperties).getProperty("version") : null;
+    }
+
     /**
      * Visible for testing
      */
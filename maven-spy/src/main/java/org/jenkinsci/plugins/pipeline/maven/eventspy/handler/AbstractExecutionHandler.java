@@ -81,8 +81,10 @@ public abstract class AbstractExecutionHandler extends AbstractMavenEventHandler
         Xpp3Dom root = new Xpp3Dom("ExecutionEvent");
         root.setAttribute("class", executionEvent.getClass().getName());
         root.setAttribute("type", executionEvent.getType().name());
+        root.setAttribute("thread", Thread.currentThread().getName());
+        addTimings(executionEvent, root);
 
-        root.addChild(newElement("project", executionEvent.getProject()));
+        root.addChild(newProjectElement(executionEvent.getProject()));
 
         MojoExecution execution = executionEvent.getMojoExecution();
 
@@ -124,6 +126,39 @@ public abstract class AbstractExecutionHandler extends AbstractMavenEventHandler
 
     }
 
+    /**
+     * Add the {@code startTime} and {@code durationInMillis} attributes to the "succeeded" and "failed" events
+     * of the projects and of the mojos.
+     */
+    protected void addTimings(@Nonnull ExecutionEvent executionEvent, @Nonnull Xpp3Dom root) {
+        if (executionTimer == null || executionEvent.getProject() == null) {
+            return;
+        }
+        String key = executionEvent.getProject().getId();
+        MojoExecution execution = executionEvent.getMojoExecution();
+        if (execution != null) {
+            key += "/" + execution.getGroupId() + ":" + execution.getArtifactId() + ":" + execution.getGoal() + ":" + execution.getExecutionId();
+        }
+        switch (executionEvent.getType()) {
+            case ProjectStarted:
+            case MojoStarted:
+                executionTimer.start(key);
+                break;
+            case ProjectSucceeded:
+            case ProjectFailed:
+            case MojoSucceeded:
+            case MojoFailed:
+                long[] startTimeAndDuration = executionTimer.stop(key);
+                if (startTimeAndDuration != null) {
+                    root.setAttribute("startTime", String.valueOf(startTimeAndDuration[0]));
+                    root.setAttribute("durationInMillis", String.valueOf(startTimeAndDuration[1]));
+                }
+                break;
+            default:
+                // no timing
+        }
+    }
+
     @Nonnull
     protected abstract List<String> getConfigurationParametersToReport(ExecutionEvent executionEvent);
 
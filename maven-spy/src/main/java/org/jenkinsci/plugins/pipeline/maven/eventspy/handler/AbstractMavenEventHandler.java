@@ -55,10 +55,40 @@ public abstract class AbstractMavenEventHandler<E> implements MavenEventHandler<
 
     protected final MavenEventReporter reporter;
 
+    /**
+     * {@code null} to inline the full {@code <project>} element in each event
+     */
+    @Nullable
+    protected MavenProjectTable projectTable;
+
+    /**
+     * {@code null} to not report the duration of the executions
+     */
+    @Nullable
+    protected MavenExecutionTimer executionTimer;
+
+    /**
+     * {@code null} to not compute the digests of the files
+     */
+    @Nullable
+    protected FileDigester fileDigester;
+
     protected AbstractMavenEventHandler(MavenEventReporter reporter) {
         this.reporter = reporter;
     }
 
+    public void setProjectTable(@Nullable MavenProjectTable projectTable) {
+        this.projectTable = projectTable;
+    }
+
+    public void setExecutionTimer(@Nullable MavenExecutionTimer executionTimer) {
+        this.executionTimer = executionTimer;
+    }
+
+    public void setFileDigester(@Nullable FileDigester fileDigester) {
+        this.fileDigester = fileDigester;
+    }
+
 
     @Override
     public boolean handle(Object event) {
@@ -158,6 +188,34 @@ public abstract class AbstractMavenEventHandler<E> implements MavenEventHandler<
         return projectElt;
     }
 
+    /**
+     * Create a {@code <project ref="..."/>} element referencing the {@code <projectDef id="...">} of the given project.
+     * The {@code <projectDef>} is printed on the first reference to the project.
+     * Fallback to the inline {@code <project>} element if no {@link MavenProjectTable} is defined.
+     */
+    public Xpp3Dom newProjectElement(@Nullable MavenProject project) {
+        if (project == null || projectTable == null) {
+            return newElement("project", project);
+        }
+        String id = projectTable.getId(project);
+        if (id == null) {
+            // print the definition before publishing the id so that no event references a project not yet defined
+            synchronized (projectTable) {
+                id = projectTable.getId(project);
+                if (id == null) {
+                    id = projectTable.newId();
+                    Xpp3Dom projectDefElt = newElement("projectDef", project);
+                    projectDefElt.setAttribute("id", id);
+                    reporter.print(projectDefElt);
+                    projectTable.register(project, id);
+                }
+            }
+        }
+        Xpp3Dom projectElt = new Xpp3Dom("project");
+        projectElt.setAttribute("ref", id);
+        return projectElt;
+    }
+
     /**
      * If the Maven project uses the "flatten-maven-plugin" and defines the config parameter "flattenedPomFilename", get its value.
      *
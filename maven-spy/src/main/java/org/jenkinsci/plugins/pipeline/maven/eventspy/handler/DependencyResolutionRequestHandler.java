@@ -40,7 +40,7 @@ public class DependencyResolutionRequestHandler extends AbstractMavenEventHandle
     protected boolean _handle(DependencyResolutionRequest request) {
         Xpp3Dom root = new Xpp3Dom("DependencyResolutionRequest");
         root.setAttribute("class", request.getClass().getName());
-        root.addChild(newElement("project", request.getMavenProject()));
+        root.addChild(newProjectElement(request.getMavenProject()));
 
         reporter.print(root);
         return true;
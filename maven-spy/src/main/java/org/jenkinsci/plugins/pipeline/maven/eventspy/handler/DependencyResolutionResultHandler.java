@@ -86,6 +86,9 @@ public class DependencyResolutionResultHandler extends AbstractMavenEventHandler
             Xpp3Dom dependencyElt = new Xpp3Dom("dependency");
 
             dependencyElt.addChild(newElement("file", artifact.getFile().getAbsolutePath()));
+            if (fileDigester != null) {
+                fileDigester.submit(artifact.getFile().getAbsolutePath());
+            }
 
             dependencyElt.setAttribute("name", artifact.getFile().getName());
 
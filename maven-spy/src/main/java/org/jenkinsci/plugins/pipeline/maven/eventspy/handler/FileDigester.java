@@ -0,0 +1,247 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.pipeline.maven.eventspy.handler;
+
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Computes in background threads the MD5 digests of the files generated and resolved by the build, the digests are
+ * reported in a {@code <FileDigests>} element at the end of the execution so that Jenkins doesn't have to read the
+ * files again to fingerprint them.
+ * <p>
+ * Must be thread safe, it is shared by all the handlers and used by parallel builds ({@code mvn -T}).
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class FileDigester {
+
+    /**
+     * Set to {@code true} to compute the digests of the files
+     */
+    public final static String FILE_DIGESTS_PROPERTY_NAME = "org.jenkinsci.plugins.pipeline.maven.fileDigests";
+
+    public final static String THREADS_PROPERTY_NAME = FileDigester.class.getName() + ".threads";
+
+    public final static String DIGEST_CACHE_DISABLED_PROPERTY_NAME = DigestCache.class.getName() + ".disabled";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ExecutorService executorService;
+
+    /**
+     * digests indexed by file path, the path is the one written in the report
+     */
+    private final ConcurrentMap<String, Future<String>> digests = new ConcurrentHashMap<String, Future<String>>();
+
+    /**
+     * Cache of the digests of the files of the local repository, {@code null} if not known yet or disabled
+     */
+    @Nullable
+    private volatile DigestCache digestCache;
+
+    public FileDigester() {
+        int threads = Integer.getInteger(THREADS_PROPERTY_NAME, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        final AtomicInteger threadCounter = new AtomicInteger();
+        this.executorService = Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "jenkins-event-spy-digest-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Schedule the computation of the digest of the given file. Directories and missing files are ignored.
+     *
+     * @param path path of the file as written in the report
+     */
+    public void submit(@Nullable final String path) {
+        if (path == null || digests.containsKey(path)) {
+            return;
+        }
+        final File file = new File(path);
+        if (!file.isFile()) {
+            return;
+        }
+        FutureTask<String> task = new FutureTask<String>(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                DigestCache cache = digestCache;
+                if (cache != null && !cache.accept(file.getCanonicalPath())) {
+                    cache = null;
+                }
+                if (cache != null) {
+                    String md5 = cache.get(file);
+                    if (md5 != null) {
+                        return md5;
+                    }
+                }
+                long size = file.length();
+                long lastModified = file.lastModified();
+                String md5 = digest(file);
+                if (file.length() != size || file.lastModified() != lastModified) {
+                    // e.g. artifact repackaged while being hashed, Jenkins will compute the digest
+                    throw new IOException("File modified while computing its digest");
+                }
+                if (cache != null) {
+                    cache.put(file, size, lastModified, md5);
+                }
+                return md5;
+            }
+        });
+        if (digests.putIfAbsent(path, task) == null) {
+            executorService.execute(task);
+        }
+    }
+
+    /**
+     * Wait for the digests being computed and return them.
+     *
+     * @return {@code <FileDigests algorithm="MD5"><file path="..." md5="..."/>...</FileDigests>}
+     */
+    @Nonnull
+    public Xpp3Dom newFileDigestsElement(long timeoutInMillis) {
+        long deadline = System.nanoTime() + TimeUnit.NANOSECONDS.convert(timeoutInMillis, TimeUnit.MILLISECONDS);
+        Map<String, Future<String>> sortedDigests = new TreeMap<String, Future<String>>(digests);
+
+        Xpp3Dom fileDigestsElt = new Xpp3Dom("FileDigests");
+        fileDigestsElt.setAttribute("algorithm", "MD5");
+        DigestCache cache = digestCache;
+        int timeouts = 0;
+        for (Map.Entry<String, Future<String>> entry : sortedDigests.entrySet()) {
+            String md5;
+            try {
+                md5 = entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                timeouts++;
+                continue;
+            } catch (ExecutionException e) {
+                logger.debug("[jenkins-event-spy] Failure to compute the digest of " + entry.getKey(), e.getCause());
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            Xpp3Dom fileElt = new Xpp3Dom("file");
+            fileElt.setAttribute("path", entry.getKey());
+            fileElt.setAttribute("md5", md5);
+            fileDigestsElt.addChild(fileElt);
+        }
+        if (timeouts > 0) {
+            logger.warn("[jenkins-event-spy] Timeout computing the digests of " + timeouts + " files, Jenkins will compute them");
+        }
+        if (cache != null) {
+            fileDigestsElt.setAttribute("cacheHits", String.valueOf(cache.getHits()));
+            fileDigestsElt.setAttribute("cacheMisses", String.valueOf(cache.getMisses()));
+        }
+        return fileDigestsElt;
+    }
+
+    /**
+     * Use the digest cache of the given local repository, see {@link DigestCache}.
+     * Does nothing if the cache is disabled with the system property {@link #DIGEST_CACHE_DISABLED_PROPERTY_NAME}.
+     */
+    public void setLocalRepository(@Nonnull File localRepository) {
+        if (Boolean.getBoolean(DIGEST_CACHE_DISABLED_PROPERTY_NAME)) {
+            return;
+        }
+        try {
+            this.digestCache = new DigestCache(localRepository);
+        } catch (IOException e) {
+            logger.warn("[jenkins-event-spy] Failure to use the digest cache of " + localRepository + ": " + e);
+        }
+    }
+
+    public void shutdown() {
+        executorService.shutdownNow();
+        DigestCache cache = digestCache;
+        if (cache != null) {
+            try {
+                if (cache.compactIfNeeded()) {
+                    logger.debug("[jenkins-event-spy] Compacted the digest cache");
+                }
+            } catch (IOException e) {
+                logger.debug("[jenkins-event-spy] Failure to compact the digest cache", e);
+            }
+        }
+    }
+
+    /**
+     * @return the hexadecimal lower case MD5 digest of the file, same format as {@code hudson.Util#getDigestOf(InputStream)}
+     */
+    @Nonnull
+    public static String digest(@Nonnull File file) throws IOException {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        byte[] bytes = messageDigest.digest();
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -46,6 +46,10 @@ public class MavenExecutionRequestHandler extends AbstractMavenEventHandler<Mave
         root.addChild(newElement("userSettingsFile", request.getUserSettingsFile()));
         root.addChild(newElement("baseDirectory", request.getBaseDirectory()));
 
+        if (fileDigester != null && request.getLocalRepositoryPath() != null) {
+            fileDigester.setLocalRepository(request.getLocalRepositoryPath());
+        }
+
         reporter.print(root);
         return true;
     }
@@ -0,0 +1,65 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.eventspy.handler;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Measures the wall-clock duration between the "started" and the "succeeded" / "failed" events of the Maven projects
+ * and of the mojo executions.
+ * <p>
+ * Must be thread safe, it is shared by all the handlers and used by parallel builds ({@code mvn -T}).
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenExecutionTimer {
+
+    /**
+     * start times indexed by execution key. Value: {@code [System.currentTimeMillis(), System.nanoTime()]}
+     */
+    private final ConcurrentMap<String, long[]> startTimes = new ConcurrentHashMap<String, long[]>();
+
+    public void start(@Nonnull String key) {
+        startTimes.put(key, new long[]{System.currentTimeMillis(), System.nanoTime()});
+    }
+
+    /**
+     * @return {@code [startTimeInMillis, durationInMillis]} or {@code null} if the execution has not been started
+     */
+    @Nullable
+    public long[] stop(@Nonnull String key) {
+        long[] startTime = startTimes.remove(key);
+        if (startTime == null) {
+            return null;
+        }
+        long durationInMillis = TimeUnit.MILLISECONDS.convert(System.nanoTime() - startTime[1], TimeUnit.NANOSECONDS);
+        return new long[]{startTime[0], durationInMillis};
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.pipeline.maven.eventspy.handler;
+
+import org.apache.maven.project.MavenProject;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Table of the Maven projects already written in the spy log as a {@code <projectDef id="...">} element.
+ * Subsequent events only carry a {@code <project ref="..."/>} element pointing to the definition.
+ * <p>
+ * Must be thread safe, it is shared by all the handlers and used by parallel builds ({@code mvn -T}).
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class MavenProjectTable {
+
+    private final ConcurrentMap<String, String> idsByKey = new ConcurrentHashMap<String, String>();
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    /**
+     * @return the id of the already defined project, {@code null} if the project has not been defined yet
+     */
+    @Nullable
+    public String getId(@Nonnull MavenProject project) {
+        return idsByKey.get(getKey(project));
+    }
+
+    /**
+     * @return a new id for a project definition
+     */
+    @Nonnull
+    public String newId() {
+        return "p" + sequence.incrementAndGet();
+    }
+
+    /**
+     * Register the given project once its {@code <projectDef>} element has been printed: the other threads only see
+     * the id of the project when its definition precedes their events in the spy log.
+     *
+     * @see AbstractMavenEventHandler#newProjectElement(MavenProject)
+     */
+    public void register(@Nonnull MavenProject project, @Nonnull String id) {
+        idsByKey.put(getKey(project), id);
+    }
+
+    /**
+     * Forked executions work on copies of the {@link MavenProject}, the build directory is part of the key in case
+     * the fork modifies it.
+     */
+    @Nonnull
+    protected String getKey(@Nonnull MavenProject project) {
+        String buildDirectory = project.getBuild() == null ? null : project.getBuild().getDirectory();
+        return project.getId() + "|" + project.getBasedir() + "|" + buildDirectory;
+    }
+}
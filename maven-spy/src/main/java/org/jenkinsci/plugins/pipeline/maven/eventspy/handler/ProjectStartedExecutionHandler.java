@@ -25,6 +25,8 @@
 package org.jenkinsci.plugins.pipeline.maven.eventspy.handler;
 
 import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.ProjectDependencyGraph;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.MavenEventReporter;
@@ -73,5 +75,20 @@ public class ProjectStartedExecutionHandler extends AbstractExecutionHandler {
             parentProjectElt.setAttribute("artifactId", parentProject.getArtifactId());
             parentProjectElt.setAttribute("version", parentProject.getVersion());
         }
+
+        // reactor dependencies, used to compute the critical path of the build
+        MavenSession session = executionEvent.getSession();
+        ProjectDependencyGraph projectDependencyGraph = session == null ? null : session.getProjectDependencyGraph();
+        if (projectDependencyGraph != null) {
+            Xpp3Dom upstreamProjectsElt = new Xpp3Dom("upstreamProjects");
+            root.addChild(upstreamProjectsElt);
+            for (MavenProject upstreamProject : projectDependencyGraph.getUpstreamProjects(executionEvent.getProject(), false)) {
+                Xpp3Dom upstreamProjectElt = new Xpp3Dom("upstreamProject");
+                upstreamProjectsElt.addChild(upstreamProjectElt);
+                upstreamProjectElt.setAttribute("groupId", upstreamProject.getGroupId());
+                upstreamProjectElt.setAttribute("artifactId", upstreamProject.getArtifactId());
+                upstreamProjectElt.setAttribute("version", upstreamProject.getVersion());
+            }
+        }
     }
 }
@@ -55,6 +55,14 @@ public class ProjectSucceededExecutionHandler extends AbstractExecutionHandler {
         super.addDetails(executionEvent, element);
         MavenProject project = executionEvent.getProject();
 
+        if (fileDigester != null && project.getFile() != null) {
+            try {
+                fileDigester.submit(project.getFile().getCanonicalPath());
+            } catch (IOException e) {
+                throw new RuntimeIOException(e);
+            }
+        }
+
         Artifact artifact = project.getArtifact();
         if (artifact == null) {
 
@@ -63,6 +71,9 @@ public class ProjectSucceededExecutionHandler extends AbstractExecutionHandler {
             File file = artifact.getFile();
             try {
                 artifactElt.addChild(newElement("file", file == null ? null : file.getCanonicalPath()));
+                if (fileDigester != null && file != null) {
+                    fileDigester.submit(file.getCanonicalPath());
+                }
             } catch (IOException e) {
                 throw new RuntimeIOException(e);
             }
@@ -76,6 +87,9 @@ public class ProjectSucceededExecutionHandler extends AbstractExecutionHandler {
             File file = attachedArtifact.getFile();
             try {
                 artifactElt.addChild(newElement("file", file == null ? null : file.getCanonicalPath()));
+                if (fileDigester != null && file != null) {
+                    fileDigester.submit(file.getCanonicalPath());
+                }
             } catch (IOException e) {
                 throw new RuntimeIOException(e);
             }
@@ -24,47 +24,300 @@
 
 package org.jenkinsci.plugins.pipeline.maven.eventspy.handler;
 
-import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.FileMavenEventReporter;
-import org.sonatype.aether.RepositoryEvent;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.eclipse.aether.RepositoryEvent;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.MavenEventReporter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 
 /**
+ * Measures the download time of the artifacts and of the metadata.
+ * <p>
+ * When the local repository is seeded by a read-only repository ({@code maven.repo.local.tail}, Maven 3.9+), counts
+ * the artifacts resolved from the local repository and, among them, the artifacts resolved from the seed. The seed
+ * is ignored by older versions of Maven, a warning is logged. The release artifacts downloaded from remote
+ * repositories are listed in the file {@link #DOWNLOADED_ARTIFACTS_FILE_PROPERTY_NAME} so that {@code withMaven}
+ * promotes them into the seed.
+ * <p>
+ * Downloads are not reported one by one to keep the size of the spy log under control on builds with an empty local
+ * repository, a {@code <RepositoryDownloads>} summary with the totals and the slowest downloads is printed by
+ * {@link #printSummary()} at the end of the build.
+ * <p>
+ * Thread safe, Maven resolves and downloads artifacts in parallel.
+ *
  * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
  */
 public class RepositoryEventHandler extends AbstractMavenEventHandler<RepositoryEvent> {
-    protected RepositoryEventHandler(FileMavenEventReporter reporter) {
-        super(reporter);
+
+    public final static String TOP_DOWNLOADS_SIZE_PROPERTY_NAME = RepositoryEventHandler.class.getName() + ".topDownloadsSize";
+
+    public final static String DOWNLOADED_ARTIFACTS_FILE_PROPERTY_NAME = RepositoryEventHandler.class.getName() + ".downloadedArtifactsFile";
+
+    private final int topDownloadsSize = Integer.getInteger(TOP_DOWNLOADS_SIZE_PROPERTY_NAME, 20);
+
+    /**
+     * download start time in nanos indexed by artifact or metadata and repository
+     */
+    private final ConcurrentMap<String, Long> downloadStartTimesInNanos = new ConcurrentHashMap<String, Long>();
+
+    private final AtomicLong artifactDownloadCount = new AtomicLong();
+    private final AtomicLong artifactDownloadDurationInNanos = new AtomicLong();
+    private final AtomicLong artifactDownloadSizeInBytes = new AtomicLong();
+    private final AtomicLong metadataDownloadCount = new AtomicLong();
+    private final AtomicLong metadataDownloadDurationInNanos = new AtomicLong();
+
+    /**
+     * Absolute paths of the read-only repositories seeding the local repository, empty if none or if not supported by
+     * the version of Maven
+     */
+    private final List<String> localRepositoryTails;
+
+    /**
+     * File listing the release artifacts downloaded from remote repositories, one
+     * {@code <local repository>\t<path relative to the local repository>} line per artifact. {@code null} if the
+     * local repository is not seeded or if the listing failed.
+     */
+    @GuardedBy("this")
+    @Nullable
+    private File downloadedArtifactsFile;
+    private final AtomicLong localArtifactCount = new AtomicLong();
+    private final AtomicLong seedArtifactCount = new AtomicLong();
+
+    /**
+     * Slowest downloads, sorted by descending duration
+     */
+    @GuardedBy("this")
+    private final List<Download> topDownloads = new ArrayList<Download>();
+
+    public RepositoryEventHandler(MavenEventReporter reporter) {
+        this(reporter, null);
     }
 
-    long currentEventStartTimeInNanos;
-    long artifactDownloadDurationInNanos;
+    /**
+     * @param mavenVersion version of Maven, {@code null} if unknown
+     */
+    public RepositoryEventHandler(MavenEventReporter reporter, @Nullable String mavenVersion) {
+        super(reporter);
+        List<String> localRepositoryTails = getLocalRepositoryTails();
+        if (!localRepositoryTails.isEmpty() && !isLocalRepositoryTailSupported(mavenVersion)) {
+            logger.warn("[jenkins-event-spy] Maven " + mavenVersion + " ignores the seed of the local repository " + localRepositoryTails +
+                    ", maven.repo.local.tail requires Maven 3.9 or newer");
+            localRepositoryTails = Collections.emptyList();
+        }
+        this.localRepositoryTails = localRepositoryTails;
+        String downloadedArtifactsFile = System.getProperty(DOWNLOADED_ARTIFACTS_FILE_PROPERTY_NAME);
+        if (!localRepositoryTails.isEmpty() && downloadedArtifactsFile != null && !downloadedArtifactsFile.trim().isEmpty()) {
+            this.downloadedArtifactsFile = new File(downloadedArtifactsFile.trim());
+        }
+    }
 
     @Override
     protected boolean _handle(RepositoryEvent repositoryEvent) {
-        if (repositoryEvent.getType() == RepositoryEvent.EventType.ARTIFACT_DOWNLOADING) {
-            currentEventStartTimeInNanos = System.nanoTime();
-        } else if (repositoryEvent.getType() == RepositoryEvent.EventType.ARTIFACT_DOWNLOADED) {
-            long durationInNanos = System.nanoTime() - currentEventStartTimeInNanos;
-            artifactDownloadDurationInNanos += durationInNanos;
-
-            print(repositoryEvent, durationInNanos);
-            currentEventStartTimeInNanos = 0;
-        }
-        if (repositoryEvent.getType() == RepositoryEvent.EventType.METADATA_DOWNLOADING) {
-            currentEventStartTimeInNanos = System.nanoTime();
-        } else if (repositoryEvent.getType() == RepositoryEvent.EventType.METADATA_DOWNLOADED) {
-            long durationInNanos = System.nanoTime() - currentEventStartTimeInNanos;
-            artifactDownloadDurationInNanos += durationInNanos;
-
-            print(repositoryEvent, durationInNanos);
-            currentEventStartTimeInNanos = 0;
+        RepositoryEvent.EventType type = repositoryEvent.getType();
+        if (type == RepositoryEvent.EventType.ARTIFACT_DOWNLOADING || type == RepositoryEvent.EventType.METADATA_DOWNLOADING) {
+            downloadStartTimesInNanos.put(getKey(repositoryEvent), System.nanoTime());
+            return true;
+        } else if (type == RepositoryEvent.EventType.ARTIFACT_DOWNLOADED || type == RepositoryEvent.EventType.METADATA_DOWNLOADED) {
+            Long startTimeInNanos = downloadStartTimesInNanos.remove(getKey(repositoryEvent));
+            if (startTimeInNanos == null) {
+                return true;
+            }
+            long durationInNanos = System.nanoTime() - startTimeInNanos;
+            long sizeInBytes = 0;
+            if (type == RepositoryEvent.EventType.ARTIFACT_DOWNLOADED) {
+                artifactDownloadCount.incrementAndGet();
+                artifactDownloadDurationInNanos.addAndGet(durationInNanos);
+                File file = repositoryEvent.getFile();
+                if (file != null && repositoryEvent.getException() == null) {
+                    sizeInBytes = file.length();
+                    artifactDownloadSizeInBytes.addAndGet(sizeInBytes);
+                    listDownloadedArtifact(repositoryEvent, file);
+                }
+            } else {
+                metadataDownloadCount.incrementAndGet();
+                metadataDownloadDurationInNanos.addAndGet(durationInNanos);
+            }
+            addToTopDownloads(new Download(repositoryEvent, durationInNanos, sizeInBytes));
+            return true;
+        } else if (type == RepositoryEvent.EventType.ARTIFACT_RESOLVED) {
+            if (!localRepositoryTails.isEmpty() && repositoryEvent.getRepository() instanceof LocalRepository &&
+                    repositoryEvent.getFile() != null && repositoryEvent.getException() == null) {
+                localArtifactCount.incrementAndGet();
+                String path = repositoryEvent.getFile().getAbsolutePath();
+                for (String localRepositoryTail : localRepositoryTails) {
+                    if (path.startsWith(localRepositoryTail)) {
+                        seedArtifactCount.incrementAndGet();
+                        break;
+                    }
+                }
+            }
+            // let the other handlers process the event
+            return false;
         } else {
+            return false;
+        }
+    }
 
+    @Nonnull
+    private static List<String> getLocalRepositoryTails() {
+        String localRepositoryTail = System.getProperty("maven.repo.local.tail");
+        if (localRepositoryTail == null || localRepositoryTail.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> localRepositoryTails = new ArrayList<String>();
+        for (String path : localRepositoryTail.split(",")) {
+            if (!path.trim().isEmpty()) {
+                localRepositoryTails.add(new File(path.trim()).getAbsolutePath() + File.separator);
+            }
         }
+        return localRepositoryTails;
+    }
 
-        return true;
+    /**
+     * @param mavenVersion version of Maven, e.g. {@code 3.9.6}, {@code null} if unknown
+     * @return {@code false} if the version of Maven doesn't support {@code maven.repo.local.tail}, {@code true} if it
+     * does or if the version is unknown
+     */
+    static boolean isLocalRepositoryTailSupported(@Nullable String mavenVersion) {
+        if (mavenVersion == null) {
+            return true;
+        }
+        String[] segments = mavenVersion.trim().split("[.-]");
+        try {
+            int major = Integer.parseInt(segments[0]);
+            int minor = segments.length > 1 ? Integer.parseInt(segments[1]) : 0;
+            return major > 3 || (major == 3 && minor >= 9);
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * List the release artifact downloaded from a remote repository so that it is promoted into the seed
+     */
+    private synchronized void listDownloadedArtifact(@Nonnull RepositoryEvent repositoryEvent, @Nonnull File file) {
+        Artifact artifact = repositoryEvent.getArtifact();
+        if (downloadedArtifactsFile == null || artifact == null || artifact.isSnapshot() ||
+                !(repositoryEvent.getRepository() instanceof RemoteRepository) || repositoryEvent.getSession() == null ||
+                repositoryEvent.getSession().getLocalRepository() == null) {
+            return;
+        }
+        String localRepository = repositoryEvent.getSession().getLocalRepository().getBasedir().getAbsolutePath();
+        String path = file.getAbsolutePath();
+        if (!path.startsWith(localRepository + File.separator)) {
+            return;
+        }
+        String line = localRepository + "\t" + path.substring(localRepository.length() + 1) + "\n";
+        OutputStream out = null;
+        try {
+            File parentDir = downloadedArtifactsFile.getParentFile();
+            if (parentDir != null && !parentDir.isDirectory() && !parentDir.mkdirs() && !parentDir.isDirectory()) {
+                throw new IOException("Failure to create " + parentDir);
+            }
+            // appended with a single write, the Maven executions of the withMaven step may run concurrently
+            out = new FileOutputStream(downloadedArtifactsFile, true);
+            out.write(line.getBytes("UTF-8"));
+        } catch (IOException e) {
+            logger.warn("[jenkins-event-spy] Failure to list the downloaded artifacts in " + downloadedArtifactsFile + ", they won't be promoted into the seed of the local repository: " + e);
+            downloadedArtifactsFile = null;
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
     }
 
-    private void print(RepositoryEvent repositoryEvent, long durationInNanos) {
-        reporter.print(repositoryEvent.getArtifact().toString() + "-" + repositoryEvent.getType() + "-" + durationInNanos + "nanos");
+    private synchronized void addToTopDownloads(@Nonnull Download download) {
+        if (topDownloads.size() >= topDownloadsSize && topDownloads.get(topDownloads.size() - 1).durationInNanos >= download.durationInNanos) {
+            return;
+        }
+        topDownloads.add(download);
+        Collections.sort(topDownloads, new Comparator<Download>() {
+            @Override
+            public int compare(Download d1, Download d2) {
+                return d1.durationInNanos < d2.durationInNanos ? 1 : d1.durationInNanos == d2.durationInNanos ? 0 : -1;
+            }
+        });
+        while (topDownloads.size() > topDownloadsSize) {
+            topDownloads.remove(topDownloads.size() - 1);
+        }
+    }
+
+    /**
+     * Print the {@code <RepositoryDownloads>} summary, does nothing if nothing has been downloaded nor resolved from
+     * a seeded local repository.
+     */
+    public synchronized void printSummary() {
+        if (artifactDownloadCount.get() == 0 && metadataDownloadCount.get() == 0 && localArtifactCount.get() == 0) {
+            return;
+        }
+        Xpp3Dom root = new Xpp3Dom("RepositoryDownloads");
+        root.setAttribute("artifactCount", String.valueOf(artifactDownloadCount.get()));
+        root.setAttribute("artifactDurationInMillis", String.valueOf(toMillis(artifactDownloadDurationInNanos.get())));
+        root.setAttribute("artifactSizeInBytes", String.valueOf(artifactDownloadSizeInBytes.get()));
+        root.setAttribute("metadataCount", String.valueOf(metadataDownloadCount.get()));
+        root.setAttribute("metadataDurationInMillis", String.valueOf(toMillis(metadataDownloadDurationInNanos.get())));
+        if (!localRepositoryTails.isEmpty()) {
+            root.setAttribute("localArtifactCount", String.valueOf(localArtifactCount.get()));
+            root.setAttribute("seedArtifactCount", String.valueOf(seedArtifactCount.get()));
+        }
+        for (Download download : topDownloads) {
+            Xpp3Dom downloadElt = new Xpp3Dom("download");
+            downloadElt.setAttribute("type", download.type);
+            downloadElt.setAttribute("id", download.id);
+            downloadElt.setAttribute("repositoryId", download.repositoryId);
+            downloadElt.setAttribute("durationInMillis", String.valueOf(toMillis(download.durationInNanos)));
+            downloadElt.setAttribute("sizeInBytes", String.valueOf(download.sizeInBytes));
+            root.addChild(downloadElt);
+        }
+        reporter.print(root);
+    }
+
+    @Nonnull
+    private String getKey(@Nonnull RepositoryEvent repositoryEvent) {
+        Object resource = repositoryEvent.getArtifact() == null ? repositoryEvent.getMetadata() : repositoryEvent.getArtifact();
+        return resource + "@" + (repositoryEvent.getRepository() == null ? null : repositoryEvent.getRepository().getId());
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.MILLISECONDS.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static class Download {
+        final String type;
+        final String id;
+        final String repositoryId;
+        final long durationInNanos;
+        final long sizeInBytes;
+
+        Download(@Nonnull RepositoryEvent repositoryEvent, long durationInNanos, long sizeInBytes) {
+            this.type = repositoryEvent.getArtifact() == null ? "metadata" : "artifact";
+            this.id = String.valueOf(repositoryEvent.getArtifact() == null ? repositoryEvent.getMetadata() : repositoryEvent.getArtifact());
+            this.repositoryId = repositoryEvent.getRepository() == null ? "" : repositoryEvent.getRepository().getId();
+            this.durationInNanos = durationInNanos;
+            this.sizeInBytes = sizeInBytes;
+        }
     }
 }
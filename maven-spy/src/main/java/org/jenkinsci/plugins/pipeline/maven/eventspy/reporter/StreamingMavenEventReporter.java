@@ -0,0 +1,213 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.pipeline.maven.eventspy.reporter;
+
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.codehaus.plexus.util.xml.Xpp3DomWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Reporter that writes the Maven events in the report file of a {@link FileMavenEventReporter} and also streams them
+ * to the collector listening on the local port {@value #EVENT_STREAM_PORT_PROPERTY_NAME} so that the Jenkins Pipeline
+ * can process the events while Maven is still running.
+ * <p>
+ * Each message is sent as a frame made of its length (4 bytes) followed by its UTF-8 encoded XML. The first frame is the
+ * token, read from the file {@value #EVENT_STREAM_TOKEN_FILE_PROPERTY_NAME}, with which the collector authenticates the
+ * connection, the second frame a {@code <streamHeader logFile="..."/>} element, the last frame a {@code <streamEnd logFile="..."/>} element.
+ * <p>
+ * The report file remains the reference: streaming is abandoned as soon as the collector is too slow or unreachable
+ * and Jenkins then falls back on the report file.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+@ThreadSafe
+public class StreamingMavenEventReporter implements MavenEventReporter {
+
+    public final static String EVENT_STREAM_PORT_PROPERTY_NAME = "org.jenkinsci.plugins.pipeline.maven.eventStreamPort";
+
+    /**
+     * File containing the token rather than a system property: the JVM prints the {@code JAVA_TOOL_OPTIONS} in the
+     * console of the build
+     */
+    public final static String EVENT_STREAM_TOKEN_FILE_PROPERTY_NAME = "org.jenkinsci.plugins.pipeline.maven.eventStreamTokenFile";
+
+    public final static String EVENT_STREAM_QUEUE_SIZE_PROPERTY_NAME = StreamingMavenEventReporter.class.getName() + ".queueSize";
+
+    private final static String END_OF_STREAM = new String("END_OF_STREAM");
+
+    private final static int CONNECT_TIMEOUT_IN_MILLIS = 2000;
+
+    private final static int CLOSE_TIMEOUT_IN_MILLIS = 30000;
+
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final FileMavenEventReporter delegate;
+
+    private final BlockingQueue<String> queue;
+
+    private final Socket socket;
+
+    private final Thread sender;
+
+    /**
+     * {@code false} once the stream has been abandoned
+     */
+    private volatile boolean streaming = true;
+
+    /**
+     * @param port  loopback port of the collector
+     * @param token secret expected by the collector as first frame of the connection
+     */
+    public StreamingMavenEventReporter(FileMavenEventReporter delegate, int port, String token) throws IOException {
+        this.delegate = delegate;
+        this.queue = new LinkedBlockingQueue<String>(Integer.getInteger(EVENT_STREAM_QUEUE_SIZE_PROPERTY_NAME, 10000));
+
+        this.socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), port), CONNECT_TIMEOUT_IN_MILLIS);
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+        queue.add(token);
+        Xpp3Dom header = new Xpp3Dom("streamHeader");
+        header.setAttribute("logFile", getLogFileName(delegate.getFinalFile()));
+        queue.add(toString(header));
+
+        this.sender = new Thread("jenkins-event-spy-stream") {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        String message = queue.poll();
+                        if (message == null) {
+                            out.flush();
+                            message = queue.take();
+                        }
+                        if (message == END_OF_STREAM) {
+                            break;
+                        }
+                        byte[] bytes = message.getBytes("UTF-8");
+                        out.writeInt(bytes.length);
+                        out.write(bytes);
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    abandon("Failure to stream events: " + e);
+                } catch (InterruptedException e) {
+                    abandon("Streaming of events interrupted");
+                } finally {
+                    try {
+                        socket.close();
+                    } catch (IOException e) {
+                        // ignore
+                    }
+                }
+            }
+        };
+        sender.setDaemon(true);
+        sender.start();
+        logger.info("[jenkins-event-spy] Stream events to port " + port);
+    }
+
+    @Override
+    public synchronized void print(Object message) {
+        delegate.print(message);
+    }
+
+    @Override
+    public synchronized void print(Xpp3Dom element) {
+        delegate.print(element);
+        if (streaming) {
+            if (!queue.offer(toString(element))) {
+                abandon("Event stream queue is full");
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        delegate.close();
+        if (streaming) {
+            Xpp3Dom end = new Xpp3Dom("streamEnd");
+            end.setAttribute("logFile", getLogFileName(delegate.getFinalFile()));
+            if (!queue.offer(toString(end))) {
+                abandon("Event stream queue is full");
+            }
+        }
+        // the sender may already be stopped, don't block on a full queue
+        queue.offer(END_OF_STREAM);
+        try {
+            sender.join(CLOSE_TIMEOUT_IN_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (sender.isAlive()) {
+            logger.warn("[jenkins-event-spy] Timeout streaming the events, the report file will be used");
+            sender.interrupt();
+        }
+    }
+
+    /**
+     * Stop streaming, the consumer of the stream will detect the missing {@code <streamEnd/>} and use the report file
+     */
+    private void abandon(String reason) {
+        if (streaming) {
+            streaming = false;
+            logger.warn("[jenkins-event-spy] " + reason + ", stop streaming events, the report file will be used");
+        }
+        queue.clear();
+        queue.offer(END_OF_STREAM);
+    }
+
+    private static String getLogFileName(File file) {
+        String fileName = file.getName();
+        return fileName.endsWith(".tmp") ? fileName.substring(0, fileName.length() - ".tmp".length()) : fileName;
+    }
+
+    private static String toString(Xpp3Dom element) {
+        StringWriter writer = new StringWriter();
+        Xpp3DomWriter.write(writer, element);
+        return writer.toString();
+    }
+
+    /**
+     * Visible for test
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+}
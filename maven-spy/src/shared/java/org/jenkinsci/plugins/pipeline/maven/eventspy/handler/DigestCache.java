@@ -0,0 +1,303 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.pipeline.maven.eventspy.handler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Persistent cache of the digests of the files of a Maven local repository, shared by the builds using the repository.
+ * <p>
+ * The cache is the append-only file {@code <localRepository>/.jenkins-digests/md5-digests.log}. Its first line is a
+ * header {@code # jenkins-digests <generation>} and each following line is an entry
+ * {@code <md5> <size> <lastModified> <canonicalPath>}. An entry is valid as long as the size and the last modification
+ * date of the file don't change. The last entry of a path wins.
+ * <p>
+ * Concurrent builds are coordinated with file locks: shared lock to read, exclusive lock to append. When the file
+ * contains too many obsolete entries, it is rewritten in place with a new generation so that the readers reload it.
+ * <p>
+ * This class is the single implementation of the file format: its source folder {@code src/shared/java} is also
+ * compiled by the Jenkins plugin to read and append the same file on the build agents, see
+ * {@code org.jenkinsci.plugins.pipeline.maven.util.DigestCache}. It must not depend on any library and must compile
+ * with Java 6.
+ *
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class DigestCache {
+
+    public final static String FOLDER_NAME = ".jenkins-digests";
+
+    public final static String FILE_NAME = "md5-digests.log";
+
+    private final static String HEADER_PREFIX = "# jenkins-digests ";
+
+    /**
+     * Compact the file when it contains more than {@value} entries and more than half of them are obsolete
+     */
+    private final static int COMPACTION_THRESHOLD = 10000;
+
+    private final String localRepositoryPath;
+
+    private final File cacheFile;
+
+    @GuardedBy("this")
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+    @GuardedBy("this")
+    private String generation;
+
+    @GuardedBy("this")
+    private long loadedLength;
+
+    @GuardedBy("this")
+    private int loadedLines;
+
+    /**
+     * Length and last modification date of the cache file when it has been refreshed, the file is not read again as
+     * long as they don't change
+     */
+    @GuardedBy("this")
+    private long refreshedLength = -1;
+
+    @GuardedBy("this")
+    private long refreshedLastModified = -1;
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public DigestCache(@Nonnull File localRepository) throws IOException {
+        this.localRepositoryPath = localRepository.getCanonicalPath() + File.separator;
+        this.cacheFile = new File(new File(localRepository, FOLDER_NAME), FILE_NAME);
+    }
+
+    /**
+     * @return {@code true} if the file belongs to the local repository and its digest can be cached
+     */
+    public boolean accept(@Nonnull String canonicalPath) {
+        return canonicalPath.startsWith(localRepositoryPath) && !canonicalPath.startsWith(localRepositoryPath + FOLDER_NAME);
+    }
+
+    /**
+     * @return the cached digest of the file, {@code null} if the file is not in the cache or has changed
+     */
+    @Nullable
+    public synchronized String get(@Nonnull File file) throws IOException {
+        String canonicalPath = file.getCanonicalPath();
+        refreshIfModified();
+        Entry entry = entries.get(canonicalPath);
+        if (entry != null && entry.size == file.length() && entry.lastModified == file.lastModified()) {
+            hits.incrementAndGet();
+            return entry.md5;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * @param size         size of the file when the digest has been computed
+     * @param lastModified last modification date of the file when the digest has been computed
+     */
+    public synchronized void put(@Nonnull File file, long size, long lastModified, @Nonnull String md5) throws IOException {
+        String canonicalPath = file.getCanonicalPath();
+        if (canonicalPath.indexOf('\n') != -1) {
+            return;
+        }
+        File folder = cacheFile.getParentFile();
+        if (!folder.isDirectory() && !folder.mkdirs() && !folder.isDirectory()) {
+            throw new IOException("Failure to create folder " + folder);
+        }
+        RandomAccessFile raf = new RandomAccessFile(cacheFile, "rw");
+        try {
+            FileLock lock = raf.getChannel().lock();
+            try {
+                if (raf.length() == 0) {
+                    raf.write((HEADER_PREFIX + UUID.randomUUID() + "\n").getBytes("UTF-8"));
+                }
+                raf.seek(raf.length());
+                raf.write((md5 + " " + size + " " + lastModified + " " + canonicalPath + "\n").getBytes("UTF-8"));
+            } finally {
+                lock.release();
+            }
+        } finally {
+            raf.close();
+        }
+        entries.put(canonicalPath, new Entry(size, lastModified, md5));
+    }
+
+    /**
+     * Rewrite the cache file with only the latest entry of each file if it contains too many obsolete entries.
+     *
+     * @return {@code true} if the cache file has been compacted
+     */
+    public synchronized boolean compactIfNeeded() throws IOException {
+        refresh();
+        if (loadedLines < COMPACTION_THRESHOLD || loadedLines < 2 * entries.size()) {
+            return false;
+        }
+        RandomAccessFile raf = new RandomAccessFile(cacheFile, "rw");
+        try {
+            FileLock lock = raf.getChannel().lock();
+            try {
+                // entries appended by other builds since the last refresh are lost, they will be computed again
+                StringBuilder content = new StringBuilder(HEADER_PREFIX + UUID.randomUUID() + "\n");
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    content.append(entry.getValue().md5).append(' ').append(entry.getValue().size).append(' ')
+                            .append(entry.getValue().lastModified).append(' ').append(entry.getKey()).append('\n');
+                }
+                byte[] bytes = content.toString().getBytes("UTF-8");
+                raf.setLength(0);
+                raf.write(bytes);
+            } finally {
+                lock.release();
+            }
+        } finally {
+            raf.close();
+        }
+        return true;
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * {@link #refresh()} if the cache file has been modified since the last refresh
+     */
+    @GuardedBy("this")
+    private void refreshIfModified() throws IOException {
+        // read before the refresh so that the modifications made during the refresh are loaded by the next one
+        long length = cacheFile.length();
+        long lastModified = cacheFile.lastModified();
+        if (length != refreshedLength || lastModified != refreshedLastModified) {
+            refresh();
+            refreshedLength = length;
+            refreshedLastModified = lastModified;
+        }
+    }
+
+    /**
+     * Load the entries appended since the last refresh, reload the whole file if it has been rewritten
+     */
+    @GuardedBy("this")
+    private void refresh() throws IOException {
+        if (!cacheFile.isFile()) {
+            reset(null);
+            return;
+        }
+        RandomAccessFile raf = new RandomAccessFile(cacheFile, "r");
+        try {
+            FileLock lock = raf.getChannel().lock(0, Long.MAX_VALUE, true);
+            try {
+                long length = raf.length();
+                String header = readHeader(raf);
+                if (header == null || !header.equals(generation) || length < loadedLength) {
+                    reset(header);
+                }
+                if (length > loadedLength) {
+                    byte[] bytes = new byte[(int) (length - loadedLength)];
+                    raf.seek(loadedLength);
+                    raf.readFully(bytes);
+                    int start = 0;
+                    for (int i = 0; i < bytes.length; i++) {
+                        if (bytes[i] == '\n') {
+                            parseLine(new String(bytes, start, i - start, "UTF-8"));
+                            start = i + 1;
+                        }
+                    }
+                    loadedLength += start;
+                }
+            } finally {
+                lock.release();
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    @GuardedBy("this")
+    private void reset(@Nullable String generation) {
+        this.entries.clear();
+        this.generation = generation;
+        this.loadedLength = 0;
+        this.loadedLines = 0;
+    }
+
+    @GuardedBy("this")
+    private void parseLine(@Nonnull String line) {
+        if (line.startsWith("#")) {
+            return;
+        }
+        String[] fields = line.split(" ", 4);
+        if (fields.length != 4) {
+            return;
+        }
+        try {
+            entries.put(fields[3], new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[0]));
+            loadedLines++;
+        } catch (NumberFormatException e) {
+            // ignore corrupted line
+        }
+    }
+
+    @Nullable
+    private static String readHeader(@Nonnull RandomAccessFile raf) throws IOException {
+        byte[] bytes = new byte[(int) Math.min(128, raf.length())];
+        raf.seek(0);
+        raf.readFully(bytes);
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                String header = new String(bytes, 0, i, "UTF-8");
+                return header.startsWith(HEADER_PREFIX) ? header : null;
+            }
+        }
+        return null;
+    }
+
+    private static class Entry {
+        final long size;
+        final long lastModified;
+        final String md5;
+
+        Entry(long size, long lastModified, String md5) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.md5 = md5;
+        }
+    }
+}
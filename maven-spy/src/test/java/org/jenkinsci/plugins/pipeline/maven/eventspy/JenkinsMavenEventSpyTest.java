@@ -139,4 +139,42 @@ public class JenkinsMavenEventSpyTest {
         Assert.assertThat(actual, CoreMatchers.containsString("ProjectStarted"));
         Assert.assertThat(actual, CoreMatchers.containsString("petclinic"));
     }
+
+    @Test
+    public void testProjectDefinedOnceAndReferencedById() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            ExecutionEvent executionEvent = new ExecutionEvent() {
+                @Override
+                public Type getType() {
+                    return Type.ProjectStarted;
+                }
+
+                @Override
+                public MavenSession getSession() {
+                    return null;
+                }
+
+                @Override
+                public MavenProject getProject() {
+                    return project;
+                }
+
+                @Override
+                public MojoExecution getMojoExecution() {
+                    return null;
+                }
+
+                @Override
+                public Exception getException() {
+                    return null;
+                }
+            };
+            spy.onEvent(executionEvent);
+        }
+
+        String actual = writer.toString();
+        System.out.println(actual);
+        Assert.assertThat(actual.split("<projectDef ", -1).length - 1, CoreMatchers.is(1));
+        Assert.assertThat(actual.split("<project ref=\"p1\"", -1).length - 1, CoreMatchers.is(2));
+    }
 }
@@ -11,6 +11,7 @@ import org.apache.maven.project.ProjectBuildingResult;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.hamcrest.Matchers;
+import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.MavenEventReporter;
 import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.OutputStreamEventReporter;
 import org.junit.Assert;
 import org.junit.Test;
@@ -20,7 +21,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.Assert.*;
 
@@ -65,4 +71,80 @@ public class AbstractMavenEventHandlerTest {
         // this unit test does not expand Maven variables
         Assert.assertThat(actual, Matchers.is(expected));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test_newProjectElement_project_definition_precedes_references() throws Exception {
+        final List<Xpp3Dom> printedElements = new ArrayList<Xpp3Dom>();
+        MavenEventReporter reporter = new MavenEventReporter() {
+            @Override
+            public synchronized void print(Object message) {
+            }
+
+            @Override
+            public synchronized void print(Xpp3Dom element) {
+                printedElements.add(element);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        final AbstractMavenEventHandler mavenEventHandler = new AbstractMavenEventHandler(reporter) {
+            @Override
+            protected boolean _handle(Object o) {
+                return false;
+            }
+        };
+        mavenEventHandler.setProjectTable(new MavenProjectTable());
+
+        final List<MavenProject> projects = new ArrayList<MavenProject>();
+        for (int i = 0; i < 10; i++) {
+            Model model = new Model();
+            model.setGroupId("com.example");
+            model.setArtifactId("module-" + i);
+            model.setVersion("1.0-SNAPSHOT");
+            model.setName("Module " + i);
+            projects.add(new MavenProject(model));
+        }
+
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (MavenProject project : projects) {
+                        Xpp3Dom executionEvent = new Xpp3Dom("ExecutionEvent");
+                        executionEvent.addChild(mavenEventHandler.newProjectElement(project));
+                        mavenEventHandler.reporter.print(executionEvent);
+                    }
+                }
+            };
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Set<String> definedIds = new HashSet<String>();
+        int referenceCount = 0;
+        for (Xpp3Dom element : printedElements) {
+            if ("projectDef".equals(element.getName())) {
+                Assert.assertThat(definedIds.add(element.getAttribute("id")), Matchers.is(true));
+            } else {
+                String ref = element.getChild("project").getAttribute("ref");
+                Assert.assertThat("<project ref=\"" + ref + "\"/> printed before its definition", definedIds, Matchers.hasItem(ref));
+                referenceCount++;
+            }
+        }
+        Assert.assertThat(definedIds.size(), Matchers.is(10));
+        Assert.assertThat(referenceCount, Matchers.is(80));
+    }
+}
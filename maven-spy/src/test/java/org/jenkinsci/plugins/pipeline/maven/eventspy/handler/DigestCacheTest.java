@@ -0,0 +1,67 @@
+package org.jenkinsci.plugins.pipeline.maven.eventspy.handler;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class DigestCacheTest {
+
+    @Test
+    public void test_digest_is_shared_by_caches_of_the_same_repository() throws Exception {
+        File localRepository = new File("target/digest-cache-test-" + System.nanoTime());
+        File artifact = new File(localRepository, "com/example/my-jar/1.0/my-jar-1.0.jar");
+        artifact.getParentFile().mkdirs();
+        FileUtils.fileWrite(artifact.getAbsolutePath(), "UTF-8", "hello");
+
+        DigestCache cache = new DigestCache(localRepository);
+        assertThat(cache.accept(artifact.getCanonicalPath()), is(true));
+        assertThat(cache.accept(new File("pom.xml").getCanonicalPath()), is(false));
+        assertThat(cache.get(artifact), nullValue());
+        cache.put(artifact, artifact.length(), artifact.lastModified(), FileDigester.digest(artifact));
+
+        // other build using the same local repository
+        DigestCache otherCache = new DigestCache(localRepository);
+        assertThat(otherCache.get(artifact), is("5d41402abc4b2a76b9719d911017c592"));
+        assertThat(otherCache.getHits(), is(1));
+        assertThat(otherCache.getMisses(), is(0));
+
+        // modified file
+        FileUtils.fileWrite(artifact.getAbsolutePath(), "UTF-8", "hello world");
+        assertThat(otherCache.get(artifact), nullValue());
+        assertThat(otherCache.getMisses(), is(1));
+
+        FileUtils.deleteDirectory(localRepository);
+    }
+
+    @Test
+    public void test_entries_appended_by_other_builds_are_loaded_when_the_cache_file_changes() throws Exception {
+        File localRepository = new File("target/digest-cache-test-" + System.nanoTime());
+        File artifact = new File(localRepository, "com/example/my-jar/1.0/my-jar-1.0.jar");
+        File otherArtifact = new File(localRepository, "com/example/my-other-jar/1.0/my-other-jar-1.0.jar");
+        artifact.getParentFile().mkdirs();
+        otherArtifact.getParentFile().mkdirs();
+        FileUtils.fileWrite(artifact.getAbsolutePath(), "UTF-8", "hello");
+        FileUtils.fileWrite(otherArtifact.getAbsolutePath(), "UTF-8", "hello world");
+
+        DigestCache cache = new DigestCache(localRepository);
+        cache.put(artifact, artifact.length(), artifact.lastModified(), FileDigester.digest(artifact));
+        assertThat(cache.get(otherArtifact), nullValue());
+
+        // other build using the same local repository
+        DigestCache otherCache = new DigestCache(localRepository);
+        otherCache.put(otherArtifact, otherArtifact.length(), otherArtifact.lastModified(), FileDigester.digest(otherArtifact));
+
+        assertThat(cache.get(otherArtifact), is("5eb63bbbe01eeed093cb22bb8f5acdc3"));
+        assertThat(cache.get(artifact), is("5d41402abc4b2a76b9719d911017c592"));
+
+        FileUtils.deleteDirectory(localRepository);
+    }
+}
@@ -0,0 +1,40 @@
+package org.jenkinsci.plugins.pipeline.maven.eventspy.handler;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class FileDigesterTest {
+
+    @Test
+    public void test_digests_of_submitted_files() throws Exception {
+        File file = File.createTempFile("file-digester", ".jar", new File("target"));
+        FileUtils.fileWrite(file.getAbsolutePath(), "UTF-8", "hello");
+
+        FileDigester fileDigester = new FileDigester();
+        try {
+            fileDigester.submit(file.getAbsolutePath());
+            fileDigester.submit(file.getAbsolutePath());
+            // directories and missing files are ignored
+            fileDigester.submit(new File("target").getAbsolutePath());
+            fileDigester.submit(new File("target", "does-not-exist.jar").getAbsolutePath());
+
+            Xpp3Dom fileDigestsElt = fileDigester.newFileDigestsElement(10000);
+            assertThat(fileDigestsElt.getAttribute("algorithm"), is("MD5"));
+            assertThat(fileDigestsElt.getChildCount(), is(1));
+            assertThat(fileDigestsElt.getChild(0).getAttribute("path"), is(file.getAbsolutePath()));
+            assertThat(fileDigestsElt.getChild(0).getAttribute("md5"), is("5d41402abc4b2a76b9719d911017c592"));
+        } finally {
+            fileDigester.shutdown();
+            file.delete();
+        }
+    }
+}
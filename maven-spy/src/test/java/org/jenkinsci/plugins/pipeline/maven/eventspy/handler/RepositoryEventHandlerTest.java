@@ -0,0 +1,146 @@
+package org.jenkinsci.plugins.pipeline.maven.eventspy.handler;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryEvent;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.metadata.Metadata;
+import org.eclipse.aether.repository.LocalArtifactRegistration;
+import org.eclipse.aether.repository.LocalArtifactRequest;
+import org.eclipse.aether.repository.LocalArtifactResult;
+import org.eclipse.aether.repository.LocalMetadataRegistration;
+import org.eclipse.aether.repository.LocalMetadataRequest;
+import org.eclipse.aether.repository.LocalMetadataResult;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.LocalRepositoryManager;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.jenkinsci.plugins.pipeline.maven.eventspy.reporter.DevNullMavenEventReporter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class RepositoryEventHandlerTest {
+
+    private File localRepository;
+    private File seed;
+    private File downloadedArtifactsFile;
+    private DefaultRepositorySystemSession session;
+    private final RemoteRepository central = new RemoteRepository.Builder("central", "default", "https://repo.maven.apache.org/maven2/").build();
+
+    @Before
+    public void before() throws Exception {
+        localRepository = new File("target/repository-event-handler-test/repository").getAbsoluteFile();
+        seed = new File("target/repository-event-handler-test/seed").getAbsoluteFile();
+        downloadedArtifactsFile = new File(seed, ".staging/downloaded-artifacts.txt");
+        FileUtils.deleteDirectory(localRepository.getParentFile());
+        localRepository.mkdirs();
+        System.setProperty("maven.repo.local.tail", seed.getPath());
+        System.setProperty(RepositoryEventHandler.DOWNLOADED_ARTIFACTS_FILE_PROPERTY_NAME, downloadedArtifactsFile.getPath());
+
+        session = new DefaultRepositorySystemSession();
+        session.setLocalRepositoryManager(new SimpleLocalRepositoryManager(new LocalRepository(localRepository)));
+    }
+
+    @After
+    public void after() {
+        System.clearProperty("maven.repo.local.tail");
+        System.clearProperty(RepositoryEventHandler.DOWNLOADED_ARTIFACTS_FILE_PROPERTY_NAME);
+    }
+
+    @Test
+    public void test_downloaded_release_artifacts_are_listed() throws Exception {
+        RepositoryEventHandler handler = new RepositoryEventHandler(new DevNullMavenEventReporter(), "3.9.6");
+
+        download(handler, new DefaultArtifact("com.example:my-lib:1.0"), "com/example/my-lib/1.0/my-lib-1.0.jar");
+        download(handler, new DefaultArtifact("com.example:my-lib:1.1-SNAPSHOT"), "com/example/my-lib/1.1-SNAPSHOT/my-lib-1.1-SNAPSHOT.jar");
+
+        String separator = File.separator;
+        assertThat(FileUtils.fileRead(downloadedArtifactsFile, "UTF-8"),
+                is(localRepository.getPath() + "\t" + "com/example/my-lib/1.0/my-lib-1.0.jar".replace("/", separator) + "\n"));
+    }
+
+    @Test
+    public void test_seed_ignored_by_maven_before_3_9() throws Exception {
+        RepositoryEventHandler handler = new RepositoryEventHandler(new DevNullMavenEventReporter(), "3.8.8");
+
+        download(handler, new DefaultArtifact("com.example:my-lib:1.0"), "com/example/my-lib/1.0/my-lib-1.0.jar");
+
+        assertThat(downloadedArtifactsFile.exists(), is(false));
+    }
+
+    @Test
+    public void test_isLocalRepositoryTailSupported() {
+        assertThat(RepositoryEventHandler.isLocalRepositoryTailSupported("3.9.0"), is(true));
+        assertThat(RepositoryEventHandler.isLocalRepositoryTailSupported("3.9.11"), is(true));
+        assertThat(RepositoryEventHandler.isLocalRepositoryTailSupported("4.0.0-rc-2"), is(true));
+        assertThat(RepositoryEventHandler.isLocalRepositoryTailSupported("3.8.8"), is(false));
+        assertThat(RepositoryEventHandler.isLocalRepositoryTailSupported("3.3.9"), is(false));
+        // unknown
+        assertThat(RepositoryEventHandler.isLocalRepositoryTailSupported(null), is(true));
+        assertThat(RepositoryEventHandler.isLocalRepositoryTailSupported("unknown"), is(true));
+    }
+
+    private void download(RepositoryEventHandler handler, Artifact artifact, String path) throws Exception {
+        File file = new File(localRepository, path);
+        file.getParentFile().mkdirs();
+        FileUtils.fileWrite(file.getPath(), "UTF-8", "jar");
+        handler.handle(new RepositoryEvent.Builder(session, RepositoryEvent.EventType.ARTIFACT_DOWNLOADING)
+                .setArtifact(artifact).setRepository(central).build());
+        handler.handle(new RepositoryEvent.Builder(session, RepositoryEvent.EventType.ARTIFACT_DOWNLOADED)
+                .setArtifact(artifact).setRepository(central).setFile(file).build());
+    }
+
+    private static class SimpleLocalRepositoryManager implements LocalRepositoryManager {
+        private final LocalRepository repository;
+
+        SimpleLocalRepositoryManager(LocalRepository repository) {
+            this.repository = repository;
+        }
+
+        public LocalRepository getRepository() {
+            return repository;
+        }
+
+        public String getPathForLocalArtifact(Artifact artifact) {
+            throw new UnsupportedOperationException();
+        }
+
+        public String getPathForRemoteArtifact(Artifact artifact, RemoteRepository repository, String context) {
+            throw new UnsupportedOperationException();
+        }
+
+        public String getPathForLocalMetadata(Metadata metadata) {
+            throw new UnsupportedOperationException();
+        }
+
+        public String getPathForRemoteMetadata(Metadata metadata, RemoteRepository repository, String context) {
+            throw new UnsupportedOperationException();
+        }
+
+        public LocalArtifactResult find(RepositorySystemSession session, LocalArtifactRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void add(RepositorySystemSession session, LocalArtifactRegistration request) {
+            throw new UnsupportedOperationException();
+        }
+
+        public LocalMetadataResult find(RepositorySystemSession session, LocalMetadataRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void add(RepositorySystemSession session, LocalMetadataRegistration request) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2016, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.pipeline.maven.eventspy.reporter;
+
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author <a href="mailto:cleclerc@cloudbees.com">Cyrille Le Clerc</a>
+ */
+public class StreamingMavenEventReporterTest {
+
+    @Before
+    public void before() throws Exception {
+        System.setProperty("org.jenkinsci.plugins.pipeline.maven.reportsFolder", "target");
+    }
+
+    @Test
+    public void test_events_are_streamed_and_written_in_the_report_file() throws Exception {
+        ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+        try {
+            FileMavenEventReporter fileReporter = new FileMavenEventReporter();
+            StreamingMavenEventReporter reporter = new StreamingMavenEventReporter(fileReporter, serverSocket.getLocalPort(), "a-token");
+            Socket socket = serverSocket.accept();
+
+            Xpp3Dom element = new Xpp3Dom("ExecutionEvent");
+            element.setAttribute("type", "ProjectStarted");
+            reporter.print(element);
+            reporter.print("a comment that is not streamed");
+            reporter.close();
+
+            List<String> frames = new ArrayList<String>();
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            try {
+                while (true) {
+                    byte[] frame = new byte[in.readInt()];
+                    in.readFully(frame);
+                    frames.add(new String(frame, "UTF-8"));
+                }
+            } catch (EOFException e) {
+                // end of stream
+            }
+            socket.close();
+
+            String logFileName = fileReporter.getFinalFile().getName();
+            Assert.assertThat(logFileName.endsWith(".log"), CoreMatchers.is(true));
+            Assert.assertThat(frames.size(), CoreMatchers.is(4));
+            Assert.assertThat(frames.get(0), CoreMatchers.is("a-token"));
+            Assert.assertThat(frames.get(1), CoreMatchers.containsString("<streamHeader logFile=\"" + logFileName + "\""));
+            Assert.assertThat(frames.get(2), CoreMatchers.containsString("<ExecutionEvent "));
+            Assert.assertThat(frames.get(2), CoreMatchers.containsString("type=\"ProjectStarted\""));
+            Assert.assertThat(frames.get(2), CoreMatchers.containsString("_time=\""));
+            Assert.assertThat(frames.get(3), CoreMatchers.containsString("<streamEnd logFile=\"" + logFileName + "\""));
+            Assert.assertThat(reporter.isStreaming(), CoreMatchers.is(true));
+        } finally {
+            serverSocket.close();
+        }
+    }
+}